@@ -0,0 +1,112 @@
+package com.xl.redisaux.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 21:10
+ * 对比getbit/setbit循环与bitfield脚本在不同批量大小下的耗时，chunk为bitfield脚本每次调用携带的子命令数
+ * 需要redis3.2+，见RedisServerSupport
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BitFieldScriptBenchmark {
+
+    private static final long BIT_SIZE = 1L << 24;
+
+    @Param({"setbit", "bitfield"})
+    private String script;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int batchSize;
+
+    @Param({"256"})
+    private int chunkSize;
+
+    @Param({"7"})
+    private int numHashFunctions;
+
+    private RedisServerSupport redisServerSupport;
+
+    private RedisTemplate redisTemplate;
+
+    private DefaultRedisScript setScript;
+
+    private DefaultRedisScript getScript;
+
+    private List<String> keys;
+
+    private Object[] setArgs;
+
+    private Object[] getArgs;
+
+    @Setup
+    public void setup() {
+        redisServerSupport = new RedisServerSupport();
+        redisTemplate = new RedisTemplate();
+        redisTemplate.setConnectionFactory(redisServerSupport.getConnectionFactory());
+        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+        boolean bitField = "bitfield".equals(script);
+        setScript = script(bitField ? "BitFieldSetBitScript.lua" : "SetBitScript.lua", null);
+        getScript = script(bitField ? "BitFieldGetBitScript.lua" : "GetBitScript.lua", List.class);
+        keys = Collections.singletonList("benchmark:bitfield");
+        Random random = new Random(1);
+        setArgs = new Object[batchSize * numHashFunctions];
+        getArgs = new Object[setArgs.length + 1];
+        getArgs[0] = Long.valueOf(numHashFunctions);
+        for (int i = 0; i < setArgs.length; i++) {
+            setArgs[i] = Long.valueOf((long) (random.nextDouble() * BIT_SIZE));
+            getArgs[i + 1] = setArgs[i];
+        }
+        redisTemplate.delete(keys);
+        redisTemplate.execute(setScript, keys, setArgs);
+    }
+
+    private DefaultRedisScript script(String name, Class resultType) {
+        try {
+            String text = StreamUtils.copyToString(new ClassPathResource(name).getInputStream(), StandardCharsets.UTF_8);
+            DefaultRedisScript script = new DefaultRedisScript();
+            script.setScriptText(text.replace("local chunk = 256", "local chunk = " + chunkSize));
+            script.setResultType(resultType);
+            return script;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(keys);
+        redisServerSupport.close();
+    }
+
+    @Benchmark
+    public Object setBatch() {
+        return redisTemplate.execute(setScript, keys, setArgs);
+    }
+
+    @Benchmark
+    public Object getBatch() {
+        return redisTemplate.execute(getScript, keys, getArgs);
+    }
+}
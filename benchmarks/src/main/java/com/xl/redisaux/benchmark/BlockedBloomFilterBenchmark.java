@@ -0,0 +1,109 @@
+package com.xl.redisaux.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBlockedBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:55
+ * 分块布局(MURMUR128_BLOCKED + LocalBlockedBitArray)与原来的布局(MURMUR128_MITZ_64_FLAT + LocalBitArray)单次读写的耗时
+ * 位数组越大，原来的布局每次查询的k次缓存未命中越明显；查询的元素远多于缓存能容纳的块数
+ * 元素按顺序访问，元素本身和预先算好的位数可以被预取，位数组的访问由hash打散
+ * getIndexed只包含位数组的访问，mightContain等还包含hash的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BlockedBloomFilterBenchmark {
+
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(Charsets.UTF_8);
+
+    private static final int MEMBER_COUNT = 1 << 20;
+
+    @Param({"1048576", "104857600", "1073741824"})
+    private long bitSize;
+
+    @Param({"standard", "blocked"})
+    private String layout;
+
+    @Param({"7"})
+    private int numHashFunctions;
+
+    private Strategy strategy;
+
+    private BitArray bitArray;
+
+    private String[] members;
+
+    private String[] absents;
+
+    private long[][] indexs;
+
+    @Setup
+    public void setup() {
+        if ("blocked".equals(layout)) {
+            strategy = RedisBloomFilterStrategies.MURMUR128_BLOCKED.getStrategy();
+            bitArray = new LocalBlockedBitArray("benchmark", bitSize);
+        } else {
+            strategy = RedisBloomFilterStrategies.MURMUR128_MITZ_64_FLAT.getStrategy();
+            bitArray = new LocalBitArray("benchmark", bitSize);
+        }
+        members = new String[MEMBER_COUNT];
+        absents = new String[MEMBER_COUNT];
+        indexs = new long[MEMBER_COUNT][];
+        List<String> batch = new ArrayList(1024);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            members[i] = "member-" + i;
+            absents[i] = "absent-" + i;
+            indexs[i] = strategy.getIndexs(members[i], FUNNEL, numHashFunctions, bitArray.bitSize());
+            batch.add(members[i]);
+            if (batch.size() == 1024) {
+                strategy.putAll(FUNNEL, numHashFunctions, bitArray, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Position {
+        private int position;
+
+        int next() {
+            return position++ & (MEMBER_COUNT - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean getIndexed(Position position) {
+        return bitArray.get(indexs[position.next()]);
+    }
+
+    @Benchmark
+    public boolean mightContainHit(Position position) {
+        return strategy.mightContain(members[position.next()], FUNNEL, numHashFunctions, bitArray);
+    }
+
+    @Benchmark
+    public boolean mightContainMiss(Position position) {
+        return strategy.mightContain(absents[position.next()], FUNNEL, numHashFunctions, bitArray);
+    }
+
+    @Benchmark
+    public boolean put(Position position) {
+        return strategy.put(members[position.next()], FUNNEL, numHashFunctions, bitArray);
+    }
+}
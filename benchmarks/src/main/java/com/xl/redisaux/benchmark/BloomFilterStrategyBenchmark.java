@@ -0,0 +1,81 @@
+package com.xl.redisaux.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 16:20
+ * 各hash策略计算位数的耗时，以及在LocalBitArray上批量读写(排除redis的影响)
+ * 分配情况可加-prof gc查看
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BloomFilterStrategyBenchmark {
+
+    private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(Charsets.UTF_8);
+
+    private static final long BIT_SIZE = 1L << 24;
+
+    @Param({"MURMUR128_MITZ_64", "MURMUR128_MITZ_64_FLAT", "MURMUR128_MITZ_32"})
+    private String strategyName;
+
+    @Param({"7"})
+    private int numHashFunctions;
+
+    @Param({"100"})
+    private int batchSize;
+
+    private Strategy strategy;
+
+    private LocalBitArray bitArray;
+
+    private String member;
+
+    private List<String> members;
+
+    @Setup
+    public void setup() {
+        strategy = RedisBloomFilterStrategies.valueOf(strategyName).getStrategy();
+        bitArray = new LocalBitArray("benchmark", BIT_SIZE);
+        member = "member-0123456789";
+        members = new ArrayList(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            members.add("member-" + i);
+        }
+        strategy.putAll(FUNNEL, numHashFunctions, bitArray, members);
+    }
+
+    @Benchmark
+    public long[] getIndexs() {
+        return strategy.getIndexs(member, FUNNEL, numHashFunctions, BIT_SIZE);
+    }
+
+    @Benchmark
+    public boolean mightContain() {
+        return strategy.mightContain(member, FUNNEL, numHashFunctions, bitArray);
+    }
+
+    @Benchmark
+    public List<Boolean> mightContains() {
+        return strategy.mightContains(FUNNEL, numHashFunctions, bitArray, members);
+    }
+
+    @Benchmark
+    public boolean putAll() {
+        return strategy.putAll(FUNNEL, numHashFunctions, bitArray, members);
+    }
+}
@@ -0,0 +1,56 @@
+package com.xl.redisaux.benchmark;
+
+import com.xl.redisaux.common.utils.IpCheckUtil;
+import com.xl.redisaux.common.utils.IpRuleHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 16:20
+ * 黑白名单匹配：单个ip、范围、网段三种规则，以及IpRuleHolder按前缀查找规则
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IpCheckBenchmark {
+
+    private static final String GROUP_ID = "benchmark";
+
+    @Param({"192.168.1.*;10.0.0.1", "192.168.0.0/16", "192.168.0.1-192.168.3.255"})
+    private String rule;
+
+    @Param({"192.168.2.100", "172.16.0.1"})
+    private String ip;
+
+    private Set<String> ruleSet;
+
+    private IpRuleHolder ruleHolder;
+
+    @Setup
+    public void setup() {
+        ruleSet = IpCheckUtil.parseRule(rule);
+        ruleHolder = new IpRuleHolder();
+        ruleHolder.addRule(rule, GROUP_ID);
+    }
+
+    @Benchmark
+    public boolean isFit() {
+        return IpCheckUtil.isFit(ip, ruleSet);
+    }
+
+    @Benchmark
+    public Set<String> getRuleFromIp() {
+        return ruleHolder.getRuleFromIp(ip, GROUP_ID);
+    }
+
+    @Benchmark
+    public Set<String> parseRule() {
+        return IpCheckUtil.parseRule(rule);
+    }
+}
@@ -0,0 +1,90 @@
+package com.xl.redisaux.benchmark;
+
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBitArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 16:20
+ * LocalBitArray单线程读写，以及读写线程同时访问时的cas竞争
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalBitArrayBenchmark {
+
+    private static final int INDEX_COUNT = 1 << 16;
+
+    @Param({"7"})
+    private int numHashFunctions;
+
+    /**
+     * 位数越小，写线程落在同一个long上的概率越高
+     */
+    @Param({"1024", "16777216"})
+    private long bitSize;
+
+    private LocalBitArray bitArray;
+
+    @Setup
+    public void setup() {
+        bitArray = new LocalBitArray("benchmark", bitSize);
+    }
+
+    @State(Scope.Thread)
+    public static class Indexs {
+        private long[][] indexs;
+        private int position;
+
+        @Setup
+        public void setup(LocalBitArrayBenchmark benchmark) {
+            Random random = new Random(Thread.currentThread().getId());
+            indexs = new long[INDEX_COUNT][benchmark.numHashFunctions];
+            for (long[] index : indexs) {
+                for (int i = 0; i < index.length; i++) {
+                    index[i] = (long) (random.nextDouble() * benchmark.bitSize);
+                }
+            }
+        }
+
+        long[] next() {
+            return indexs[position++ & (INDEX_COUNT - 1)];
+        }
+    }
+
+    @Benchmark
+    public boolean set(Indexs indexs) {
+        return bitArray.set(indexs.next());
+    }
+
+    @Benchmark
+    public boolean get(Indexs indexs) {
+        return bitArray.get(indexs.next());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public boolean contendedSet(Indexs indexs) {
+        return bitArray.set(indexs.next());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public boolean contendedGet(Indexs indexs) {
+        return bitArray.get(indexs.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean threadsSet(Indexs indexs) {
+        return bitArray.set(indexs.next());
+    }
+}
@@ -0,0 +1,95 @@
+package com.xl.redisaux.benchmark;
+
+import com.xl.redisaux.limiter.autoconfigure.LimiterRedisTemplateConfig;
+import com.xl.redisaux.limiter.autoconfigure.RedisLimiterAutoConfiguration;
+import com.xl.redisaux.limiter.config.FunnelRateConfig;
+import com.xl.redisaux.limiter.config.LimiteGroupConfig;
+import com.xl.redisaux.limiter.config.TokenRateConfig;
+import com.xl.redisaux.limiter.config.WindowRateConfig;
+import com.xl.redisaux.limiter.core.BaseRateLimiter;
+import com.xl.redisaux.limiter.core.FunnelRateLimiter;
+import com.xl.redisaux.limiter.core.TokenRateLimiter;
+import com.xl.redisaux.limiter.core.WindowRateLimiter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 16:20
+ * 三种限流器一次canExecute的耗时，脚本与自动配置中的一致，需要redis，见RedisServerSupport
+ * 每个线程用不同的methodKey，各自一个限流键
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"window", "windowBucket", "token", "funnel"})
+    private String limiterType;
+
+    private RedisServerSupport redisServerSupport;
+
+    private RedisTemplate redisTemplate;
+
+    private BaseRateLimiter rateLimiter;
+
+    private LimiteGroupConfig groupConfig;
+
+    @Setup
+    public void setup() {
+        redisServerSupport = new RedisServerSupport();
+        redisTemplate = new LimiterRedisTemplateConfig().redisTemplate(redisServerSupport.getConnectionFactory());
+        RedisLimiterAutoConfiguration configuration = new RedisLimiterAutoConfiguration();
+        LimiteGroupConfig.Builder builder = LimiteGroupConfig.of().id("benchmark").remark("benchmark").currentMode(0);
+        switch (limiterType) {
+            case "window":
+                rateLimiter = new WindowRateLimiter(redisTemplate, configuration.windowLimitScript());
+                builder.windowConfig(WindowRateConfig.of().passCount(1000L).during(1L).duringUnit(TimeUnit.SECONDS).build());
+                break;
+            case "windowBucket":
+                rateLimiter = new WindowRateLimiter(redisTemplate, configuration.windowLimitScript(), configuration.windowBucketLimitScript());
+                builder.windowConfig(WindowRateConfig.of().passCount(1000L).during(1L).duringUnit(TimeUnit.SECONDS).buckets(10).build());
+                break;
+            case "token":
+                rateLimiter = new TokenRateLimiter(redisTemplate, configuration.tokenLimitScript());
+                builder.tokenConfig(TokenRateConfig.of().capacity(1000.0).tokenRate(1000.0).requestNeed(1.0).initToken(1000.0).tokenRateUnit(TimeUnit.SECONDS).build());
+                break;
+            default:
+                rateLimiter = new FunnelRateLimiter(redisTemplate, configuration.funnelLimitScript());
+                builder.funnelConfig(FunnelRateConfig.of().capacity(1000.0).funnelRate(1000.0).requestNeed(1.0).funnelRateUnit(TimeUnit.SECONDS).build());
+        }
+        groupConfig = builder.build();
+    }
+
+    @State(Scope.Thread)
+    public static class MethodKey {
+        private String methodKey;
+
+        @Setup
+        public void setup() {
+            methodKey = "benchmark:" + Thread.currentThread().getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(redisTemplate.keys("*benchmark*"));
+        redisServerSupport.close();
+    }
+
+    @Benchmark
+    public Boolean canExecute(MethodKey methodKey) {
+        return rateLimiter.canExecute(groupConfig, methodKey.methodKey);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Boolean canExecuteThreads(MethodKey methodKey) {
+        return rateLimiter.canExecute(groupConfig, methodKey.methodKey);
+    }
+}
@@ -0,0 +1,49 @@
+package com.xl.redisaux.benchmark;
+
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 16:20
+ * 基准测试用的redis连接，-Dredis.embedded=true时先启动内置的redis-server
+ */
+public class RedisServerSupport {
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private RedisServer redisServer;
+
+    public RedisServerSupport() {
+        String host = System.getProperty("redis.host", "127.0.0.1");
+        int port = Integer.getInteger("redis.port", 6379);
+        if (Boolean.getBoolean("redis.embedded")) {
+            try {
+                redisServer = new RedisServer(port);
+                redisServer.start();
+            } catch (IOException e) {
+                throw new RedisAuxException("start embedded redis fail:" + e.getMessage());
+            }
+        }
+        connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+    }
+
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public void close() {
+        connectionFactory.destroy();
+        if (redisServer != null) {
+            try {
+                redisServer.stop();
+            } catch (IOException e) {
+                throw new RedisAuxException("stop embedded redis fail:" + e.getMessage());
+            }
+        }
+    }
+}
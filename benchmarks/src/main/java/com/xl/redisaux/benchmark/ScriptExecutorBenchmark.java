@@ -0,0 +1,101 @@
+package com.xl.redisaux.benchmark;
+
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.common.script.EvalShaScriptExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 19:40
+ * RedisBitArray批量查询1000个元素的耗时，对比默认的脚本执行(参数经过jackson，evalsha失败再eval)与EvalShaScriptExecutor
+ * 需要redis，见RedisServerSupport
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptExecutorBenchmark {
+
+    private static final long BIT_SIZE = 1L << 24;
+
+    @Param({"jackson", "binary"})
+    private String executor;
+
+    @Param({"7"})
+    private int numHashFunctions;
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private RedisServerSupport redisServerSupport;
+
+    private RedisTemplate redisTemplate;
+
+    private RedisBitArray bitArray;
+
+    private long[] index;
+
+    @Setup
+    public void setup() {
+        redisServerSupport = new RedisServerSupport();
+        redisTemplate = new RedisTemplate();
+        redisTemplate.setConnectionFactory(redisServerSupport.getConnectionFactory());
+        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        if ("binary".equals(executor)) {
+            redisTemplate.setScriptExecutor(new EvalShaScriptExecutor(redisTemplate));
+        }
+        redisTemplate.afterPropertiesSet();
+        DefaultRedisScript setBitScript = script("SetBitScript.lua", null);
+        DefaultRedisScript getBitScript = script("GetBitScript.lua", List.class);
+        DefaultRedisScript resetBitScript = script("ResetBitScript.lua", null);
+        if ("binary".equals(executor)) {
+            EvalShaScriptExecutor.load(redisTemplate, Arrays.asList(setBitScript, getBitScript, resetBitScript));
+        }
+        bitArray = new RedisBitArray(redisTemplate, "benchmark:script", setBitScript, getBitScript, resetBitScript, BIT_SIZE);
+        Random random = new Random(1);
+        index = new long[numHashFunctions * batchSize];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = (long) (random.nextDouble() * BIT_SIZE);
+        }
+        bitArray.setBatch(index, numHashFunctions, batchSize);
+    }
+
+    private static DefaultRedisScript script(String name, Class resultType) {
+        try {
+            DefaultRedisScript script = new DefaultRedisScript();
+            script.setScriptText(StreamUtils.copyToString(new ClassPathResource(name).getInputStream(), StandardCharsets.UTF_8));
+            script.setResultType(resultType);
+            return script;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(bitArray.getKey());
+        redisServerSupport.close();
+    }
+
+    @Benchmark
+    public List<Boolean> getBatch() {
+        return bitArray.getBatch(index, numHashFunctions, batchSize);
+    }
+}
@@ -0,0 +1,59 @@
+package com.xl.redisaux.benchmark;
+
+import com.xl.redisaux.common.utils.qps.WindowQpsCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 16:20
+ * qps统计在单线程和多线程下的开销，窗口设得较短，测试期间会不断切换桶
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WindowQpsCounterBenchmark {
+
+    @Param({"10"})
+    private int bucketSize;
+
+    @Param({"1000"})
+    private int intervalMillis;
+
+    private WindowQpsCounter counter;
+
+    @Setup
+    public void setup() {
+        counter = new WindowQpsCounter(bucketSize, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    public void pass() {
+        counter.pass(true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void passThreads() {
+        counter.pass(true);
+    }
+
+    @Benchmark
+    @Group("passAndSum")
+    @GroupThreads(3)
+    public void passWhileSum() {
+        counter.pass(true);
+    }
+
+    @Benchmark
+    @Group("passAndSum")
+    @GroupThreads(1)
+    public Map<String, String> sumWhilePass() {
+        return counter.getSum();
+    }
+}
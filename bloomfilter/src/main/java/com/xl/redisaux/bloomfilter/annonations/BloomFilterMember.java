@@ -0,0 +1,19 @@
+package com.xl.redisaux.bloomfilter.annonations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 作为布隆过滤器元素的类，由FunnelRegistry按字段生成funnel，不需要先转成字符串
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BloomFilterMember {
+    /**
+     * 参与hash的字段及顺序，为空时取所有非static、非transient的字段(包括父类的)，按字段名排序
+     * 顺序决定hash的结果，修改后已有的过滤器不再可用
+     */
+    String[] fields() default {};
+}
@@ -20,4 +20,29 @@ public @interface BloomFilterProperty {
     TimeUnit timeUnit() default TimeUnit.SECONDS;
 
     boolean local() default false;
+
+    /**
+     * 使用内存映射文件保存位数组，重启后可恢复，隐含local
+     */
+    boolean mapped() default false;
+
+    /**
+     * 可扩容，插入超过exceptionInsert后自动新增更大的子过滤器
+     */
+    boolean scalable() default false;
+
+    /**
+     * 计数器的位数，4或8时为支持删除的计数布隆过滤器，0为普通的位数组
+     */
+    int counterBits() default 0;
+
+    /**
+     * 分块布局，一个元素的所有位落在同一个512位的块内，本地查询只访问相邻的8个long
+     */
+    boolean blocked() default false;
+
+    /**
+     * 按时间轮转的片数，大于1时timeout为窗口的长度，只写最新的一片，最旧的一片到期后丢弃
+     */
+    int slices() default 0;
 }
\ No newline at end of file
@@ -20,4 +20,50 @@ public @interface EnableBloomFilter {
 
     String[] bloomFilterPath() default "";
 
+    //是否用bitfield批量读写位，需要redis3.2+
+    boolean bitField() default false;
+
+    //单条bitfield命令包含的下标个数
+    int bitFieldChunkSize() default 256;
+
+    //是否在本地缓存redis布隆过滤器的查询结果
+    boolean nearCache() default false;
+
+    //每个过滤器本地缓存的最大条数，存在和不存在分别计算
+    long nearCacheSize() default 10000;
+
+    //不存在的结果缓存的毫秒数
+    long nearCacheNegativeTtl() default 1000;
+
+    //存在的结果缓存的毫秒数，其他节点reset或删除后最多在这段时间内仍返回存在
+    long nearCachePositiveTtl() default 60000;
+
+    //是否在本地保存redis过滤器的副本，查询读本地，后台增量同步其他节点的写入，优先于nearCache
+    boolean mirror() default false;
+
+    //副本同步的间隔毫秒数
+    long mirrorSyncInterval() default 1000;
+
+    //距上次同步成功超过该毫秒数时，查询改为直接访问redis
+    long mirrorMaxStaleness() default 10000;
+
+    //副本按段同步，每段的字节数
+    int mirrorSegmentBytes() default 65536;
+
+    //mapped过滤器的文件目录，默认为java.io.tmpdir下的redis-aux-bloomfilter
+    String mappedFileDir() default "";
+
+    //redis过滤器单个键存放的最大位数，超过后拆成多个子键
+    long redisShardBitSize() default 4294967296L;
+
+    //hash策略，RedisBloomFilterStrategies的名字，为空时按jvm位数选择
+    String strategy() default "";
+
+    //新建过滤器使用的hash策略，为空时与strategy一致；redis上的过滤器按元数据中记录的策略读写，没有元数据的按strategy
+    String newFilterStrategy() default "";
+
+    //启动时扫描redis上的元数据，预先加载其他节点创建的过滤器；关闭或集群下在第一次访问时按键加载
+    //扫描会遍历整个库，键很多时会拖慢启动，默认关闭
+    boolean prefetchMeta() default false;
+
 }
@@ -2,6 +2,7 @@ package com.xl.redisaux.bloomfilter.autoconfigure;
 
 
 import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.script.EvalShaScriptExecutor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -23,6 +24,8 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
         redisTemplate.setValueSerializer(jackson2JsonRedisSerializer);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        //脚本参数不经过jackson，并且只用evalsha执行
+        redisTemplate.setScriptExecutor(new EvalShaScriptExecutor(redisTemplate));
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
     }
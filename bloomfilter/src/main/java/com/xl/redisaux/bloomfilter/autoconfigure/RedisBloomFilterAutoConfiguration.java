@@ -4,10 +4,18 @@ import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
 import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
 import com.xl.redisaux.bloomfilter.support.BitArrayOperator;
 import com.xl.redisaux.bloomfilter.core.FunnelEnum;
+import com.xl.redisaux.bloomfilter.core.funnel.FunnelRegistry;
+import com.xl.redisaux.bloomfilter.core.filter.AsyncRedisBloomFilter;
+import com.xl.redisaux.bloomfilter.core.filter.ReactiveRedisBloomFilter;
 import com.xl.redisaux.bloomfilter.core.filter.RedisBloomFilter;
 import com.xl.redisaux.bloomfilter.core.filter.RedisBloomFilterItem;
+import com.xl.redisaux.bloomfilter.core.filter.RedisCuckooFilter;
+import com.xl.redisaux.bloomfilter.core.filter.RedisCuckooFilterItem;
 import com.xl.redisaux.bloomfilter.support.expire.CheckTask;
 import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import com.xl.redisaux.common.script.EvalShaScriptExecutor;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
@@ -19,6 +27,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,19 +57,90 @@ class RedisBloomFilterAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(RedisBloomFilter.class)
     public RedisBloomFilter redisBloomFilter() {
-        Properties properties = System.getProperties();
-        String property = properties.getProperty("sun.arch.data.model");
-        Strategy strategy = RedisBloomFilterStrategies.getStrategy(property);
+        Strategy strategy = strategy(RedisBloomFilterRegistar.strategy);
         if (strategy == null) {
-            strategy = RedisBloomFilterStrategies.MURMUR128_MITZ_32.getStrategy();
+            Properties properties = System.getProperties();
+            String property = properties.getProperty("sun.arch.data.model");
+            strategy = RedisBloomFilterStrategies.getStrategy(property);
+            if (strategy == null) {
+                strategy = RedisBloomFilterStrategies.MURMUR128_MITZ_32.getStrategy();
+            }
+        }
+        Strategy newFilterStrategy = strategy(RedisBloomFilterRegistar.newFilterStrategy);
+        if (newFilterStrategy == null) {
+            newFilterStrategy = strategy;
         }
         Map<Class, RedisBloomFilterItem> map = new HashMap(FunnelEnum.values().length);
         for (FunnelEnum funnelEnum : FunnelEnum.values()) {
-            RedisBloomFilterItem item = RedisBloomFilterItem.create(funnelEnum.getFunnel(), strategy, redisBitArrayFactory());
+            RedisBloomFilterItem item = RedisBloomFilterItem.create(funnelEnum.getFunnel(), strategy, newFilterStrategy, redisBitArrayFactory());
             checkTask().addListener(item);
             map.put(funnelEnum.getCode(), item);
         }
-        return new RedisBloomFilter(map);
+        RedisBloomFilter redisBloomFilter = new RedisBloomFilter(map, redisBitArrayFactory(), funnelRegistry(), strategy, newFilterStrategy, checkTask());
+        if (RedisBloomFilterRegistar.prefetchMeta) {
+            redisBloomFilter.prefetch();
+        }
+        return redisBloomFilter;
+    }
+
+    /**
+     * 按名字取策略，为空时返回null
+     */
+    private Strategy strategy(String name) {
+        if (name == null || name.trim().equals("")) {
+            return null;
+        }
+        try {
+            return RedisBloomFilterStrategies.valueOf(name.trim()).getStrategy();
+        } catch (IllegalArgumentException e) {
+            throw new RedisAuxException("unknown bloom filter strategy:" + name);
+        }
+    }
+
+    /**
+     * 元素类型到funnel的注册表，可以注入后注册其他类型，或者自定义该bean
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean(FunnelRegistry.class)
+    public FunnelRegistry funnelRegistry() {
+        return new FunnelRegistry();
+    }
+
+    /**
+     * 注册RedisCuckooFilter类
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean(RedisCuckooFilter.class)
+    public RedisCuckooFilter redisCuckooFilter() {
+        Map<Class, RedisCuckooFilterItem> map = new HashMap(FunnelEnum.values().length);
+        for (FunnelEnum funnelEnum : FunnelEnum.values()) {
+            RedisCuckooFilterItem item = RedisCuckooFilterItem.create(funnelEnum.getFunnel(), redisBitArrayFactory());
+            checkTask().addListener(item);
+            map.put(funnelEnum.getCode(), item);
+        }
+        return new RedisCuckooFilter(map);
+    }
+
+    /**
+     * 异步及reactor版本，依赖lettuce的异步连接，使用jedis时不注册
+     */
+    @Configuration
+    @ConditionalOnClass(name = {"io.lettuce.core.RedisClient", "reactor.core.publisher.Mono"})
+    static class AsyncBloomFilterConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(AsyncRedisBloomFilter.class)
+        public AsyncRedisBloomFilter asyncRedisBloomFilter(RedisBloomFilter redisBloomFilter, @Qualifier(BloomFilterConstants.INNERTEMPLATE) RedisTemplate redisTemplate) {
+            return new AsyncRedisBloomFilter(redisBloomFilter, new AsyncScriptExecutor(redisTemplate));
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(ReactiveRedisBloomFilter.class)
+        public ReactiveRedisBloomFilter reactiveRedisBloomFilter(AsyncRedisBloomFilter asyncRedisBloomFilter) {
+            return new ReactiveRedisBloomFilter(asyncRedisBloomFilter);
+        }
     }
 
     @Bean(name = "resetBitScript")
@@ -72,14 +153,92 @@ class RedisBloomFilterAutoConfiguration {
     @Bean(name = "setBitScript")
     public DefaultRedisScript setBitScript() {
         DefaultRedisScript script = new DefaultRedisScript();
-        script.setScriptText(setBitScripStr());
+        script.setScriptText(RedisBloomFilterRegistar.bitField ? bitFieldSetBitScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize) : setBitScripStr());
         return script;
     }
 
     @Bean(name = "getBitScript")
     public DefaultRedisScript getBitScript() {
         DefaultRedisScript<List> script = new DefaultRedisScript();
-        script.setScriptText(getBitScriptStr());
+        script.setScriptText(RedisBloomFilterRegistar.bitField ? bitFieldGetBitScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize) : getBitScriptStr());
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "multiGetBitScript")
+    public DefaultRedisScript multiGetBitScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(RedisBloomFilterRegistar.bitField ? bitFieldMultiGetBitScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize) : multiGetBitScriptStr());
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "multiSetBitScript")
+    public DefaultRedisScript multiSetBitScript() {
+        DefaultRedisScript script = new DefaultRedisScript();
+        script.setScriptText(RedisBloomFilterRegistar.bitField ? bitFieldMultiSetBitScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize) : multiSetBitScriptStr());
+        return script;
+    }
+
+
+    @Bean(name = "mirrorSetBitScript")
+    public DefaultRedisScript mirrorSetBitScript() {
+        DefaultRedisScript script = new DefaultRedisScript();
+        script.setScriptText(mirrorSetBitScriptStr());
+        return script;
+    }
+
+    @Bean(name = "metaScript")
+    public DefaultRedisScript metaScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(metaScriptStr());
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "countingSetScript")
+    public DefaultRedisScript countingSetScript() {
+        DefaultRedisScript script = new DefaultRedisScript();
+        script.setScriptText(countingSetScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize));
+        return script;
+    }
+
+    @Bean(name = "countingGetScript")
+    public DefaultRedisScript countingGetScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(countingGetScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "countingRemoveScript")
+    public DefaultRedisScript countingRemoveScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(countingRemoveScriptStr(RedisBloomFilterRegistar.bitFieldChunkSize));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "cuckooInsertScript")
+    public DefaultRedisScript cuckooInsertScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(cuckooInsertScriptStr());
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "cuckooContainsScript")
+    public DefaultRedisScript cuckooContainsScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(cuckooContainsScriptStr());
+        script.setResultType(List.class);
+        return script;
+    }
+
+    @Bean(name = "cuckooDeleteScript")
+    public DefaultRedisScript cuckooDeleteScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript();
+        script.setScriptText(cuckooDeleteScriptStr());
         script.setResultType(List.class);
         return script;
     }
@@ -87,14 +246,36 @@ class RedisBloomFilterAutoConfiguration {
 
     @Bean
     public BitArrayOperator redisBitArrayFactory() {
+        EvalShaScriptExecutor.load(redisTemplate, Arrays.asList(setBitScript(), getBitScript(), resetBitScript(), multiGetBitScript(), multiSetBitScript(),
+                countingSetScript(), countingGetScript(), countingRemoveScript(), cuckooInsertScript(), cuckooContainsScript(), cuckooDeleteScript(),
+                mirrorSetBitScript(), metaScript()));
 
-        return new BitArrayOperator(
+        BitArrayOperator bitArrayOperator = new BitArrayOperator(
                 setBitScript(),
                 getBitScript(),
                 resetBitScript(),
+                multiGetBitScript(),
+                multiSetBitScript(),
                 redisTemplate,
                 checkTask()
         );
+        String mappedFileDir = RedisBloomFilterRegistar.mappedFileDir;
+        if (mappedFileDir == null || mappedFileDir.trim().equals("")) {
+            mappedFileDir = new File(System.getProperty("java.io.tmpdir"), BloomFilterConstants.DEFAULT_MAPPED_FILE_DIR).getAbsolutePath();
+        }
+        bitArrayOperator.setMappedFileDir(new File(mappedFileDir));
+        bitArrayOperator.setRedisShardBitSize(RedisBloomFilterRegistar.redisShardBitSize);
+        bitArrayOperator.setCountingScripts(countingSetScript(), countingGetScript(), countingRemoveScript());
+        bitArrayOperator.setCuckooScripts(cuckooInsertScript(), cuckooContainsScript(), cuckooDeleteScript());
+        bitArrayOperator.setMetaScript(metaScript());
+        if (RedisBloomFilterRegistar.nearCache) {
+            bitArrayOperator.enableNearCache(RedisBloomFilterRegistar.nearCacheSize, RedisBloomFilterRegistar.nearCacheNegativeTtl, RedisBloomFilterRegistar.nearCachePositiveTtl);
+        }
+        if (RedisBloomFilterRegistar.mirror) {
+            bitArrayOperator.enableMirror(mirrorSetBitScript(), RedisBloomFilterRegistar.mirrorSegmentBytes,
+                    RedisBloomFilterRegistar.mirrorSyncInterval, RedisBloomFilterRegistar.mirrorMaxStaleness);
+        }
+        return bitArrayOperator;
     }
 
     @Bean
@@ -130,6 +311,111 @@ class RedisBloomFilterAutoConfiguration {
         return builder.toString();
     }
 
+    private String multiGetBitScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local array = {}\n").append("local p = 1\n").append("local n = 1\n")
+                .append("for k = 1, table.getn(KEYS)\n").append("do\n")
+                .append("    local count = tonumber(ARGV[p])\n").append("    local bitL = tonumber(ARGV[p + 1])\n")
+                .append("    p = p + 2\n").append("    for index = 1, count\n").append("    do\n")
+                .append("        local exists = 1\n").append("        for i = p, p + bitL - 1\n").append("        do\n")
+                .append("            if redis.call('getbit', KEYS[k], ARGV[i]) == 0 then\n")
+                .append("                exists = 0\n").append("                break\n").append("            end\n")
+                .append("        end\n").append("        array[n] = exists\n").append("        n = n + 1\n")
+                .append("        p = p + bitL\n").append("    end\n").append("end\nreturn array");
+        return builder.toString();
+    }
+
+    /**
+     * 与setBitScript结果一致，下标按chunkSize个一组合并成一条bitfield SET u1命令
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String bitFieldSetBitScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local kL = table.getn(KEYS)\n")
+                .append("local aL = table.getn(ARGV)\n").append("for i = 1, kL\n")
+                .append("do\n").append("    local start = 1\n")
+                .append("    while start <= aL\n").append("    do\n")
+                .append("        local last = math.min(start + chunk - 1, aL)\n").append("        local ops = {}\n")
+                .append("        local n = 0\n").append("        for k = start, last\n")
+                .append("        do\n").append("            ops[n + 1] = 'SET'\n")
+                .append("            ops[n + 2] = 'u1'\n").append("            ops[n + 3] = ARGV[k]\n")
+                .append("            ops[n + 4] = 1\n").append("            n = n + 4\n")
+                .append("        end\n").append("        redis.call('bitfield', KEYS[i], unpack(ops))\n")
+                .append("        start = last + 1\n").append("    end\n")
+                .append("end\n");
+        return builder.toString();
+    }
+
+    /**
+     * 与getBitScript结果一致，下标按chunkSize个一组用bitfield GET u1取出后再判断
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String bitFieldGetBitScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local bitL = tonumber(ARGV[1])\n")
+                .append("local aL = table.getn(ARGV) - 1\n").append("local kL = table.getn(KEYS)\n")
+                .append("local bits = {}\n").append("for k = 1, kL\n")
+                .append("do\n").append("    local start = 2\n")
+                .append("    while start <= aL + 1\n").append("    do\n")
+                .append("        local last = math.min(start + chunk - 1, aL + 1)\n").append("        local ops = {}\n")
+                .append("        local n = 0\n").append("        for i = start, last\n")
+                .append("        do\n").append("            ops[n + 1] = 'GET'\n")
+                .append("            ops[n + 2] = 'u1'\n").append("            ops[n + 3] = ARGV[i]\n")
+                .append("            n = n + 3\n").append("        end\n")
+                .append("        local res = redis.call('bitfield', KEYS[k], unpack(ops))\n").append("        for i = start, last\n")
+                .append("        do\n").append("            if k == 1 or res[i - start + 1] == 0 then\n")
+                .append("                bits[i - 1] = res[i - start + 1]\n").append("            end\n")
+                .append("        end\n").append("        start = last + 1\n")
+                .append("    end\n").append("end\n")
+                .append("local array = {}\n").append("for index = 1, aL / bitL\n")
+                .append("do\n").append("    local exists = 1\n")
+                .append("    for i = (index - 1) * bitL + 1, index * bitL\n").append("    do\n")
+                .append("        if bits[i] == 0 then\n").append("            exists = 0\n")
+                .append("            break\n").append("        end\n")
+                .append("    end\n").append("    array[index] = exists\n")
+                .append("end\n").append("return array\n");
+        return builder.toString();
+    }
+
+    /**
+     * 与multiGetBitScript结果一致，每个键的下标按chunkSize个一组用bitfield GET u1取出
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String bitFieldMultiGetBitScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local array = {}\n")
+                .append("local p = 1\n").append("local n = 1\n")
+                .append("for k = 1, table.getn(KEYS)\n").append("do\n")
+                .append("    local count = tonumber(ARGV[p])\n").append("    local bitL = tonumber(ARGV[p + 1])\n")
+                .append("    p = p + 2\n").append("    local first = p\n")
+                .append("    local total = count * bitL\n").append("    local bits = {}\n")
+                .append("    local start = first\n").append("    while start < first + total\n")
+                .append("    do\n").append("        local last = math.min(start + chunk - 1, first + total - 1)\n")
+                .append("        local ops = {}\n").append("        local m = 0\n")
+                .append("        for i = start, last\n").append("        do\n")
+                .append("            ops[m + 1] = 'GET'\n").append("            ops[m + 2] = 'u1'\n")
+                .append("            ops[m + 3] = ARGV[i]\n").append("            m = m + 3\n")
+                .append("        end\n").append("        local res = redis.call('bitfield', KEYS[k], unpack(ops))\n")
+                .append("        for i = start, last\n").append("        do\n")
+                .append("            bits[i - first + 1] = res[i - start + 1]\n").append("        end\n")
+                .append("        start = last + 1\n").append("    end\n")
+                .append("    for index = 1, count\n").append("    do\n")
+                .append("        local exists = 1\n").append("        for i = (index - 1) * bitL + 1, index * bitL\n")
+                .append("        do\n").append("            if bits[i] == 0 then\n")
+                .append("                exists = 0\n").append("                break\n")
+                .append("            end\n").append("        end\n")
+                .append("        array[n] = exists\n").append("        n = n + 1\n")
+                .append("    end\n").append("    p = first + total\n")
+                .append("end\n").append("return array\n");
+        return builder.toString();
+    }
+
     private String resetBitScriptStr() {
         StringBuilder builder = new StringBuilder();
         builder.append("local key = KEYS[1]\n")
@@ -149,5 +435,307 @@ class RedisBloomFilterAutoConfiguration {
         return builder.toString();
     }
 
+    /**
+     * 多个键各自设置不同的下标，用于分片的位数组
+     *
+     * @return
+     */
+    private String multiSetBitScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local p = 1\n").append("for k = 1, table.getn(KEYS)\n")
+                .append("do\n").append("    local count = tonumber(ARGV[p])\n")
+                .append("    for i = p + 1, p + count\n").append("    do redis.call('setbit', KEYS[k], tonumber(ARGV[i]), 1)\n")
+                .append("    end\n").append("    p = p + count + 1\n")
+                .append("end\n");
+        return builder.toString();
+    }
+
+    /**
+     * 过滤器的元数据，ARGV依次为策略、hash函数个数、位数、是否覆盖、计数器位数、过滤器的键、元素类型
+     * 不覆盖时只在不存在时写入，返回redis上的策略、hash函数个数、位数、计数器位数；旧的元数据补上键和类型，供其他节点发现
+     *
+     * @return
+     */
+    private String metaScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local key = KEYS[1]\n")
+                .append("if ARGV[4] == '1' then\n").append("    redis.call('del', key)\n").append("end\n")
+                .append("local meta = redis.call('hmget', key, '" + BloomFilterConstants.META_STRATEGY_FIELD + "', '"
+                        + BloomFilterConstants.META_HASH_FUNCTIONS_FIELD + "', '" + BloomFilterConstants.META_BIT_SIZE_FIELD + "', '"
+                        + BloomFilterConstants.META_COUNTER_BITS_FIELD + "')\n")
+                .append("if meta[1] and meta[2] and meta[3] then\n")
+                .append("    redis.call('hsetnx', key, '" + BloomFilterConstants.META_KEY_FIELD + "', ARGV[6])\n")
+                .append("    redis.call('hsetnx', key, '" + BloomFilterConstants.META_TYPE_FIELD + "', ARGV[7])\n")
+                .append("    return {meta[1], meta[2], meta[3], meta[4] or '0'}\n").append("end\n")
+                .append("redis.call('hmset', key, '" + BloomFilterConstants.META_STRATEGY_FIELD + "', ARGV[1], '"
+                        + BloomFilterConstants.META_HASH_FUNCTIONS_FIELD + "', ARGV[2], '" + BloomFilterConstants.META_BIT_SIZE_FIELD + "', ARGV[3], '"
+                        + BloomFilterConstants.META_COUNTER_BITS_FIELD + "', ARGV[5], '" + BloomFilterConstants.META_KEY_FIELD + "', ARGV[6], '"
+                        + BloomFilterConstants.META_TYPE_FIELD + "', ARGV[7])\n")
+                .append("return {ARGV[1], ARGV[2], ARGV[3], ARGV[5]}\n");
+        return builder.toString();
+    }
+
+    /**
+     * 本地副本模式的写入，KEYS[2]为版本号的hash，ARGV[1]为每段的位数，ARGV[2]为epoch，ARGV[3]为直接标记的段数
+     * 有位从0变为1的段和直接标记的段记为递增后的全局版本号
+     *
+     * @return
+     */
+    private String mirrorSetBitScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local segBits = tonumber(ARGV[1])\n").append("local n = tonumber(ARGV[3])\n")
+                .append("local changed = {}\n").append("local any = false\n")
+                .append("for i = 4, n + 3\n").append("do\n")
+                .append("    changed[ARGV[i]] = true\n").append("    any = true\n").append("end\n")
+                .append("for i = n + 4, table.getn(ARGV)\n").append("do\n")
+                .append("    local index = tonumber(ARGV[i])\n")
+                .append("    if redis.call('setbit', KEYS[1], index, 1) == 0 then\n")
+                .append("        changed[tostring(math.floor(index / segBits))] = true\n")
+                .append("        any = true\n").append("    end\n").append("end\n")
+                .append("if any then\n").append("    redis.call('hsetnx', KEYS[2], 'e', ARGV[2])\n")
+                .append("    local v = redis.call('hincrby', KEYS[2], 'v', 1)\n")
+                .append("    for segment in pairs(changed)\n").append("    do\n")
+                .append("        redis.call('hset', KEYS[2], segment, v)\n")
+                .append("    end\n").append("end\n");
+        return builder.toString();
+    }
+
+    /**
+     * 与multiSetBitScript结果一致，每个键的下标按chunkSize个一组合并成一条bitfield SET u1命令
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String bitFieldMultiSetBitScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local p = 1\n")
+                .append("for k = 1, table.getn(KEYS)\n").append("do\n")
+                .append("    local count = tonumber(ARGV[p])\n").append("    local last = p + count\n")
+                .append("    local start = p + 1\n").append("    while start <= last\n")
+                .append("    do\n").append("        local stop = math.min(start + chunk - 1, last)\n")
+                .append("        local ops = {}\n").append("        local n = 0\n")
+                .append("        for i = start, stop\n").append("        do\n")
+                .append("            ops[n + 1] = 'SET'\n").append("            ops[n + 2] = 'u1'\n")
+                .append("            ops[n + 3] = ARGV[i]\n").append("            ops[n + 4] = 1\n")
+                .append("            n = n + 4\n").append("        end\n")
+                .append("        redis.call('bitfield', KEYS[k], unpack(ops))\n").append("        start = stop + 1\n")
+                .append("    end\n").append("    p = last + 1\n")
+                .append("end\n");
+        return builder.toString();
+    }
+
+    /**
+     * 计数布隆过滤器的写入，每个下标对应的计数器用bitfield OVERFLOW SAT INCRBY加1，ARGV[1]为计数器的位数
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String countingSetScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local type = 'u' .. ARGV[1]\n")
+                .append("local aL = table.getn(ARGV)\n").append("local start = 2\n")
+                .append("while start <= aL\n").append("do\n")
+                .append("    local last = math.min(start + chunk - 1, aL)\n").append("    local ops = { 'OVERFLOW', 'SAT' }\n")
+                .append("    local n = 2\n").append("    for k = start, last\n")
+                .append("    do\n").append("        ops[n + 1] = 'INCRBY'\n")
+                .append("        ops[n + 2] = type\n").append("        ops[n + 3] = '#' .. ARGV[k]\n")
+                .append("        ops[n + 4] = 1\n").append("        n = n + 4\n")
+                .append("    end\n").append("    redis.call('bitfield', KEYS[1], unpack(ops))\n")
+                .append("    start = last + 1\n").append("end\n");
+        return builder.toString();
+    }
+
+    /**
+     * 计数布隆过滤器的查询，元素的所有计数器都大于0才认为存在，ARGV[2]为单个元素对应的下标个数
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String countingGetScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local type = 'u' .. ARGV[1]\n")
+                .append("local bitL = tonumber(ARGV[2])\n").append("local aL = table.getn(ARGV)\n")
+                .append("local counters = {}\n").append("local start = 3\n")
+                .append("while start <= aL\n").append("do\n")
+                .append("    local last = math.min(start + chunk - 1, aL)\n").append("    local ops = {}\n")
+                .append("    local n = 0\n").append("    for i = start, last\n")
+                .append("    do\n").append("        ops[n + 1] = 'GET'\n")
+                .append("        ops[n + 2] = type\n").append("        ops[n + 3] = '#' .. ARGV[i]\n")
+                .append("        n = n + 3\n").append("    end\n")
+                .append("    local res = redis.call('bitfield', KEYS[1], unpack(ops))\n").append("    for i = start, last\n")
+                .append("    do\n").append("        counters[i - 2] = res[i - start + 1]\n")
+                .append("    end\n").append("    start = last + 1\n")
+                .append("end\n").append("local array = {}\n")
+                .append("for index = 1, (aL - 2) / bitL\n").append("do\n")
+                .append("    local exists = 1\n").append("    for i = (index - 1) * bitL + 1, index * bitL\n")
+                .append("    do\n").append("        if counters[i] == 0 then\n")
+                .append("            exists = 0\n").append("            break\n")
+                .append("        end\n").append("    end\n")
+                .append("    array[index] = exists\n").append("end\n")
+                .append("return array\n");
+        return builder.toString();
+    }
+
+    /**
+     * 计数布隆过滤器的删除，只删除存在的元素，已经饱和的计数器不再减少，返回每个元素是否删除
+     *
+     * @param chunkSize 单条bitfield命令包含的下标个数
+     * @return
+     */
+    private String countingRemoveScriptStr(int chunkSize) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local chunk = ").append(chunkSize).append("\n").append("local type = 'u' .. ARGV[1]\n")
+                .append("local max = 2 ^ tonumber(ARGV[1]) - 1\n").append("local bitL = tonumber(ARGV[2])\n")
+                .append("local aL = table.getn(ARGV)\n").append("local counters = {}\n")
+                .append("local start = 3\n").append("while start <= aL\n")
+                .append("do\n").append("    local last = math.min(start + chunk - 1, aL)\n")
+                .append("    local ops = {}\n").append("    local n = 0\n")
+                .append("    for i = start, last\n").append("    do\n")
+                .append("        ops[n + 1] = 'GET'\n").append("        ops[n + 2] = type\n")
+                .append("        ops[n + 3] = '#' .. ARGV[i]\n").append("        n = n + 3\n")
+                .append("    end\n").append("    local res = redis.call('bitfield', KEYS[1], unpack(ops))\n")
+                .append("    for i = start, last\n").append("    do\n")
+                .append("        counters[ARGV[i]] = res[i - start + 1]\n").append("    end\n")
+                .append("    start = last + 1\n").append("end\n")
+                .append("local array = {}\n").append("local delta = {}\n")
+                .append("local offsets = {}\n").append("for index = 1, (aL - 2) / bitL\n")
+                .append("do\n").append("    local exists = 1\n")
+                .append("    for i = (index - 1) * bitL + 3, index * bitL + 2\n").append("    do\n")
+                .append("        if counters[ARGV[i]] == 0 then\n").append("            exists = 0\n")
+                .append("            break\n").append("        end\n")
+                .append("    end\n").append("    if exists == 1 then\n")
+                .append("        for i = (index - 1) * bitL + 3, index * bitL + 2\n").append("        do\n")
+                .append("            local offset = ARGV[i]\n").append("            local value = counters[offset]\n")
+                .append("            if value > 0 and value < max then\n").append("                counters[offset] = value - 1\n")
+                .append("                if delta[offset] == nil then\n").append("                    delta[offset] = 0\n")
+                .append("                    offsets[table.getn(offsets) + 1] = offset\n").append("                end\n")
+                .append("                delta[offset] = delta[offset] - 1\n").append("            end\n")
+                .append("        end\n").append("    end\n")
+                .append("    array[index] = exists\n").append("end\n")
+                .append("start = 1\n").append("local oL = table.getn(offsets)\n")
+                .append("while start <= oL\n").append("do\n")
+                .append("    local last = math.min(start + chunk - 1, oL)\n").append("    local ops = { 'OVERFLOW', 'SAT' }\n")
+                .append("    local n = 2\n").append("    for k = start, last\n")
+                .append("    do\n").append("        ops[n + 1] = 'INCRBY'\n")
+                .append("        ops[n + 2] = type\n").append("        ops[n + 3] = '#' .. offsets[k]\n")
+                .append("        ops[n + 4] = delta[offsets[k]]\n").append("        n = n + 4\n")
+                .append("    end\n").append("    redis.call('bitfield', KEYS[1], unpack(ops))\n")
+                .append("    start = last + 1\n").append("end\n")
+                .append("return array\n");
+        return builder.toString();
+    }
+
+    /**
+     * 布谷鸟过滤器的写入，两个桶都满时在脚本内踢出已有的指纹，失败时回滚，修改最后一次写回
+     * 另一个桶的下标先各自取模再相乘，32位指纹时乘积也不超过double能精确表示的范围
+     *
+     * @return
+     */
+    private String cuckooInsertScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local fpType = 'u' .. ARGV[1]\n").append("local bucketCount = tonumber(ARGV[2])\n")
+                .append("local maxKicks = tonumber(ARGV[3])\n").append("local key = KEYS[1]\n")
+                .append("local cache = {}\n").append("local dirty = {}\n")
+                .append("local dirtyList = {}\n").append("local function alt(i, fp)\n")
+                .append("    return bit.bxor(i, math.fmod(math.fmod(fp, bucketCount) * math.fmod(1540483477, bucketCount), bucketCount))\n").append("end\n")
+                .append("local function load(i)\n").append("    if cache[i * 4] == nil then\n")
+                .append("        local res = redis.call('bitfield', key, 'GET', fpType, '#' .. (i * 4), 'GET', fpType, '#' .. (i * 4 + 1),\n").append("                'GET', fpType, '#' .. (i * 4 + 2), 'GET', fpType, '#' .. (i * 4 + 3))\n")
+                .append("        for j = 0, 3\n").append("        do\n")
+                .append("            cache[i * 4 + j] = res[j + 1]\n").append("        end\n")
+                .append("    end\n").append("end\n")
+                .append("local function set(slot, fp)\n").append("    if cache[slot] ~= fp and dirty[slot] == nil then\n")
+                .append("        dirty[slot] = true\n").append("        dirtyList[table.getn(dirtyList) + 1] = slot\n")
+                .append("    end\n").append("    cache[slot] = fp\n")
+                .append("end\n").append("local function tryPut(i, fp)\n")
+                .append("    load(i)\n").append("    for j = 0, 3\n")
+                .append("    do\n").append("        if cache[i * 4 + j] == 0 then\n")
+                .append("            set(i * 4 + j, fp)\n").append("            return true\n")
+                .append("        end\n").append("    end\n")
+                .append("    return false\n").append("end\n")
+                .append("local array = {}\n").append("local aL = table.getn(ARGV)\n")
+                .append("for p = 4, aL, 2\n").append("do\n")
+                .append("    local i = tonumber(ARGV[p])\n").append("    local fp = tonumber(ARGV[p + 1])\n")
+                .append("    local ok = tryPut(i, fp) or tryPut(alt(i, fp), fp)\n").append("    if not ok then\n")
+                .append("        local changes = {}\n").append("        if math.random(2) == 2 then\n")
+                .append("            i = alt(i, fp)\n").append("        end\n")
+                .append("        for n = 1, maxKicks\n").append("        do\n")
+                .append("            local slot = i * 4 + math.random(4) - 1\n").append("            local victim = cache[slot]\n")
+                .append("            changes[table.getn(changes) + 1] = slot\n").append("            changes[table.getn(changes) + 1] = victim\n")
+                .append("            set(slot, fp)\n").append("            fp = victim\n")
+                .append("            i = alt(i, fp)\n").append("            if tryPut(i, fp) then\n")
+                .append("                ok = true\n").append("                break\n")
+                .append("            end\n").append("        end\n")
+                .append("        if not ok then\n").append("            for c = table.getn(changes) - 1, 1, -2\n")
+                .append("            do\n").append("                cache[changes[c]] = changes[c + 1]\n")
+                .append("            end\n").append("        end\n")
+                .append("    end\n").append("    array[(p - 2) / 2] = ok and 1 or 0\n")
+                .append("end\n").append("local dL = table.getn(dirtyList)\n")
+                .append("local start = 1\n").append("while start <= dL\n")
+                .append("do\n").append("    local last = math.min(start + 255, dL)\n")
+                .append("    local ops = {}\n").append("    local n = 0\n")
+                .append("    for k = start, last\n").append("    do\n")
+                .append("        ops[n + 1] = 'SET'\n").append("        ops[n + 2] = fpType\n")
+                .append("        ops[n + 3] = '#' .. dirtyList[k]\n").append("        ops[n + 4] = cache[dirtyList[k]]\n")
+                .append("        n = n + 4\n").append("    end\n")
+                .append("    redis.call('bitfield', key, unpack(ops))\n").append("    start = last + 1\n")
+                .append("end\n").append("return array\n");
+        return builder.toString();
+    }
+
+    /**
+     * 布谷鸟过滤器的查询，每个元素一次bitfield读出两个桶
+     *
+     * @return
+     */
+    private String cuckooContainsScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local fpType = 'u' .. ARGV[1]\n").append("local bucketCount = tonumber(ARGV[2])\n")
+                .append("local array = {}\n").append("local aL = table.getn(ARGV)\n")
+                .append("for p = 3, aL, 2\n").append("do\n")
+                .append("    local i1 = tonumber(ARGV[p])\n").append("    local fp = tonumber(ARGV[p + 1])\n")
+                .append("    local i2 = bit.bxor(i1, math.fmod(math.fmod(fp, bucketCount) * math.fmod(1540483477, bucketCount), bucketCount))\n").append("    local ops = {}\n")
+                .append("    local n = 0\n").append("    for j = 0, 3\n")
+                .append("    do\n").append("        ops[n + 1] = 'GET'\n")
+                .append("        ops[n + 2] = fpType\n").append("        ops[n + 3] = '#' .. (i1 * 4 + j)\n")
+                .append("        ops[n + 4] = 'GET'\n").append("        ops[n + 5] = fpType\n")
+                .append("        ops[n + 6] = '#' .. (i2 * 4 + j)\n").append("        n = n + 6\n")
+                .append("    end\n").append("    local res = redis.call('bitfield', KEYS[1], unpack(ops))\n")
+                .append("    local exists = 0\n").append("    for j = 1, 8\n")
+                .append("    do\n").append("        if res[j] == fp then\n")
+                .append("            exists = 1\n").append("            break\n")
+                .append("        end\n").append("    end\n")
+                .append("    array[(p - 1) / 2] = exists\n").append("end\n")
+                .append("return array\n");
+        return builder.toString();
+    }
+
+    /**
+     * 布谷鸟过滤器的删除，在两个桶中找到相同的指纹后清空一个槽
+     *
+     * @return
+     */
+    private String cuckooDeleteScriptStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local fpType = 'u' .. ARGV[1]\n").append("local bucketCount = tonumber(ARGV[2])\n")
+                .append("local array = {}\n").append("local aL = table.getn(ARGV)\n")
+                .append("for p = 3, aL, 2\n").append("do\n")
+                .append("    local i1 = tonumber(ARGV[p])\n").append("    local fp = tonumber(ARGV[p + 1])\n")
+                .append("    local i2 = bit.bxor(i1, math.fmod(math.fmod(fp, bucketCount) * math.fmod(1540483477, bucketCount), bucketCount))\n").append("    local ops = {}\n")
+                .append("    local n = 0\n").append("    for j = 0, 3\n")
+                .append("    do\n").append("        ops[n + 1] = 'GET'\n")
+                .append("        ops[n + 2] = fpType\n").append("        ops[n + 3] = '#' .. (i1 * 4 + j)\n")
+                .append("        ops[n + 4] = 'GET'\n").append("        ops[n + 5] = fpType\n")
+                .append("        ops[n + 6] = '#' .. (i2 * 4 + j)\n").append("        n = n + 6\n")
+                .append("    end\n").append("    local res = redis.call('bitfield', KEYS[1], unpack(ops))\n")
+                .append("    local deleted = 0\n").append("    for j = 1, 8\n")
+                .append("    do\n").append("        if res[j] == fp then\n")
+                .append("            local i = i1\n").append("            if j % 2 == 0 then\n")
+                .append("                i = i2\n").append("            end\n")
+                .append("            redis.call('bitfield', KEYS[1], 'SET', fpType, '#' .. (i * 4 + math.floor((j - 1) / 2)), 0)\n").append("            deleted = 1\n")
+                .append("            break\n").append("        end\n")
+                .append("    end\n").append("    array[(p - 1) / 2] = deleted\n")
+                .append("end\n").append("return array\n");
+        return builder.toString();
+    }
 
-}
\ No newline at end of file
+}
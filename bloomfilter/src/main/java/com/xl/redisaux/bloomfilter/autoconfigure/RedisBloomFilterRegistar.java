@@ -4,6 +4,7 @@ import com.xl.redisaux.bloomfilter.annonations.BloomFilterPrefix;
 import com.xl.redisaux.bloomfilter.annonations.BloomFilterProperty;
 import com.xl.redisaux.bloomfilter.annonations.EnableBloomFilter;
 import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
 import com.xl.redisaux.common.utils.CommonUtil;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
@@ -28,12 +29,53 @@ import java.util.Map;
 public class RedisBloomFilterRegistar implements ImportBeanDefinitionRegistrar {
     public static Map<String, Map<String, BloomFilterProperty>> bloomFilterFieldMap;
     public static boolean transaction;
+    public static boolean bitField;
+    public static int bitFieldChunkSize;
+    public static boolean nearCache;
+    public static long nearCacheSize;
+    public static long nearCacheNegativeTtl;
+    public static long nearCachePositiveTtl;
+    public static boolean mirror;
+    public static long mirrorSyncInterval;
+    public static long mirrorMaxStaleness;
+    public static int mirrorSegmentBytes;
+    public static String mappedFileDir;
+    public static long redisShardBitSize;
+    public static String strategy;
+    public static String newFilterStrategy;
+    public static boolean prefetchMeta;
 
     @Override
     public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
         Map<String, Object> attributes = importingClassMetadata
                 .getAnnotationAttributes(EnableBloomFilter.class.getCanonicalName());
         transaction = (Boolean) attributes.get("transaction");
+        bitField = (Boolean) attributes.get(BloomFilterConstants.BITFIELD);
+        bitFieldChunkSize = (Integer) attributes.get(BloomFilterConstants.BITFIELD_CHUNK_SIZE);
+        //lua的unpack参数个数有限制
+        if (bitFieldChunkSize <= 0 || bitFieldChunkSize > BloomFilterConstants.MAX_BITFIELD_CHUNK_SIZE) {
+            throw new RedisAuxException("bitFieldChunkSize must between 1 and " + BloomFilterConstants.MAX_BITFIELD_CHUNK_SIZE);
+        }
+        nearCache = (Boolean) attributes.get(BloomFilterConstants.NEAR_CACHE);
+        nearCacheSize = (Long) attributes.get(BloomFilterConstants.NEAR_CACHE_SIZE);
+        nearCacheNegativeTtl = (Long) attributes.get(BloomFilterConstants.NEAR_CACHE_NEGATIVE_TTL);
+        nearCachePositiveTtl = (Long) attributes.get(BloomFilterConstants.NEAR_CACHE_POSITIVE_TTL);
+        mirror = (Boolean) attributes.get(BloomFilterConstants.MIRROR);
+        mirrorSyncInterval = (Long) attributes.get(BloomFilterConstants.MIRROR_SYNC_INTERVAL);
+        mirrorMaxStaleness = (Long) attributes.get(BloomFilterConstants.MIRROR_MAX_STALENESS);
+        mirrorSegmentBytes = (Integer) attributes.get(BloomFilterConstants.MIRROR_SEGMENT_BYTES);
+        if (mirror && (mirrorSyncInterval <= 0 || mirrorMaxStaleness < mirrorSyncInterval || mirrorSegmentBytes <= 0)) {
+            throw new RedisAuxException("mirrorSyncInterval and mirrorSegmentBytes must be positive, mirrorMaxStaleness must not be smaller than mirrorSyncInterval");
+        }
+        mappedFileDir = (String) attributes.get(BloomFilterConstants.MAPPED_FILE_DIR);
+        redisShardBitSize = (Long) attributes.get(BloomFilterConstants.REDIS_SHARD_BIT_SIZE);
+        //单个redis键最多2的32次方位
+        if (redisShardBitSize <= 0 || redisShardBitSize > BloomFilterConstants.MAX_REDIS_BIT_SIZE) {
+            throw new RedisAuxException("redisShardBitSize must between 1 and " + BloomFilterConstants.MAX_REDIS_BIT_SIZE);
+        }
+        strategy = (String) attributes.get(BloomFilterConstants.STRATEGY);
+        newFilterStrategy = (String) attributes.get(BloomFilterConstants.NEW_FILTER_STRATEGY);
+        prefetchMeta = (Boolean) attributes.get(BloomFilterConstants.PREFETCH_META);
         String[] scanPaths = (String[]) attributes.get(BloomFilterConstants.SCAPATH);
         //扫描并存储注解上的信息
         if (!scanPaths[0].trim().equals("")) {
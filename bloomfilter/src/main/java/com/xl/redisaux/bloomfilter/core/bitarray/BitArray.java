@@ -1,5 +1,7 @@
 package com.xl.redisaux.bloomfilter.core.bitarray;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public interface BitArray<T> {
@@ -24,6 +26,23 @@ public interface BitArray<T> {
 
     List<Boolean> getBatch(List<long[]> indexs);
 
+    /**
+     * 设置多个键，所有值hash后的位数平铺在一个数组里，第i个值占[i * numHashFunctions, (i + 1) * numHashFunctions)
+     * indexs会被调用方复用，方法返回后不能再持有
+     *
+     * @param indexs
+     * @param numHashFunctions 每个值的位数个数
+     * @param count            值的个数，indexs的长度可能大于count * numHashFunctions
+     * @return
+     */
+    default boolean setBatch(long[] indexs, int numHashFunctions, int count) {
+        return setBatch(split(indexs, numHashFunctions, count));
+    }
+
+    default List<Boolean> getBatch(long[] indexs, int numHashFunctions, int count) {
+        return getBatch(split(indexs, numHashFunctions, count));
+    }
+
 
     void reset();
 
@@ -32,4 +51,40 @@ public interface BitArray<T> {
     String getKey();
 
     long bitSize();
+
+    /**
+     * 值为1的位数，redis上为BITCOUNT，可用于估算已插入的元素个数
+     *
+     * @return
+     */
+    long bitCount();
+
+    /**
+     * 按redis的位顺序读取字节，第i位在第i / 8个字节中，从高位开始，超出的部分为0
+     * 计数的位数组为计数器按bitfield #i排列后的字节，用于快照导出
+     *
+     * @param offset 字节偏移
+     * @param length 字节个数
+     * @return
+     */
+    byte[] getBytes(long offset, int length);
+
+    /**
+     * 按redis的位顺序覆盖写入，用于快照导入，不与并发的写入互斥
+     *
+     * @param offset 字节偏移
+     * @param bytes
+     */
+    void setBytes(long offset, byte[] bytes);
+
+    /**
+     * 平铺的位数拆回每个值一个long[]
+     */
+    static List<long[]> split(long[] indexs, int numHashFunctions, int count) {
+        List<long[]> list = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            list.add(Arrays.copyOfRange(indexs, i * numHashFunctions, (i + 1) * numHashFunctions));
+        }
+        return list;
+    }
 }
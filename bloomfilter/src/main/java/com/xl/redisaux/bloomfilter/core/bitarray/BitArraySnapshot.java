@@ -0,0 +1,185 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.math.LongMath;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:50
+ * 位数组的快照，redis与本地的过滤器之间可以互相导出导入
+ * 文件头不压缩：magic、版本、策略code、元素类型、bitSize、hash函数个数、计数器位数(0为普通位数组)
+ * 之后是deflate压缩的记录，每条为(字节偏移, 长度, 字节)，按redis的位顺序，全为0的页不写，以偏移-1结束
+ * 数据按SNAPSHOT_CHUNK_BYTES分段通过getBytes读取，redis上即为分段的GETRANGE
+ */
+public class BitArraySnapshot {
+
+    /**
+     * RABS
+     */
+    private static final int MAGIC = 0x52414253;
+    private static final int VERSION = 1;
+    private static final long END = -1L;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final String strategy;
+
+    private final String memberType;
+
+    private final long bitSize;
+
+    private final int numHashFunctions;
+
+    private final int counterBits;
+
+    public BitArraySnapshot(String strategy, String memberType, long bitSize, int numHashFunctions, int counterBits) {
+        this.strategy = strategy;
+        this.memberType = memberType;
+        this.bitSize = bitSize;
+        this.numHashFunctions = numHashFunctions;
+        this.counterBits = counterBits;
+    }
+
+    /**
+     * 位数组占用的字节数，计数的位数组为计数器个数乘以计数器位数
+     */
+    public long byteSize() {
+        return LongMath.divide(bitSize * Math.max(1, counterBits), Byte.SIZE, RoundingMode.CEILING);
+    }
+
+    /**
+     * 写入文件头和bits的数据，不关闭out
+     */
+    public void write(BitArray bits, OutputStream out) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeUTF(strategy);
+        header.writeUTF(memberType);
+        header.writeLong(bitSize);
+        header.writeInt(numHashFunctions);
+        header.writeInt(counterBits);
+        header.flush();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+            DataOutputStream body = new DataOutputStream(deflate);
+            long byteSize = byteSize();
+            for (long offset = 0; offset < byteSize; offset += BloomFilterConstants.SNAPSHOT_CHUNK_BYTES) {
+                int length = (int) Math.min(BloomFilterConstants.SNAPSHOT_CHUNK_BYTES, byteSize - offset);
+                writePages(body, offset, bits.getBytes(offset, length));
+            }
+            body.writeLong(END);
+            body.flush();
+            deflate.finish();
+        } finally {
+            deflater.end();
+        }
+        out.flush();
+    }
+
+    /**
+     * 连续的非0页合并为一条记录
+     */
+    private void writePages(DataOutputStream body, long offset, byte[] chunk) throws IOException {
+        int page = BloomFilterConstants.SNAPSHOT_PAGE_BYTES;
+        int start = -1;
+        for (int from = 0; from < chunk.length; from += page) {
+            int to = Math.min(from + page, chunk.length);
+            if (isZero(chunk, from, to)) {
+                if (start != -1) {
+                    writeRecord(body, offset, chunk, start, from);
+                    start = -1;
+                }
+            } else if (start == -1) {
+                start = from;
+            }
+        }
+        if (start != -1) {
+            writeRecord(body, offset, chunk, start, chunk.length);
+        }
+    }
+
+    private void writeRecord(DataOutputStream body, long offset, byte[] chunk, int from, int to) throws IOException {
+        body.writeLong(offset + from);
+        body.writeInt(to - from);
+        body.write(chunk, from, to - from);
+    }
+
+    private static boolean isZero(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取文件头，之后调用readBody把数据写入按文件头创建的位数组
+     */
+    public static BitArraySnapshot readHeader(InputStream in) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("not a bloom filter snapshot");
+        }
+        int version = header.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported bloom filter snapshot version " + version);
+        }
+        return new BitArraySnapshot(header.readUTF(), header.readUTF(), header.readLong(), header.readInt(), header.readInt());
+    }
+
+    /**
+     * 没有记录的部分不写，bits需要事先清空
+     */
+    public void readBody(InputStream in, BitArray bits) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            DataInputStream body = new DataInputStream(new InflaterInputStream(in, inflater, BUFFER_SIZE));
+            long byteSize = byteSize();
+            long offset;
+            while ((offset = body.readLong()) != END) {
+                int length = body.readInt();
+                if (offset < 0 || length <= 0 || length > BloomFilterConstants.SNAPSHOT_CHUNK_BYTES || offset + length > byteSize) {
+                    throw new IOException("corrupt bloom filter snapshot, record at " + offset + " length " + length);
+                }
+                byte[] bytes = new byte[length];
+                body.readFully(bytes);
+                bits.setBytes(offset, bytes);
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public String getMemberType() {
+        return memberType;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    public int getCounterBits() {
+        return counterBits;
+    }
+}
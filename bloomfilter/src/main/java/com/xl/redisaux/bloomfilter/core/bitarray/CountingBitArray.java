@@ -0,0 +1,35 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:10
+ * 计数布隆过滤器，每个位置是4位或8位的计数器，set加1、get判断是否大于0，支持删除元素
+ * 计数器加到最大值后饱和，之后不再减少，避免误删其他元素；bitSize为计数器的个数
+ */
+public interface CountingBitArray<T> extends BitArray<T> {
+
+    /**
+     * 单个计数器的位数，4或8
+     *
+     * @return
+     */
+    int counterBits();
+
+    /**
+     * 删除单个元素，只有所有计数器都大于0时才减1
+     *
+     * @param indexs
+     * @return 元素是否可能存在并已删除
+     */
+    boolean remove(long[] indexs);
+
+    /**
+     * 删除多个元素，同一批中后面的元素按前面删除后的计数判断
+     *
+     * @param indexs
+     * @return 与indexs顺序一致
+     */
+    List<Boolean> removeBatch(List<long[]> indexs);
+}
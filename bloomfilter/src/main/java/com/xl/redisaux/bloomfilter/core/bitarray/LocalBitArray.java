@@ -46,6 +46,29 @@ public class LocalBitArray implements BitArray {
     }
 
 
+    @Override
+    public boolean setBatch(long[] indexs, int numHashFunctions, int count) {
+        for (int i = 0, length = numHashFunctions * count; i < length; i++) {
+            if (!getBitIndex(indexs[i], data) && setBitIndex(indexs[i], data)) {
+                bitCount.increment();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] indexs, int numHashFunctions, int count) {
+        List<Boolean> list = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            boolean exists = true;
+            for (int k = i * numHashFunctions, end = k + numHashFunctions; exists && k < end; k++) {
+                exists = getBitIndex(indexs[k], data);
+            }
+            list.add(exists);
+        }
+        return list;
+    }
+
     @Override
     public boolean get(long[] indexs) {
 
@@ -77,9 +100,56 @@ public class LocalBitArray implements BitArray {
         return true;
     }
 
+    /**
+     * 返回创建时的位数，不再向上取64的整数倍，与redis上同样大小的过滤器hash结果一致，快照可以互相导入
+     */
     @Override
     public long bitSize() {
-        return (long) data.length() * Long.SIZE;
+        return bitSize;
+    }
+
+    @Override
+    public byte[] getBytes(long offset, int length) {
+        AtomicLongArray data = this.data;
+        return RedisBitOrder.getBytes(offset, length, data.length(), i -> data.get((int) i));
+    }
+
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        AtomicLongArray data = this.data;
+        bitCount.add(RedisBitOrder.setBytes(offset, bytes, data.length(), (i, mask, bits) -> {
+            long oldValue;
+            long newValue;
+            do {
+                oldValue = data.get((int) i);
+                newValue = (oldValue & ~mask) | bits;
+            } while (!data.compareAndSet((int) i, oldValue, newValue));
+            return Long.bitCount(newValue) - Long.bitCount(oldValue);
+        }));
+    }
+
+    /**
+     * 按redis的位顺序与已有的位合并，只会把位置1
+     */
+    public void orBytes(long offset, byte[] bytes) {
+        AtomicLongArray data = this.data;
+        bitCount.add(RedisBitOrder.setBytes(offset, bytes, data.length(), (i, mask, bits) -> {
+            long oldValue;
+            long newValue;
+            do {
+                oldValue = data.get((int) i);
+                newValue = oldValue | bits;
+                if (oldValue == newValue) {
+                    return 0;
+                }
+            } while (!data.compareAndSet((int) i, oldValue, newValue));
+            return Long.bitCount(newValue) - Long.bitCount(oldValue);
+        }));
+    }
+
+    @Override
+    public long bitCount() {
+        return bitCount.sum();
     }
 
     @Override
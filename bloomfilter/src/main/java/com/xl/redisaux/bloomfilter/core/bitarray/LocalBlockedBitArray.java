@@ -0,0 +1,171 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:40
+ * 配合MURMUR128_BLOCKED使用的本地位数组，位的排列与LocalBitArray一致
+ * 与LocalBitArray一样通过cas读写AtomicLongArray，位数向上取512的整数倍，每8个long为一块
+ * 同一元素的k个位都落在一块内，数组起始地址不保证按缓存行对齐，一块最多跨两条缓存行
+ */
+public class LocalBlockedBitArray implements BitArray {
+
+    private static final int LONG_ADDRESSABLE_BITS = 6;
+    private static final int BLOCK_BITS = 512;
+    private final String key;
+    private final int longSize;
+    private AtomicLongArray data;
+    private LongAdder bitCount;
+
+    /**
+     * @param bitSize 向上取512的整数倍
+     */
+    public LocalBlockedBitArray(String key, long bitSize) {
+        this.key = key;
+        long blockCount = LongMath.divide(bitSize, BLOCK_BITS, RoundingMode.CEILING);
+        this.longSize = Ints.checkedCast(blockCount * (BLOCK_BITS / Long.SIZE));
+        this.data = new AtomicLongArray(longSize);
+        this.bitCount = new LongAdder();
+    }
+
+    @Override
+    public boolean set(long[] indexs) {
+        for (long bitIndex : indexs) {
+            if (setBitIndex(bitIndex, data)) {
+                bitCount.increment();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setBatch(List indexs) {
+        for (Object o : indexs) {
+            set((long[]) o);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setBatch(long[] indexs, int numHashFunctions, int count) {
+        AtomicLongArray data = this.data;
+        for (int i = 0, length = numHashFunctions * count; i < length; i++) {
+            if (setBitIndex(indexs[i], data)) {
+                bitCount.increment();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean get(long[] indexs) {
+        AtomicLongArray data = this.data;
+        for (long bitIndex : indexs) {
+            if (!getBitIndex(bitIndex, data)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> getBatch(List indexs) {
+        List<Boolean> list = new ArrayList(indexs.size());
+        for (Object o : indexs) {
+            list.add(get((long[]) o));
+        }
+        return list;
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] indexs, int numHashFunctions, int count) {
+        AtomicLongArray data = this.data;
+        List<Boolean> list = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            boolean exists = true;
+            for (int k = i * numHashFunctions, end = k + numHashFunctions; exists && k < end; k++) {
+                exists = getBitIndex(indexs[k], data);
+            }
+            list.add(exists);
+        }
+        return list;
+    }
+
+    private boolean getBitIndex(long bitIndex, AtomicLongArray data) {
+        return (data.get((int) (bitIndex >>> LONG_ADDRESSABLE_BITS)) & (1L << bitIndex)) != 0;
+    }
+
+    private boolean setBitIndex(long bitIndex, AtomicLongArray data) {
+        int longIndex = (int) (bitIndex >>> LONG_ADDRESSABLE_BITS);
+        // only cares about low 6 bits of bitIndex
+        long mask = 1L << bitIndex;
+        long oldValue;
+        long newValue;
+        do {
+            oldValue = data.get(longIndex);
+            newValue = oldValue | mask;
+            if (oldValue == newValue) {
+                return false;
+            }
+        } while (!data.compareAndSet(longIndex, oldValue, newValue));
+        return true;
+    }
+
+    @Override
+    public long bitCount() {
+        return bitCount.sum();
+    }
+
+    @Override
+    public void reset() {
+        this.bitCount = new LongAdder();
+        this.data = new AtomicLongArray(longSize);
+    }
+
+    @Override
+    public void clear() {
+        this.data = null;
+        this.bitCount = null;
+    }
+
+    @Override
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * 块的下标按取整后的位数计算，这里返回取整后的位数
+     */
+    @Override
+    public long bitSize() {
+        return (long) longSize * Long.SIZE;
+    }
+
+    @Override
+    public byte[] getBytes(long offset, int length) {
+        AtomicLongArray data = this.data;
+        return RedisBitOrder.getBytes(offset, length, data.length(), i -> data.get((int) i));
+    }
+
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        AtomicLongArray data = this.data;
+        bitCount.add(RedisBitOrder.setBytes(offset, bytes, data.length(), (i, mask, bits) -> {
+            long oldValue;
+            long newValue;
+            do {
+                oldValue = data.get((int) i);
+                newValue = (oldValue & ~mask) | bits;
+            } while (!data.compareAndSet((int) i, oldValue, newValue));
+            return Long.bitCount(newValue) - Long.bitCount(oldValue);
+        }));
+    }
+}
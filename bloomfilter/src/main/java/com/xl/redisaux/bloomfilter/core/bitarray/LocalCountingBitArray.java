@@ -0,0 +1,262 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:15
+ * 本地的计数布隆过滤器，计数器紧凑地放在long里(4位时一个long放16个)，通过cas增减
+ */
+public class LocalCountingBitArray implements CountingBitArray {
+
+    private AtomicLongArray data;
+    /**
+     * 不为0的计数器个数
+     */
+    private LongAdder bitCount;
+    private final long counterSize;
+    private final int counterBits;
+    /**
+     * 一个long里计数器个数的log2
+     */
+    private final int countersPerLongShift;
+    private final long max;
+    private final String key;
+
+    public LocalCountingBitArray(String key, long counterSize, int counterBits) {
+        this.counterBits = counterBits;
+        this.countersPerLongShift = Integer.numberOfTrailingZeros(Long.SIZE / counterBits);
+        this.max = (1L << counterBits) - 1;
+        this.counterSize = counterSize;
+        this.key = key;
+        this.data = newData();
+        this.bitCount = new LongAdder();
+    }
+
+    private AtomicLongArray newData() {
+        return new AtomicLongArray(Ints.checkedCast(LongMath.divide(counterSize, Long.SIZE / counterBits, RoundingMode.CEILING)));
+    }
+
+    @Override
+    public boolean set(long[] indexs) {
+        for (long index : indexs) {
+            increment(index);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setBatch(List indexs) {
+        for (Object o : indexs) {
+            set((long[]) o);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setBatch(long[] indexs, int numHashFunctions, int count) {
+        for (int i = 0, length = numHashFunctions * count; i < length; i++) {
+            increment(indexs[i]);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean get(long[] indexs) {
+        for (long index : indexs) {
+            if (counter(index) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> getBatch(List indexs) {
+        List<Boolean> list = new ArrayList(indexs.size());
+        for (Object o : indexs) {
+            list.add(get((long[]) o));
+        }
+        return list;
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] indexs, int numHashFunctions, int count) {
+        List<Boolean> list = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            boolean exists = true;
+            for (int k = i * numHashFunctions, end = k + numHashFunctions; exists && k < end; k++) {
+                exists = counter(indexs[k]) != 0;
+            }
+            list.add(exists);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean remove(long[] indexs) {
+        if (!get(indexs)) {
+            return false;
+        }
+        for (long index : indexs) {
+            decrement(index);
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> removeBatch(List indexs) {
+        List<Boolean> list = new ArrayList(indexs.size());
+        for (Object o : indexs) {
+            list.add(remove((long[]) o));
+        }
+        return list;
+    }
+
+    private long counter(long index) {
+        int shift = shift(index);
+        return (data.get(longIndex(index)) >>> shift) & max;
+    }
+
+    /**
+     * 加1，已经饱和时不变
+     */
+    private void increment(long index) {
+        int longIndex = longIndex(index);
+        int shift = shift(index);
+        long oldValue;
+        long counter;
+        do {
+            oldValue = data.get(longIndex);
+            counter = (oldValue >>> shift) & max;
+            if (counter == max) {
+                return;
+            }
+        } while (!data.compareAndSet(longIndex, oldValue, oldValue + (1L << shift)));
+        if (counter == 0) {
+            bitCount.increment();
+        }
+    }
+
+    /**
+     * 减1，为0或已经饱和时不变
+     */
+    private void decrement(long index) {
+        int longIndex = longIndex(index);
+        int shift = shift(index);
+        long oldValue;
+        long counter;
+        do {
+            oldValue = data.get(longIndex);
+            counter = (oldValue >>> shift) & max;
+            if (counter == 0 || counter == max) {
+                return;
+            }
+        } while (!data.compareAndSet(longIndex, oldValue, oldValue - (1L << shift)));
+        if (counter == 1) {
+            bitCount.decrement();
+        }
+    }
+
+    /**
+     * 直接替换为value，用于快照导入
+     */
+    private void replace(long index, long value) {
+        int longIndex = longIndex(index);
+        int shift = shift(index);
+        long oldValue;
+        long counter;
+        do {
+            oldValue = data.get(longIndex);
+            counter = (oldValue >>> shift) & max;
+        } while (!data.compareAndSet(longIndex, oldValue, (oldValue & ~(max << shift)) | (value << shift)));
+        if (counter == 0 && value != 0) {
+            bitCount.increment();
+        } else if (counter != 0 && value == 0) {
+            bitCount.decrement();
+        }
+    }
+
+    /**
+     * 与redis上bitfield的排列一致，4位时一个字节的高4位为第2i个计数器
+     */
+    @Override
+    public byte[] getBytes(long offset, int length) {
+        int perByte = Byte.SIZE / counterBits;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            for (int t = 0; t < perByte; t++) {
+                long index = (offset + i) * perByte + t;
+                if (index < counterSize) {
+                    value |= (int) counter(index) << (Byte.SIZE - counterBits * (t + 1));
+                }
+            }
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        int perByte = Byte.SIZE / counterBits;
+        for (int i = 0; i < bytes.length; i++) {
+            for (int t = 0; t < perByte; t++) {
+                long index = (offset + i) * perByte + t;
+                if (index < counterSize) {
+                    replace(index, ((bytes[i] & 0xFF) >>> (Byte.SIZE - counterBits * (t + 1))) & max);
+                }
+            }
+        }
+    }
+
+    private int longIndex(long index) {
+        return (int) (index >>> countersPerLongShift);
+    }
+
+    private int shift(long index) {
+        return (int) (index & ((1 << countersPerLongShift) - 1)) * counterBits;
+    }
+
+    @Override
+    public int counterBits() {
+        return counterBits;
+    }
+
+    @Override
+    public long bitSize() {
+        return counterSize;
+    }
+
+    /**
+     * 不为0的计数器个数
+     */
+    @Override
+    public long bitCount() {
+        return bitCount.sum();
+    }
+
+    @Override
+    public void reset() {
+        this.bitCount = new LongAdder();
+        this.data = newData();
+    }
+
+    @Override
+    public void clear() {
+        this.data = null;
+        this.bitCount = null;
+    }
+
+    @Override
+    public String getKey() {
+        return this.key;
+    }
+}
@@ -0,0 +1,262 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.math.LongMath;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.math.RoundingMode;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 10:20
+ * 基于内存映射文件的本地位数组，数据在堆外，重启后从文件恢复
+ * 文件按1G一段映射，通过Unsafe对long做cas，位的排列与LocalBitArray一致
+ */
+public class MappedBitArray implements BitArray {
+
+    private static final int LONG_ADDRESSABLE_BITS = 6;
+    /**
+     * 文件头：magic、版本、bitSize，数据从HEADER_SIZE开始，保证8字节对齐
+     */
+    private static final int HEADER_SIZE = 64;
+    private static final long MAGIC = 0x5241424C4F4F4DL;
+    /**
+     * 版本1的文件按向上取64的整数倍的位数计算hash，版本2按文件头中的bitSize
+     */
+    private static final long VERSION = 2L;
+    /**
+     * 单段映射的long个数，2的27次方个long即1G
+     */
+    private static final int SEGMENT_LONG_BITS = 27;
+    private static final long SEGMENT_LONG_MASK = (1L << SEGMENT_LONG_BITS) - 1;
+
+    private static final Unsafe UNSAFE;
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+            ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (Exception e) {
+            throw new RedisAuxException("unsafe not available:" + e.getMessage());
+        }
+    }
+
+    private final String key;
+    private final File file;
+    private final long longSize;
+    private final long bitSize;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final long[] addresses;
+
+    public MappedBitArray(String key, long bitSize, File dir) {
+        this.key = key;
+        this.longSize = LongMath.divide(bitSize, 64, RoundingMode.CEILING);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new RedisAuxException("can not create dir:" + dir.getAbsolutePath());
+        }
+        this.file = new File(dir, fileName(key));
+        boolean exists = file.exists() && file.length() > 0;
+        //映射建立后关闭文件不影响读写
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (exists) {
+                //重启后恢复，bitSize不一致说明配置已经改变，原有的位无法复用
+                if (header.getLong(0) != MAGIC || header.getLong(16) != bitSize) {
+                    throw new RedisAuxException("mapped file " + file.getAbsolutePath() + " does not match bitSize " + bitSize);
+                }
+                //旧文件中的位按取整后的位数写入，沿用原来的位数才能查到
+                this.bitSize = header.getLong(8) == 1L ? longSize * Long.SIZE : bitSize;
+            } else {
+                this.bitSize = bitSize;
+                header.putLong(0, MAGIC);
+                header.putLong(8, VERSION);
+                header.putLong(16, bitSize);
+            }
+            int segmentCount = (int) LongMath.divide(longSize, 1L << SEGMENT_LONG_BITS, RoundingMode.CEILING);
+            this.segments = new MappedByteBuffer[segmentCount];
+            this.addresses = new long[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = (long) i << SEGMENT_LONG_BITS;
+                long size = Math.min(1L << SEGMENT_LONG_BITS, longSize - start) * Long.BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + start * Long.BYTES, size);
+                addresses[i] = UNSAFE.getLong(segments[i], ADDRESS_OFFSET);
+            }
+        } catch (IOException e) {
+            throw new RedisAuxException("map file " + file.getAbsolutePath() + " fail:" + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean set(long[] indexs) {
+        for (long bitIndex : indexs) {
+            setBitIndex(bitIndex);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setBatch(List indexs) {
+        for (Object o : indexs) {
+            set((long[]) o);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean get(long[] indexs) {
+        for (long bitIndex : indexs) {
+            if ((UNSAFE.getLongVolatile(null, address(bitIndex)) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> getBatch(List indexs) {
+        List<Boolean> list = new ArrayList(indexs.size());
+        for (Object o : indexs) {
+            list.add(get((long[]) o));
+        }
+        return list;
+    }
+
+    @Override
+    public boolean setBatch(long[] indexs, int numHashFunctions, int count) {
+        for (int i = 0, length = numHashFunctions * count; i < length; i++) {
+            setBitIndex(indexs[i]);
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] indexs, int numHashFunctions, int count) {
+        List<Boolean> list = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            boolean exists = true;
+            for (int k = i * numHashFunctions, end = k + numHashFunctions; exists && k < end; k++) {
+                exists = (UNSAFE.getLongVolatile(null, address(indexs[k])) & (1L << indexs[k])) != 0;
+            }
+            list.add(exists);
+        }
+        return list;
+    }
+
+    private void setBitIndex(long bitIndex) {
+        long address = address(bitIndex);
+        // only cares about low 6 bits of bitIndex
+        long mask = 1L << bitIndex;
+        long oldValue;
+        long newValue;
+        do {
+            oldValue = UNSAFE.getLongVolatile(null, address);
+            newValue = oldValue | mask;
+            if (oldValue == newValue) {
+                return;
+            }
+        } while (!UNSAFE.compareAndSwapLong(null, address, oldValue, newValue));
+    }
+
+    private long address(long bitIndex) {
+        long longIndex = bitIndex >>> LONG_ADDRESSABLE_BITS;
+        return addresses[(int) (longIndex >>> SEGMENT_LONG_BITS)] + (longIndex & SEGMENT_LONG_MASK) * Long.BYTES;
+    }
+
+    /**
+     * 重启后计数无法恢复，这里直接扫描整个文件
+     */
+    @Override
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < segments.length; i++) {
+            for (long offset = 0, end = segments[i].capacity(); offset < end; offset += Long.BYTES) {
+                count += Long.bitCount(UNSAFE.getLong(addresses[i] + offset));
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < segments.length; i++) {
+            UNSAFE.setMemory(addresses[i], segments[i].capacity(), (byte) 0);
+        }
+    }
+
+    /**
+     * 刷盘，文件保留，下次创建同名的过滤器时恢复
+     * 映射不主动解除，避免并发读写时访问到已释放的内存，由gc回收
+     */
+    @Override
+    public void clear() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    /**
+     * 过滤器被删除或过期时，清零后连同文件一起删除，文件删除失败时也不会恢复出旧数据
+     */
+    public void delete() {
+        reset();
+        clear();
+        if (file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static String fileName(String key) {
+        return key.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(key.hashCode()) + ".bits";
+    }
+
+    @Override
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * 返回文件头中记录的位数，与LocalBitArray、redis上同样大小的过滤器hash结果一致，快照可以互相导入
+     */
+    @Override
+    public long bitSize() {
+        return bitSize;
+    }
+
+    @Override
+    public byte[] getBytes(long offset, int length) {
+        return RedisBitOrder.getBytes(offset, length, longSize, i -> UNSAFE.getLongVolatile(null, address(i << LONG_ADDRESSABLE_BITS)));
+    }
+
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        RedisBitOrder.setBytes(offset, bytes, longSize, (i, mask, bits) -> {
+            long address = address(i << LONG_ADDRESSABLE_BITS);
+            long oldValue;
+            long newValue;
+            do {
+                oldValue = UNSAFE.getLongVolatile(null, address);
+                newValue = (oldValue & ~mask) | bits;
+            } while (!UNSAFE.compareAndSwapLong(null, address, oldValue, newValue));
+            return Long.bitCount(newValue) - Long.bitCount(oldValue);
+        });
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
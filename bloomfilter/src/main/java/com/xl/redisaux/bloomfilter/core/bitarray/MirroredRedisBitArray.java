@@ -0,0 +1,311 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.math.LongMath;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 23:10
+ * 读多写少时使用，在本地保存一份redis位数组的副本，查询直接读本地
+ * 写入先写redis再写本地；其他节点的写入由后台线程增量同步：
+ * 位数组按segmentBytes分段，写入脚本在版本号的hash上递增全局版本号v，并把有位变化的段标记为当前版本，
+ * 同步时先取v，变大了再取所有段的版本，只用GETRANGE拉取比本地版本新的段，按位或合并
+ * 键被删除或reset后由第一次写入重新生成e，e变化时本地清空后全量同步
+ * 距上次同步成功超过maxStaleness毫秒时，查询改为直接访问redis，保证读到的数据不会过旧
+ */
+@SuppressWarnings("unchecked")
+public class MirroredRedisBitArray extends RedisBitArray {
+
+    private static final byte[] VERSION_FIELD = BloomFilterConstants.MIRROR_VERSION_FIELD.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] EPOCH_FIELD = BloomFilterConstants.MIRROR_EPOCH_FIELD.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate redisTemplate;
+
+    private final DefaultRedisScript mirrorSetBitScript;
+
+    private final String versionsKey;
+
+    private final List<String> scriptKeys;
+
+    private final LocalBitArray mirror;
+
+    private final long segmentBytes;
+
+    private final long maxStaleness;
+
+    private final ScheduledFuture<?> syncFuture;
+
+    private volatile String epoch;
+
+    private volatile long version;
+
+    private volatile long lastSyncMillis;
+
+    private final LongAdder syncCount;
+
+    private final LongAdder syncFailures;
+
+    private final LongAdder pulledSegments;
+
+    private final LongAdder localReads;
+
+    private final LongAdder remoteReads;
+
+    public MirroredRedisBitArray(RedisTemplate redisTemplate, String key, DefaultRedisScript mirrorSetBitScript, DefaultRedisScript getBitScript, DefaultRedisScript resetBitScript,
+                                 long bitSize, long segmentBytes, long syncInterval, long maxStaleness, ScheduledExecutorService scheduler) {
+        super(redisTemplate, key, null, getBitScript, resetBitScript, bitSize);
+        this.redisTemplate = redisTemplate;
+        this.mirrorSetBitScript = mirrorSetBitScript;
+        this.versionsKey = versionsKey(key);
+        this.scriptKeys = Arrays.asList(key, versionsKey);
+        this.mirror = new LocalBitArray(key, bitSize);
+        this.segmentBytes = segmentBytes;
+        this.maxStaleness = maxStaleness;
+        this.syncCount = new LongAdder();
+        this.syncFailures = new LongAdder();
+        this.pulledSegments = new LongAdder();
+        this.localReads = new LongAdder();
+        this.remoteReads = new LongAdder();
+        this.syncFuture = scheduler.scheduleWithFixedDelay(this::sync, 0, syncInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean set(long[] index) {
+        return setBatch(index, index.length, 1);
+    }
+
+    @Override
+    public boolean setBatch(List index) {
+        if (index.isEmpty()) {
+            return Boolean.TRUE;
+        }
+        return setBatch(getArrayFromList(index), ((long[]) index.get(0)).length, index.size());
+    }
+
+    @Override
+    public boolean setBatch(long[] index, int numHashFunctions, int count) {
+        redisTemplate.execute(mirrorSetBitScript, scriptKeys, mirrorArgs(index, numHashFunctions * count, null));
+        mirror.setBatch(index, numHashFunctions, count);
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public boolean get(long[] index) {
+        if (!fresh()) {
+            return super.get(index);
+        }
+        return mirror.get(index);
+    }
+
+    @Override
+    public List<Boolean> getBatch(List index) {
+        if (!fresh()) {
+            return super.getBatch(index);
+        }
+        return mirror.getBatch(index);
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] index, int numHashFunctions, int count) {
+        if (!fresh()) {
+            return super.getBatch(index, numHashFunctions, count);
+        }
+        return mirror.getBatch(index, numHashFunctions, count);
+    }
+
+    /**
+     * index会被调用方复用，写本地前先复制
+     */
+    @Override
+    public CompletableFuture<Void> setBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        long[] copy = Arrays.copyOf(index, numHashFunctions * count);
+        return executor.execute(mirrorSetBitScript, scriptKeys, mirrorArgs(copy, copy.length, null))
+                .thenRun(() -> mirror.setBatch(copy, numHashFunctions, count));
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> getBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        if (!fresh()) {
+            return super.getBatchAsync(executor, index, numHashFunctions, count);
+        }
+        return CompletableFuture.completedFuture(mirror.getBatch(index, numHashFunctions, count));
+    }
+
+    @Override
+    public CompletableFuture<Void> resetAsync(AsyncScriptExecutor executor) {
+        return executor.delete(scriptKeys).thenRun(this::resetMirror);
+    }
+
+    /**
+     * 位全为0等同于键不存在，连同版本号一起删除，其他节点同步时发现e变化后清空
+     */
+    @Override
+    public void reset() {
+        redisTemplate.delete(scriptKeys);
+        resetMirror();
+    }
+
+    /**
+     * 快照导入时写入，涉及的段标记为新版本
+     */
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        super.setBytes(offset, bytes);
+        List<Long> segments = new ArrayList();
+        for (long segment = offset / segmentBytes; segment * segmentBytes < offset + bytes.length; segment++) {
+            segments.add(segment);
+        }
+        redisTemplate.execute(mirrorSetBitScript, scriptKeys, mirrorArgs(new long[0], 0, segments));
+        mirror.setBytes(offset, bytes);
+    }
+
+    /**
+     * ARGV：每段的位数、epoch、直接标记的段数及段号，之后为要置1的位
+     * epoch每次随机生成，键不存在时由第一次写入设置，同一个节点重建键后epoch也会变化
+     */
+    private Object[] mirrorArgs(long[] index, int length, List<Long> segments) {
+        int touched = segments == null ? 0 : segments.size();
+        Object[] value = new Object[length + touched + 3];
+        value[0] = Long.valueOf(segmentBytes * Byte.SIZE);
+        value[1] = Long.valueOf(ThreadLocalRandom.current().nextLong());
+        value[2] = Long.valueOf(touched);
+        for (int i = 0; i < touched; i++) {
+            value[3 + i] = segments.get(i);
+        }
+        for (int i = 0; i < length; i++) {
+            value[3 + touched + i] = Long.valueOf(index[i]);
+        }
+        return value;
+    }
+
+    /**
+     * 由后台线程按间隔调用，失败时不更新同步时间，超过maxStaleness后查询自动改走redis
+     */
+    void sync() {
+        try {
+            long start = System.currentTimeMillis();
+            RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+            byte[] rawKey = keySerializer.serialize(versionsKey);
+            List<byte[]> head = (List<byte[]>) redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.hMGet(rawKey, VERSION_FIELD, EPOCH_FIELD));
+            long remoteVersion = head == null || head.get(0) == null ? 0 : parse(head.get(0));
+            String remoteEpoch = head == null || head.get(1) == null ? null : new String(head.get(1), StandardCharsets.UTF_8);
+            if (epoch != null && !epoch.equals(remoteEpoch)) {
+                //键被删除或重建，之前的位都不再有效
+                resetMirror();
+            }
+            epoch = remoteEpoch;
+            if (remoteVersion > version) {
+                Map<byte[], byte[]> stamps = (Map<byte[], byte[]>) redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection -> connection.hGetAll(rawKey));
+                long known = version;
+                long latest = known;
+                for (Map.Entry<byte[], byte[]> entry : stamps.entrySet()) {
+                    if (Arrays.equals(entry.getKey(), VERSION_FIELD)) {
+                        latest = Math.max(latest, parse(entry.getValue()));
+                    } else if (!Arrays.equals(entry.getKey(), EPOCH_FIELD) && parse(entry.getValue()) > known) {
+                        pull(parse(entry.getKey()));
+                    }
+                }
+                version = latest;
+            }
+            lastSyncMillis = start;
+            syncCount.increment();
+        } catch (RuntimeException e) {
+            syncFailures.increment();
+        }
+    }
+
+    /**
+     * 位只会被置1，按位或合并，不会覆盖本节点在拉取期间写入的位
+     */
+    private void pull(long segment) {
+        long offset = segment * segmentBytes;
+        long byteSize = LongMath.divide(bitSize(), Byte.SIZE, RoundingMode.CEILING);
+        if (offset >= byteSize) {
+            return;
+        }
+        mirror.orBytes(offset, getRange(getKey(), offset, (int) Math.min(segmentBytes, byteSize - offset)));
+        pulledSegments.increment();
+    }
+
+    private void resetMirror() {
+        mirror.reset();
+        version = 0;
+    }
+
+    /**
+     * 与位数组的键在同一个槽，集群下可以在一个脚本里访问
+     * 键本身带hash tag时直接加后缀，否则把整个键作为hash tag
+     */
+    private static String versionsKey(String key) {
+        int start = key.indexOf('{');
+        int end = start == -1 ? -1 : key.indexOf('}', start + 1);
+        if (end > start + 1) {
+            return key + BloomFilterConstants.MIRROR_VERSIONS_KEY_SUFFIX;
+        }
+        return "{" + key + "}" + BloomFilterConstants.MIRROR_VERSIONS_KEY_SUFFIX;
+    }
+
+    private static long parse(byte[] bytes) {
+        return Long.parseLong(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private boolean fresh() {
+        if (System.currentTimeMillis() - lastSyncMillis <= maxStaleness) {
+            localReads.increment();
+            return true;
+        }
+        remoteReads.increment();
+        return false;
+    }
+
+    /**
+     * 加上版本号的键，删除和过期时一并处理
+     */
+    @Override
+    public List<String> getKeyList() {
+        return scriptKeys;
+    }
+
+    @Override
+    public void clear() {
+        syncFuture.cancel(false);
+        super.clear();
+        mirror.clear();
+    }
+
+    /**
+     * @return lag为距上次同步成功的毫秒数，从未同步成功时为-1
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> map = new HashMap();
+        long last = lastSyncMillis;
+        map.put("lag", last == 0 ? -1L : System.currentTimeMillis() - last);
+        map.put("version", version);
+        map.put("syncs", syncCount.sum());
+        map.put("syncFailures", syncFailures.sum());
+        map.put("pulledSegments", pulledSegments.sum());
+        map.put("localReads", localReads.sum());
+        map.put("remoteReads", remoteReads.sum());
+        return map;
+    }
+}
@@ -0,0 +1,250 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在RedisBitArray上加一层本地缓存
+ * 布隆过滤器的位只会被置1，本节点reset或删除(过期删除也会走clear)时清空缓存
+ * 其他节点的reset或删除本节点感知不到，存在的结果也按positiveTtl过期
+ * 不存在的结果可能被其他节点写入，只缓存较短时间
+ */
+@SuppressWarnings("unchecked")
+public class NearCacheRedisBitArray extends RedisBitArray {
+
+    private final Cache<IndexKey, Boolean> positiveCache;
+
+    private final Cache<IndexKey, Boolean> negativeCache;
+
+    private final LongAdder hitCount;
+
+    private final LongAdder missCount;
+
+    public NearCacheRedisBitArray(RedisTemplate redisTemplate, String key, DefaultRedisScript setBitScript, DefaultRedisScript getBitScript, DefaultRedisScript resetBitScript, long bitSize,
+                                  long maximumSize, long negativeTtl, long positiveTtl) {
+        super(redisTemplate, key, setBitScript, getBitScript, resetBitScript, bitSize);
+        this.positiveCache = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(positiveTtl, TimeUnit.MILLISECONDS).build();
+        this.negativeCache = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(negativeTtl, TimeUnit.MILLISECONDS).build();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    @Override
+    public boolean set(long[] index) {
+        boolean res = super.set(index);
+        IndexKey key = new IndexKey(index);
+        negativeCache.invalidate(key);
+        positiveCache.put(key, Boolean.TRUE);
+        return res;
+    }
+
+    @Override
+    public boolean setBatch(List index) {
+        boolean res = super.setBatch(index);
+        for (Object o : index) {
+            IndexKey key = new IndexKey((long[]) o);
+            negativeCache.invalidate(key);
+            positiveCache.put(key, Boolean.TRUE);
+        }
+        return res;
+    }
+
+    /**
+     * 缓存以每个值的long[]为键，平铺的数组会被复用，需要拆开复制
+     */
+    @Override
+    public boolean setBatch(long[] index, int numHashFunctions, int count) {
+        return setBatch(BitArray.split(index, numHashFunctions, count));
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] index, int numHashFunctions, int count) {
+        return getBatch(BitArray.split(index, numHashFunctions, count));
+    }
+
+    /**
+     * 写入完成后再更新缓存，与同步的写入一致
+     */
+    @Override
+    public CompletableFuture<Void> setBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        List<long[]> split = BitArray.split(index, numHashFunctions, count);
+        return super.setBatchAsync(executor, index, numHashFunctions, count).thenRun(() -> {
+            for (long[] temp : split) {
+                IndexKey key = new IndexKey(temp);
+                negativeCache.invalidate(key);
+                positiveCache.put(key, Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * 缓存命中的直接返回，未命中的合并为一次异步查询
+     */
+    @Override
+    public CompletableFuture<List<Boolean>> getBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        List<long[]> split = BitArray.split(index, numHashFunctions, count);
+        Boolean[] res = new Boolean[count];
+        List<long[]> missIndex = new ArrayList();
+        List<Integer> missPosition = new ArrayList();
+        for (int i = 0; i < count; i++) {
+            Boolean cache = getIfPresent(split.get(i));
+            if (cache == null) {
+                missIndex.add(split.get(i));
+                missPosition.add(i);
+            } else {
+                res[i] = cache;
+            }
+        }
+        if (missIndex.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(res));
+        }
+        return super.getBatchAsync(executor, getArrayFromList(missIndex), numHashFunctions, missIndex.size()).thenApply(list -> {
+            for (int i = 0; i < list.size(); i++) {
+                res[missPosition.get(i)] = list.get(i);
+                put(missIndex.get(i), list.get(i));
+            }
+            return Arrays.asList(res);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> resetAsync(AsyncScriptExecutor executor) {
+        return super.resetAsync(executor).thenRun(this::invalidateAll);
+    }
+
+    /**
+     * 覆盖写入会把位清零，已缓存的结果都可能失效
+     */
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        super.setBytes(offset, bytes);
+        invalidateAll();
+    }
+
+    @Override
+    public boolean get(long[] index) {
+        Boolean cache = getIfPresent(index);
+        if (cache != null) {
+            return cache;
+        }
+        boolean exists = super.get(index);
+        put(index, exists);
+        return exists;
+    }
+
+    @Override
+    public List<Boolean> getBatch(List index) {
+        Boolean[] res = new Boolean[index.size()];
+        List<long[]> missIndex = new ArrayList();
+        List<Integer> missPosition = new ArrayList();
+        for (int i = 0; i < index.size(); i++) {
+            long[] temp = (long[]) index.get(i);
+            Boolean cache = getIfPresent(temp);
+            if (cache == null) {
+                missIndex.add(temp);
+                missPosition.add(i);
+            } else {
+                res[i] = cache;
+            }
+        }
+        if (!missIndex.isEmpty()) {
+            List<Boolean> list = super.getBatch(missIndex);
+            for (int i = 0; i < list.size(); i++) {
+                res[missPosition.get(i)] = list.get(i);
+                put(missIndex.get(i), list.get(i));
+            }
+        }
+        return Arrays.asList(res);
+    }
+
+    /**
+     * 查询本地缓存，没有则返回null
+     *
+     * @param index 单个元素hash后的位数
+     * @return
+     */
+    public Boolean getIfPresent(long[] index) {
+        IndexKey key = new IndexKey(index);
+        Boolean res = positiveCache.getIfPresent(key);
+        if (res == null) {
+            res = negativeCache.getIfPresent(key);
+        }
+        if (res == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return res;
+    }
+
+    public void put(long[] index, boolean exists) {
+        if (exists) {
+            positiveCache.put(new IndexKey(index), Boolean.TRUE);
+        } else {
+            negativeCache.put(new IndexKey(index), Boolean.FALSE);
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        invalidateAll();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        invalidateAll();
+    }
+
+    private void invalidateAll() {
+        positiveCache.invalidateAll();
+        negativeCache.invalidateAll();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> map = new HashMap();
+        long hit = hitCount.sum();
+        long miss = missCount.sum();
+        map.put("hit", hit);
+        map.put("miss", miss);
+        map.put("total", hit + miss);
+        map.put("size", positiveCache.size() + negativeCache.size());
+        return map;
+    }
+
+    /**
+     * 以hash后的位数作为缓存的键
+     */
+    private static final class IndexKey {
+        private final long[] index;
+        private final int hash;
+
+        IndexKey(long[] index) {
+            this.index = index;
+            this.hash = Arrays.hashCode(index);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IndexKey && Arrays.equals(index, ((IndexKey) o).index);
+        }
+    }
+}
@@ -2,12 +2,16 @@ package com.xl.redisaux.bloomfilter.core.bitarray;
 
 import com.xl.redisaux.common.consts.BloomFilterConstants;
 import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author: lele
@@ -34,16 +38,22 @@ public class RedisBitArray implements BitArray {
 
 
     public RedisBitArray(RedisTemplate redisTemplate, String key, DefaultRedisScript setBitScript, DefaultRedisScript getBitScript, DefaultRedisScript resetBitScript,long bitSize) {
+        this(redisTemplate, key, Collections.singletonList(key), setBitScript, getBitScript, resetBitScript, bitSize);
         if (bitSize > BloomFilterConstants.MAX_REDIS_BIT_SIZE) {
             throw new RedisAuxException("Invalid redis bit size, must small than 2 to the 32");
         }
+    }
+
+    /**
+     * keyList为实际存放位的键，分片时为各个子键
+     */
+    protected RedisBitArray(RedisTemplate redisTemplate, String key, List<String> keyList, DefaultRedisScript setBitScript, DefaultRedisScript getBitScript, DefaultRedisScript resetBitScript, long bitSize) {
         this.bitSize = bitSize;
         this.redisTemplate = redisTemplate;
         this.key = key;
         this.setBitScript = setBitScript;
         this.getBitScript = getBitScript;
-        this.keyList = new LinkedList();
-        this.keyList.add(key);
+        this.keyList = new LinkedList(keyList);
         this.resetBitScript = resetBitScript;
     }
 
@@ -52,9 +62,7 @@ public class RedisBitArray implements BitArray {
 
     @Override
     public boolean set(long[] index) {
-        Object[] value = Arrays.stream(index).boxed().toArray();
-        redisTemplate.execute(setBitScript, keyList, value);
-        return Boolean.TRUE;
+        return setBitScriptExecute(index, index.length);
     }
 
 
@@ -67,12 +75,17 @@ public class RedisBitArray implements BitArray {
     @Override
     public boolean setBatch(List index) {
         long[] res = getArrayFromList(index);
-        return set(res);
+        return setBitScriptExecute(res, res.length);
+    }
+
+    @Override
+    public boolean setBatch(long[] index, int numHashFunctions, int count) {
+        return setBitScriptExecute(index, numHashFunctions * count);
     }
 
     @Override
     public boolean get(long[] index) {
-        List<Long> res = getBitScriptExecute(index, index.length);
+        List<Long> res = getBitScriptExecute(index, index.length, index.length);
         boolean exists = res.get(0).equals(BloomFilterConstants.TRUE);
         return exists;
     }
@@ -85,8 +98,38 @@ public class RedisBitArray implements BitArray {
     public List<Boolean> getBatch(List index) {
         //index.size*keyList.size
         long[] array = getArrayFromList(index);
-        List<Long> list = getBitScriptExecute(array, ((long[]) index.get(0)).length);
-        List<Boolean> res = new ArrayList(index.size());
+        return toBooleanList(getBitScriptExecute(array, array.length, ((long[]) index.get(0)).length));
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] index, int numHashFunctions, int count) {
+        return toBooleanList(getBitScriptExecute(index, numHashFunctions * count, numHashFunctions));
+    }
+
+    /**
+     * 异步写入，与setBatch(long[], int, int)相同，不阻塞调用线程
+     */
+    public CompletableFuture<Void> setBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        return executor.execute(setBitScript, keyList, setArgs(index, numHashFunctions * count)).thenApply(res -> null);
+    }
+
+    /**
+     * 异步查询，与getBatch(long[], int, int)相同，不阻塞调用线程
+     */
+    public CompletableFuture<List<Boolean>> getBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        return executor.execute(getBitScript, keyList, getArgs(index, numHashFunctions * count, numHashFunctions))
+                .thenApply(res -> toBooleanList((List<Long>) res));
+    }
+
+    /**
+     * 位全为0等同于键不存在，直接删除
+     */
+    public CompletableFuture<Void> resetAsync(AsyncScriptExecutor executor) {
+        return executor.delete(keyList).thenApply(res -> null);
+    }
+
+    protected List<Boolean> toBooleanList(List<Long> list) {
+        List<Boolean> res = new ArrayList(list.size());
         for (Long temp : list) {
             res.add(Boolean.valueOf(temp.equals(BloomFilterConstants.TRUE)));
         }
@@ -100,9 +143,26 @@ public class RedisBitArray implements BitArray {
     }
 
 
+    /**
+     * 位全为0等同于键不存在，与resetAsync一样直接删除
+     */
     @Override
     public void reset() {
-        redisTemplate.execute(resetBitScript, keyList, bitSize);
+        redisTemplate.delete(keyList);
+    }
+
+    /**
+     * 分片时为各个子键的BITCOUNT之和
+     */
+    @Override
+    public long bitCount() {
+        RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+        long count = 0;
+        for (String k : keyList) {
+            Long res = (Long) redisTemplate.execute((RedisCallback<Long>) connection -> connection.bitCount(keySerializer.serialize(k)));
+            count += res == null ? 0 : res;
+        }
+        return count;
     }
 
 
@@ -112,18 +172,76 @@ public class RedisBitArray implements BitArray {
 
 
 
+    /**
+     * 通过GETRANGE读取，键不存在或长度不够时补0
+     */
+    @Override
+    public byte[] getBytes(long offset, int length) {
+        return getRange(key, offset, length);
+    }
+
+    /**
+     * 通过SETRANGE写入，中间没有写到的部分由redis补0
+     */
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        setRange(key, offset, bytes);
+    }
+
+    protected byte[] getRange(String k, long offset, int length) {
+        RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+        byte[] res = (byte[]) redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.getRange(keySerializer.serialize(k), offset, offset + length - 1));
+        byte[] bytes = new byte[length];
+        if (res != null) {
+            System.arraycopy(res, 0, bytes, 0, Math.min(res.length, length));
+        }
+        return bytes;
+    }
+
+    protected void setRange(String k, long offset, byte[] bytes) {
+        RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.setRange(keySerializer.serialize(k), bytes, offset);
+            return null;
+        });
+    }
+
     /**
      * @param index
+     * @param length index中前length个为有效的位数
      * @return
      */
-    private List getBitScriptExecute(long[] index, int size) {
-        Object[] value = new Long[index.length + 1];
+    private boolean setBitScriptExecute(long[] index, int length) {
+        redisTemplate.execute(setBitScript, keyList, setArgs(index, length));
+        return Boolean.TRUE;
+    }
+
+    private Object[] setArgs(long[] index, int length) {
+        Object[] value = new Long[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = Long.valueOf(index[i]);
+        }
+        return value;
+    }
+
+    /**
+     * @param index
+     * @param length index中前length个为有效的位数
+     * @param size   每个值的位数个数
+     * @return
+     */
+    private List getBitScriptExecute(long[] index, int length, int size) {
+        List res = (List) redisTemplate.execute(getBitScript, keyList, getArgs(index, length, size));
+        return res;
+    }
+
+    private Object[] getArgs(long[] index, int length, int size) {
+        Object[] value = new Long[length + 1];
         value[0] = Long.valueOf(size);
         for (int i = 1; i < value.length; i++) {
             value[i] = Long.valueOf(index[i - 1]);
         }
-        List res = (List) redisTemplate.execute(getBitScript, keyList, value);
-        return res;
+        return value;
     }
 
     /**
@@ -132,7 +250,7 @@ public class RedisBitArray implements BitArray {
      * @param index
      * @return
      */
-    private long[] getArrayFromList(List index) {
+    protected long[] getArrayFromList(List index) {
         int length = 0;
         for (Object o : index) {
             long[] temp = (long[]) o;
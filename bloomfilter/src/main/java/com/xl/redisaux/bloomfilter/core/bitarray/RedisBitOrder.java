@@ -0,0 +1,102 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import java.util.function.LongUnaryOperator;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:50
+ * 本地位数组与redis字节之间的转换，用于快照
+ * 本地按long存放，第i位为第i / 64个long的1L << i；redis上第i位在第i / 8个字节中，从高位开始
+ * 所以long按小端拆成字节后，每个字节内的位还要反转
+ */
+final class RedisBitOrder {
+
+    private RedisBitOrder() {
+    }
+
+    @FunctionalInterface
+    interface WordReplacer {
+        /**
+         * 把第wordIndex个long中mask内的位替换为bits
+         *
+         * @return 值为1的位数的变化
+         */
+        long replace(long wordIndex, long mask, long bits);
+    }
+
+    /**
+     * 反转一个字节内的位
+     */
+    static int reverse(int b) {
+        return Integer.reverse(b) >>> 24;
+    }
+
+    /**
+     * @param wordCount 超出的部分为0
+     * @param words     第i个long的值
+     */
+    static byte[] getBytes(long offset, int length, long wordCount, LongUnaryOperator words) {
+        byte[] bytes = new byte[length];
+        long wordIndex = -1;
+        long word = 0;
+        for (int i = 0; i < length; i++) {
+            long byteIndex = offset + i;
+            if ((byteIndex >>> 3) != wordIndex) {
+                wordIndex = byteIndex >>> 3;
+                if (wordIndex >= wordCount) {
+                    break;
+                }
+                word = words.applyAsLong(wordIndex);
+            }
+            bytes[i] = (byte) reverse((int) (word >>> ((byteIndex & 7) << 3)) & 0xFF);
+        }
+        return bytes;
+    }
+
+    /**
+     * 按long合并后替换，超出wordCount的部分忽略
+     *
+     * @return 值为1的位数的变化
+     */
+    static long setBytes(long offset, byte[] bytes, long wordCount, WordReplacer replacer) {
+        long delta = 0;
+        int i = 0;
+        while (i < bytes.length) {
+            long wordIndex = (offset + i) >>> 3;
+            if (wordIndex >= wordCount) {
+                break;
+            }
+            long mask = 0;
+            long bits = 0;
+            for (int b = (int) ((offset + i) & 7); b < 8 && i < bytes.length; b++, i++) {
+                mask |= 0xFFL << (b << 3);
+                bits |= (long) reverse(bytes[i] & 0xFF) << (b << 3);
+            }
+            delta += replacer.replace(wordIndex, mask, bits);
+        }
+        return delta;
+    }
+
+    /**
+     * 按redis的位顺序复制count位，目标位置原有的位被覆盖
+     */
+    static void copyBits(byte[] src, long srcBit, byte[] dst, long dstBit, long count) {
+        if ((srcBit & 7) == 0 && (dstBit & 7) == 0) {
+            int whole = (int) (count >>> 3);
+            System.arraycopy(src, (int) (srcBit >>> 3), dst, (int) (dstBit >>> 3), whole);
+            srcBit += (long) whole << 3;
+            dstBit += (long) whole << 3;
+            count &= 7;
+        }
+        for (long i = 0; i < count; i++) {
+            long s = srcBit + i;
+            long d = dstBit + i;
+            int mask = 0x80 >>> (d & 7);
+            if ((src[(int) (s >>> 3)] & (0x80 >>> (s & 7))) != 0) {
+                dst[(int) (d >>> 3)] |= mask;
+            } else {
+                dst[(int) (d >>> 3)] &= ~mask;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:25
+ * redis上的计数布隆过滤器，计数器通过bitfield u4/u8按#下标寻址，写入时OVERFLOW SAT INCRBY
+ * 单个键最多2的32次方位，计数器个数不能超过2的32次方除以计数器位数，不支持分片
+ * bitCount为键的BITCOUNT，不等于不为0的计数器个数
+ */
+@SuppressWarnings("unchecked")
+public class RedisCountingBitArray extends RedisBitArray implements CountingBitArray {
+
+    private final RedisTemplate redisTemplate;
+
+    private final DefaultRedisScript countingSetScript;
+
+    private final DefaultRedisScript countingGetScript;
+
+    private final DefaultRedisScript countingRemoveScript;
+
+    private final int counterBits;
+
+    public RedisCountingBitArray(RedisTemplate redisTemplate, String key, DefaultRedisScript countingSetScript, DefaultRedisScript countingGetScript,
+                                 DefaultRedisScript countingRemoveScript, long counterSize, int counterBits) {
+        super(redisTemplate, key, Collections.singletonList(key), null, null, null, counterSize);
+        if (counterSize * counterBits > BloomFilterConstants.MAX_REDIS_BIT_SIZE) {
+            throw new RedisAuxException("Invalid redis counter size, counterSize * counterBits must small than 2 to the 32");
+        }
+        this.redisTemplate = redisTemplate;
+        this.countingSetScript = countingSetScript;
+        this.countingGetScript = countingGetScript;
+        this.countingRemoveScript = countingRemoveScript;
+        this.counterBits = counterBits;
+    }
+
+    @Override
+    public boolean set(long[] index) {
+        return setBatch(index, index.length, 1);
+    }
+
+    @Override
+    public boolean setBatch(List index) {
+        if (index.isEmpty()) {
+            return Boolean.TRUE;
+        }
+        return setBatch(getArrayFromList(index), ((long[]) index.get(0)).length, index.size());
+    }
+
+    @Override
+    public boolean setBatch(long[] index, int numHashFunctions, int count) {
+        redisTemplate.execute(countingSetScript, getKeyList(), setArgs(index, numHashFunctions * count));
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public CompletableFuture<Void> setBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        return executor.execute(countingSetScript, getKeyList(), setArgs(index, numHashFunctions * count)).thenApply(res -> null);
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> getBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        return executor.execute(countingGetScript, getKeyList(), args(index, numHashFunctions, count))
+                .thenApply(res -> toBooleanList((List<Long>) res));
+    }
+
+    private Object[] setArgs(long[] index, int length) {
+        Object[] value = new Long[length + 1];
+        value[0] = Long.valueOf(counterBits);
+        for (int i = 0; i < length; i++) {
+            value[i + 1] = Long.valueOf(index[i]);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean get(long[] index) {
+        return getBatch(index, index.length, 1).get(0);
+    }
+
+    @Override
+    public List<Boolean> getBatch(List index) {
+        if (index.isEmpty()) {
+            return new ArrayList();
+        }
+        return getBatch(getArrayFromList(index), ((long[]) index.get(0)).length, index.size());
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] index, int numHashFunctions, int count) {
+        return execute(countingGetScript, index, numHashFunctions, count);
+    }
+
+    @Override
+    public boolean remove(long[] index) {
+        return execute(countingRemoveScript, index, index.length, 1).get(0);
+    }
+
+    @Override
+    public List<Boolean> removeBatch(List index) {
+        if (index.isEmpty()) {
+            return new ArrayList();
+        }
+        return execute(countingRemoveScript, getArrayFromList(index), ((long[]) index.get(0)).length, index.size());
+    }
+
+    /**
+     * 参数为计数器位数、单个元素的下标个数及所有下标，返回每个元素的结果
+     */
+    private List<Boolean> execute(DefaultRedisScript script, long[] index, int numHashFunctions, int count) {
+        List<Long> res = (List<Long>) redisTemplate.execute(script, getKeyList(), args(index, numHashFunctions, count));
+        return toBooleanList(res);
+    }
+
+    private Object[] args(long[] index, int numHashFunctions, int count) {
+        int length = numHashFunctions * count;
+        Object[] value = new Long[length + 2];
+        value[0] = Long.valueOf(counterBits);
+        value[1] = Long.valueOf(numHashFunctions);
+        for (int i = 0; i < length; i++) {
+            value[i + 2] = Long.valueOf(index[i]);
+        }
+        return value;
+    }
+
+    /**
+     * 计数器全为0等同于键不存在，直接删除
+     */
+    @Override
+    public void reset() {
+        redisTemplate.delete(getKeyList());
+    }
+
+    @Override
+    public int counterBits() {
+        return counterBits;
+    }
+}
@@ -0,0 +1,332 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.math.LongMath;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 14:05
+ * 把位数组按范围拆到多个子键上，突破单个键2的32次方位(512M)的限制
+ * 子键名为{key:i}，每个子键的hash tag不同，在集群下会落到不同的槽
+ * 批量读写时先按槽分组，同一个槽的子键合并为一次脚本调用
+ */
+@SuppressWarnings("unchecked")
+public class ShardedRedisBitArray extends RedisBitArray {
+
+    private final RedisTemplate redisTemplate;
+
+    private final DefaultRedisScript multiSetBitScript;
+
+    private final DefaultRedisScript multiGetBitScript;
+
+    private final List<String> shardKeys;
+
+    /**
+     * 单个子键存放的位数
+     */
+    private final long shardBitSize;
+
+    /**
+     * 子键所在的槽分组，slotGroups[shardGroup[i]]包含第i个子键
+     */
+    private final int[] shardGroup;
+
+    private final List<List<Integer>> slotGroups;
+
+    public ShardedRedisBitArray(RedisTemplate redisTemplate, String key, DefaultRedisScript multiSetBitScript, DefaultRedisScript multiGetBitScript,
+                                DefaultRedisScript resetBitScript, long bitSize, long maxShardBitSize) {
+        this(redisTemplate, key, shardKeys(key, bitSize, maxShardBitSize), multiSetBitScript, multiGetBitScript, resetBitScript, bitSize);
+    }
+
+    private ShardedRedisBitArray(RedisTemplate redisTemplate, String key, List<String> shardKeys, DefaultRedisScript multiSetBitScript, DefaultRedisScript multiGetBitScript,
+                                 DefaultRedisScript resetBitScript, long bitSize) {
+        super(redisTemplate, key, shardKeys, null, null, resetBitScript, bitSize);
+        this.redisTemplate = redisTemplate;
+        this.multiSetBitScript = multiSetBitScript;
+        this.multiGetBitScript = multiGetBitScript;
+        this.shardKeys = shardKeys;
+        this.shardBitSize = LongMath.divide(bitSize, shardKeys.size(), RoundingMode.CEILING);
+        this.shardGroup = new int[shardKeys.size()];
+        Map<Integer, List<Integer>> slotMap = new LinkedHashMap();
+        for (int i = 0; i < shardKeys.size(); i++) {
+            slotMap.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(shardKeys.get(i)), k -> new ArrayList()).add(i);
+        }
+        this.slotGroups = new ArrayList(slotMap.values());
+        for (int group = 0; group < slotGroups.size(); group++) {
+            for (Integer shard : slotGroups.get(group)) {
+                shardGroup[shard] = group;
+            }
+        }
+    }
+
+    /**
+     * 子键个数按maxShardBitSize计算，key中的花括号替换掉，避免影响hash tag
+     */
+    private static List<String> shardKeys(String key, long bitSize, long maxShardBitSize) {
+        if (maxShardBitSize <= 0 || maxShardBitSize > BloomFilterConstants.MAX_REDIS_BIT_SIZE) {
+            throw new RedisAuxException("Invalid redis shard bit size, must between 1 and 2 to the 32");
+        }
+        int shardCount = (int) LongMath.divide(bitSize, maxShardBitSize, RoundingMode.CEILING);
+        String tag = key.replace('{', '(').replace('}', ')');
+        List<String> keys = new ArrayList(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            keys.add("{" + tag + ":" + i + "}");
+        }
+        return keys;
+    }
+
+    @Override
+    public boolean set(long[] index) {
+        return setBatch(index, index.length, 1);
+    }
+
+    @Override
+    public boolean setBatch(List index) {
+        if (index.isEmpty()) {
+            return Boolean.TRUE;
+        }
+        return setBatch(getArrayFromList(index), ((long[]) index.get(0)).length, index.size());
+    }
+
+    @Override
+    public boolean setBatch(long[] index, int numHashFunctions, int count) {
+        for (ShardCall call : setCalls(index, numHashFunctions * count)) {
+            redisTemplate.execute(multiSetBitScript, call.keys, call.args);
+        }
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public CompletableFuture<Void> setBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        List<ShardCall> calls = setCalls(index, numHashFunctions * count);
+        CompletableFuture[] futures = new CompletableFuture[calls.size()];
+        for (int i = 0; i < calls.size(); i++) {
+            futures[i] = executor.execute(multiSetBitScript, calls.get(i).keys, calls.get(i).args);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 每个槽分组内，再按子键收集偏移量，每个分组为一次脚本调用
+     */
+    private List<ShardCall> setCalls(long[] index, int length) {
+        List<List<Long>[]> groups = new ArrayList(slotGroups.size());
+        for (int i = 0; i < slotGroups.size(); i++) {
+            groups.add(null);
+        }
+        for (int i = 0; i < length; i++) {
+            long bitIndex = index[i];
+            int shard = (int) (bitIndex / shardBitSize);
+            int group = shardGroup[shard];
+            List<Long>[] offsets = groups.get(group);
+            if (offsets == null) {
+                offsets = new List[shardKeys.size()];
+                groups.set(group, offsets);
+            }
+            if (offsets[shard] == null) {
+                offsets[shard] = new ArrayList();
+            }
+            offsets[shard].add(bitIndex % shardBitSize);
+        }
+        List<ShardCall> calls = new ArrayList();
+        for (List<Long>[] offsets : groups) {
+            if (offsets == null) {
+                continue;
+            }
+            List<String> keys = new ArrayList();
+            List<Object> args = new ArrayList();
+            for (int shard = 0; shard < offsets.length; shard++) {
+                if (offsets[shard] != null) {
+                    keys.add(shardKeys.get(shard));
+                    args.add(Long.valueOf(offsets[shard].size()));
+                    args.addAll(offsets[shard]);
+                }
+            }
+            calls.add(new ShardCall(keys, args.toArray(), null));
+        }
+        return calls;
+    }
+
+    @Override
+    public boolean get(long[] index) {
+        return getBatch(index, index.length, 1).get(0);
+    }
+
+    @Override
+    public List<Boolean> getBatch(List index) {
+        if (index.isEmpty()) {
+            return new ArrayList();
+        }
+        return getBatch(getArrayFromList(index), ((long[]) index.get(0)).length, index.size());
+    }
+
+    @Override
+    public List<Boolean> getBatch(long[] index, int numHashFunctions, int count) {
+        //bits[i]对应index[i]的值
+        boolean[] bits = new boolean[numHashFunctions * count];
+        for (ShardCall call : getCalls(index, bits.length)) {
+            call.fill(bits, (List<Long>) redisTemplate.execute(multiGetBitScript, call.keys, call.args));
+        }
+        return merge(bits, numHashFunctions, count);
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> getBatchAsync(AsyncScriptExecutor executor, long[] index, int numHashFunctions, int count) {
+        boolean[] bits = new boolean[numHashFunctions * count];
+        List<ShardCall> calls = getCalls(index, bits.length);
+        CompletableFuture[] futures = new CompletableFuture[calls.size()];
+        for (int i = 0; i < calls.size(); i++) {
+            ShardCall call = calls.get(i);
+            futures[i] = executor.execute(multiGetBitScript, call.keys, call.args).thenAccept(res -> call.fill(bits, (List<Long>) res));
+        }
+        return CompletableFuture.allOf(futures).thenApply(v -> merge(bits, numHashFunctions, count));
+    }
+
+    /**
+     * 所有下标按槽分组查询，每个下标作为一个长度为1的元素交给multiGetBitScript，最后按元素合并
+     */
+    private List<ShardCall> getCalls(long[] index, int total) {
+        List<List<Integer>[]> groups = new ArrayList(slotGroups.size());
+        for (int i = 0; i < slotGroups.size(); i++) {
+            groups.add(null);
+        }
+        for (int position = 0; position < total; position++) {
+            int shard = (int) (index[position] / shardBitSize);
+            int group = shardGroup[shard];
+            List<Integer>[] positions = groups.get(group);
+            if (positions == null) {
+                positions = new List[shardKeys.size()];
+                groups.set(group, positions);
+            }
+            if (positions[shard] == null) {
+                positions[shard] = new ArrayList();
+            }
+            positions[shard].add(position);
+        }
+        List<ShardCall> calls = new ArrayList();
+        for (List<Integer>[] positions : groups) {
+            if (positions == null) {
+                continue;
+            }
+            List<String> keys = new ArrayList();
+            List<Object> args = new ArrayList();
+            List<Integer> order = new ArrayList();
+            for (int shard = 0; shard < positions.length; shard++) {
+                if (positions[shard] != null) {
+                    keys.add(shardKeys.get(shard));
+                    args.add(Long.valueOf(positions[shard].size()));
+                    args.add(1L);
+                    for (Integer p : positions[shard]) {
+                        args.add(Long.valueOf(index[p] % shardBitSize));
+                        order.add(p);
+                    }
+                }
+            }
+            calls.add(new ShardCall(keys, args.toArray(), order));
+        }
+        return calls;
+    }
+
+    private List<Boolean> merge(boolean[] bits, int numHashFunctions, int count) {
+        List<Boolean> result = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            boolean exists = true;
+            for (int k = i * numHashFunctions, end = k + numHashFunctions; k < end; k++) {
+                exists &= bits[k];
+            }
+            result.add(exists);
+        }
+        return result;
+    }
+
+    /**
+     * 位全为0等同于键不存在，直接删除子键
+     */
+    @Override
+    public void reset() {
+        redisTemplate.delete(shardKeys);
+    }
+
+    /**
+     * 全局的字节范围按位拆到各个子键上，shardBitSize不是8的整数倍时子键内的位要移位后复制
+     */
+    @Override
+    public byte[] getBytes(long offset, int length) {
+        byte[] bytes = new byte[length];
+        long start = offset * Byte.SIZE;
+        long end = Math.min((offset + length) * Byte.SIZE, bitSize());
+        for (long bit = start; bit < end; ) {
+            int shard = (int) (bit / shardBitSize);
+            long from = bit % shardBitSize;
+            long count = Math.min(shardBitSize - from, end - bit);
+            long byteFrom = from / Byte.SIZE;
+            byte[] shardBytes = getRange(shardKeys.get(shard), byteFrom, (int) ((from + count + Byte.SIZE - 1) / Byte.SIZE - byteFrom));
+            RedisBitOrder.copyBits(shardBytes, from - byteFrom * Byte.SIZE, bytes, bit - start, count);
+            bit += count;
+        }
+        return bytes;
+    }
+
+    /**
+     * 子键首尾不完整的字节先读出再合并，不是原子的，导入时不应有并发的写入
+     */
+    @Override
+    public void setBytes(long offset, byte[] bytes) {
+        long start = offset * Byte.SIZE;
+        long end = Math.min((offset + bytes.length) * Byte.SIZE, bitSize());
+        for (long bit = start; bit < end; ) {
+            int shard = (int) (bit / shardBitSize);
+            long from = bit % shardBitSize;
+            long count = Math.min(shardBitSize - from, end - bit);
+            long byteFrom = from / Byte.SIZE;
+            long byteTo = (from + count + Byte.SIZE - 1) / Byte.SIZE;
+            byte[] shardBytes = new byte[(int) (byteTo - byteFrom)];
+            if (from % Byte.SIZE != 0) {
+                shardBytes[0] = getRange(shardKeys.get(shard), byteFrom, 1)[0];
+            }
+            if ((from + count) % Byte.SIZE != 0) {
+                shardBytes[shardBytes.length - 1] = getRange(shardKeys.get(shard), byteTo - 1, 1)[0];
+            }
+            RedisBitOrder.copyBits(bytes, bit - start, shardBytes, from - byteFrom * Byte.SIZE, count);
+            setRange(shardKeys.get(shard), byteFrom, shardBytes);
+            bit += count;
+        }
+    }
+
+    public long getShardBitSize() {
+        return shardBitSize;
+    }
+
+    /**
+     * 一次脚本调用，positions为查询时结果对应的下标位置
+     */
+    private static final class ShardCall {
+        private final List<String> keys;
+        private final Object[] args;
+        private final List<Integer> positions;
+
+        ShardCall(List<String> keys, Object[] args, List<Integer> positions) {
+            this.keys = keys;
+            this.args = args;
+            this.positions = positions;
+        }
+
+        void fill(boolean[] bits, List<Long> res) {
+            for (int i = 0; i < positions.size(); i++) {
+                bits[positions.get(i)] = res.get(i).equals(BloomFilterConstants.TRUE);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.xl.redisaux.bloomfilter.core.cuckoo;
+
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:50
+ * 布谷鸟过滤器的桶数组，每个桶4个槽，槽里存放元素的指纹，0为空
+ * 元素在第一个桶index和另一个桶altIndex(index, fingerprint)中的一个，两个桶可以只根据其中一个和指纹互相算出
+ * 桶的个数为2的幂，indexs与fingerprints一一对应，返回每个元素的结果
+ */
+public interface CuckooTable {
+
+    /**
+     * 两个桶都满时踢出已有的指纹，踢出次数超过上限时不写入并返回false
+     */
+    List<Boolean> insert(long[] indexs, long[] fingerprints);
+
+    List<Boolean> contains(long[] indexs, long[] fingerprints);
+
+    /**
+     * 删除一个相同的指纹，只能删除已经插入过的元素，否则可能误删
+     */
+    List<Boolean> delete(long[] indexs, long[] fingerprints);
+
+    long bucketCount();
+
+    int fingerprintBits();
+
+    void reset();
+
+    void clear();
+
+    String getKey();
+
+    /**
+     * 另一个桶的下标，与lua脚本中的计算一致
+     */
+    static long altIndex(long index, long fingerprint, long bucketCount) {
+        return index ^ ((fingerprint * 1540483477L) & (bucketCount - 1));
+    }
+}
@@ -0,0 +1,195 @@
+package com.xl.redisaux.bloomfilter.core.cuckoo;
+
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:55
+ * 本地的布谷鸟过滤器，指纹紧凑地放在long里(8位时一个long放8个)
+ * 写入和删除持有写锁，踢出失败时按记录回滚；查询先乐观读，期间有写入再加读锁，不会读到踢出途中的状态
+ */
+public class LocalCuckooTable implements CuckooTable {
+
+    private long[] data;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final long bucketCount;
+
+    private final int fingerprintBits;
+
+    private final int slotsPerLongShift;
+
+    private final long mask;
+
+    private final String key;
+
+    public LocalCuckooTable(String key, long bucketCount, int fingerprintBits) {
+        this.key = key;
+        this.bucketCount = bucketCount;
+        this.fingerprintBits = fingerprintBits;
+        this.slotsPerLongShift = Integer.numberOfTrailingZeros(Long.SIZE / fingerprintBits);
+        this.mask = (1L << fingerprintBits) - 1;
+        this.data = newData();
+    }
+
+    private long[] newData() {
+        long slots = bucketCount * BloomFilterConstants.CUCKOO_BUCKET_SIZE;
+        return new long[Ints.checkedCast(LongMath.divide(slots, Long.SIZE / fingerprintBits, RoundingMode.CEILING))];
+    }
+
+    @Override
+    public List<Boolean> insert(long[] indexs, long[] fingerprints) {
+        List<Boolean> list = new ArrayList(indexs.length);
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < indexs.length; i++) {
+                list.add(insert(indexs[i], fingerprints[i]));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return list;
+    }
+
+    private boolean insert(long index, long fingerprint) {
+        if (tryPut(index, fingerprint) || tryPut(CuckooTable.altIndex(index, fingerprint, bucketCount), fingerprint)) {
+            return true;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        //被替换的槽和原来的值，失败时倒序恢复
+        long[] changes = new long[BloomFilterConstants.CUCKOO_MAX_KICKS * 2];
+        long bucket = random.nextBoolean() ? index : CuckooTable.altIndex(index, fingerprint, bucketCount);
+        long current = fingerprint;
+        for (int n = 0; n < BloomFilterConstants.CUCKOO_MAX_KICKS; n++) {
+            long slot = bucket * BloomFilterConstants.CUCKOO_BUCKET_SIZE + random.nextInt(BloomFilterConstants.CUCKOO_BUCKET_SIZE);
+            long victim = getSlot(slot);
+            changes[n * 2] = slot;
+            changes[n * 2 + 1] = victim;
+            setSlot(slot, current);
+            current = victim;
+            bucket = CuckooTable.altIndex(bucket, current, bucketCount);
+            if (tryPut(bucket, current)) {
+                return true;
+            }
+        }
+        for (int n = BloomFilterConstants.CUCKOO_MAX_KICKS - 1; n >= 0; n--) {
+            setSlot(changes[n * 2], changes[n * 2 + 1]);
+        }
+        return false;
+    }
+
+    private boolean tryPut(long bucket, long fingerprint) {
+        long slot = bucket * BloomFilterConstants.CUCKOO_BUCKET_SIZE;
+        for (int j = 0; j < BloomFilterConstants.CUCKOO_BUCKET_SIZE; j++) {
+            if (getSlot(slot + j) == 0) {
+                setSlot(slot + j, fingerprint);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<Boolean> contains(long[] indexs, long[] fingerprints) {
+        List<Boolean> list = new ArrayList(indexs.length);
+        for (int i = 0; i < indexs.length; i++) {
+            long stamp = lock.tryOptimisticRead();
+            boolean exists = contains(indexs[i], fingerprints[i]);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    exists = contains(indexs[i], fingerprints[i]);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            list.add(exists);
+        }
+        return list;
+    }
+
+    private boolean contains(long index, long fingerprint) {
+        return findSlot(index, fingerprint) >= 0 || findSlot(CuckooTable.altIndex(index, fingerprint, bucketCount), fingerprint) >= 0;
+    }
+
+    @Override
+    public List<Boolean> delete(long[] indexs, long[] fingerprints) {
+        List<Boolean> list = new ArrayList(indexs.length);
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < indexs.length; i++) {
+                long slot = findSlot(indexs[i], fingerprints[i]);
+                if (slot < 0) {
+                    slot = findSlot(CuckooTable.altIndex(indexs[i], fingerprints[i], bucketCount), fingerprints[i]);
+                }
+                if (slot >= 0) {
+                    setSlot(slot, 0);
+                }
+                list.add(slot >= 0);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return list;
+    }
+
+    private long findSlot(long bucket, long fingerprint) {
+        long slot = bucket * BloomFilterConstants.CUCKOO_BUCKET_SIZE;
+        for (int j = 0; j < BloomFilterConstants.CUCKOO_BUCKET_SIZE; j++) {
+            if (getSlot(slot + j) == fingerprint) {
+                return slot + j;
+            }
+        }
+        return -1;
+    }
+
+    private long getSlot(long slot) {
+        int shift = (int) (slot & ((1 << slotsPerLongShift) - 1)) * fingerprintBits;
+        return (data[(int) (slot >>> slotsPerLongShift)] >>> shift) & mask;
+    }
+
+    private void setSlot(long slot, long fingerprint) {
+        int longIndex = (int) (slot >>> slotsPerLongShift);
+        int shift = (int) (slot & ((1 << slotsPerLongShift) - 1)) * fingerprintBits;
+        data[longIndex] = (data[longIndex] & ~(mask << shift)) | (fingerprint << shift);
+    }
+
+    @Override
+    public long bucketCount() {
+        return bucketCount;
+    }
+
+    @Override
+    public int fingerprintBits() {
+        return fingerprintBits;
+    }
+
+    @Override
+    public void reset() {
+        long stamp = lock.writeLock();
+        try {
+            this.data = newData();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.data = null;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,114 @@
+package com.xl.redisaux.bloomfilter.core.cuckoo;
+
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:05
+ * redis上的布谷鸟过滤器，所有桶放在一个字符串里，槽通过bitfield u8/u16/u32按#下标寻址
+ * 写入在脚本内完成踢出，整个过程是原子的；查询每个元素只读两个桶
+ */
+@SuppressWarnings("unchecked")
+public class RedisCuckooTable implements CuckooTable {
+
+    private final RedisTemplate redisTemplate;
+
+    private final List<String> keyList;
+
+    private final DefaultRedisScript insertScript;
+
+    private final DefaultRedisScript containsScript;
+
+    private final DefaultRedisScript deleteScript;
+
+    private final long bucketCount;
+
+    private final int fingerprintBits;
+
+    public RedisCuckooTable(RedisTemplate redisTemplate, String key, DefaultRedisScript insertScript, DefaultRedisScript containsScript,
+                            DefaultRedisScript deleteScript, long bucketCount, int fingerprintBits) {
+        if (bucketCount * BloomFilterConstants.CUCKOO_BUCKET_SIZE * fingerprintBits > BloomFilterConstants.MAX_REDIS_BIT_SIZE) {
+            throw new RedisAuxException("Invalid redis cuckoo filter size, must small than 2 to the 32 bits");
+        }
+        this.redisTemplate = redisTemplate;
+        this.keyList = Collections.singletonList(key);
+        this.insertScript = insertScript;
+        this.containsScript = containsScript;
+        this.deleteScript = deleteScript;
+        this.bucketCount = bucketCount;
+        this.fingerprintBits = fingerprintBits;
+    }
+
+    @Override
+    public List<Boolean> insert(long[] indexs, long[] fingerprints) {
+        return execute(insertScript, indexs, fingerprints, (long) BloomFilterConstants.CUCKOO_MAX_KICKS);
+    }
+
+    @Override
+    public List<Boolean> contains(long[] indexs, long[] fingerprints) {
+        return execute(containsScript, indexs, fingerprints);
+    }
+
+    @Override
+    public List<Boolean> delete(long[] indexs, long[] fingerprints) {
+        return execute(deleteScript, indexs, fingerprints);
+    }
+
+    /**
+     * 参数为指纹位数、桶的个数、head及每个元素的桶下标和指纹
+     */
+    private List<Boolean> execute(DefaultRedisScript script, long[] indexs, long[] fingerprints, Long... head) {
+        Object[] value = new Long[2 + head.length + indexs.length * 2];
+        value[0] = Long.valueOf(fingerprintBits);
+        value[1] = Long.valueOf(bucketCount);
+        System.arraycopy(head, 0, value, 2, head.length);
+        for (int i = 0, p = 2 + head.length; i < indexs.length; i++) {
+            value[p++] = Long.valueOf(indexs[i]);
+            value[p++] = Long.valueOf(fingerprints[i]);
+        }
+        List<Long> res = (List<Long>) redisTemplate.execute(script, keyList, value);
+        List<Boolean> list = new ArrayList(res.size());
+        for (Long temp : res) {
+            list.add(Boolean.valueOf(temp.equals(BloomFilterConstants.TRUE)));
+        }
+        return list;
+    }
+
+    @Override
+    public long bucketCount() {
+        return bucketCount;
+    }
+
+    @Override
+    public int fingerprintBits() {
+        return fingerprintBits;
+    }
+
+    /**
+     * 槽全为0等同于键不存在，直接删除
+     */
+    @Override
+    public void reset() {
+        redisTemplate.delete(keyList);
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public String getKey() {
+        return keyList.get(0);
+    }
+
+    public List<String> getKeyList() {
+        return keyList;
+    }
+}
@@ -19,6 +19,11 @@ public final class AddCondition {
     protected BaseCondition baseCondition;
     protected ExpireCondition expireCondition;
     protected Boolean local;
+    protected Boolean mapped;
+    protected Boolean scalable;
+    protected Integer counterBits;
+    protected Boolean blocked;
+    protected Integer slices;
 
 
     public AddCondition fpp(Double fpp) {
@@ -58,6 +63,62 @@ public final class AddCondition {
         return this;
     }
 
+    /**
+     * 使用内存映射文件保存位数组，重启后可恢复，隐含local
+     *
+     * @param mapped
+     * @return
+     */
+    public AddCondition mapped(Boolean mapped) {
+        this.mapped = mapped;
+        return this;
+    }
+
+    /**
+     * 可扩容的过滤器，插入超过exceptionInsert后自动新增更大的子过滤器，总误判率不超过fpp
+     *
+     * @param scalable
+     * @return
+     */
+    public AddCondition scalable(Boolean scalable) {
+        this.scalable = scalable;
+        return this;
+    }
+
+    /**
+     * 计数布隆过滤器，每个位置为counterBits位的计数器，可以通过delete删除元素，占用的空间为普通的counterBits倍
+     *
+     * @param counterBits 4或8
+     * @return
+     */
+    public AddCondition counterBits(Integer counterBits) {
+        this.counterBits = counterBits;
+        return this;
+    }
+
+    /**
+     * 分块布局，一个元素的所有位落在同一个512位的块内，本地查询只访问相邻的8个long，同样位数下误判率略高
+     *
+     * @param blocked
+     * @return
+     */
+    public AddCondition blocked(Boolean blocked) {
+        this.blocked = blocked;
+        return this;
+    }
+
+    /**
+     * 按时间轮转，timeout为窗口的长度，窗口分成slices片，只写最新的一片，查询检查窗口内所有片，最旧的一片到期后丢弃
+     * 每片的容量为exceptionInsert，大于1时生效
+     *
+     * @param slices
+     * @return
+     */
+    public AddCondition slices(Integer slices) {
+        this.slices = slices;
+        return this;
+    }
+
     InnerInfo build() {
         if (keyName == null) {
             throw new RedisAuxException("key is null!");
@@ -66,7 +127,12 @@ public final class AddCondition {
         this.exceptionInsert = exceptionInsert == null ? 1000L : exceptionInsert;
         this.timeUnit = timeUnit == null ? TimeUnit.SECONDS : timeUnit;
         this.timeout = timeout == null ? -1L : timeout;
-        this.local=local==null?false:local;
+        this.mapped = mapped == null ? false : mapped;
+        this.local = mapped || (local == null ? false : local);
+        this.scalable = scalable == null ? false : scalable;
+        this.counterBits = counterBits == null ? 0 : counterBits;
+        this.blocked = blocked == null ? false : blocked;
+        this.slices = slices == null ? 0 : slices;
         return new InnerInfo(this);
 
     }
@@ -123,6 +189,26 @@ public final class AddCondition {
         return local;
     }
 
+    public Boolean getMapped() {
+        return mapped;
+    }
+
+    public Boolean getScalable() {
+        return scalable;
+    }
+
+    public Integer getCounterBits() {
+        return counterBits;
+    }
+
+    public Boolean getBlocked() {
+        return blocked;
+    }
+
+    public Integer getSlices() {
+        return slices;
+    }
+
     @Override
     public String toString() {
         return "AddCondition{" +
@@ -133,6 +219,11 @@ public final class AddCondition {
                 ", timeout=" + timeout +
                 ", timeUnit=" + timeUnit +
                 ", local=" + local +
+                ", mapped=" + mapped +
+                ", scalable=" + scalable +
+                ", counterBits=" + counterBits +
+                ", blocked=" + blocked +
+                ", slices=" + slices +
                 '}';
     }
 }
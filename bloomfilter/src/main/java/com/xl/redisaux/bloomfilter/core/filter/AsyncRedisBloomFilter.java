@@ -0,0 +1,140 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.xl.redisaux.bloomfilter.support.SFunction;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
+import com.xl.redisaux.common.utils.NamedThreadFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:10
+ * RedisBloomFilter的异步版本，与RedisBloomFilter共用过滤器
+ * redis上的读写通过AsyncScriptExecutor发出，不阻塞调用线程，并发的调用在lettuce的共享连接上自动流水线
+ * 本地的过滤器在调用线程上直接完成；可扩容的过滤器维护各层时要同步访问redis，在fallback线程池上执行
+ * 参数错误等异常通过future返回，不直接抛出
+ */
+@SuppressWarnings("unchecked")
+public class AsyncRedisBloomFilter {
+
+    private final RedisBloomFilter redisBloomFilter;
+
+    private final AsyncScriptExecutor executor;
+
+    private final ExecutorService fallback;
+
+    public AsyncRedisBloomFilter(RedisBloomFilter redisBloomFilter, AsyncScriptExecutor executor) {
+        this(redisBloomFilter, executor, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new NamedThreadFactory("bloom-async-fallback", true)));
+    }
+
+    public AsyncRedisBloomFilter(RedisBloomFilter redisBloomFilter, AsyncScriptExecutor executor, ExecutorService fallback) {
+        this.redisBloomFilter = redisBloomFilter;
+        this.executor = executor;
+        this.fallback = fallback;
+    }
+
+    public <R> CompletableFuture<Void> add(AddCondition addCondition, R member) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        return add(condition, member);
+    }
+
+    public <T, R> CompletableFuture<Void> add(SFunction<T> sFunction, R member) {
+        return call(() -> add(new InnerInfo(redisBloomFilter.check(sFunction)), member));
+    }
+
+    public <R> CompletableFuture<Void> addAll(AddCondition addCondition, List<R> members) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        return addAll(condition, members);
+    }
+
+    public <T, R> CompletableFuture<Void> addAll(SFunction<T> sFunction, List<R> members) {
+        return call(() -> addAll(new InnerInfo(redisBloomFilter.check(sFunction)), members));
+    }
+
+    public <R> CompletableFuture<Boolean> mightContain(BaseCondition queryCondition, R member) {
+        return mightContain(queryCondition.build(), member);
+    }
+
+    public <T, R> CompletableFuture<Boolean> mightContain(SFunction<T> sFunction, R member) {
+        return call(() -> mightContain(new InnerInfo(redisBloomFilter.check(sFunction)), member));
+    }
+
+    public <R> CompletableFuture<List<Boolean>> mightContains(BaseCondition queryCondition, List<R> members) {
+        return mightContains(queryCondition.build(), members);
+    }
+
+    public <T, R> CompletableFuture<List<Boolean>> mightContains(SFunction<T> sFunction, List<R> members) {
+        return call(() -> mightContains(new InnerInfo(redisBloomFilter.check(sFunction)), members));
+    }
+
+    public CompletableFuture<Void> reset(BaseCondition resetCondition) {
+        return reset(resetCondition.build());
+    }
+
+    public <T> CompletableFuture<Void> reset(SFunction<T> sFunction) {
+        return call(() -> reset(new InnerInfo(redisBloomFilter.check(sFunction))));
+    }
+
+    <R> CompletableFuture<Void> add(InnerInfo condition, R member) {
+        return addAll(condition, Collections.singletonList(member));
+    }
+
+    <R> CompletableFuture<Void> addAll(InnerInfo condition, List<R> members) {
+        return call(() -> {
+            if (members.isEmpty()) {
+                throw new RedisAuxException("参数有误!");
+            }
+            String keyName = redisBloomFilter.checkKey(condition.getKeyPrefix(), condition.getKeyName());
+            return redisBloomFilter.item(members.get(0)).putAllAsync(executor, fallback, keyName, new ArrayList(members), condition);
+        });
+    }
+
+    <R> CompletableFuture<Boolean> mightContain(InnerInfo condition, R member) {
+        return mightContains(condition, Collections.singletonList(member)).thenApply(list -> list.get(0));
+    }
+
+    <R> CompletableFuture<List<Boolean>> mightContains(InnerInfo condition, List<R> members) {
+        return call(() -> {
+            if (members.isEmpty()) {
+                return CompletableFuture.completedFuture(new ArrayList());
+            }
+            String keyName = redisBloomFilter.checkKey(condition.getKeyPrefix(), condition.getKeyName());
+            return redisBloomFilter.item(keyName, members.get(0).getClass()).mightContainsAsync(executor, fallback, keyName, new ArrayList(members));
+        });
+    }
+
+    CompletableFuture<Void> reset(InnerInfo condition) {
+        return call(() -> {
+            String keyName = redisBloomFilter.checkKey(condition.getKeyPrefix(), condition.getKeyName());
+            redisBloomFilter.discover(keyName);
+            List<CompletableFuture> futures = new ArrayList();
+            for (RedisBloomFilterItem item : redisBloomFilter.items()) {
+                futures.add(item.resetAsync(executor, fallback, keyName));
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        });
+    }
+
+    private <V> CompletableFuture<V> call(Supplier<CompletableFuture<V>> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            return AsyncScriptExecutor.failed(e);
+        }
+    }
+
+    @PreDestroy
+    protected void destory() {
+        fallback.shutdown();
+    }
+}
@@ -0,0 +1,157 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.utils.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:30
+ * 流式导入，调用线程按chunkSize读取元素，在ForkJoinPool上并行计算hash，得到的位数按批写入
+ * redis上的写入交给maxInFlight个线程，共用的连接上同时有多个脚本调用在途
+ * 读取的批次数受信号量限制(计算中的加上写入中的)，写入跟不上时调用线程阻塞，不会把数据源全部读入内存
+ * 本地的位数组在计算hash的线程上直接通过Strategy.putAll写入
+ */
+@SuppressWarnings("unchecked")
+class BloomFilterBulkLoader<T> {
+
+    private final BitArray bits;
+
+    private final int numHashFunctions;
+
+    private final Strategy strategy;
+
+    private final Funnel<? super T> funnel;
+
+    private final BulkLoadConfig config;
+
+    private final AtomicLong loaded = new AtomicLong();
+
+    private final AtomicLong chunks = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicReference<Throwable> error = new AtomicReference();
+
+    BloomFilterBulkLoader(BitArray bits, int numHashFunctions, Strategy strategy, Funnel<? super T> funnel, BulkLoadConfig config) {
+        this.bits = bits;
+        this.numHashFunctions = numHashFunctions;
+        this.strategy = strategy;
+        this.funnel = funnel;
+        this.config = config;
+    }
+
+    BulkLoadProgress load(Iterator<T> members) {
+        int permits = config.getParallelism() + config.getMaxInFlight();
+        Semaphore semaphore = new Semaphore(permits);
+        ForkJoinPool hashPool = new ForkJoinPool(config.getParallelism());
+        ExecutorService writePool = bits instanceof RedisBitArray
+                ? Executors.newFixedThreadPool(config.getMaxInFlight(), new NamedThreadFactory("bloom-bulk-load", true)) : null;
+        long start = System.currentTimeMillis();
+        long lastReport = start;
+        long read = 0;
+        try {
+            while (error.get() == null && members.hasNext()) {
+                List<T> chunk = new ArrayList(config.getChunkSize());
+                while (chunk.size() < config.getChunkSize() && members.hasNext()) {
+                    chunk.add(members.next());
+                }
+                read += chunk.size();
+                acquire(semaphore, 1);
+                hashPool.execute(() -> hashAndWrite(chunk, semaphore, writePool));
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= config.getReportInterval()) {
+                    lastReport = now;
+                    report(progress(read, start, false));
+                }
+            }
+            //拿回所有许可即全部批次都已结束
+            acquire(semaphore, permits);
+        } finally {
+            hashPool.shutdown();
+            if (writePool != null) {
+                writePool.shutdown();
+            }
+        }
+        Throwable cause = error.get();
+        if (cause != null) {
+            throw new RedisAuxException("bulk load failed after " + loaded.get() + " members: " + cause.getMessage(), cause);
+        }
+        BulkLoadProgress progress = progress(read, start, true);
+        report(progress);
+        return progress;
+    }
+
+    private void hashAndWrite(List<T> chunk, Semaphore semaphore, ExecutorService writePool) {
+        try {
+            if (writePool == null) {
+                write(() -> strategy.putAll(funnel, numHashFunctions, bits, chunk), chunk.size(), semaphore);
+            } else {
+                //写入在其他线程，位数不能放在策略复用的数组里；每批在redis上是一次脚本调用
+                long[] indexs = strategy.getIndexs(funnel, numHashFunctions, bits.bitSize(), chunk);
+                writePool.execute(() -> write(() -> bits.setBatch(indexs, numHashFunctions, chunk.size()), chunk.size(), semaphore));
+            }
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+            semaphore.release();
+        }
+    }
+
+    private void write(Runnable setBatch, int count, Semaphore semaphore) {
+        inFlight.incrementAndGet();
+        try {
+            if (error.get() == null) {
+                setBatch.run();
+                loaded.addAndGet(count);
+                chunks.incrementAndGet();
+            }
+        } catch (Throwable e) {
+            error.compareAndSet(null, e);
+        } finally {
+            inFlight.decrementAndGet();
+            semaphore.release();
+        }
+    }
+
+    private void acquire(Semaphore semaphore, int permits) {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisAuxException("bulk load interrupted after " + loaded.get() + " members");
+        }
+    }
+
+    private BulkLoadProgress progress(long read, long start, boolean done) {
+        return new BulkLoadProgress(read, loaded.get(), chunks.get(), inFlight.get(), System.currentTimeMillis() - start, done);
+    }
+
+    private void report(BulkLoadProgress progress) {
+        Consumer<BulkLoadProgress> listener = config.getListener();
+        if (listener != null) {
+            listener.accept(progress);
+        }
+    }
+
+    /**
+     * 空的数据源直接返回
+     */
+    static BulkLoadProgress empty() {
+        return new BulkLoadProgress(0, 0, 0, 0, 0, true);
+    }
+}
@@ -0,0 +1,144 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.CountingBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 00:10
+ * 绑定到一个过滤器的句柄，取一次后复用，调用时不再解析lambda、拼接键名、按元素类型查找item
+ * 过滤器创建后item把位数组、hash函数个数、策略绑定到同一个键的所有句柄上，热点路径只读一次绑定
+ * 过滤器被删除(包括过期)后解除绑定，下一次写入时按取句柄时的条件重新创建
+ * 未绑定时(过滤器还不存在，或为可扩容、按时间轮转的过滤器)交给item按键处理
+ */
+@SuppressWarnings("unchecked")
+public class BloomFilterHandle<T> {
+
+    private final RedisBloomFilterItem<T> item;
+
+    private final String keyName;
+
+    private final InnerInfo condition;
+
+    private final Funnel<? super T> funnel;
+
+    private final AtomicReference<Target> binding;
+
+    BloomFilterHandle(RedisBloomFilterItem<T> item, String keyName, InnerInfo condition, Funnel<? super T> funnel, AtomicReference<Target> binding) {
+        this.item = item;
+        this.keyName = keyName;
+        this.condition = condition;
+        this.funnel = funnel;
+        this.binding = binding;
+    }
+
+    public void add(T member) {
+        Target target = binding.get();
+        if (target == null) {
+            item.put(keyName, member, condition);
+            return;
+        }
+        target.strategy.put(member, funnel, target.numHashFunctions, target.bits);
+    }
+
+    public void addAll(List<T> members) {
+        if (members.isEmpty()) {
+            throw new RedisAuxException("参数有误!");
+        }
+        Target target = binding.get();
+        if (target == null) {
+            item.putAll(keyName, new ArrayList(members), condition);
+            return;
+        }
+        Preconditions.checkArgument(members.size() < condition.getExceptionInsert(), "once add size (%s) shoud smaller than expectInsertions(%s) ", members.size(), condition.getExceptionInsert());
+        target.strategy.putAll(funnel, target.numHashFunctions, target.bits, members);
+    }
+
+    public boolean mightContain(T member) {
+        Target target = binding.get();
+        if (target == null) {
+            return item.mightContain(keyName, member);
+        }
+        return target.strategy.mightContain(member, funnel, target.numHashFunctions, target.bits);
+    }
+
+    /**
+     * 结果与members顺序一致
+     */
+    public List<Boolean> mightContains(List<T> members) {
+        if (members.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Target target = binding.get();
+        if (target == null) {
+            return item.mightContains(keyName, new ArrayList(members));
+        }
+        return target.strategy.mightContains(funnel, target.numHashFunctions, target.bits, members);
+    }
+
+    /**
+     * 只有计数的过滤器支持删除
+     */
+    public boolean delete(T member) {
+        Target target = binding.get();
+        if (target == null) {
+            return item.delete(keyName, member);
+        }
+        if (!(target.bits instanceof CountingBitArray)) {
+            throw new RedisAuxException("bloom filter " + keyName + " does not support delete, add it with counterBits");
+        }
+        return ((CountingBitArray) target.bits).remove(target.strategy.getIndexs(member, funnel, target.numHashFunctions, target.bits.bitSize()));
+    }
+
+    public void reset() {
+        item.reset(keyName);
+    }
+
+    /**
+     * 只删除句柄对应类型上的过滤器，之后的写入会重新创建
+     */
+    public void remove() {
+        item.remove(keyName);
+    }
+
+    public void expire(long timeout, TimeUnit timeUnit) {
+        item.expire(keyName, timeout, timeUnit, condition.isLocal());
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    /**
+     * 是否已经绑定到位数组，未绑定时调用按键查找
+     */
+    public boolean isBound() {
+        return binding.get() != null;
+    }
+
+    /**
+     * 位数组、hash函数个数、策略一起替换，读到的总是同一个过滤器的
+     * RedisBloomFilterItem同样按键保存它
+     */
+    static final class Target {
+        final BitArray bits;
+        final int numHashFunctions;
+        final Strategy strategy;
+
+        Target(BitArray bits, int numHashFunctions, Strategy strategy) {
+            this.bits = bits;
+            this.numHashFunctions = numHashFunctions;
+            this.strategy = strategy;
+        }
+    }
+}
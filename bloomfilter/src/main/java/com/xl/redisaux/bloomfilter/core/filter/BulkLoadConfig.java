@@ -0,0 +1,109 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+
+import java.util.function.Consumer;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:30
+ * 批量导入的参数
+ */
+public class BulkLoadConfig {
+
+    private final int parallelism;
+
+    private final int chunkSize;
+
+    private final int maxInFlight;
+
+    private final long reportInterval;
+
+    private final Consumer<BulkLoadProgress> listener;
+
+    public BulkLoadConfig(Builder builder) {
+        this.parallelism = builder.parallelism == null ? Runtime.getRuntime().availableProcessors() : builder.parallelism;
+        this.chunkSize = builder.chunkSize == null ? BloomFilterConstants.BULK_LOAD_CHUNK_SIZE : builder.chunkSize;
+        this.maxInFlight = builder.maxInFlight == null ? BloomFilterConstants.BULK_LOAD_MAX_IN_FLIGHT : builder.maxInFlight;
+        this.reportInterval = builder.reportInterval == null ? BloomFilterConstants.BULK_LOAD_REPORT_INTERVAL : builder.reportInterval;
+        this.listener = builder.listener;
+        if (parallelism <= 0 || chunkSize <= 0 || maxInFlight <= 0) {
+            throw new RedisAuxException("parallelism, chunkSize and maxInFlight must be greater than 0");
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getReportInterval() {
+        return reportInterval;
+    }
+
+    public Consumer<BulkLoadProgress> getListener() {
+        return listener;
+    }
+
+    public static Builder of() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        /**
+         * 计算hash的线程数，默认为cpu核数
+         */
+        private Integer parallelism;
+        /**
+         * 每次写入的元素个数，redis上为一次脚本调用
+         */
+        private Integer chunkSize;
+        /**
+         * 同时进行中的写入次数，超过后暂停读取元素
+         */
+        private Integer maxInFlight;
+        /**
+         * 回调listener的间隔毫秒数
+         */
+        private Long reportInterval;
+
+        private Consumer<BulkLoadProgress> listener;
+
+        public Builder parallelism(Integer parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder chunkSize(Integer chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder maxInFlight(Integer maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder reportInterval(Long reportInterval) {
+            this.reportInterval = reportInterval;
+            return this;
+        }
+
+        public Builder listener(Consumer<BulkLoadProgress> listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public BulkLoadConfig build() {
+            return new BulkLoadConfig(this);
+        }
+    }
+}
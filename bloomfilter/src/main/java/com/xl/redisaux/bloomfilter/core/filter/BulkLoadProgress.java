@@ -0,0 +1,83 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 21:30
+ * 批量导入的进度，导入过程中按间隔回调，结束时作为结果返回
+ */
+public class BulkLoadProgress {
+
+    /**
+     * 已经从数据源读取的元素个数
+     */
+    private final long read;
+
+    /**
+     * 已经写入的元素个数
+     */
+    private final long loaded;
+
+    /**
+     * 已经写入的批次
+     */
+    private final long chunks;
+
+    private final int inFlight;
+
+    private final long elapsedMillis;
+
+    private final boolean done;
+
+    BulkLoadProgress(long read, long loaded, long chunks, int inFlight, long elapsedMillis, boolean done) {
+        this.read = read;
+        this.loaded = loaded;
+        this.chunks = chunks;
+        this.inFlight = inFlight;
+        this.elapsedMillis = elapsedMillis;
+        this.done = done;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getLoaded() {
+        return loaded;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 平均每秒写入的元素个数
+     */
+    public double getPerSecond() {
+        return elapsedMillis == 0 ? 0 : loaded * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadProgress{" +
+                "read=" + read +
+                ", loaded=" + loaded +
+                ", chunks=" + chunks +
+                ", inFlight=" + inFlight +
+                ", elapsedMillis=" + elapsedMillis +
+                ", perSecond=" + (long) getPerSecond() +
+                ", done=" + done +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package com.xl.redisaux.bloomfilter.core.filter;
 
+import com.xl.redisaux.bloomfilter.support.GetBloomFilterField;
+
 import java.util.concurrent.TimeUnit;
 
 class InnerInfo {
@@ -10,6 +12,11 @@ class InnerInfo {
     private long timeout;
     private TimeUnit timeUnit;
     private boolean local;
+    private boolean mapped;
+    private boolean scalable;
+    private int counterBits;
+    private boolean blocked;
+    private int slices;
 
     public InnerInfo(AddCondition addCondition) {
         this.fpp = addCondition.fpp;
@@ -19,6 +26,26 @@ class InnerInfo {
         this.timeout = addCondition.timeout;
         this.timeUnit = addCondition.timeUnit;
         this.local=addCondition.local;
+        this.mapped = addCondition.mapped;
+        this.scalable = addCondition.scalable;
+        this.counterBits = addCondition.counterBits;
+        this.blocked = addCondition.blocked;
+        this.slices = addCondition.slices;
+    }
+
+    public InnerInfo(GetBloomFilterField.BloomFilterInfo bloomFilterInfo) {
+        this.fpp = bloomFilterInfo.getFpp();
+        this.exceptionInsert = bloomFilterInfo.getExceptionInsert();
+        this.keyPrefix = bloomFilterInfo.getKeyPrefix();
+        this.keyName = bloomFilterInfo.getKeyName();
+        this.timeout = bloomFilterInfo.getTimeout();
+        this.timeUnit = bloomFilterInfo.getTimeUnit();
+        this.local = bloomFilterInfo.isLocal();
+        this.mapped = bloomFilterInfo.isMapped();
+        this.scalable = bloomFilterInfo.isScalable();
+        this.counterBits = bloomFilterInfo.getCounterBits();
+        this.blocked = bloomFilterInfo.isBlocked();
+        this.slices = bloomFilterInfo.getSlices();
     }
 
     public InnerInfo(ExpireCondition expireCondition) {
@@ -58,4 +85,24 @@ class InnerInfo {
     }
 
     public boolean isLocal(){return local;}
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    public boolean isScalable() {
+        return scalable;
+    }
+
+    public int getCounterBits() {
+        return counterBits;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public int getSlices() {
+        return slices;
+    }
 }
\ No newline at end of file
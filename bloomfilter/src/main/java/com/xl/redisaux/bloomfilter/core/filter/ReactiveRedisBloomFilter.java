@@ -0,0 +1,72 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.xl.redisaux.bloomfilter.support.SFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:10
+ * 基于AsyncRedisBloomFilter的reactor版本，订阅时才发出命令
+ * 条件在调用时解析，之后条件对象可以复用
+ */
+public class ReactiveRedisBloomFilter {
+
+    private final AsyncRedisBloomFilter asyncRedisBloomFilter;
+
+    public ReactiveRedisBloomFilter(AsyncRedisBloomFilter asyncRedisBloomFilter) {
+        this.asyncRedisBloomFilter = asyncRedisBloomFilter;
+    }
+
+    public <R> Mono<Void> add(AddCondition addCondition, R member) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.add(condition, member)));
+    }
+
+    public <T, R> Mono<Void> add(SFunction<T> sFunction, R member) {
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.add(sFunction, member)));
+    }
+
+    public <R> Mono<Void> addAll(AddCondition addCondition, List<R> members) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.addAll(condition, members)));
+    }
+
+    public <T, R> Mono<Void> addAll(SFunction<T> sFunction, List<R> members) {
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.addAll(sFunction, members)));
+    }
+
+    public <R> Mono<Boolean> mightContain(BaseCondition queryCondition, R member) {
+        InnerInfo condition = queryCondition.build();
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.mightContain(condition, member)));
+    }
+
+    public <T, R> Mono<Boolean> mightContain(SFunction<T> sFunction, R member) {
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.mightContain(sFunction, member)));
+    }
+
+    /**
+     * 结果与members顺序一致
+     */
+    public <R> Flux<Boolean> mightContains(BaseCondition queryCondition, List<R> members) {
+        InnerInfo condition = queryCondition.build();
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.mightContains(condition, members))).flatMapIterable(list -> list);
+    }
+
+    public <T, R> Flux<Boolean> mightContains(SFunction<T> sFunction, List<R> members) {
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.mightContains(sFunction, members))).flatMapIterable(list -> list);
+    }
+
+    public Mono<Void> reset(BaseCondition resetCondition) {
+        InnerInfo condition = resetCondition.build();
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.reset(condition)));
+    }
+
+    public <T> Mono<Void> reset(SFunction<T> sFunction) {
+        return Mono.defer(() -> Mono.fromFuture(asyncRedisBloomFilter.reset(sFunction)));
+    }
+}
@@ -1,14 +1,39 @@
 package com.xl.redisaux.bloomfilter.core.filter;
 
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArraySnapshot;
+import com.xl.redisaux.bloomfilter.core.bitarray.MirroredRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.NearCacheRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisCountingBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.ShardedRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.funnel.FunnelRegistry;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import com.xl.redisaux.bloomfilter.support.BitArrayOperator;
 import com.xl.redisaux.bloomfilter.support.GetBloomFilterField;
 import com.xl.redisaux.bloomfilter.support.SFunction;
+import com.xl.redisaux.bloomfilter.support.expire.KeyExpirePublisher;
 import com.xl.redisaux.common.utils.CommonUtil;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
 import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * @author: lele
@@ -19,9 +44,44 @@ import java.util.concurrent.TimeUnit;
 public class RedisBloomFilter {
     private final Map<Class, RedisBloomFilterItem> bloomFilterMap;
 
+    private final BitArrayOperator bitArrayOperator;
 
-    public RedisBloomFilter(Map<Class, RedisBloomFilterItem> bloomFilterMap) {
-        this.bloomFilterMap = bloomFilterMap;
+    /**
+     * 元素的实际类型到item的缓存，没有funnel的类型也缓存为Byte的item
+     */
+    private final Map<Class, RedisBloomFilterItem> routes;
+
+    private final FunnelRegistry funnelRegistry;
+
+    private final Strategy strategy;
+
+    private final Strategy newFilterStrategy;
+
+    private final KeyExpirePublisher keyExpirePublisher;
+
+
+    public RedisBloomFilter(Map<Class, RedisBloomFilterItem> bloomFilterMap, BitArrayOperator bitArrayOperator) {
+        this(bloomFilterMap, bitArrayOperator, null, null, null, null);
+    }
+
+    /**
+     * @param funnelRegistry     bloomFilterMap中没有的类型按它查找funnel，第一次使用时新建item，为空时都交给Byte的item
+     * @param strategy           新建item使用的默认策略
+     * @param newFilterStrategy  新建item上新建过滤器使用的策略
+     * @param keyExpirePublisher 新建的item注册到它上面，过期后删除
+     */
+    public RedisBloomFilter(Map<Class, RedisBloomFilterItem> bloomFilterMap, BitArrayOperator bitArrayOperator,
+                            FunnelRegistry funnelRegistry, Strategy strategy, Strategy newFilterStrategy, KeyExpirePublisher keyExpirePublisher) {
+        this.bloomFilterMap = new ConcurrentHashMap(bloomFilterMap);
+        this.bitArrayOperator = bitArrayOperator;
+        this.routes = new ConcurrentHashMap();
+        this.funnelRegistry = funnelRegistry;
+        this.strategy = strategy;
+        this.newFilterStrategy = newFilterStrategy;
+        this.keyExpirePublisher = keyExpirePublisher;
+        for (Map.Entry<Class, RedisBloomFilterItem> entry : this.bloomFilterMap.entrySet()) {
+            entry.getValue().setMemberType(entry.getKey().getName());
+        }
     }
 
     /**
@@ -33,83 +93,201 @@ public class RedisBloomFilter {
      */
     public <T, R> void add(SFunction<T> sFunction, R member) {
         GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
-        add(bloomFilterInfo.getKeyPrefix(),
-                bloomFilterInfo.getKeyName(),
-                bloomFilterInfo.getExceptionInsert(),
-                bloomFilterInfo.getFpp(),
-                bloomFilterInfo.getTimeout(),
-                bloomFilterInfo.getTimeUnit(),
-                bloomFilterInfo.isLocal(),
-                member);
+        add(new InnerInfo(bloomFilterInfo), member);
     }
 
     public <R> void add(AddCondition addCondition, R member) {
         InnerInfo condition = addCondition.build();
         addCondition.clear();
-        add(condition.getKeyPrefix(),
-                condition.getKeyName(),
-                condition.getExceptionInsert(),
-                condition.getFpp(),
-                condition.getTimeout(),
-                condition.getTimeUnit(),
-                condition.isLocal(),
-                member
-        );
-    }
-
-    private <R> void add(String keyPrefix, String key, long exceptedInsertions, double fpp, long timeout, TimeUnit timeUnit, boolean local,R member) {
+        add(condition, member);
+    }
+
+    private <R> void add(InnerInfo condition, R member) {
         Class clzz = member.getClass();
         Object res = member;
-        RedisBloomFilterItem filter = bloomFilterMap.get(clzz);
-        String keyName = checkKey(keyPrefix, key);
-        if (filter == null) {
-            filter = bloomFilterMap.get(Byte.class);
-        }
-        filter.put(keyName, res, exceptedInsertions, fpp, timeout, timeUnit,local);
+        RedisBloomFilterItem filter = item(clzz);
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
+        filter.put(keyName, res, condition);
     }
 
     public <T, R> void addAll(SFunction<T> sFunction, List<R> members) {
         GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
-        addAll(bloomFilterInfo.getKeyPrefix(),
-                bloomFilterInfo.getKeyName(),
-                bloomFilterInfo.getExceptionInsert(),
-                bloomFilterInfo.getFpp(),
-                bloomFilterInfo.getTimeout(),
-                bloomFilterInfo.getTimeUnit(),
-                bloomFilterInfo.isLocal(),
-                members);
+        addAll(new InnerInfo(bloomFilterInfo), members);
     }
 
     public <R> void addAll(AddCondition addCondition, List<R> members) {
         InnerInfo innerInfo = addCondition.build();
         addCondition.clear();
-        this.addAll(
-                innerInfo.getKeyPrefix(),
-                innerInfo.getKeyName(),
-                innerInfo.getExceptionInsert(),
-                innerInfo.getFpp(),
-                innerInfo.getTimeout(),
-                innerInfo.getTimeUnit(),
-                innerInfo.isLocal(),
-                members
-        );
-    }
-
-    private <R> void addAll(String keyPrefix, String key, Long exceptedInsertions, Double fpp, long timeout, TimeUnit timeUnit, boolean local, List<R> members) {
+        addAll(innerInfo, members);
+    }
+
+    private <R> void addAll(InnerInfo condition, List<R> members) {
         if (members.isEmpty()) {
             throw new RedisAuxException("参数有误!");
         }
-        String keyName = checkKey(keyPrefix, key);
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
         Class clzz = members.get(0).getClass();
-        RedisBloomFilterItem filter = bloomFilterMap.get(clzz);
+        RedisBloomFilterItem filter = item(clzz);
         List<Object> resList = new ArrayList(members.size());
         for (R member : members) {
             resList.add(member);
         }
-        if (filter == null) {
-            filter = bloomFilterMap.get(Byte.class);
+        filter.putAll(keyName, resList, condition);
+    }
+
+    /**
+     * 流式导入，元素边读取边写入，适合一次性导入大量数据，不支持可扩容的过滤器
+     *
+     * @param addCondition
+     * @param members      只遍历一次，第一个元素的类型决定使用的funnel
+     * @param config
+     * @return 导入结束时的进度
+     */
+    public <R> BulkLoadProgress bulkLoad(AddCondition addCondition, Iterator<R> members, BulkLoadConfig config) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        return bulkLoad(condition, members, config);
+    }
+
+    public <T, R> BulkLoadProgress bulkLoad(SFunction<T> sFunction, Iterator<R> members, BulkLoadConfig config) {
+        GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
+        return bulkLoad(new InnerInfo(bloomFilterInfo), members, config);
+    }
+
+    /**
+     * 导入结束后关闭stream
+     */
+    public <R> BulkLoadProgress bulkLoad(AddCondition addCondition, Stream<R> members, BulkLoadConfig config) {
+        try (Stream<R> stream = members) {
+            return bulkLoad(addCondition, stream.iterator(), config);
+        }
+    }
+
+    /**
+     * 按行导入文件，每行为一个String元素，去掉首尾空白，忽略空行
+     *
+     * @param addCondition
+     * @param file         UTF-8编码
+     * @param config
+     * @return
+     */
+    public BulkLoadProgress bulkLoad(AddCondition addCondition, Path file, BulkLoadConfig config) {
+        Stream<String> lines;
+        try {
+            lines = Files.lines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RedisAuxException("can not read " + file + ": " + e.getMessage(), e);
+        }
+        return bulkLoad(addCondition, lines.map(String::trim).filter(line -> !line.isEmpty()), config);
+    }
+
+    /**
+     * 导出快照，不关闭out，可扩容的过滤器不支持
+     */
+    public void exportSnapshot(BaseCondition condition, OutputStream out) {
+        InnerInfo build = condition.build();
+        exportSnapshot(build.getKeyPrefix(), build.getKeyName(), out);
+    }
+
+    public <T> void exportSnapshot(SFunction<T> sFunction, OutputStream out) {
+        GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
+        exportSnapshot(bloomFilterInfo.getKeyPrefix(), bloomFilterInfo.getKeyName(), out);
+    }
+
+    public void exportSnapshot(BaseCondition condition, Path file) {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            exportSnapshot(condition, out);
+        } catch (IOException e) {
+            throw new RedisAuxException("can not write " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 导入快照，已有的同名过滤器先删除，不关闭in
+     * 位置(redis、本地、内存映射文件)和过期时间取自condition，位数、hash函数个数、策略取自快照，fpp和exceptionInsert不生效
+     */
+    public void importSnapshot(AddCondition addCondition, InputStream in) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        importSnapshot(condition.getKeyPrefix(), condition.getKeyName(), condition.getTimeout(), condition.getTimeUnit(),
+                condition.isLocal(), condition.isMapped(), in);
+    }
+
+    public <T> void importSnapshot(SFunction<T> sFunction, InputStream in) {
+        GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
+        importSnapshot(bloomFilterInfo.getKeyPrefix(), bloomFilterInfo.getKeyName(), bloomFilterInfo.getTimeout(), bloomFilterInfo.getTimeUnit(),
+                bloomFilterInfo.isLocal(), bloomFilterInfo.isMapped(), in);
+    }
+
+    public void importSnapshot(AddCondition addCondition, Path file) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            importSnapshot(addCondition, in);
+        } catch (IOException e) {
+            throw new RedisAuxException("can not read " + file + ": " + e.getMessage(), e);
         }
-        filter.putAll(keyName, exceptedInsertions, fpp, resList, timeout, timeUnit,local);
+    }
+
+    /**
+     * 快照中记录元素类型，导入时交给同一类型的item
+     */
+    private void exportSnapshot(String keyPrefix, String key, OutputStream out) {
+        String keyName = checkKey(keyPrefix, key);
+        discover(keyName);
+        for (Map.Entry<Class, RedisBloomFilterItem> entry : bloomFilterMap.entrySet()) {
+            if (entry.getValue().containKey(keyName)) {
+                try {
+                    entry.getValue().exportSnapshot(keyName, entry.getKey().getName(), out);
+                } catch (IOException e) {
+                    throw new RedisAuxException("export snapshot of " + keyName + " fail: " + e.getMessage(), e);
+                }
+                return;
+            }
+        }
+        throw new RedisAuxException("bloom filter " + keyName + " does not exist");
+    }
+
+    private void importSnapshot(String keyPrefix, String key, long timeout, TimeUnit timeUnit, boolean local, boolean mapped, InputStream in) {
+        String keyName = checkKey(keyPrefix, key);
+        try {
+            //先读出文件头确定元素类型，再由item按文件头创建位数组
+            BitArraySnapshot snapshot = BitArraySnapshot.readHeader(in);
+            RedisBloomFilterItem filter = item(memberClass(snapshot.getMemberType()));
+            //其他类型的item上可能有同名的过滤器
+            for (RedisBloomFilterItem item : bloomFilterMap.values()) {
+                if (item != filter) {
+                    item.remove(keyName);
+                }
+            }
+            filter.importSnapshot(keyName, snapshot, in, timeout, timeUnit, local, mapped);
+        } catch (IOException e) {
+            throw new RedisAuxException("import snapshot of " + keyName + " fail: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 快照中的元素类型，本地没有该类时用Byte的item
+     */
+    private Class memberClass(String memberType) {
+        for (Class type : bloomFilterMap.keySet()) {
+            if (type.getName().equals(memberType)) {
+                return type;
+            }
+        }
+        try {
+            return ClassUtils.forName(memberType, null);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Byte.class;
+        }
+    }
+
+    private <R> BulkLoadProgress bulkLoad(InnerInfo condition, Iterator<R> members, BulkLoadConfig config) {
+        PeekingIterator<R> iterator = Iterators.peekingIterator(members);
+        if (!iterator.hasNext()) {
+            return BloomFilterBulkLoader.empty();
+        }
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
+        RedisBloomFilterItem filter = item(iterator.peek().getClass());
+        return filter.bulkLoader(keyName, condition, config).load(iterator);
     }
 
     public <R> boolean mightContain(BaseCondition queryCondition, R member) {
@@ -125,10 +303,7 @@ public class RedisBloomFilter {
     private <R> boolean mightContain(String keyPrefix, String key, R member) {
         String keyName = checkKey(keyPrefix, key);
         Class clzz = member.getClass();
-        RedisBloomFilterItem filter = bloomFilterMap.get(clzz);
-        if (filter == null) {
-            filter = bloomFilterMap.get(Byte.class);
-        }
+        RedisBloomFilterItem filter = item(keyName, clzz);
         return filter.mightContain(keyName, member);
     }
 
@@ -149,18 +324,193 @@ public class RedisBloomFilter {
         }
         String keyName = checkKey(keyPrefix, key);
         Class clzz = members.get(0).getClass();
-        RedisBloomFilterItem filter = bloomFilterMap.get(clzz);
+        RedisBloomFilterItem filter = item(keyName, clzz);
         List<Object> resList = new ArrayList(members.size());
         for (R member : members) {
             resList.add(member);
         }
-        if (filter == null) {
-            filter = bloomFilterMap.get(Byte.class);
-        }
         return filter.mightContains(keyName, resList);
     }
 
 
+    /**
+     * 同一个元素在多个过滤器中查询，redis的查询合并为一次调用
+     *
+     * @param queryConditions
+     * @param member
+     * @return 与queryConditions顺序一致
+     */
+    public <R> List<Boolean> multiMightContain(List<BaseCondition> queryConditions, R member) {
+        List<R> members = new ArrayList(queryConditions.size());
+        for (int i = 0; i < queryConditions.size(); i++) {
+            members.add(member);
+        }
+        return multiMightContains(queryConditions, members);
+    }
+
+    /**
+     * queryConditions与members一一对应，本地的直接判断，redis的按bitArray分组后合并为一次往返，集群下各槽的脚本调用放在一个流水线里
+     * 有本地镜像的按bitArray分组后走getBatch，镜像过旧时由getBatch回源redis
+     *
+     * @param queryConditions
+     * @param members
+     * @return 与queryConditions顺序一致
+     */
+    public <R> List<Boolean> multiMightContains(List<BaseCondition> queryConditions, List<R> members) {
+        if (queryConditions.size() != members.size()) {
+            throw new RedisAuxException("参数有误!");
+        }
+        Boolean[] res = new Boolean[members.size()];
+        Map<RedisBitArray, List<long[]>> indexMap = new LinkedHashMap();
+        Map<RedisBitArray, List<Integer>> positionMap = new HashMap();
+        Map<MirroredRedisBitArray, List<long[]>> mirroredIndexMap = new LinkedHashMap();
+        for (int i = 0; i < members.size(); i++) {
+            InnerInfo build = queryConditions.get(i).build();
+            String keyName = checkKey(build.getKeyPrefix(), build.getKeyName());
+            R member = members.get(i);
+            RedisBloomFilterItem filter = item(keyName, member.getClass());
+            //位数组与hash函数个数、策略一起取出，避免并发删除时只取到一部分
+            BloomFilterHandle.Target target = filter.getTarget(keyName);
+            BitArray bits = target == null ? null : target.bits;
+            if (filter.isScalable(keyName) || filter.isRotating(keyName)) {
+                //可扩容、按时间轮转的过滤器各层已经合并查询
+                res[i] = filter.mightContain(keyName, member);
+            } else if (bits == null) {
+                res[i] = Boolean.FALSE;
+            } else if (bits instanceof MirroredRedisBitArray) {
+                mirroredIndexMap.computeIfAbsent((MirroredRedisBitArray) bits, k -> new ArrayList()).add(filter.getIndexs(target, member));
+                positionMap.computeIfAbsent((RedisBitArray) bits, k -> new ArrayList()).add(i);
+            } else if (bits instanceof RedisBitArray && !(bits instanceof ShardedRedisBitArray) && !(bits instanceof RedisCountingBitArray)) {
+                //分片的位数组子键可能在不同的槽，计数的位数组需要按计数器读取，都单独查询
+                RedisBitArray redisBits = (RedisBitArray) bits;
+                long[] indexs = filter.getIndexs(target, member);
+                Boolean cache = null;
+                if (bits instanceof NearCacheRedisBitArray) {
+                    cache = ((NearCacheRedisBitArray) bits).getIfPresent(indexs);
+                }
+                if (cache != null) {
+                    res[i] = cache;
+                    continue;
+                }
+                indexMap.computeIfAbsent(redisBits, k -> new ArrayList()).add(indexs);
+                positionMap.computeIfAbsent(redisBits, k -> new ArrayList()).add(i);
+            } else {
+                res[i] = filter.mightContain(keyName, member);
+            }
+        }
+        if (!indexMap.isEmpty()) {
+            Iterator<Boolean> iterator = bitArrayOperator.multiGet(indexMap).iterator();
+            for (Map.Entry<RedisBitArray, List<long[]>> entry : indexMap.entrySet()) {
+                RedisBitArray bits = entry.getKey();
+                List<Integer> positions = positionMap.get(bits);
+                for (int i = 0; i < positions.size(); i++) {
+                    Boolean exists = iterator.next();
+                    res[positions.get(i)] = exists;
+                    if (bits instanceof NearCacheRedisBitArray) {
+                        ((NearCacheRedisBitArray) bits).put(entry.getValue().get(i), exists);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<MirroredRedisBitArray, List<long[]>> entry : mirroredIndexMap.entrySet()) {
+            List<Boolean> list = entry.getKey().getBatch(entry.getValue());
+            List<Integer> positions = positionMap.get(entry.getKey());
+            for (int i = 0; i < positions.size(); i++) {
+                res[positions.get(i)] = list.get(i);
+            }
+        }
+        return Arrays.asList(res);
+    }
+
+
+    /**
+     * 从计数布隆过滤器中删除元素，只有元素可能存在时才删除，普通的过滤器会抛出异常
+     *
+     * @param condition
+     * @param member
+     * @return 元素是否可能存在并已删除
+     */
+    public <R> boolean delete(BaseCondition condition, R member) {
+        InnerInfo build = condition.build();
+        return delete(build.getKeyPrefix(), build.getKeyName(), member);
+    }
+
+    public <T, R> boolean delete(SFunction<T> sFunction, R member) {
+        GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
+        return delete(bloomFilterInfo.getKeyPrefix(), bloomFilterInfo.getKeyName(), member);
+    }
+
+    private <R> boolean delete(String keyPrefix, String key, R member) {
+        String keyName = checkKey(keyPrefix, key);
+        RedisBloomFilterItem filter = item(keyName, member.getClass());
+        return filter.delete(keyName, member);
+    }
+
+    /**
+     * 批量删除，redis上为一次脚本调用
+     *
+     * @param condition
+     * @param members
+     * @return 与members顺序一致
+     */
+    public <R> List<Boolean> deleteAll(BaseCondition condition, List<R> members) {
+        InnerInfo build = condition.build();
+        return deleteAll(build.getKeyPrefix(), build.getKeyName(), members);
+    }
+
+    public <T, R> List<Boolean> deleteAll(SFunction<T> sFunction, List<R> members) {
+        GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
+        return deleteAll(bloomFilterInfo.getKeyPrefix(), bloomFilterInfo.getKeyName(), members);
+    }
+
+    private <R> List<Boolean> deleteAll(String keyPrefix, String key, List<R> members) {
+        if (members.isEmpty()) {
+            return new ArrayList();
+        }
+        String keyName = checkKey(keyPrefix, key);
+        RedisBloomFilterItem filter = item(keyName, members.get(0).getClass());
+        return filter.deleteAll(keyName, new ArrayList(members));
+    }
+
+
+    /**
+     * 本地缓存的命中情况，没有开启nearCache或过滤器不存在时返回空map
+     *
+     * @param condition
+     * @return hit、miss、total、size
+     */
+    public Map<String, Long> nearCacheStats(BaseCondition condition) {
+        InnerInfo build = condition.build();
+        String keyName = checkKey(build.getKeyPrefix(), build.getKeyName());
+        Map<String, Long> res = new HashMap();
+        for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
+            BitArray bits = filter.getBitArray(keyName);
+            if (bits instanceof NearCacheRedisBitArray) {
+                ((NearCacheRedisBitArray) bits).getStats().forEach((k, v) -> res.merge(k, v, Long::sum));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 本地副本的同步情况，没有开启mirror或过滤器不存在时返回空map
+     *
+     * @param condition
+     * @return lag(距上次同步成功的毫秒数)、version、syncs、syncFailures、pulledSegments、localReads、remoteReads
+     */
+    public Map<String, Long> mirrorStats(BaseCondition condition) {
+        InnerInfo build = condition.build();
+        String keyName = checkKey(build.getKeyPrefix(), build.getKeyName());
+        for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
+            BitArray bits = filter.getBitArray(keyName);
+            if (bits instanceof MirroredRedisBitArray) {
+                return ((MirroredRedisBitArray) bits).getStats();
+            }
+        }
+        return new HashMap();
+    }
+
+
     public <T> void remove(SFunction<T> sFunction) {
         GetBloomFilterField.BloomFilterInfo bloomFilterInfo = check(sFunction);
         remove(bloomFilterInfo.getKeyPrefix(), bloomFilterInfo.getKeyName());
@@ -175,6 +525,7 @@ public class RedisBloomFilter {
 
     private void remove(String keyPrefix, String key) {
         String keyname = checkKey(keyPrefix, key);
+        discover(keyname);
         for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
             filter.remove(keyname);
         }
@@ -190,7 +541,9 @@ public class RedisBloomFilter {
 
         List<String> keyList = new LinkedList();
         for (String key : keys) {
-            keyList.add(checkKey(keyPrefix, key));
+            String keyName = checkKey(keyPrefix, key);
+            discover(keyName);
+            keyList.add(keyName);
         }
         for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
             filter.removeAll(keyList);
@@ -215,6 +568,7 @@ public class RedisBloomFilter {
 
     private void reset(String keyPrefix, String keyName) {
         keyName = checkKey(keyPrefix, keyName);
+        discover(keyName);
         for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
             filter.reset(keyName);
         }
@@ -228,12 +582,135 @@ public class RedisBloomFilter {
 
     private void expire(String keyPrefix, String keyName, long timeout, TimeUnit timeUnit,boolean local) {
         keyName = checkKey(keyPrefix, keyName);
+        if (!local) {
+            discover(keyName);
+        }
         for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
             filter.expire(keyName, timeout, timeUnit,local);
         }
     }
 
-    private GetBloomFilterField.BloomFilterInfo check(SFunction sFunction) {
+    /**
+     * 取得绑定到过滤器的句柄，之后的调用不再解析条件、拼接键名和查找item，适合在热点路径上取一次后复用
+     * 过滤器不存在时，句柄的第一次写入按addCondition创建
+     *
+     * @param type 元素的类型，决定使用的item，没有对应的funnel时用Byte的
+     */
+    public <R> BloomFilterHandle<R> handle(AddCondition addCondition, Class<R> type) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        return handle(condition, type);
+    }
+
+    public <T, R> BloomFilterHandle<R> handle(SFunction<T> sFunction, Class<R> type) {
+        return handle(new InnerInfo(check(sFunction)), type);
+    }
+
+    private <R> BloomFilterHandle<R> handle(InnerInfo condition, Class<R> type) {
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
+        RedisBloomFilterItem filter = item(keyName, type);
+        return filter.handle(keyName, condition);
+    }
+
+    /**
+     * 按元素的类型取对应的item
+     */
+    RedisBloomFilterItem item(Object member) {
+        return item(member.getClass());
+    }
+
+    /**
+     * 依次查找已有的item、注册表中的类型(包括父类、接口及带注解的类，第一次使用时新建item)，都没有时用Byte的
+     */
+    RedisBloomFilterItem item(Class type) {
+        RedisBloomFilterItem filter = routes.get(type);
+        if (filter == null) {
+            filter = route(type);
+            routes.put(type, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * 按元素的类型取item，本节点没有该过滤器时先尝试加载其他节点创建的
+     */
+    RedisBloomFilterItem item(String keyName, Class type) {
+        RedisBloomFilterItem filter = item(type);
+        if (!filter.containKey(keyName)) {
+            discover(keyName);
+        }
+        return filter;
+    }
+
+    /**
+     * 本节点没有该过滤器时，按redis上的元数据加载到元数据中元素类型对应的item上
+     * 只有redis上的过滤器有元数据；可扩容、按时间轮转的过滤器没有，仍然只在创建它的节点上可用
+     */
+    void discover(String keyName) {
+        if (containKey(keyName)) {
+            return;
+        }
+        Map<String, String> meta = bitArrayOperator.readMeta(keyName);
+        if (meta != null) {
+            load(keyName, meta);
+        }
+    }
+
+    /**
+     * 扫描redis上的元数据，加载其他节点已经创建的过滤器，集群下不支持扫描，不加载
+     *
+     * @return 加载的过滤器个数
+     */
+    public int prefetch() {
+        int count = 0;
+        for (Map<String, String> meta : bitArrayOperator.prefetchMeta()) {
+            String keyName = meta.get(BloomFilterConstants.META_KEY_FIELD);
+            if (!containKey(keyName)) {
+                load(keyName, meta);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean containKey(String keyName) {
+        for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
+            if (filter.containKey(keyName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void load(String keyName, Map<String, String> meta) {
+        String memberType = meta.get(BloomFilterConstants.META_TYPE_FIELD);
+        item(StringUtils.isEmpty(memberType) ? Byte.class : memberClass(memberType)).load(keyName, meta);
+    }
+
+    private RedisBloomFilterItem route(Class type) {
+        RedisBloomFilterItem filter = bloomFilterMap.get(type);
+        if (filter != null) {
+            return filter;
+        }
+        Class registered = funnelRegistry == null ? null : funnelRegistry.resolveType(type);
+        if (registered == null) {
+            return bloomFilterMap.get(Byte.class);
+        }
+        return bloomFilterMap.computeIfAbsent(registered, this::createItem);
+    }
+
+    private RedisBloomFilterItem createItem(Class type) {
+        RedisBloomFilterItem item = RedisBloomFilterItem.create(funnelRegistry.getFunnel(type), strategy, newFilterStrategy, bitArrayOperator);
+        item.setMemberType(type.getName());
+        keyExpirePublisher.addListener(item);
+        return item;
+    }
+
+    Collection<RedisBloomFilterItem> items() {
+        return bloomFilterMap.values();
+    }
+
+    GetBloomFilterField.BloomFilterInfo check(SFunction sFunction) {
         GetBloomFilterField.BloomFilterInfo bloomFilterInfo = GetBloomFilterField.resolveFieldName(sFunction);
         if (bloomFilterInfo == null) {
             throw new RedisAuxException("请检查注解配置是否正确!");
@@ -241,7 +718,7 @@ public class RedisBloomFilter {
         return bloomFilterInfo;
     }
 
-    private String checkKey(String prefix, String key) {
+    String checkKey(String prefix, String key) {
         return StringUtils.isEmpty(prefix) ? key : CommonUtil.getKeyName(prefix, key);
     }
 
@@ -251,16 +728,13 @@ public class RedisBloomFilter {
             value.clear();
         }
         this.bloomFilterMap.clear();
+        this.routes.clear();
     }
 
     private boolean containKey(String keyPrefix,String keyName){
         String key = checkKey(keyPrefix, keyName);
-        for (RedisBloomFilterItem filter : bloomFilterMap.values()) {
-           if(filter.containKey(key)){
-               return true;
-           };
-        }
-        return false;
+        discover(key);
+        return containKey(key);
     }
     public boolean containKey(BaseCondition condition){
         return this.containKey(condition.keyPrefix,condition.keyName);
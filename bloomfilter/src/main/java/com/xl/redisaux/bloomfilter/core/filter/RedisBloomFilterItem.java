@@ -1,17 +1,32 @@
 package com.xl.redisaux.bloomfilter.core.filter;
 
 import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArraySnapshot;
+import com.xl.redisaux.bloomfilter.core.bitarray.CountingBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.MappedBitArray;
 import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
 import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
 import com.xl.redisaux.bloomfilter.support.BitArrayOperator;
 import com.google.common.base.Preconditions;
 import com.google.common.hash.Funnel;
+import com.google.common.math.LongMath;
 import com.xl.redisaux.bloomfilter.support.expire.KeyExpireListener;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.script.AsyncScriptExecutor;
 import com.xl.redisaux.common.utils.CommonUtil;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -22,72 +37,160 @@ import java.util.concurrent.TimeUnit;
 public class RedisBloomFilterItem<T> implements KeyExpireListener {
 
 
-    private final Map<String, BitArray> bitArrayMap;
+    /**
+     * 位数组、hash函数个数、策略放在同一个不可变对象里，删除、重建时整体替换，读到的总是同一个过滤器的
+     */
+    private final Map<String, BloomFilterHandle.Target> targetMap;
 
+    /**
+     * 可扩容的过滤器单独存放
+     */
+    private final Map<String, ScalableBloomFilter<T>> scalableMap;
 
-    private final Map<String, Integer> numHashFunctionsMap;
+    /**
+     * 按时间轮转的过滤器单独存放
+     */
+    private final Map<String, RotatingBloomFilter<T>> rotatingMap;
+
+    /**
+     * 轮转过滤器片的键到过滤器，由RotatingBloomFilter维护
+     */
+    private final Map<String, RotatingBloomFilter<T>> sliceMap;
+
+    /**
+     * 已取过句柄的键，过滤器创建、删除时更新绑定
+     */
+    private final Map<String, AtomicReference<BloomFilterHandle.Target>> bindings;
 
     private final Funnel<? super T> funnel;
 
     private final Strategy strategy;
 
+    /**
+     * 新建过滤器使用的策略，redis上的过滤器以元数据中记录的为准
+     */
+    private final Strategy newFilterStrategy;
+
     private BitArrayOperator bitArrayOperator;
 
+    private volatile String memberType;
+
 
     public static <T> RedisBloomFilterItem<T> create(Funnel<? super T> funnel, Strategy strategy
             , BitArrayOperator redisBitArrayOperator) {
-        return new RedisBloomFilterItem(funnel, strategy, redisBitArrayOperator);
+        return new RedisBloomFilterItem(funnel, strategy, strategy, redisBitArrayOperator);
+    }
+
+    /**
+     * @param strategy          默认的策略，用于没有元数据的旧过滤器和内存映射文件
+     * @param newFilterStrategy 新建过滤器使用的策略
+     */
+    public static <T> RedisBloomFilterItem<T> create(Funnel<? super T> funnel, Strategy strategy, Strategy newFilterStrategy
+            , BitArrayOperator redisBitArrayOperator) {
+        return new RedisBloomFilterItem(funnel, strategy, newFilterStrategy, redisBitArrayOperator);
     }
 
 
     private RedisBloomFilterItem(
             Funnel<? super T> funnel,
             Strategy strategy,
+            Strategy newFilterStrategy,
             BitArrayOperator bitArrayOperator
     ) {
         this.strategy = strategy;
+        this.newFilterStrategy = newFilterStrategy;
         this.funnel = funnel;
-        this.bitArrayMap = new ConcurrentHashMap();
-        this.numHashFunctionsMap = new ConcurrentHashMap();
+        this.targetMap = new ConcurrentHashMap();
+        this.scalableMap = new ConcurrentHashMap();
+        this.rotatingMap = new ConcurrentHashMap();
+        this.sliceMap = new ConcurrentHashMap();
+        this.bindings = new ConcurrentHashMap();
         this.bitArrayOperator = bitArrayOperator;
     }
 
     public boolean mightContain(String key, T member) {
-        Integer numHashFunctions = numHashFunctionsMap.get(key);
-        BitArray<T> bits = bitArrayMap.get(key);
-        if (bits == null) {
-            return false;
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (target == null) {
+            RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+            if (rotating != null) {
+                return rotating.mightContain(member);
+            }
+            ScalableBloomFilter<T> scalable = scalableMap.get(key);
+            return scalable != null && scalable.mightContain(member);
         }
-        return strategy.mightContain(member, funnel, numHashFunctions, bits);
+        return target.strategy.mightContain(member, funnel, target.numHashFunctions, target.bits);
     }
 
     public List<Boolean> mightContains(String key, List<T> members) {
-        Integer numHashFunctions = numHashFunctionsMap.get(key);
-        BitArray<T> bits = bitArrayMap.get(key);
+        BloomFilterHandle.Target target = targetMap.get(key);
+        ScalableBloomFilter<T> scalable = scalableMap.get(key);
+        if (target == null && scalable != null) {
+            return scalable.mightContains(members);
+        }
+        RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+        if (target == null && rotating != null) {
+            return rotating.mightContains(members);
+        }
         //如果这个bit不存在，则直接返回false
-        if (bits == null) {
+        if (target == null) {
             List<Boolean> list = new LinkedList();
             for (int i = 0; i < members.size(); i++) {
                 list.add(Boolean.FALSE);
             }
             return list;
         }
-        return strategy.mightContains(funnel, numHashFunctions, bits, members);
+        return target.strategy.mightContains(funnel, target.numHashFunctions, target.bits, members);
     }
 
     public void reset(String key) {
-        BitArray tBitArray = bitArrayMap.get(key);
-        if (tBitArray != null) {
-            tBitArray.reset();
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (target != null) {
+            target.bits.reset();
+        }
+        ScalableBloomFilter<T> scalable = scalableMap.get(key);
+        if (scalable != null) {
+            scalable.reset();
+        }
+        RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+        if (rotating != null) {
+            rotating.reset();
         }
     }
 
     public void expire(String key, long timeout, TimeUnit timeUnit,boolean local) {
-        if (bitArrayMap.get(key) != null && timeout != -1L) {
-            bitArrayOperator.expire(key, timeout, timeUnit,local);
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (target != null && timeout != -1L) {
+            expire(target.bits, timeout, timeUnit, local);
+        }
+        ScalableBloomFilter<T> scalable = scalableMap.get(key);
+        if (scalable != null && timeout != -1L) {
+            expireScalable(scalable, timeout, timeUnit, local);
+        }
+        //各片按窗口自行过期，这里只在到期后删除整个过滤器
+        RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+        if (rotating != null && timeout != -1L) {
+            bitArrayOperator.addExpireKey(rotating.getKey(), timeout, timeUnit, local);
         }
     }
 
+    /**
+     * 位数组与redis上的元数据一起过期
+     */
+    private void expire(BitArray bits, long timeout, TimeUnit timeUnit, boolean local) {
+        bitArrayOperator.expire(bits, timeout, timeUnit, local);
+        if (!local) {
+            bitArrayOperator.expireMeta(bits, timeout, timeUnit);
+        }
+    }
+
+    /**
+     * 到期后由CheckTask按key删除所有层
+     */
+    private void expireScalable(ScalableBloomFilter<T> scalable, long timeout, TimeUnit timeUnit, boolean local) {
+        bitArrayOperator.addExpireKey(scalable.getKey(), timeout, timeUnit, local);
+        scalable.expire(timeout, timeUnit);
+    }
+
 
     /**
      * 这里判断不为空才删除的原因是，有可能里面的键不在里面
@@ -98,17 +201,31 @@ public class RedisBloomFilterItem<T> implements KeyExpireListener {
         boolean delete = false;
         List<List<String>> list = new ArrayList();
         for (String s : iterable) {
-            BitArray tBitArray = bitArrayMap.get(s);
-            if (tBitArray != null) {
+            BloomFilterHandle.Target target = targetMap.remove(s);
+            if (target != null) {
+                BitArray tBitArray = target.bits;
                 if(tBitArray instanceof RedisBitArray){
                     list.add(((RedisBitArray) tBitArray).getKeyList());
                 }
-                bitArrayMap.remove(s);
-                numHashFunctionsMap.remove(s);
+                if (bitArrayOperator.hasMeta(tBitArray)) {
+                    list.add(Collections.singletonList(BitArrayOperator.metaKey(s)));
+                }
+                if (tBitArray instanceof MappedBitArray) {
+                    ((MappedBitArray) tBitArray).delete();
+                }
+                bind(s);
                 delete = true;
                 tBitArray.clear();
                 tBitArray = null;
             }
+            ScalableBloomFilter<T> scalable = scalableMap.remove(s);
+            if (scalable != null) {
+                scalable.delete();
+            }
+            RotatingBloomFilter<T> rotating = rotatingMap.remove(s);
+            if (rotating != null) {
+                rotating.delete();
+            }
 
         }
         if (delete) {
@@ -123,78 +240,575 @@ public class RedisBloomFilterItem<T> implements KeyExpireListener {
     }
 
     public void remove(String key) {
-        BitArray tBitArray = bitArrayMap.get(key);
-        if (tBitArray != null) {
-            bitArrayMap.remove(key);
-            numHashFunctionsMap.remove(key);
+        BloomFilterHandle.Target target = targetMap.remove(key);
+        if (target != null) {
+            BitArray tBitArray = target.bits;
             if(tBitArray instanceof RedisBitArray){
-                bitArrayOperator.delete(((RedisBitArray) tBitArray).getKeyList());
+                List<String> keys = new ArrayList(((RedisBitArray) tBitArray).getKeyList());
+                if (bitArrayOperator.hasMeta(tBitArray)) {
+                    keys.add(BitArrayOperator.metaKey(key));
+                }
+                bitArrayOperator.delete(keys);
             }
+            if (tBitArray instanceof MappedBitArray) {
+                ((MappedBitArray) tBitArray).delete();
+            }
+            bind(key);
             tBitArray.clear();
             tBitArray = null;
+            //删除后重新创建的同名过滤器不受之前的过期时间影响
+            bitArrayOperator.cancelExpireKey(key);
+        }
+        ScalableBloomFilter<T> scalable = scalableMap.remove(key);
+        if (scalable != null) {
+            scalable.delete();
+            bitArrayOperator.cancelExpireKey(key);
+        }
+        RotatingBloomFilter<T> rotating = rotatingMap.remove(key);
+        if (rotating != null) {
+            rotating.delete();
+            bitArrayOperator.cancelExpireKey(key);
         }
     }
 
-    public void put(String key, T member, long expectedInsertions, double fpp, long timeout, TimeUnit timeUnit,boolean local) {
-        Preconditions.checkArgument(
-                expectedInsertions >= 0, "Expected insertions (%s) must be >= 0", expectedInsertions);
-        Preconditions.checkArgument(fpp > 0.0, "False positive probability (%s) must be > 0.0", fpp);
-        Preconditions.checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
+    public void put(String key, T member, InnerInfo condition) {
+        checkCondition(condition);
+        checkRotating(condition);
+        if (condition.isScalable() && targetMap.get(key) == null) {
+            putScalable(key, condition).put(member);
+            return;
+        }
+        if (condition.getSlices() > 1 && targetMap.get(key) == null) {
+            putRotating(key, condition).put(member);
+            return;
+        }
         //获取keyname
-        Boolean noAdd = genCache(bitArrayMap.get(key), key, expectedInsertions, fpp,local);
-        BitArray bits = bitArrayMap.get(key);
-        Integer numHashFunctions = numHashFunctionsMap.get(key);
-        strategy.put(member, funnel, numHashFunctions, bits);
-        if (noAdd && timeout != -1) {
+        Boolean noAdd = genCache(key, condition);
+        BloomFilterHandle.Target target = targetMap.get(key);
+        target.strategy.put(member, funnel, target.numHashFunctions, target.bits);
+        if (noAdd && condition.getTimeout() != -1) {
+            //设置过期时间
+            expire(target.bits, condition.getTimeout(), condition.getTimeUnit(), condition.isLocal());
+        }
+    }
+
+    public void putAll(String key, List<T> members, InnerInfo condition) {
+        checkCondition(condition);
+        checkRotating(condition);
+        //可扩容时不限制单次插入的个数
+        if (condition.isScalable() && targetMap.get(key) == null) {
+            putScalable(key, condition).putAll(members);
+            return;
+        }
+        Preconditions.checkArgument(members.size() < condition.getExceptionInsert(), "once add size (%s) shoud smaller than expectInsertions(%s) ", members.size(), condition.getExceptionInsert());
+        if (condition.getSlices() > 1 && targetMap.get(key) == null) {
+            putRotating(key, condition).putAll(members);
+            return;
+        }
+
+        Boolean noAdd = genCache(key, condition);
+
+        BloomFilterHandle.Target target = targetMap.get(key);
+        target.strategy.putAll(funnel, target.numHashFunctions, target.bits, members);
+        if (noAdd && condition.getTimeout() != -1) {
             //设置过期时间
-            bitArrayOperator.expire(key, timeout, timeUnit,local);
+            expire(target.bits, condition.getTimeout(), condition.getTimeUnit(), condition.isLocal());
+        }
+    }
+
+    /**
+     * 异步写入，redis上的位数组通过executor发出命令，本地的位数组直接写入
+     * 可扩容的过滤器在扩容、发现新层时需要同步访问redis，交给fallback执行
+     */
+    CompletableFuture<Void> putAllAsync(AsyncScriptExecutor executor, Executor fallback, String key, List<T> members, InnerInfo condition) {
+        checkCondition(condition);
+        checkRotating(condition);
+        if (condition.isScalable() && targetMap.get(key) == null) {
+            return CompletableFuture.runAsync(() -> putScalable(key, condition).putAll(members), fallback);
+        }
+        //单个元素与put一致，不限制个数
+        Preconditions.checkArgument(members.size() == 1 || members.size() < condition.getExceptionInsert(), "once add size (%s) shoud smaller than expectInsertions(%s) ", members.size(), condition.getExceptionInsert());
+        if (condition.getSlices() > 1 && targetMap.get(key) == null) {
+            //新建片时需要同步访问redis设置过期时间
+            return CompletableFuture.runAsync(() -> putRotating(key, condition).putAll(members), fallback);
+        }
+        Boolean noAdd = genCache(key, condition);
+        BloomFilterHandle.Target target = targetMap.get(key);
+        BitArray bits = target.bits;
+        int numHashFunctions = target.numHashFunctions;
+        long[] indexs = getIndexs(target, members);
+        CompletableFuture<Void> future;
+        if (bits instanceof RedisBitArray) {
+            future = ((RedisBitArray) bits).setBatchAsync(executor, indexs, numHashFunctions, members.size());
+        } else {
+            bits.setBatch(indexs, numHashFunctions, members.size());
+            future = CompletableFuture.completedFuture(null);
+        }
+        if (noAdd && condition.getTimeout() != -1) {
+            //键在第一次写入后才存在，之后再设置过期
+            future = future.thenCompose(v -> expireAsync(executor, bits, condition.getTimeout(), condition.getTimeUnit(), condition.isLocal()));
+        }
+        return future;
+    }
+
+    CompletableFuture<List<Boolean>> mightContainsAsync(AsyncScriptExecutor executor, Executor fallback, String key, List<T> members) {
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (target == null) {
+            ScalableBloomFilter<T> scalable = scalableMap.get(key);
+            if (scalable != null) {
+                return CompletableFuture.supplyAsync(() -> scalable.mightContains(members), fallback);
+            }
+            RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+            if (rotating != null) {
+                return CompletableFuture.supplyAsync(() -> rotating.mightContains(members), fallback);
+            }
+            List<Boolean> list = new ArrayList(members.size());
+            for (int i = 0; i < members.size(); i++) {
+                list.add(Boolean.FALSE);
+            }
+            return CompletableFuture.completedFuture(list);
+        }
+        BitArray bits = target.bits;
+        int numHashFunctions = target.numHashFunctions;
+        long[] indexs = getIndexs(target, members);
+        if (bits instanceof RedisBitArray) {
+            return ((RedisBitArray) bits).getBatchAsync(executor, indexs, numHashFunctions, members.size());
+        }
+        return CompletableFuture.completedFuture(bits.getBatch(indexs, numHashFunctions, members.size()));
+    }
+
+    CompletableFuture<Void> resetAsync(AsyncScriptExecutor executor, Executor fallback, String key) {
+        List<CompletableFuture> futures = new ArrayList();
+        BloomFilterHandle.Target target = targetMap.get(key);
+        BitArray bits = target == null ? null : target.bits;
+        if (bits instanceof RedisBitArray) {
+            futures.add(((RedisBitArray) bits).resetAsync(executor));
+        } else if (bits != null) {
+            bits.reset();
+        }
+        ScalableBloomFilter<T> scalable = scalableMap.get(key);
+        if (scalable != null) {
+            futures.add(CompletableFuture.runAsync(scalable::reset, fallback));
+        }
+        RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+        if (rotating != null) {
+            futures.add(CompletableFuture.runAsync(rotating::reset, fallback));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> expireAsync(AsyncScriptExecutor executor, BitArray bits, long timeout, TimeUnit timeUnit, boolean local) {
+        bitArrayOperator.addExpireKey(bits.getKey(), timeout, timeUnit, local);
+        if (local || !(bits instanceof RedisBitArray)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<String> keys = ((RedisBitArray) bits).getKeyList();
+        if (bitArrayOperator.hasMeta(bits)) {
+            keys = new ArrayList(keys);
+            keys.add(BitArrayOperator.metaKey(bits.getKey()));
         }
+        return executor.pexpire(keys, timeUnit.toMillis(timeout));
     }
 
-    public void putAll(String key, long expectedInsertions, double fpp, List<T> members, long timeout, TimeUnit timeUnit,boolean local) {
+    /**
+     * 多个元素hash后的位数平铺在一个数组中
+     */
+    private long[] getIndexs(BloomFilterHandle.Target target, List<T> members) {
+        return target.strategy.getIndexs(funnel, target.numHashFunctions, target.bits.bitSize(), members);
+    }
+
+    /**
+     * 按需创建过滤器，返回往其中流式写入的loader，不检查写入个数是否超过expectedInsertions
+     * 可扩容的过滤器要根据已插入的个数决定写入哪一层，按时间轮转的过滤器导入期间可能轮转，都不支持
+     */
+    BloomFilterBulkLoader<T> bulkLoader(String key, InnerInfo condition, BulkLoadConfig config) {
+        checkCondition(condition);
+        if (condition.isScalable() || scalableMap.get(key) != null) {
+            throw new RedisAuxException("bulk load does not support scalable bloom filter " + key);
+        }
+        if (condition.getSlices() > 1 || rotatingMap.get(key) != null) {
+            throw new RedisAuxException("bulk load does not support rotating bloom filter " + key);
+        }
+        Boolean noAdd = genCache(key, condition);
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (noAdd && condition.getTimeout() != -1) {
+            expire(target.bits, condition.getTimeout(), condition.getTimeUnit(), condition.isLocal());
+        }
+        return new BloomFilterBulkLoader(target.bits, target.numHashFunctions, target.strategy, funnel, config);
+    }
+
+    /**
+     * 导出过滤器的快照，不关闭out
+     * 可扩容的过滤器由多层组成，按时间轮转的过滤器由多片组成，都不支持
+     *
+     * @param memberType 元素类型，导入时按它选择RedisBloomFilterItem
+     */
+    void exportSnapshot(String key, String memberType, OutputStream out) throws IOException {
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (target == null) {
+            if (rotatingMap.get(key) != null) {
+                throw new RedisAuxException("snapshot does not support rotating bloom filter " + key);
+            }
+            throw new RedisAuxException(scalableMap.get(key) != null ? "snapshot does not support scalable bloom filter " + key : "bloom filter " + key + " does not exist");
+        }
+        BitArray bits = target.bits;
+        int counterBits = bits instanceof CountingBitArray ? ((CountingBitArray) bits).counterBits() : 0;
+        new BitArraySnapshot(RedisBloomFilterStrategies.getCode(target.strategy), memberType, bits.bitSize(), target.numHashFunctions, counterBits)
+                .write(bits, out);
+    }
+
+    /**
+     * 从快照导入，已有的同名过滤器先删除，位数、hash函数个数、策略及是否计数以快照为准
+     * 位置、本地或内存映射文件由调用方决定，位数需要与快照一致
+     *
+     * @param snapshot 已经从in读出的文件头
+     */
+    void importSnapshot(String key, BitArraySnapshot snapshot, InputStream in, long timeout, TimeUnit timeUnit, boolean local, boolean mapped) throws IOException {
+        Strategy snapshotStrategy = RedisBloomFilterStrategies.getStrategy(snapshot.getStrategy());
+        if (snapshotStrategy == null) {
+            throw new RedisAuxException("unknown strategy " + snapshot.getStrategy() + " in snapshot");
+        }
+        checkCounting(snapshot.getCounterBits(), mapped, false);
+        remove(key);
+        boolean blocked = snapshotStrategy == RedisBloomFilterStrategies.MURMUR128_BLOCKED.getStrategy();
+        BitArray bits = snapshot.getCounterBits() > 0 ? bitArrayOperator.createCountingBitArray(key, snapshot.getBitSize(), local, snapshot.getCounterBits())
+                : bitArrayOperator.createBitArray(key, snapshot.getBitSize(), local, mapped, blocked);
+        try {
+            if (bits.bitSize() != snapshot.getBitSize()) {
+                throw new RedisAuxException("snapshot bitSize " + snapshot.getBitSize() + " does not fit bloom filter " + key);
+            }
+            //redis上或文件中可能残留旧的数据
+            if (bits instanceof RedisBitArray) {
+                bitArrayOperator.delete(bits);
+            } else {
+                bits.reset();
+            }
+            snapshot.readBody(in, bits);
+        } catch (IOException | RuntimeException e) {
+            bitArrayOperator.delete(bits);
+            bits.clear();
+            throw e;
+        }
+        //其他节点之后按快照的参数读写
+        bitArrayOperator.writeMeta(bits, snapshot.getStrategy(), snapshot.getNumHashFunctions(), snapshot.getBitSize(), snapshot.getCounterBits(), memberType);
+        targetMap.put(key, new BloomFilterHandle.Target(bits, snapshot.getNumHashFunctions(), snapshotStrategy));
+        bind(key);
+        if (timeout != -1) {
+            expire(bits, timeout, timeUnit, local);
+        }
+    }
+
+    /**
+     * 第一次创建时设置过期时间，之后新建的层按剩余时间过期
+     */
+    private ScalableBloomFilter<T> putScalable(String key, InnerInfo condition) {
+        ScalableBloomFilter<T> scalable = scalableMap.get(key);
+        if (scalable == null) {
+            synchronized (scalableMap) {
+                scalable = scalableMap.get(key);
+                if (scalable == null) {
+                    scalable = new ScalableBloomFilter(key, condition.getExceptionInsert(), condition.getFpp(), condition.isLocal(), condition.isMapped(), condition.isBlocked(),
+                            funnel, layerStrategy(condition.isBlocked()), bitArrayOperator);
+                    scalableMap.put(key, scalable);
+                    if (condition.getTimeout() != -1) {
+                        expireScalable(scalable, condition.getTimeout(), condition.getTimeUnit(), condition.isLocal());
+                    }
+                }
+            }
+        }
+        return scalable;
+    }
+
+    /**
+     * 按时间轮转时timeout为窗口的长度，第一次创建时决定每片的时长
+     */
+    private RotatingBloomFilter<T> putRotating(String key, InnerInfo condition) {
+        RotatingBloomFilter<T> rotating = rotatingMap.get(key);
+        if (rotating == null) {
+            synchronized (rotatingMap) {
+                rotating = rotatingMap.get(key);
+                if (rotating == null) {
+                    rotating = new RotatingBloomFilter(key, condition.getExceptionInsert(), condition.getFpp(), condition.getSlices(), condition.getTimeUnit().toMillis(condition.getTimeout()),
+                            condition.isLocal(), condition.isMapped(), condition.isBlocked(), funnel, layerStrategy(condition.isBlocked()), bitArrayOperator, sliceMap);
+                    rotatingMap.put(key, rotating);
+                }
+            }
+        }
+        return rotating;
+    }
+
+    /**
+     * 按时间轮转需要timeout作为窗口，不能与扩容、计数同时使用
+     */
+    private void checkRotating(InnerInfo condition) {
+        if (condition.getSlices() <= 1) {
+            return;
+        }
+        if (condition.getTimeout() <= 0) {
+            throw new RedisAuxException("rotating bloom filter requires timeout as the window");
+        }
+        if (condition.isScalable() || condition.getCounterBits() > 0) {
+            throw new RedisAuxException("rotating bloom filter does not support scalable or counterBits");
+        }
+    }
+
+    private void checkCondition(InnerInfo condition) {
+        long expectedInsertions = condition.getExceptionInsert();
+        double fpp = condition.getFpp();
         Preconditions.checkArgument(
                 expectedInsertions >= 0, "Expected insertions (%s) must be >= 0", expectedInsertions);
         Preconditions.checkArgument(fpp > 0.0, "False positive probability (%s) must be > 0.0", fpp);
         Preconditions.checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
-        Preconditions.checkArgument(members.size() < expectedInsertions, "once add size (%s) shoud smaller than expectInsertions(%s) ", members.size(), expectedInsertions);
+        checkCounting(condition.getCounterBits(), condition.isMapped(), condition.isScalable());
+    }
 
-        Boolean noAdd = genCache(bitArrayMap.get(key), key, expectedInsertions, fpp, local);
+    /**
+     * 计数器只能是4位或8位，计数的过滤器不支持内存映射文件和扩容
+     */
+    private void checkCounting(int counterBits, boolean mapped, boolean scalable) {
+        if (counterBits == 0) {
+            return;
+        }
+        if (counterBits != 4 && counterBits != 8) {
+            throw new RedisAuxException("counterBits must be 4 or 8");
+        }
+        if (mapped || scalable) {
+            throw new RedisAuxException("counting bloom filter does not support mapped or scalable");
+        }
+    }
 
-        BitArray bits = bitArrayMap.get(key);
-        Integer numHashFunctions = numHashFunctionsMap.get(key);
-        strategy.putAll(funnel, numHashFunctions, bits, members);
-        if (noAdd && timeout != -1) {
-            //设置过期时间
-            bitArrayOperator.expire(key, timeout, timeUnit,local);
+    /**
+     * redis上的过滤器按元数据确定策略、hash函数个数及位数，元数据由第一个创建的节点写入，与本节点的参数不同时以元数据为准
+     * 已存在时直接返回；读写元数据在锁外进行，并发创建时只发布先放入的一个，其余的丢弃
+     *
+     * @return 是否由本次调用创建
+     */
+    private Boolean genCache(String key, InnerInfo condition) {
+        if (targetMap.get(key) != null) {
+            return false;
+        }
+        return publish(key, newTarget(key, condition));
+    }
+
+    /**
+     * 已有其他线程放入时释放本次新建的位数组，redis上的数据不受影响
+     *
+     * @return 是否由本次调用放入
+     */
+    private boolean publish(String key, BloomFilterHandle.Target target) {
+        if (targetMap.putIfAbsent(key, target) != null) {
+            target.bits.clear();
+            return false;
+        }
+        bind(key);
+        return true;
+    }
+
+    private BloomFilterHandle.Target newTarget(String key, InnerInfo condition) {
+        long expectedInsertions = condition.getExceptionInsert();
+        int counterBits = condition.getCounterBits();
+        long numBits = CommonUtil.optimalNumOfBits(expectedInsertions, condition.getFpp());
+        //内存映射文件可能由旧版本创建，沿用默认策略
+        Strategy keyStrategy = condition.isMapped() ? strategy : newFilterStrategy;
+        Strategy legacyStrategy = strategy;
+        if (condition.isBlocked()) {
+            //按块取整，最后一块也能完整使用
+            numBits = LongMath.divide(numBits, 1 << RedisBloomFilterStrategies.BLOCK_BITS, RoundingMode.CEILING) << RedisBloomFilterStrategies.BLOCK_BITS;
+            keyStrategy = RedisBloomFilterStrategies.MURMUR128_BLOCKED.getStrategy();
+            legacyStrategy = keyStrategy;
+        }
+        //获取hash函数数量
+        int numHashFunctions = CommonUtil.optimalNumOfHashFunctions(expectedInsertions, numBits);
+        BitArray bits = createBitArray(key, numBits, condition.isLocal(), condition.isMapped(), counterBits, condition.isBlocked());
+        Map<String, String> meta = bitArrayOperator.shareMeta(bits, RedisBloomFilterStrategies.getCode(keyStrategy), RedisBloomFilterStrategies.getCode(legacyStrategy),
+                numHashFunctions, numBits, counterBits, memberType);
+        if (meta != null && !(meta.get(BloomFilterConstants.META_STRATEGY_FIELD).equals(RedisBloomFilterStrategies.getCode(keyStrategy))
+                && Integer.parseInt(meta.get(BloomFilterConstants.META_HASH_FUNCTIONS_FIELD)) == numHashFunctions
+                && Long.parseLong(meta.get(BloomFilterConstants.META_BIT_SIZE_FIELD)) == numBits
+                && Integer.parseInt(meta.get(BloomFilterConstants.META_COUNTER_BITS_FIELD)) == counterBits)) {
+            //其他节点先创建，按它的参数重新新建
+            bits.clear();
+            return createTarget(key, meta);
+        }
+        return new BloomFilterHandle.Target(bits, numHashFunctions, keyStrategy);
+    }
+
+    /**
+     * 按元数据新建位数组，连同策略及hash函数个数一起返回
+     */
+    private BloomFilterHandle.Target createTarget(String key, Map<String, String> meta) {
+        String code = meta.get(BloomFilterConstants.META_STRATEGY_FIELD);
+        Strategy keyStrategy = RedisBloomFilterStrategies.getStrategy(code);
+        if (keyStrategy == null) {
+            throw new RedisAuxException("unknown strategy " + code + " in meta of bloom filter " + key);
         }
+        long numBits = Long.parseLong(meta.get(BloomFilterConstants.META_BIT_SIZE_FIELD));
+        String counterBits = meta.get(BloomFilterConstants.META_COUNTER_BITS_FIELD);
+        BitArray bits = createBitArray(key, numBits, false, false, counterBits == null ? 0 : Integer.parseInt(counterBits),
+                keyStrategy == RedisBloomFilterStrategies.MURMUR128_BLOCKED.getStrategy());
+        return new BloomFilterHandle.Target(bits, Integer.parseInt(meta.get(BloomFilterConstants.META_HASH_FUNCTIONS_FIELD)), keyStrategy);
     }
 
-    private Boolean genCache(BitArray bits, String key, long expectedInsertions, double fpp,  boolean local) {
-        Boolean noAdd = bits == null;
-        if ((noAdd)) {
-            long numBits = CommonUtil.optimalNumOfBits(expectedInsertions, fpp);
-            bits = bitArrayOperator.createBitArray(key, numBits, local);
-            bitArrayMap.put(key, bits);
-            //获取hash函数数量
-            numHashFunctionsMap.put(key, CommonUtil.optimalNumOfHashFunctions(expectedInsertions, numBits));
+    /**
+     * 按其他节点写入的元数据加载过滤器，本节点已有该过滤器时忽略
+     * 元数据的键有过期时间时，到期后同样从本节点删除
+     */
+    void load(String key, Map<String, String> meta) {
+        if (containKey(key)) {
+            return;
+        }
+        if (!publish(key, createTarget(key, meta))) {
+            return;
+        }
+        String expireAt = meta.get(BloomFilterConstants.META_EXPIRE_AT_FIELD);
+        if (expireAt != null) {
+            bitArrayOperator.addExpireKey(key, Math.max(0, Long.parseLong(expireAt) - System.currentTimeMillis()), TimeUnit.MILLISECONDS, false);
         }
-        return noAdd;
+    }
+
+    /**
+     * 元素类型的名字，写入元数据，其他节点按它选择item
+     */
+    void setMemberType(String memberType) {
+        this.memberType = memberType;
+    }
+
+    private BitArray createBitArray(String key, long numBits, boolean local, boolean mapped, int counterBits, boolean blocked) {
+        return counterBits > 0 ? bitArrayOperator.createCountingBitArray(key, numBits, local, counterBits)
+                : bitArrayOperator.createBitArray(key, numBits, local, mapped, blocked);
+    }
+
+    /**
+     * 同一个键的句柄共用一个绑定，过滤器已存在时直接绑定
+     *
+     * @param condition 过滤器不存在时按它创建
+     */
+    BloomFilterHandle<T> handle(String key, InnerInfo condition) {
+        AtomicReference<BloomFilterHandle.Target> binding = bindings.computeIfAbsent(key, k -> new AtomicReference());
+        bind(key);
+        return new BloomFilterHandle(this, key, condition, funnel, binding);
+    }
+
+    /**
+     * 按当前的位数组更新句柄的绑定，过滤器不存在时解除绑定，没有句柄时忽略
+     */
+    private void bind(String key) {
+        AtomicReference<BloomFilterHandle.Target> binding = bindings.get(key);
+        if (binding == null) {
+            return;
+        }
+        binding.set(targetMap.get(key));
+    }
+
+    public boolean delete(String key, T member) {
+        BloomFilterHandle.Target target = getCountingTarget(key);
+        if (target == null) {
+            return false;
+        }
+        return ((CountingBitArray) target.bits).remove(getIndexs(target, member));
+    }
+
+    public List<Boolean> deleteAll(String key, List<T> members) {
+        BloomFilterHandle.Target target = getCountingTarget(key);
+        if (target == null) {
+            List<Boolean> list = new ArrayList(members.size());
+            for (int i = 0; i < members.size(); i++) {
+                list.add(Boolean.FALSE);
+            }
+            return list;
+        }
+        List<long[]> indexs = new ArrayList(members.size());
+        for (T member : members) {
+            indexs.add(getIndexs(target, member));
+        }
+        return ((CountingBitArray) target.bits).removeBatch(indexs);
+    }
+
+    /**
+     * 过滤器不存在时返回null，不是计数的过滤器时抛出异常
+     */
+    private BloomFilterHandle.Target getCountingTarget(String key) {
+        BloomFilterHandle.Target target = targetMap.get(key);
+        if (target == null) {
+            if (scalableMap.get(key) != null || rotatingMap.get(key) != null) {
+                throw new RedisAuxException("bloom filter " + key + " does not support delete, add it with counterBits");
+            }
+            return null;
+        }
+        if (!(target.bits instanceof CountingBitArray)) {
+            throw new RedisAuxException("bloom filter " + key + " does not support delete, add it with counterBits");
+        }
+        return target;
     }
 
     boolean containKey(String key){
-        return this.bitArrayMap.get(key)!=null;
+        return this.targetMap.get(key)!=null || this.scalableMap.get(key) != null || this.rotatingMap.get(key) != null;
+    }
+
+    /**
+     * 分层的过滤器每层都新建位数组，按块存放时用分块的策略
+     */
+    private Strategy layerStrategy(boolean blocked) {
+        return blocked ? RedisBloomFilterStrategies.MURMUR128_BLOCKED.getStrategy() : strategy;
+    }
+
+    boolean isScalable(String key) {
+        return this.scalableMap.get(key) != null;
+    }
+
+    boolean isRotating(String key) {
+        return this.rotatingMap.get(key) != null;
+    }
+
+    BitArray getBitArray(String key) {
+        BloomFilterHandle.Target target = this.targetMap.get(key);
+        return target == null ? null : target.bits;
     }
 
+    BloomFilterHandle.Target getTarget(String key) {
+        return this.targetMap.get(key);
+    }
+
+    /**
+     * 计算元素在对应bitArray上的位数，用于跨过滤器合并查询
+     *
+     * @param target
+     * @param member
+     * @return
+     */
+    long[] getIndexs(BloomFilterHandle.Target target, T member) {
+        return target.strategy.getIndexs(member, funnel, target.numHashFunctions, target.bits.bitSize());
+    }
+
+    /**
+     * 按时间轮转的过滤器以片的键加入CheckTask，到期时只轮转
+     */
     @Override
     public void removeKey(String key) {
+        RotatingBloomFilter<T> rotating = sliceMap.get(key);
+        if (rotating != null) {
+            rotating.rotate();
+            return;
+        }
         remove(key);
     }
 
     protected void clear() {
-        this.numHashFunctionsMap.clear();
-        for (BitArray value : this.bitArrayMap.values()) {
+        for (BloomFilterHandle.Target value : this.targetMap.values()) {
+            value.bits.clear();
+        }
+        this.targetMap.clear();
+        for (ScalableBloomFilter<T> value : this.scalableMap.values()) {
             value.clear();
         }
-        this.bitArrayMap.clear();
+        this.scalableMap.clear();
+        for (RotatingBloomFilter<T> value : this.rotatingMap.values()) {
+            value.clear();
+        }
+        this.rotatingMap.clear();
+        this.sliceMap.clear();
+        for (AtomicReference<BloomFilterHandle.Target> binding : this.bindings.values()) {
+            binding.set(null);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.utils.CommonUtil;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:25
+ * 布谷鸟过滤器，用法与RedisBloomFilter一致，每种类型对应一个item
+ * 误判率较低时比布隆过滤器省空间，查询只访问两个桶，并且可以删除元素；容量是固定的，满了之后写入返回false
+ * AddCondition中只使用fpp、exceptionInsert、timeout、timeUnit和local
+ */
+@SuppressWarnings("unchecked")
+public class RedisCuckooFilter {
+
+    private final Map<Class, RedisCuckooFilterItem> cuckooFilterMap;
+
+    public RedisCuckooFilter(Map<Class, RedisCuckooFilterItem> cuckooFilterMap) {
+        this.cuckooFilterMap = cuckooFilterMap;
+    }
+
+    /**
+     * @return 是否写入，过滤器满了之后返回false
+     */
+    public <R> boolean add(AddCondition addCondition, R member) {
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
+        return getItem(member.getClass()).put(keyName, member, condition.getExceptionInsert(), condition.getFpp(),
+                condition.getTimeout(), condition.getTimeUnit(), condition.isLocal());
+    }
+
+    public <R> List<Boolean> addAll(AddCondition addCondition, List<R> members) {
+        if (members.isEmpty()) {
+            throw new RedisAuxException("参数有误!");
+        }
+        InnerInfo condition = addCondition.build();
+        addCondition.clear();
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
+        return getItem(members.get(0).getClass()).putAll(keyName, new ArrayList(members), condition.getExceptionInsert(), condition.getFpp(),
+                condition.getTimeout(), condition.getTimeUnit(), condition.isLocal());
+    }
+
+    public <R> boolean mightContain(BaseCondition queryCondition, R member) {
+        InnerInfo build = queryCondition.build();
+        return getItem(member.getClass()).mightContain(checkKey(build.getKeyPrefix(), build.getKeyName()), member);
+    }
+
+    public <R> List<Boolean> mightContains(BaseCondition queryCondition, List<R> members) {
+        if (members.isEmpty()) {
+            return new ArrayList();
+        }
+        InnerInfo build = queryCondition.build();
+        return getItem(members.get(0).getClass()).mightContains(checkKey(build.getKeyPrefix(), build.getKeyName()), new ArrayList(members));
+    }
+
+    /**
+     * 只能删除已经写入过的元素，删除没有写入的元素可能误删指纹相同的其他元素
+     */
+    public <R> boolean delete(BaseCondition condition, R member) {
+        InnerInfo build = condition.build();
+        return getItem(member.getClass()).delete(checkKey(build.getKeyPrefix(), build.getKeyName()), member);
+    }
+
+    public <R> List<Boolean> deleteAll(BaseCondition condition, List<R> members) {
+        if (members.isEmpty()) {
+            return new ArrayList();
+        }
+        InnerInfo build = condition.build();
+        return getItem(members.get(0).getClass()).deleteAll(checkKey(build.getKeyPrefix(), build.getKeyName()), new ArrayList(members));
+    }
+
+    public void reset(BaseCondition resetCondition) {
+        InnerInfo build = resetCondition.build();
+        String keyName = checkKey(build.getKeyPrefix(), build.getKeyName());
+        for (RedisCuckooFilterItem item : cuckooFilterMap.values()) {
+            item.reset(keyName);
+        }
+    }
+
+    public void remove(BaseCondition deleteCondition) {
+        InnerInfo build = deleteCondition.build();
+        String keyName = checkKey(build.getKeyPrefix(), build.getKeyName());
+        for (RedisCuckooFilterItem item : cuckooFilterMap.values()) {
+            item.remove(keyName);
+        }
+    }
+
+    public void expire(ExpireCondition expireCondition) {
+        InnerInfo condition = expireCondition.build();
+        expireCondition.clear();
+        String keyName = checkKey(condition.getKeyPrefix(), condition.getKeyName());
+        long timeout = condition.getTimeout();
+        TimeUnit timeUnit = condition.getTimeUnit();
+        for (RedisCuckooFilterItem item : cuckooFilterMap.values()) {
+            item.expire(keyName, timeout, timeUnit);
+        }
+    }
+
+    public boolean containKey(BaseCondition condition) {
+        String keyName = checkKey(condition.keyPrefix, condition.keyName);
+        for (RedisCuckooFilterItem item : cuckooFilterMap.values()) {
+            if (item.containKey(keyName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RedisCuckooFilterItem getItem(Class clzz) {
+        RedisCuckooFilterItem item = cuckooFilterMap.get(clzz);
+        if (item == null) {
+            item = cuckooFilterMap.get(Byte.class);
+        }
+        return item;
+    }
+
+    private String checkKey(String prefix, String key) {
+        return StringUtils.isEmpty(prefix) ? key : CommonUtil.getKeyName(prefix, key);
+    }
+
+    @PreDestroy
+    protected void destory() {
+        for (RedisCuckooFilterItem value : this.cuckooFilterMap.values()) {
+            value.clear();
+        }
+        this.cuckooFilterMap.clear();
+    }
+}
@@ -0,0 +1,194 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Funnel;
+import com.google.common.math.LongMath;
+import com.xl.redisaux.bloomfilter.core.cuckoo.CuckooTable;
+import com.xl.redisaux.bloomfilter.core.cuckoo.LocalCuckooTable;
+import com.xl.redisaux.bloomfilter.core.strategy.Murmur3Hashing;
+import com.xl.redisaux.bloomfilter.support.BitArrayOperator;
+import com.xl.redisaux.bloomfilter.support.expire.KeyExpireListener;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:15
+ * 与RedisBloomFilterItem对应，每种类型一个，按funnel做murmur3_128后，前8个字节算桶的下标，后8个字节算指纹
+ * 键为keyName加上:cuckoo，与布隆过滤器的键区分开，过期时CheckTask按这个键通知
+ */
+@SuppressWarnings("unchecked")
+public class RedisCuckooFilterItem<T> implements KeyExpireListener {
+
+    private final Map<String, CuckooTable> tableMap;
+
+    private final Funnel<? super T> funnel;
+
+    private final BitArrayOperator bitArrayOperator;
+
+    public static <T> RedisCuckooFilterItem<T> create(Funnel<? super T> funnel, BitArrayOperator bitArrayOperator) {
+        return new RedisCuckooFilterItem(funnel, bitArrayOperator);
+    }
+
+    private RedisCuckooFilterItem(Funnel<? super T> funnel, BitArrayOperator bitArrayOperator) {
+        this.funnel = funnel;
+        this.bitArrayOperator = bitArrayOperator;
+        this.tableMap = new ConcurrentHashMap();
+    }
+
+    public boolean put(String key, T member, long expectedInsertions, double fpp, long timeout, TimeUnit timeUnit, boolean local) {
+        return putAll(key, Collections.singletonList(member), expectedInsertions, fpp, timeout, timeUnit, local).get(0);
+    }
+
+    /**
+     * @return 每个元素是否写入，过滤器满了之后返回false
+     */
+    public List<Boolean> putAll(String key, List<T> members, long expectedInsertions, double fpp, long timeout, TimeUnit timeUnit, boolean local) {
+        Preconditions.checkArgument(
+                expectedInsertions >= 0, "Expected insertions (%s) must be >= 0", expectedInsertions);
+        Preconditions.checkArgument(fpp > 0.0, "False positive probability (%s) must be > 0.0", fpp);
+        Preconditions.checkArgument(fpp < 1.0, "False positive probability (%s) must be < 1.0", fpp);
+        String tableKey = tableKey(key);
+        CuckooTable table = tableMap.get(tableKey);
+        boolean noAdd = table == null;
+        if (noAdd) {
+            synchronized (tableMap) {
+                table = tableMap.get(tableKey);
+                noAdd = table == null;
+                if (noAdd) {
+                    table = createTable(tableKey, expectedInsertions, fpp, local);
+                    tableMap.put(tableKey, table);
+                }
+            }
+        }
+        long[][] hashs = hash(table, members);
+        List<Boolean> res = table.insert(hashs[0], hashs[1]);
+        if (noAdd && timeout != -1) {
+            //键在第一次写入后才存在
+            bitArrayOperator.expire(tableKey, timeout, timeUnit, local);
+        }
+        return res;
+    }
+
+    /**
+     * 桶数按4个槽、95%的装载率计算，向上取2的幂；误判率约为2 * 4 / 2^指纹位数，指纹取8位、16位或32位
+     * 32位指纹也达不到的误判率(约2e-9以下)直接拒绝，不静默降低精度
+     */
+    private CuckooTable createTable(String tableKey, long expectedInsertions, double fpp, boolean local) {
+        long buckets = (long) Math.ceil(Math.max(1, expectedInsertions) / (BloomFilterConstants.CUCKOO_BUCKET_SIZE * BloomFilterConstants.CUCKOO_LOAD_FACTOR));
+        long bucketCount = LongMath.ceilingPowerOfTwo(buckets);
+        double bits = Math.log(2.0 * BloomFilterConstants.CUCKOO_BUCKET_SIZE / fpp) / Math.log(2);
+        if (bits > BloomFilterConstants.CUCKOO_MAX_FINGERPRINT_BITS) {
+            throw new RedisAuxException("False positive probability (" + fpp + ") is too small for cuckoo filter, needs "
+                    + (int) Math.ceil(bits) + " bits fingerprint, max " + BloomFilterConstants.CUCKOO_MAX_FINGERPRINT_BITS);
+        }
+        int fingerprintBits = bits <= 8 ? 8 : bits <= 16 ? 16 : 32;
+        return bitArrayOperator.createCuckooTable(tableKey, bucketCount, fingerprintBits, local);
+    }
+
+    public boolean mightContain(String key, T member) {
+        return mightContains(key, Collections.singletonList(member)).get(0);
+    }
+
+    public List<Boolean> mightContains(String key, List<T> members) {
+        CuckooTable table = tableMap.get(tableKey(key));
+        if (table == null) {
+            return falseList(members.size());
+        }
+        long[][] hashs = hash(table, members);
+        return table.contains(hashs[0], hashs[1]);
+    }
+
+    public boolean delete(String key, T member) {
+        return deleteAll(key, Collections.singletonList(member)).get(0);
+    }
+
+    public List<Boolean> deleteAll(String key, List<T> members) {
+        CuckooTable table = tableMap.get(tableKey(key));
+        if (table == null) {
+            return falseList(members.size());
+        }
+        long[][] hashs = hash(table, members);
+        return table.delete(hashs[0], hashs[1]);
+    }
+
+    /**
+     * 返回每个元素的第一个桶下标和指纹，指纹在[1, 2^fingerprintBits - 1]之间
+     * murmur3_128的两个long先写入这两个数组，再原地换算
+     */
+    private long[][] hash(CuckooTable table, List<T> members) {
+        long[] indexs = new long[members.size()];
+        long[] fingerprints = new long[members.size()];
+        Murmur3Hashing.hash(funnel, members, indexs, fingerprints);
+        long fingerprintMask = (1L << table.fingerprintBits()) - 1;
+        for (int i = 0; i < members.size(); i++) {
+            indexs[i] = indexs[i] & (table.bucketCount() - 1);
+            fingerprints[i] = (fingerprints[i] >>> 1) % fingerprintMask + 1;
+        }
+        return new long[][]{indexs, fingerprints};
+    }
+
+    private List<Boolean> falseList(int size) {
+        List<Boolean> list = new ArrayList(size);
+        for (int i = 0; i < size; i++) {
+            list.add(Boolean.FALSE);
+        }
+        return list;
+    }
+
+    public void reset(String key) {
+        CuckooTable table = tableMap.get(tableKey(key));
+        if (table != null) {
+            table.reset();
+        }
+    }
+
+    public void expire(String key, long timeout, TimeUnit timeUnit) {
+        String tableKey = tableKey(key);
+        CuckooTable table = tableMap.get(tableKey);
+        if (table != null && timeout != -1L) {
+            bitArrayOperator.expire(tableKey, timeout, timeUnit, table instanceof LocalCuckooTable);
+        }
+    }
+
+    public void remove(String key) {
+        removeTable(tableKey(key));
+    }
+
+    private void removeTable(String tableKey) {
+        CuckooTable table = tableMap.remove(tableKey);
+        if (table != null) {
+            if (!(table instanceof LocalCuckooTable)) {
+                bitArrayOperator.delete(Collections.singletonList(tableKey));
+            }
+            table.clear();
+        }
+    }
+
+    boolean containKey(String key) {
+        return tableMap.get(tableKey(key)) != null;
+    }
+
+    private String tableKey(String key) {
+        return key + BloomFilterConstants.CUCKOO_KEY_SUFFIX;
+    }
+
+    @Override
+    public void removeKey(String key) {
+        removeTable(key);
+    }
+
+    protected void clear() {
+        for (CuckooTable table : tableMap.values()) {
+            table.clear();
+        }
+        tableMap.clear();
+    }
+}
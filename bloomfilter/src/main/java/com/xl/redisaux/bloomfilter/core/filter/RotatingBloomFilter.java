@@ -0,0 +1,261 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.google.common.hash.Funnel;
+import com.google.common.math.LongMath;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.ShardedRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import com.xl.redisaux.bloomfilter.support.BitArrayOperator;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.utils.CommonUtil;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 23:40
+ * 按时间轮转的布隆过滤器，用于"最近一段时间内是否出现过"的去重
+ * 窗口按时间分成slices片，每片为一个子过滤器，编号为时间戳/每片的毫秒数，各节点按时间得到相同的编号
+ * 插入只写最新的一片，查询检查窗口内的所有片，redis上的片合并为一次脚本调用
+ * 每片在滑出窗口时由CheckTask通知轮转，丢弃最旧的片并新建下一片，redis上的键同时设置过期时间兜底
+ * 各片位数相同，元素在各片上的位数只计算一次；每片容量为expectedInsertions，误判率为fpp / slices，总的误判率不超过fpp
+ */
+@SuppressWarnings("unchecked")
+class RotatingBloomFilter<T> {
+
+    private final String key;
+
+    /**
+     * 各片的键为{key}:slice:编号，在集群下落在同一个槽
+     */
+    private final String slicePrefix;
+
+    private final int slices;
+
+    private final long sliceMillis;
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    private final boolean local;
+
+    private final boolean mapped;
+
+    private final boolean blocked;
+
+    private final Funnel<? super T> funnel;
+
+    private final Strategy strategy;
+
+    private final BitArrayOperator bitArrayOperator;
+
+    /**
+     * 同一种类型所有轮转过滤器共用，片的键到过滤器，片新建、丢弃时更新，到期通知时直接按键找到过滤器
+     */
+    private final Map<String, RotatingBloomFilter<T>> sliceIndex;
+
+    /**
+     * 按编号从旧到新
+     */
+    private final List<Slice> ring = new CopyOnWriteArrayList();
+
+    private volatile Slice newest;
+
+    RotatingBloomFilter(String key, long expectedInsertions, double fpp, int slices, long windowMillis, boolean local, boolean mapped, boolean blocked,
+                        Funnel<? super T> funnel, Strategy strategy, BitArrayOperator bitArrayOperator, Map<String, RotatingBloomFilter<T>> sliceIndex) {
+        this.key = key;
+        this.slicePrefix = "{" + key.replace('{', '(').replace('}', ')') + "}" + BloomFilterConstants.ROTATING_SLICE_SEPARATOR;
+        this.slices = slices;
+        this.sliceMillis = Math.max(1, windowMillis / slices);
+        this.local = local;
+        this.mapped = mapped;
+        this.blocked = blocked;
+        this.funnel = funnel;
+        this.strategy = strategy;
+        this.bitArrayOperator = bitArrayOperator;
+        this.sliceIndex = sliceIndex;
+        long bits = CommonUtil.optimalNumOfBits(Math.max(1, expectedInsertions), fpp / slices);
+        if (blocked) {
+            bits = LongMath.divide(bits, 1 << RedisBloomFilterStrategies.BLOCK_BITS, RoundingMode.CEILING) << RedisBloomFilterStrategies.BLOCK_BITS;
+        }
+        this.numBits = bits;
+        this.numHashFunctions = CommonUtil.optimalNumOfHashFunctions(Math.max(1, expectedInsertions), bits);
+        rotate();
+    }
+
+    /**
+     * 补齐到当前时间的片，再丢弃滑出窗口的片，重复调用没有影响
+     * 本地只新建当前片；redis上较旧的片可能已由其他节点写入，窗口内的都加入查询
+     */
+    synchronized void rotate() {
+        long current = System.currentTimeMillis() / sliceMillis;
+        long oldest = current - slices + 1;
+        long next = newest == null || newest.number < oldest ? (local ? current : oldest) : newest.number + 1;
+        for (long number = next; number <= current; number++) {
+            Slice slice = createSlice(number);
+            ring.add(slice);
+            newest = slice;
+        }
+        while (ring.get(0).number < oldest) {
+            Slice slice = ring.remove(0);
+            sliceIndex.remove(slice.key, this);
+            //其他节点可能已经删除，删除不存在的键没有影响
+            bitArrayOperator.delete(slice.bits);
+            slice.bits.clear();
+        }
+    }
+
+    private Slice createSlice(long number) {
+        String sliceKey = slicePrefix + number;
+        Slice slice = new Slice(number, sliceKey, bitArrayOperator.createBitArray(sliceKey, numBits, local, mapped, blocked));
+        sliceIndex.put(sliceKey, this);
+        //滑出窗口时通知轮转
+        bitArrayOperator.addExpireKey(sliceKey, Math.max(0, slice.expireAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS, local);
+        //键在第一次写入后才存在，之后再设置过期
+        slice.expirePending = !local;
+        return slice;
+    }
+
+    void put(T member) {
+        Slice slice = current();
+        strategy.put(member, funnel, numHashFunctions, slice.bits);
+        afterInsert(slice);
+    }
+
+    void putAll(List<T> members) {
+        Slice slice = current();
+        strategy.putAll(funnel, numHashFunctions, slice.bits, members);
+        afterInsert(slice);
+    }
+
+    /**
+     * 轮转由CheckTask驱动，通知还没到达时先补齐当前片，避免写入即将丢弃的片
+     */
+    private Slice current() {
+        Slice slice = newest;
+        if (slice.number < System.currentTimeMillis() / sliceMillis) {
+            rotate();
+            slice = newest;
+        }
+        return slice;
+    }
+
+    private void afterInsert(Slice slice) {
+        if (slice.expirePending) {
+            slice.expirePending = false;
+            long remain = slice.expireAt - System.currentTimeMillis();
+            if (remain > 0) {
+                bitArrayOperator.expireRedisKeys(slice.bits, remain, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    boolean mightContain(T member) {
+        List<Boolean> res = mightContains(Collections.singletonList(member));
+        return res.get(0);
+    }
+
+    List<Boolean> mightContains(List<T> members) {
+        List<Boolean> res = new ArrayList(members.size());
+        List<long[]> indexs = new ArrayList(members.size());
+        //本地的片按平铺的数组查询
+        long[] flat = new long[members.size() * numHashFunctions];
+        for (int i = 0; i < members.size(); i++) {
+            long[] index = strategy.getIndexs(members.get(i), funnel, numHashFunctions, numBits);
+            res.add(Boolean.FALSE);
+            indexs.add(index);
+            System.arraycopy(index, 0, flat, i * numHashFunctions, numHashFunctions);
+        }
+        Map<RedisBitArray, List<long[]>> indexMap = new LinkedHashMap();
+        for (Slice slice : ring) {
+            if (slice.bits instanceof RedisBitArray && !(slice.bits instanceof ShardedRedisBitArray)) {
+                indexMap.put((RedisBitArray) slice.bits, indexs);
+            } else {
+                or(res, slice.bits.getBatch(flat, numHashFunctions, members.size()).iterator());
+            }
+        }
+        if (!indexMap.isEmpty()) {
+            //结果按片展开，每片members.size()个
+            Iterator<Boolean> iterator = bitArrayOperator.multiGet(indexMap).iterator();
+            for (int i = 0; i < indexMap.size(); i++) {
+                or(res, iterator);
+            }
+        }
+        return res;
+    }
+
+    private void or(List<Boolean> res, Iterator<Boolean> iterator) {
+        for (int i = 0; i < res.size(); i++) {
+            if (iterator.next()) {
+                res.set(i, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * 清空所有片，redis上位全为0等同于键不存在，直接删除
+     */
+    synchronized void reset() {
+        for (Slice slice : ring) {
+            if (slice.bits instanceof RedisBitArray) {
+                bitArrayOperator.delete(slice.bits);
+                slice.expirePending = true;
+            } else {
+                slice.bits.reset();
+            }
+        }
+    }
+
+    synchronized void delete() {
+        for (Slice slice : ring) {
+            bitArrayOperator.delete(slice.bits);
+        }
+        clear();
+    }
+
+    void clear() {
+        for (Slice slice : ring) {
+            sliceIndex.remove(slice.key, this);
+            slice.bits.clear();
+        }
+        ring.clear();
+    }
+
+    int getSliceCount() {
+        return ring.size();
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    private class Slice {
+        private final long number;
+        private final String key;
+        private final BitArray bits;
+        /**
+         * 滑出窗口的时间戳
+         */
+        private final long expireAt;
+
+        private volatile boolean expirePending;
+
+        Slice(long number, String key, BitArray bits) {
+            this.number = number;
+            this.key = key;
+            this.bits = bits;
+            this.expireAt = (number + slices) * sliceMillis;
+        }
+    }
+}
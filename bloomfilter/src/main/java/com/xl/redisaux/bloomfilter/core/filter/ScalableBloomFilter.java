@@ -0,0 +1,320 @@
+package com.xl.redisaux.bloomfilter.core.filter;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.ShardedRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import com.xl.redisaux.bloomfilter.support.BitArrayOperator;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.utils.CommonUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 20:10
+ * 可自动扩容的布隆过滤器，由多层子过滤器组成
+ * 第i层容量为expectedInsertions * 2^i，误判率为fpp * (1 - r) * r^i(r = 0.5)，总的误判率不超过fpp
+ * 插入只写最后一层，已插入的个数根据bitCount估算，满了之后新建一层；查询时检查所有层，redis上的层合并为一次脚本调用
+ * 各层的键为{key}:i，在集群下落在同一个槽；其他节点新建的层在查询时通过键是否存在发现
+ */
+@SuppressWarnings("unchecked")
+class ScalableBloomFilter<T> {
+
+    private final String key;
+
+    private final long expectedInsertions;
+
+    private final double fpp;
+
+    private final boolean local;
+
+    private final boolean mapped;
+
+    private final boolean blocked;
+
+    private final Funnel<? super T> funnel;
+
+    private final Strategy strategy;
+
+    private final BitArrayOperator bitArrayOperator;
+
+    private final List<Layer> layers = new CopyOnWriteArrayList();
+
+    /**
+     * 过期的时间戳，新建的层按剩余时间设置过期，0为不过期
+     */
+    private volatile long expireAt;
+
+    private volatile long lastRefresh;
+
+    ScalableBloomFilter(String key, long expectedInsertions, double fpp, boolean local, boolean mapped, boolean blocked,
+                        Funnel<? super T> funnel, Strategy strategy, BitArrayOperator bitArrayOperator) {
+        this.key = key;
+        this.expectedInsertions = Math.max(1, expectedInsertions);
+        this.fpp = fpp;
+        this.local = local;
+        this.mapped = mapped;
+        this.blocked = blocked;
+        this.funnel = funnel;
+        this.strategy = strategy;
+        this.bitArrayOperator = bitArrayOperator;
+        layers.add(createLayer(0));
+        //重启或其他节点已经扩容过，恢复已有的层
+        discover();
+        Layer last = last();
+        last.estimated = last.estimate();
+        while (last.estimated >= last.capacity) {
+            last = grow(last);
+            last.estimated = last.estimate();
+        }
+        lastRefresh = System.currentTimeMillis();
+    }
+
+    private Layer createLayer(int index) {
+        long capacity = expectedInsertions << Math.min(index, 40);
+        double layerFpp = fpp * (1 - BloomFilterConstants.SCALABLE_FPP_RATIO) * Math.pow(BloomFilterConstants.SCALABLE_FPP_RATIO, index);
+        long numBits = CommonUtil.optimalNumOfBits(capacity, layerFpp);
+        String layerKey = "{" + key.replace('{', '(').replace('}', ')') + "}:" + index;
+        BitArray bits = bitArrayOperator.createBitArray(layerKey, numBits, local, mapped, blocked);
+        return new Layer(bits, CommonUtil.optimalNumOfHashFunctions(capacity, numBits), capacity);
+    }
+
+    void put(T member) {
+        Layer layer = current();
+        strategy.put(member, funnel, layer.numHashFunctions, layer.bits);
+        afterInsert(layer, 1);
+    }
+
+    /**
+     * 按当前层剩余的容量分批写入，写满后在下一层继续
+     */
+    void putAll(List<T> members) {
+        int from = 0;
+        while (from < members.size()) {
+            Layer layer = current();
+            long room = Math.max(1, layer.capacity - layer.estimated - layer.pending.get());
+            int to = (int) Math.min(members.size(), from + room);
+            strategy.putAll(funnel, layer.numHashFunctions, layer.bits, members.subList(from, to));
+            afterInsert(layer, to - from);
+            from = to;
+        }
+    }
+
+    boolean mightContain(T member) {
+        List<Boolean> res = mightContains(Collections.singletonList(member));
+        return res.get(0);
+    }
+
+    List<Boolean> mightContains(List<T> members) {
+        refreshIfNeeded();
+        List<Boolean> res = new ArrayList(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            res.add(Boolean.FALSE);
+        }
+        Map<RedisBitArray, List<long[]>> indexMap = new LinkedHashMap();
+        for (Layer layer : layers) {
+            if (layer.bits instanceof RedisBitArray && !(layer.bits instanceof ShardedRedisBitArray)) {
+                List<long[]> indexs = new ArrayList(members.size());
+                for (T member : members) {
+                    indexs.add(strategy.getIndexs(member, funnel, layer.numHashFunctions, layer.bits.bitSize()));
+                }
+                indexMap.put((RedisBitArray) layer.bits, indexs);
+            } else {
+                or(res, strategy.mightContains(funnel, layer.numHashFunctions, layer.bits, members).iterator());
+            }
+        }
+        if (!indexMap.isEmpty()) {
+            //结果按层展开，每层members.size()个
+            Iterator<Boolean> iterator = bitArrayOperator.multiGet(indexMap).iterator();
+            for (int i = 0; i < indexMap.size(); i++) {
+                or(res, iterator);
+            }
+        }
+        return res;
+    }
+
+    private void or(List<Boolean> res, Iterator<Boolean> iterator) {
+        for (int i = 0; i < res.size(); i++) {
+            if (iterator.next()) {
+                res.set(i, Boolean.TRUE);
+            }
+        }
+    }
+
+    private Layer current() {
+        Layer last = last();
+        if (last.estimated + last.pending.get() >= last.capacity) {
+            synchronized (this) {
+                last = last();
+                if (last.estimated + last.pending.get() >= last.capacity) {
+                    last = refresh(last);
+                }
+            }
+        }
+        return last;
+    }
+
+    private Layer last() {
+        return layers.get(layers.size() - 1);
+    }
+
+    /**
+     * 本节点写入的个数达到剩余容量的一半时(至少为容量的1/64)，重新用bitCount估算，其他节点的写入也会计算在内
+     */
+    private void afterInsert(Layer layer, long count) {
+        if (layer.expirePending) {
+            layer.expirePending = false;
+            long remain = expireAt - System.currentTimeMillis();
+            if (remain > 0) {
+                bitArrayOperator.expireRedisKeys(layer.bits, remain, TimeUnit.MILLISECONDS);
+            }
+        }
+        long pending = layer.pending.addAndGet(count);
+        if (pending >= Math.max((layer.capacity - layer.estimated) / 2, layer.capacity / BloomFilterConstants.SCALABLE_REFRESH_STEPS)) {
+            synchronized (this) {
+                if (layer == last()) {
+                    refresh(layer);
+                }
+            }
+        }
+    }
+
+    private Layer refresh(Layer layer) {
+        layer.estimated = layer.estimate();
+        layer.pending.set(0);
+        if (layer.estimated >= layer.capacity) {
+            return grow(layer);
+        }
+        return layer;
+    }
+
+    private Layer grow(Layer layer) {
+        int index = layers.indexOf(layer);
+        if (index < layers.size() - 1) {
+            return layers.get(index + 1);
+        }
+        Layer next = createLayer(layers.size());
+        //键在第一次写入后才存在，之后再设置过期
+        next.expirePending = expireAt > 0 && !local;
+        layers.add(next);
+        return next;
+    }
+
+    /**
+     * 只有redis上的层可能被其他节点新建，每隔一段时间检查下一层的键是否存在
+     */
+    private void refreshIfNeeded() {
+        if (local || System.currentTimeMillis() - lastRefresh < BloomFilterConstants.SCALABLE_REFRESH_INTERVAL) {
+            return;
+        }
+        synchronized (this) {
+            lastRefresh = System.currentTimeMillis();
+            discover();
+        }
+    }
+
+    private void discover() {
+        if (local) {
+            return;
+        }
+        Layer next = createLayer(layers.size());
+        while (bitArrayOperator.exists(next.bits)) {
+            layers.add(next);
+            next = createLayer(layers.size());
+        }
+    }
+
+    void expire(long timeout, TimeUnit timeUnit) {
+        this.expireAt = System.currentTimeMillis() + timeUnit.toMillis(timeout);
+        if (!local) {
+            for (Layer layer : layers) {
+                bitArrayOperator.expireRedisKeys(layer.bits, timeout, timeUnit);
+            }
+            //最后一层可能还没有写入
+            last().expirePending = true;
+        }
+    }
+
+    /**
+     * 清空后只保留第一层
+     */
+    synchronized void reset() {
+        Layer first = layers.get(0);
+        for (int i = layers.size() - 1; i > 0; i--) {
+            Layer layer = layers.remove(i);
+            bitArrayOperator.delete(layer.bits);
+            layer.bits.clear();
+        }
+        //redis上位全为0等同于键不存在，直接删除
+        if (first.bits instanceof RedisBitArray) {
+            bitArrayOperator.delete(first.bits);
+        } else {
+            first.bits.reset();
+        }
+        first.estimated = 0;
+        first.pending.set(0);
+    }
+
+    synchronized void delete() {
+        for (Layer layer : layers) {
+            bitArrayOperator.delete(layer.bits);
+        }
+        clear();
+    }
+
+    void clear() {
+        for (Layer layer : layers) {
+            layer.bits.clear();
+        }
+        layers.clear();
+    }
+
+    int getLayerCount() {
+        return layers.size();
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    private static class Layer {
+        private final BitArray bits;
+        private final int numHashFunctions;
+        private final long capacity;
+        /**
+         * 上次根据bitCount估算的个数
+         */
+        private volatile long estimated;
+        /**
+         * 估算之后本节点写入的个数
+         */
+        private final AtomicLong pending = new AtomicLong();
+
+        private volatile boolean expirePending;
+
+        Layer(BitArray bits, int numHashFunctions, long capacity) {
+            this.bits = bits;
+            this.numHashFunctions = numHashFunctions;
+            this.capacity = capacity;
+        }
+
+        /**
+         * n = -(m / k) * ln(1 - x / m)，x为值为1的位数
+         */
+        long estimate() {
+            double m = bits.bitSize();
+            long x = Math.min(bits.bitCount(), (long) m - 1);
+            return (long) Math.ceil(-m / numHashFunctions * Math.log(1 - x / m));
+        }
+    }
+}
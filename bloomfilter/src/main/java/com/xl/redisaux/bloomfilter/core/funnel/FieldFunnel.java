@@ -0,0 +1,146 @@
+package com.xl.redisaux.bloomfilter.core.funnel;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 00:40
+ * 按字段生成的funnel，依次把每个字段写入sink
+ * 生成时把字段转成MethodHandle并按字段类型选好写入方式，调用时不再反射
+ * 引用类型先写一个字节区分null，字符串和字节数组带上长度，避免("ab","c")与("a","bc")相同
+ */
+@SuppressWarnings("unchecked")
+class FieldFunnel<T> implements Funnel<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Class<T> type;
+
+    private final transient FieldWriter[] writers;
+
+    FieldFunnel(Class<T> type, List<Field> fields, FunnelRegistry registry) {
+        this.type = type;
+        this.writers = new FieldWriter[fields.size()];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int i = 0; i < writers.length; i++) {
+            Field field = fields.get(i);
+            try {
+                field.setAccessible(true);
+                writers[i] = writer(field.getType(), lookup.unreflectGetter(field), registry);
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new RedisAuxException("can not generate funnel for " + type.getName() + "." + field.getName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void funnel(T from, PrimitiveSink into) {
+        try {
+            for (FieldWriter writer : writers) {
+                writer.write(from, into);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RedisAuxException("funnel " + type.getName() + " fail: " + e.getMessage(), e);
+        }
+    }
+
+    private static FieldWriter writer(Class<?> fieldType, MethodHandle getter, FunnelRegistry registry) {
+        if (fieldType.isPrimitive()) {
+            //按基本类型精确调用，不装箱
+            MethodHandle handle = getter.asType(MethodType.methodType(fieldType, Object.class));
+            if (fieldType == int.class) {
+                return (from, into) -> into.putInt((int) handle.invokeExact(from));
+            } else if (fieldType == long.class) {
+                return (from, into) -> into.putLong((long) handle.invokeExact(from));
+            } else if (fieldType == boolean.class) {
+                return (from, into) -> into.putBoolean((boolean) handle.invokeExact(from));
+            } else if (fieldType == byte.class) {
+                return (from, into) -> into.putByte((byte) handle.invokeExact(from));
+            } else if (fieldType == short.class) {
+                return (from, into) -> into.putShort((short) handle.invokeExact(from));
+            } else if (fieldType == char.class) {
+                return (from, into) -> into.putChar((char) handle.invokeExact(from));
+            } else if (fieldType == float.class) {
+                return (from, into) -> into.putFloat((float) handle.invokeExact(from));
+            }
+            return (from, into) -> into.putDouble((double) handle.invokeExact(from));
+        }
+        MethodHandle handle = getter.asType(MethodType.methodType(Object.class, Object.class));
+        if (fieldType == String.class) {
+            return (from, into) -> {
+                String value = (String) (Object) handle.invokeExact(from);
+                if (value == null) {
+                    into.putInt(-1);
+                } else {
+                    into.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+                }
+            };
+        }
+        if (fieldType == byte[].class) {
+            return (from, into) -> {
+                byte[] value = (byte[]) (Object) handle.invokeExact(from);
+                if (value == null) {
+                    into.putInt(-1);
+                } else {
+                    into.putInt(value.length).putBytes(value);
+                }
+            };
+        }
+        if (fieldType.isEnum()) {
+            //按名字写入，枚举调整顺序后结果不变
+            return (from, into) -> {
+                Enum value = (Enum) (Object) handle.invokeExact(from);
+                if (value == null) {
+                    into.putInt(-1);
+                } else {
+                    into.putInt(value.name().length()).putString(value.name(), StandardCharsets.UTF_8);
+                }
+            };
+        }
+        if (fieldType == Byte.class) {
+            //注册表中Byte对应的是字节数组的funnel
+            return (from, into) -> {
+                Byte value = (Byte) (Object) handle.invokeExact(from);
+                if (value == null) {
+                    into.putByte((byte) 0);
+                } else {
+                    into.putByte((byte) 1).putByte(value);
+                }
+            };
+        }
+        //包装类型及注册过的类型，用注册表里的funnel
+        Funnel funnel = registry.getFunnel(fieldType);
+        if (funnel == null) {
+            throw new RedisAuxException("unsupported field type " + fieldType.getName() + ", register a funnel for it first");
+        }
+        return (from, into) -> {
+            Object value = handle.invokeExact(from);
+            if (value == null) {
+                into.putByte((byte) 0);
+            } else {
+                into.putByte((byte) 1);
+                funnel.funnel(value, into);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "FieldFunnel(" + type.getName() + ")";
+    }
+
+    private interface FieldWriter {
+        void write(Object from, PrimitiveSink into) throws Throwable;
+    }
+}
@@ -0,0 +1,155 @@
+package com.xl.redisaux.bloomfilter.core.funnel;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.annonations.BloomFilterMember;
+import com.xl.redisaux.bloomfilter.core.FunnelEnum;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 00:40
+ * 元素类型到funnel的注册表，RedisBloomFilter按它把元素交给对应类型的item
+ * 默认包含FunnelEnum中的类型及其他基本类型的包装类，带BloomFilterMember注解的类第一次使用时按字段生成funnel
+ * 可以通过register注册其他类型，注册的类型为接口或父类时，子类的元素使用同一个funnel和item
+ * 注册需要在第一次使用该类型之前完成，已经有funnel的类型不能再注册
+ */
+@SuppressWarnings("unchecked")
+public class FunnelRegistry {
+
+    private final Map<Class, Funnel> funnels = new ConcurrentHashMap();
+
+    /**
+     * 元素的实际类型到注册类型的缓存，没有funnel的类型不缓存
+     */
+    private final Map<Class, Class> resolved = new ConcurrentHashMap();
+
+    /**
+     * 正在生成funnel的类型，用于发现字段间的循环引用
+     */
+    private final Set<Class> generating = Collections.newSetFromMap(new ConcurrentHashMap());
+
+    public FunnelRegistry() {
+        for (FunnelEnum funnelEnum : FunnelEnum.values()) {
+            funnels.put(funnelEnum.getCode(), funnelEnum.getFunnel());
+        }
+        funnels.put(Short.class, (Funnel<Short>) (from, into) -> into.putShort(from));
+        funnels.put(Character.class, (Funnel<Character>) (from, into) -> into.putChar(from));
+        funnels.put(Boolean.class, (Funnel<Boolean>) (from, into) -> into.putBoolean(from));
+        funnels.put(Float.class, (Funnel<Float>) (from, into) -> into.putFloat(from));
+        funnels.put(Double.class, (Funnel<Double>) (from, into) -> into.putDouble(from));
+    }
+
+    public <T> FunnelRegistry register(Class<T> type, Funnel<? super T> funnel) {
+        if (funnels.putIfAbsent(type, funnel) != null) {
+            throw new RedisAuxException("funnel for " + type.getName() + " already registered");
+        }
+        return this;
+    }
+
+    /**
+     * 为不能加注解的类按字段生成funnel并注册
+     *
+     * @param fields 参与hash的字段及顺序，为空时与BloomFilterMember的默认规则一致
+     */
+    public <T> FunnelRegistry registerFields(Class<T> type, String... fields) {
+        return register(type, generate(type, fields));
+    }
+
+    /**
+     * @return 类型本身或注册过的父类、接口，都没有时返回null
+     */
+    public Class resolveType(Class type) {
+        Class res = resolved.get(type);
+        if (res != null) {
+            return res;
+        }
+        res = lookup(type);
+        if (res != null) {
+            resolved.put(type, res);
+        }
+        return res;
+    }
+
+    public <T> Funnel<? super T> getFunnel(Class<T> type) {
+        Class registered = resolveType(type);
+        return registered == null ? null : funnels.get(registered);
+    }
+
+    /**
+     * 从自身开始逐级向上查找，带注解的类在这里生成funnel
+     */
+    private Class lookup(Class type) {
+        for (Class clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            if (funnels.containsKey(clazz)) {
+                return clazz;
+            }
+            if (clazz.isAnnotationPresent(BloomFilterMember.class)) {
+                Funnel funnel = generate(clazz, ((BloomFilterMember) clazz.getAnnotation(BloomFilterMember.class)).fields());
+                funnels.putIfAbsent(clazz, funnel);
+                return clazz;
+            }
+            for (Class anInterface : clazz.getInterfaces()) {
+                if (funnels.containsKey(anInterface)) {
+                    return anInterface;
+                }
+            }
+        }
+        return null;
+    }
+
+    private <T> Funnel<T> generate(Class<T> type, String[] names) {
+        if (!generating.add(type)) {
+            throw new RedisAuxException("cyclic field reference when generating funnel for " + type.getName());
+        }
+        try {
+            return new FieldFunnel(type, fields(type, names), this);
+        } finally {
+            generating.remove(type);
+        }
+    }
+
+    /**
+     * 子类的字段覆盖父类的同名字段，没有指定字段时按字段名排序，与jvm返回字段的顺序无关
+     */
+    private static List<Field> fields(Class type, String[] names) {
+        Map<String, Field> all = new LinkedHashMap();
+        for (Class clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    all.putIfAbsent(field.getName(), field);
+                }
+            }
+        }
+        List<Field> res = new ArrayList();
+        if (names.length == 0) {
+            List<String> sorted = new ArrayList(all.keySet());
+            Collections.sort(sorted);
+            for (String name : sorted) {
+                res.add(all.get(name));
+            }
+        } else {
+            for (String name : names) {
+                Field field = all.get(name);
+                if (field == null) {
+                    throw new RedisAuxException("field " + name + " not found in " + type.getName());
+                }
+                res.add(field);
+            }
+        }
+        if (res.isEmpty()) {
+            throw new RedisAuxException(type.getName() + " has no field for funnel");
+        }
+        return res;
+    }
+}
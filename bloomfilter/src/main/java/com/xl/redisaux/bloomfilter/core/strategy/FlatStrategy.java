@@ -0,0 +1,91 @@
+package com.xl.redisaux.bloomfilter.core.strategy;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 22:10
+ * hash直接算出两个long，不生成byte[]；批量操作时所有位数写入每个线程复用的一个long[]
+ * 子类只决定由两个hash得到位数的方式
+ */
+abstract class FlatStrategy implements Strategy {
+    /**
+     * 超过该长度的批量不复用，避免线程长期持有大数组
+     */
+    private static final int MAX_BUFFER_SIZE = 1 << 16;
+
+    private final ThreadLocal<HashSink> sinks;
+
+    private final ThreadLocal<long[]> buffers = ThreadLocal.withInitial(() -> new long[64]);
+
+    FlatStrategy(Supplier<HashSink> sinkFactory) {
+        this.sinks = ThreadLocal.withInitial(sinkFactory);
+    }
+
+    @Override
+    public <T> boolean put(T object, Funnel<? super T> funnel, int numHashFunctions, BitArray bitArray) {
+        return bitArray.set(getIndexs(object, funnel, numHashFunctions, bitArray.bitSize()));
+    }
+
+    @Override
+    public <T> boolean mightContain(T object, Funnel<? super T> funnel, int numHashFunctions, BitArray bitArray) {
+        return bitArray.get(getIndexs(object, funnel, numHashFunctions, bitArray.bitSize()));
+    }
+
+    @Override
+    public <T> boolean putAll(Funnel<? super T> funnel, int numHashFunctions, BitArray bits, List<T> objects) {
+        long[] indexs = fill(funnel, numHashFunctions, bits.bitSize(), objects);
+        return bits.setBatch(indexs, numHashFunctions, objects.size());
+    }
+
+    @Override
+    public <T> List<Boolean> mightContains(Funnel<? super T> funnel, int numHashFunctions, BitArray bits, List<T> objects) {
+        long[] indexs = fill(funnel, numHashFunctions, bits.bitSize(), objects);
+        return bits.getBatch(indexs, numHashFunctions, objects.size());
+    }
+
+    @Override
+    public <T> long[] getIndexs(T object, Funnel<? super T> funnel, int numHashFunctions, long bitSize) {
+        long[] indexs = new long[numHashFunctions];
+        HashSink sink = sinks.get().hash(object, funnel);
+        setIndex(sink.h1(), sink.h2(), numHashFunctions, bitSize, indexs, 0);
+        return indexs;
+    }
+
+    @Override
+    public <T> long[] getIndexs(Funnel<? super T> funnel, int numHashFunctions, long bitSize, List<T> objects) {
+        return fill(funnel, numHashFunctions, bitSize, objects, new long[numHashFunctions * objects.size()]);
+    }
+
+    private <T> long[] fill(Funnel<? super T> funnel, int numHashFunctions, long bitSize, List<T> objects) {
+        int length = numHashFunctions * objects.size();
+        long[] indexs = buffers.get();
+        if (indexs.length < length) {
+            indexs = new long[length];
+            if (length <= MAX_BUFFER_SIZE) {
+                buffers.set(indexs);
+            }
+        }
+        return fill(funnel, numHashFunctions, bitSize, objects, indexs);
+    }
+
+    private <T> long[] fill(Funnel<? super T> funnel, int numHashFunctions, long bitSize, List<T> objects, long[] indexs) {
+        HashSink sink = sinks.get();
+        int offset = 0;
+        for (T object : objects) {
+            sink.hash(object, funnel);
+            setIndex(sink.h1(), sink.h2(), numHashFunctions, bitSize, indexs, offset);
+            offset += numHashFunctions;
+        }
+        return indexs;
+    }
+
+    /**
+     * 由两个hash算出numHashFunctions个位数，写入indexs从offset开始的位置
+     */
+    abstract void setIndex(long hash1, long hash2, int numHashFunctions, long bitSize, long[] indexs, int offset);
+}
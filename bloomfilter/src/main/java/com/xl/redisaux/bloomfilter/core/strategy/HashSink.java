@@ -0,0 +1,18 @@
+package com.xl.redisaux.bloomfilter.core.strategy;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 22:10
+ * 可重复使用的hash计算，一次得到双重hash用的两个long
+ */
+interface HashSink extends PrimitiveSink {
+
+    <T> HashSink hash(T object, Funnel<? super T> funnel);
+
+    long h1();
+
+    long h2();
+}
@@ -0,0 +1,31 @@
+package com.xl.redisaux.bloomfilter.core.strategy;
+
+import com.google.common.hash.Funnel;
+
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 19:10
+ * 不算位数、只要murmur3_128两个long的场景(如布谷鸟过滤器)使用，每个线程复用一个Murmur3Sink
+ * h1、h2与guava的asBytes()前8字节、后8字节按小端读出的值一致
+ */
+public final class Murmur3Hashing {
+
+    private static final ThreadLocal<Murmur3Sink> SINKS = ThreadLocal.withInitial(Murmur3Sink::new);
+
+    private Murmur3Hashing() {
+    }
+
+    /**
+     * 结果写入h1s、h2s，与objects一一对应
+     */
+    public static <T> void hash(Funnel<? super T> funnel, List<T> objects, long[] h1s, long[] h2s) {
+        Murmur3Sink sink = SINKS.get();
+        for (int i = 0; i < objects.size(); i++) {
+            sink.hash(objects.get(i), funnel);
+            h1s[i] = sink.h1();
+            h2s[i] = sink.h2();
+        }
+    }
+}
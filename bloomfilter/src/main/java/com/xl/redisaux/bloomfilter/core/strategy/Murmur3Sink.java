@@ -0,0 +1,235 @@
+package com.xl.redisaux.bloomfilter.core.strategy;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 15:10
+ * 与guava的murmur3_128(seed为0)结果一致，可重复使用的hash计算
+ * guava每次hashObject都会新建hasher、ByteBuffer、HashCode，asBytes还要再复制一次，
+ * 这里每个线程复用一个实例，结果直接存在h1、h2两个long里
+ * h1、h2分别对应guava的asBytes()的低8位和高8位(小端)，asLong()即h1
+ */
+final class Murmur3Sink implements HashSink {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final int CHUNK_SIZE = 16;
+
+    /**
+     * 不足16字节的部分，按小端放在k1、k2里
+     */
+    private long k1;
+    private long k2;
+    private int bufferSize;
+    private int length;
+
+    private long h1;
+    private long h2;
+
+    @Override
+    public <T> Murmur3Sink hash(T object, Funnel<? super T> funnel) {
+        h1 = 0;
+        h2 = 0;
+        k1 = 0;
+        k2 = 0;
+        bufferSize = 0;
+        length = 0;
+        funnel.funnel(object, this);
+        makeHash();
+        return this;
+    }
+
+    @Override
+    public long h1() {
+        return h1;
+    }
+
+    @Override
+    public long h2() {
+        return h2;
+    }
+
+    @Override
+    public PrimitiveSink putByte(byte b) {
+        long value = b & 0xffL;
+        if (bufferSize < 8) {
+            k1 |= value << (bufferSize << 3);
+        } else {
+            k2 |= value << ((bufferSize - 8) << 3);
+        }
+        if (++bufferSize == CHUNK_SIZE) {
+            bmix64(k1, k2);
+            length += CHUNK_SIZE;
+            k1 = 0;
+            k2 = 0;
+            bufferSize = 0;
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putBytes(byte[] bytes) {
+        return putBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public PrimitiveSink putBytes(byte[] bytes, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            putByte(bytes[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putBytes(ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            putByte(bytes.get());
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putShort(short s) {
+        putByte((byte) s);
+        putByte((byte) (s >>> 8));
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putInt(int i) {
+        for (int shift = 0; shift < Integer.SIZE; shift += 8) {
+            putByte((byte) (i >>> shift));
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putLong(long l) {
+        for (int shift = 0; shift < Long.SIZE; shift += 8) {
+            putByte((byte) (l >>> shift));
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putFloat(float f) {
+        return putInt(Float.floatToRawIntBits(f));
+    }
+
+    @Override
+    public PrimitiveSink putDouble(double d) {
+        return putLong(Double.doubleToRawLongBits(d));
+    }
+
+    @Override
+    public PrimitiveSink putBoolean(boolean b) {
+        return putByte(b ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public PrimitiveSink putChar(char c) {
+        putByte((byte) c);
+        putByte((byte) (c >>> 8));
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putUnencodedChars(CharSequence charSequence) {
+        for (int i = 0, len = charSequence.length(); i < len; i++) {
+            putChar(charSequence.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * utf8直接逐字符编码，结果与String.getBytes(UTF_8)一致(不成对的代理字符编码为'?')
+     */
+    @Override
+    public PrimitiveSink putString(CharSequence charSequence, Charset charset) {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return putBytes(charSequence.toString().getBytes(charset));
+        }
+        int len = charSequence.length();
+        for (int i = 0; i < len; i++) {
+            char c = charSequence.charAt(i);
+            if (c < 0x80) {
+                putByte((byte) c);
+            } else if (c < 0x800) {
+                putByte((byte) (0xc0 | (c >>> 6)));
+                putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (!Character.isSurrogate(c)) {
+                putByte((byte) (0xe0 | (c >>> 12)));
+                putByte((byte) (0x80 | ((c >>> 6) & 0x3f)));
+                putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(charSequence.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, charSequence.charAt(++i));
+                putByte((byte) (0xf0 | (codePoint >>> 18)));
+                putByte((byte) (0x80 | ((codePoint >>> 12) & 0x3f)));
+                putByte((byte) (0x80 | ((codePoint >>> 6) & 0x3f)));
+                putByte((byte) (0x80 | (codePoint & 0x3f)));
+            } else {
+                putByte((byte) '?');
+            }
+        }
+        return this;
+    }
+
+    private void bmix64(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private void makeHash() {
+        if (bufferSize > 0) {
+            length += bufferSize;
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+        h1 ^= length;
+        h2 ^= length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+
+        h1 += h2;
+        h2 += h1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+}
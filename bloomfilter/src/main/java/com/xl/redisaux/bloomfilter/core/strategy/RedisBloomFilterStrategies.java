@@ -59,6 +59,11 @@ public enum RedisBloomFilterStrategies {
             return bits.getBatch(res);
         }
 
+        @Override
+        public <T> long[] getIndexs(T object, Funnel<? super T> funnel, int numHashFunctions, long bitSize) {
+            return getIndex(getHash(object, funnel), numHashFunctions, bitSize);
+        }
+
 
         private long lowerEight(byte[] bytes) {
             return Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
@@ -85,6 +90,74 @@ public enum RedisBloomFilterStrategies {
         }
     }, "64"),
 
+    /**
+     * 与MURMUR128_MITZ_64的位数完全一致，已有的过滤器可以直接切换
+     */
+    MURMUR128_MITZ_64_FLAT(new FlatStrategy(Murmur3Sink::new) {
+        @Override
+        void setIndex(long hash1, long hash2, int numHashFunctions, long bitSize, long[] indexs, int offset) {
+            long combinedHash = hash1;
+            for (int i = 0; i < numHashFunctions; ++i) {
+                indexs[offset + i] = (combinedHash & 9223372036854775807L) % bitSize;
+                combinedHash += hash2;
+            }
+        }
+    }, "64flat"),
+
+    /**
+     * 分块的布隆过滤器，第一个hash选出一个512位的块(8个long，一条缓存行)，k个位都落在这个块内
+     * 查询只访问一条缓存行，代价是同样位数下误判率略高；bitSize不足512位的部分不使用
+     */
+    MURMUR128_BLOCKED(new FlatStrategy(Murmur3Sink::new) {
+        /**
+         * hash1选块，hash2的低32位为起点、高32位(取奇数)为步长，在块内做双重hash，k不超过512时各位互不相同
+         * 不足一块时整个位数组作为一块
+         */
+        @Override
+        void setIndex(long hash1, long hash2, int numHashFunctions, long bitSize, long[] indexs, int offset) {
+            long blockCount = bitSize >>> BLOCK_BITS;
+            int position = (int) hash2;
+            int step = (int) (hash2 >>> 32) | 1;
+            if (blockCount == 0) {
+                for (int i = 0; i < numHashFunctions; ++i) {
+                    indexs[offset + i] = (position & BLOCK_MASK) % bitSize;
+                    position += step;
+                }
+                return;
+            }
+            long base = ((hash1 & 9223372036854775807L) % blockCount) << BLOCK_BITS;
+            for (int i = 0; i < numHashFunctions; ++i) {
+                indexs[offset + i] = base + (position & BLOCK_MASK);
+                position += step;
+            }
+        }
+    }, "blocked"),
+
+    /**
+     * xxHash64，两个hash由一次计算得到，结果与jvm位数无关，比murmur3_128快
+     * 双重hash的方式与MURMUR128_MITZ_64_FLAT一致，位数不超过2的32次方时不取模；已有的过滤器不能直接切换，redis上的过滤器通过元数据区分
+     */
+    XXH64(new FlatStrategy(XxHash64Sink::new) {
+        /**
+         * 位数不超过2的32次方时取高32位乘以位数再右移32位，代替取模
+         */
+        @Override
+        void setIndex(long hash1, long hash2, int numHashFunctions, long bitSize, long[] indexs, int offset) {
+            long combinedHash = hash1;
+            if (bitSize <= 0xffffffffL) {
+                for (int i = 0; i < numHashFunctions; ++i) {
+                    indexs[offset + i] = ((combinedHash >>> 32) * bitSize) >>> 32;
+                    combinedHash += hash2;
+                }
+                return;
+            }
+            for (int i = 0; i < numHashFunctions; ++i) {
+                indexs[offset + i] = (combinedHash & 9223372036854775807L) % bitSize;
+                combinedHash += hash2;
+            }
+        }
+    }, "xxh64"),
+
     MURMUR128_MITZ_32(new Strategy() {
         @Override
         public <T> boolean put(T object, Funnel<? super T> funnel, int numHashFunctions, BitArray bitArray
@@ -128,6 +201,11 @@ public enum RedisBloomFilterStrategies {
             return bits.getBatch(res);
         }
 
+        @Override
+        public <T> long[] getIndexs(T object, Funnel<? super T> funnel, int numHashFunctions, long bitSize) {
+            return getIndex(getHash(object, funnel), numHashFunctions, bitSize);
+        }
+
 
         long[] getIndex(long hash64, int numHashFunctions, long bitSize) {
             int hash1 = (int) hash64;
@@ -148,6 +226,12 @@ public enum RedisBloomFilterStrategies {
         }
 
     }, "32");
+    /**
+     * 分块时每块512位
+     */
+    public static final int BLOCK_BITS = 9;
+    private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+
     private String code;
     private Strategy strategy;
 
@@ -173,5 +257,17 @@ public enum RedisBloomFilterStrategies {
         return null;
     }
 
+    /**
+     * 由策略反查code，用于快照记录过滤器使用的策略
+     */
+    public static String getCode(Strategy strategy) {
+        for (RedisBloomFilterStrategies customBloomFilterStrategies : values()) {
+            if (customBloomFilterStrategies.getStrategy() == strategy) {
+                return customBloomFilterStrategies.getCode();
+            }
+        }
+        return null;
+    }
+
 
 }
\ No newline at end of file
@@ -14,4 +14,32 @@ public interface Strategy {
 
     <T> List<Boolean> mightContains(Funnel<? super T> funnel, int numHashFunctions, BitArray bits, List<T> objects);
 
+    /**
+     * 只计算hash后的位数，不访问bitArray，用于跨多个过滤器合并查询
+     *
+     * @param object
+     * @param funnel
+     * @param numHashFunctions
+     * @param bitSize
+     * @return
+     */
+    <T> long[] getIndexs(T object, Funnel<? super T> funnel, int numHashFunctions, long bitSize);
+
+    /**
+     * 多个元素hash后的位数按顺序平铺在新建的数组中，数组不复用，可以交给其他线程写入
+     *
+     * @param funnel
+     * @param numHashFunctions
+     * @param bitSize
+     * @param objects
+     * @return
+     */
+    default <T> long[] getIndexs(Funnel<? super T> funnel, int numHashFunctions, long bitSize, List<T> objects) {
+        long[] indexs = new long[numHashFunctions * objects.size()];
+        for (int i = 0; i < objects.size(); i++) {
+            System.arraycopy(getIndexs(objects.get(i), funnel, numHashFunctions, bitSize), 0, indexs, i * numHashFunctions, numHashFunctions);
+        }
+        return indexs;
+    }
+
 }
\ No newline at end of file
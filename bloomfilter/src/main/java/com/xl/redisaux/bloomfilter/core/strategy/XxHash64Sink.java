@@ -0,0 +1,310 @@
+package com.xl.redisaux.bloomfilter.core.strategy;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 01:30
+ * 流式计算的xxHash64(seed为0)，与XXH64的结果一致，每个线程复用一个实例
+ * 每32字节为一组，按4个long分别累加；不足一组的部分按小端放在b0、b1、b2及当前的cur里
+ * h1为xxHash64的结果，h2由h1再混合一次得到，用于双重hash，不与jvm位数相关
+ */
+final class XxHash64Sink implements HashSink {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE_SIZE = 32;
+
+    private long b0;
+    private long b1;
+    private long b2;
+    /**
+     * 未满8字节的部分
+     */
+    private long cur;
+    private int bufferSize;
+    private long length;
+
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    private long h1;
+    private long h2;
+
+    @Override
+    public <T> XxHash64Sink hash(T object, Funnel<? super T> funnel) {
+        v1 = P1 + P2;
+        v2 = P2;
+        v3 = 0;
+        v4 = -P1;
+        cur = 0;
+        bufferSize = 0;
+        length = 0;
+        funnel.funnel(object, this);
+        makeHash();
+        return this;
+    }
+
+    @Override
+    public long h1() {
+        return h1;
+    }
+
+    @Override
+    public long h2() {
+        return h2;
+    }
+
+    @Override
+    public PrimitiveSink putByte(byte b) {
+        cur |= (b & 0xffL) << ((bufferSize & 7) << 3);
+        if ((++bufferSize & 7) == 0) {
+            completeLane();
+        }
+        return this;
+    }
+
+    /**
+     * 当前的8字节已满，满32字节时累加
+     */
+    private void completeLane() {
+        switch (bufferSize) {
+            case 8:
+                b0 = cur;
+                break;
+            case 16:
+                b1 = cur;
+                break;
+            case 24:
+                b2 = cur;
+                break;
+            default:
+                v1 = round(v1, b0);
+                v2 = round(v2, b1);
+                v3 = round(v3, b2);
+                v4 = round(v4, cur);
+                length += STRIPE_SIZE;
+                bufferSize = 0;
+        }
+        cur = 0;
+    }
+
+    @Override
+    public PrimitiveSink putBytes(byte[] bytes) {
+        return putBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public PrimitiveSink putBytes(byte[] bytes, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            putByte(bytes[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putBytes(ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            putByte(bytes.get());
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putShort(short s) {
+        putByte((byte) s);
+        putByte((byte) (s >>> 8));
+        return this;
+    }
+
+    /**
+     * 整块写入，跨过8字节时拆成两部分
+     */
+    @Override
+    public PrimitiveSink putInt(int i) {
+        long value = i & 0xffffffffL;
+        int shift = (bufferSize & 7) << 3;
+        cur |= value << shift;
+        if (shift < Integer.SIZE) {
+            bufferSize += 4;
+            if ((bufferSize & 7) == 0) {
+                completeLane();
+            }
+            return this;
+        }
+        bufferSize = (bufferSize | 7) + 1;
+        completeLane();
+        cur = value >>> (Long.SIZE - shift);
+        bufferSize += (shift >>> 3) - 4;
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putLong(long l) {
+        int shift = (bufferSize & 7) << 3;
+        cur |= l << shift;
+        bufferSize = (bufferSize | 7) + 1;
+        completeLane();
+        if (shift > 0) {
+            cur = l >>> (Long.SIZE - shift);
+            bufferSize += shift >>> 3;
+        }
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putFloat(float f) {
+        return putInt(Float.floatToRawIntBits(f));
+    }
+
+    @Override
+    public PrimitiveSink putDouble(double d) {
+        return putLong(Double.doubleToRawLongBits(d));
+    }
+
+    @Override
+    public PrimitiveSink putBoolean(boolean b) {
+        return putByte(b ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public PrimitiveSink putChar(char c) {
+        putByte((byte) c);
+        putByte((byte) (c >>> 8));
+        return this;
+    }
+
+    @Override
+    public PrimitiveSink putUnencodedChars(CharSequence charSequence) {
+        for (int i = 0, len = charSequence.length(); i < len; i++) {
+            putChar(charSequence.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * utf8直接逐字符编码，与Murmur3Sink一致，开头的ascii字符每8个作为一个long写入
+     */
+    @Override
+    public PrimitiveSink putString(CharSequence charSequence, Charset charset) {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return putBytes(charSequence.toString().getBytes(charset));
+        }
+        int len = charSequence.length();
+        int i = 0;
+        for (; i + 8 <= len; i += 8) {
+            long word = 0;
+            int j = 0;
+            for (; j < 8; j++) {
+                char c = charSequence.charAt(i + j);
+                if (c >= 0x80) {
+                    break;
+                }
+                word |= (long) c << (j << 3);
+            }
+            if (j < 8) {
+                break;
+            }
+            putLong(word);
+        }
+        for (; i < len; i++) {
+            char c = charSequence.charAt(i);
+            if (c < 0x80) {
+                putByte((byte) c);
+            } else if (c < 0x800) {
+                putByte((byte) (0xc0 | (c >>> 6)));
+                putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (!Character.isSurrogate(c)) {
+                putByte((byte) (0xe0 | (c >>> 12)));
+                putByte((byte) (0x80 | ((c >>> 6) & 0x3f)));
+                putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(charSequence.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, charSequence.charAt(++i));
+                putByte((byte) (0xf0 | (codePoint >>> 18)));
+                putByte((byte) (0x80 | ((codePoint >>> 12) & 0x3f)));
+                putByte((byte) (0x80 | ((codePoint >>> 6) & 0x3f)));
+                putByte((byte) (0x80 | (codePoint & 0x3f)));
+            } else {
+                putByte((byte) '?');
+            }
+        }
+        return this;
+    }
+
+    private void makeHash() {
+        long h;
+        if (length > 0) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = P5;
+        }
+        h += length + bufferSize;
+        int offset = 0;
+        for (; offset + 8 <= bufferSize; offset += 8) {
+            h ^= round(0, lane(offset));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (offset + 4 <= bufferSize) {
+            h ^= (lane(offset) & 0xffffffffL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            offset += 4;
+        }
+        for (; offset < bufferSize; offset++) {
+            h ^= (lane(offset) & 0xffL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h1 = avalanche(h);
+        h2 = avalanche(h1 + P3);
+    }
+
+    /**
+     * 未累加的部分中从offset字节开始的值，低位对齐
+     */
+    private long lane(int offset) {
+        long value;
+        switch (offset >>> 3) {
+            case 0:
+                value = offset + 8 <= bufferSize ? b0 : cur;
+                break;
+            case 1:
+                value = offset + 8 <= bufferSize ? b1 : cur;
+                break;
+            default:
+                value = offset + 8 <= bufferSize ? b2 : cur;
+        }
+        return value >>> ((offset & 7) << 3);
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * P1 + P4;
+    }
+
+    private static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
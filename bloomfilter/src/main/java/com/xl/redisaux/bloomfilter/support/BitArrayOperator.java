@@ -1,14 +1,56 @@
 package com.xl.redisaux.bloomfilter.support;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.xl.redisaux.bloomfilter.core.bitarray.BitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.CountingBitArray;
 import com.xl.redisaux.bloomfilter.core.bitarray.LocalBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBlockedBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalCountingBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.MappedBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.MirroredRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.NearCacheRedisBitArray;
 import com.xl.redisaux.bloomfilter.core.bitarray.RedisBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.RedisCountingBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.ShardedRedisBitArray;
+import com.xl.redisaux.bloomfilter.core.cuckoo.CuckooTable;
+import com.xl.redisaux.bloomfilter.core.cuckoo.LocalCuckooTable;
+import com.xl.redisaux.bloomfilter.core.cuckoo.RedisCuckooTable;
 import com.xl.redisaux.bloomfilter.support.expire.WatiForDeleteKey;
 import com.xl.redisaux.bloomfilter.support.expire.CheckTask;
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import com.xl.redisaux.common.script.ScriptArgsSerializer;
+import com.xl.redisaux.common.utils.NamedThreadFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -24,27 +66,192 @@ public class BitArrayOperator {
 
     private final DefaultRedisScript resetBitScript;
 
+    private final DefaultRedisScript multiGetBitScript;
+
+    private final DefaultRedisScript multiSetBitScript;
+
+    private DefaultRedisScript countingSetScript;
+
+    private DefaultRedisScript countingGetScript;
+
+    private DefaultRedisScript countingRemoveScript;
+
+    private DefaultRedisScript cuckooInsertScript;
+
+    private DefaultRedisScript cuckooContainsScript;
+
+    private DefaultRedisScript cuckooDeleteScript;
+
+    private DefaultRedisScript metaScript;
+
+    /**
+     * 元数据不存在的键，短时间内不再查询redis
+     */
+    private final Cache<String, Boolean> metaMisses = CacheBuilder.newBuilder().maximumSize(BloomFilterConstants.META_MISS_CACHE_SIZE)
+            .expireAfterWrite(BloomFilterConstants.META_MISS_TTL, TimeUnit.MILLISECONDS).build();
+
     private final RedisTemplate redisTemplate;
 
     private final CheckTask checkTask;
 
+    private boolean nearCache;
+
+    private long nearCacheSize;
+
+    private long nearCacheNegativeTtl;
+
+    private long nearCachePositiveTtl;
+
+    private DefaultRedisScript mirrorSetBitScript;
+
+    private long mirrorSegmentBytes;
+
+    private long mirrorSyncInterval;
+
+    private long mirrorMaxStaleness;
 
-    public BitArrayOperator(DefaultRedisScript setBitScript, DefaultRedisScript getBitScript, DefaultRedisScript resetBitScript, RedisTemplate redisTemplate, CheckTask checkTask) {
+    /**
+     * 所有副本共用的同步线程，开启副本时创建
+     */
+    private ScheduledExecutorService mirrorScheduler;
+
+    private File mappedFileDir;
+
+    private long redisShardBitSize = BloomFilterConstants.MAX_REDIS_BIT_SIZE;
+
+    /**
+     * 合并查询的参数与EvalShaScriptExecutor一样直接写成十进制
+     */
+    private final ScriptArgsSerializer argsSerializer;
+
+    private volatile Boolean cluster;
+
+
+    public BitArrayOperator(DefaultRedisScript setBitScript, DefaultRedisScript getBitScript, DefaultRedisScript resetBitScript, DefaultRedisScript multiGetBitScript, DefaultRedisScript multiSetBitScript, RedisTemplate redisTemplate, CheckTask checkTask) {
         this.setBitScript = setBitScript;
         this.getBitScript = getBitScript;
         this.resetBitScript = resetBitScript;
+        this.multiGetBitScript = multiGetBitScript;
+        this.multiSetBitScript = multiSetBitScript;
         this.redisTemplate = redisTemplate;
         this.checkTask = checkTask;
+        this.argsSerializer = new ScriptArgsSerializer(redisTemplate.getValueSerializer());
     }
 
     public BitArray createBitArray(String key, long bitSize, boolean local) {
-        if(local){
+        return createBitArray(key, bitSize, local, false);
+    }
+
+    public BitArray createBitArray(String key, long bitSize, boolean local, boolean mapped) {
+        return createBitArray(key, bitSize, local, mapped, false);
+    }
+
+    /**
+     * @param blocked 配合MURMUR128_BLOCKED，本地时使用按512位分块的LocalBlockedBitArray，其他情况位的排列不变
+     */
+    public BitArray createBitArray(String key, long bitSize, boolean local, boolean mapped, boolean blocked) {
+        if(mapped){
+            return new MappedBitArray(key, bitSize, mappedFileDir);
+        }else if(local && blocked){
+            return new LocalBlockedBitArray(key, bitSize);
+        }else if(local){
             return new LocalBitArray(key,bitSize);
+        }else if(bitSize > redisShardBitSize){
+            return new ShardedRedisBitArray(this.redisTemplate, key, multiSetBitScript, multiGetBitScript, resetBitScript, bitSize, redisShardBitSize);
+        }else if(mirrorScheduler != null){
+            return new MirroredRedisBitArray(this.redisTemplate, key, mirrorSetBitScript, getBitScript, resetBitScript, bitSize,
+                    mirrorSegmentBytes, mirrorSyncInterval, mirrorMaxStaleness, mirrorScheduler);
+        }else if(nearCache){
+            return new NearCacheRedisBitArray(this.redisTemplate, key, setBitScript, getBitScript, resetBitScript, bitSize, nearCacheSize, nearCacheNegativeTtl, nearCachePositiveTtl);
         }else{
             return new RedisBitArray(this.redisTemplate, key, setBitScript, getBitScript, resetBitScript,bitSize);
         }
     }
 
+    /**
+     * 计数布隆过滤器，本地或redis，不支持内存映射文件和分片
+     *
+     * @param counterSize 计数器个数
+     * @param counterBits 单个计数器的位数，4或8
+     */
+    public CountingBitArray createCountingBitArray(String key, long counterSize, boolean local, int counterBits) {
+        if (local) {
+            return new LocalCountingBitArray(key, counterSize, counterBits);
+        }
+        return new RedisCountingBitArray(this.redisTemplate, key, countingSetScript, countingGetScript, countingRemoveScript, counterSize, counterBits);
+    }
+
+    public void setCountingScripts(DefaultRedisScript countingSetScript, DefaultRedisScript countingGetScript, DefaultRedisScript countingRemoveScript) {
+        this.countingSetScript = countingSetScript;
+        this.countingGetScript = countingGetScript;
+        this.countingRemoveScript = countingRemoveScript;
+    }
+
+    /**
+     * 布谷鸟过滤器的桶数组
+     *
+     * @param bucketCount     桶的个数，2的幂
+     * @param fingerprintBits 指纹的位数，8或16
+     */
+    public CuckooTable createCuckooTable(String key, long bucketCount, int fingerprintBits, boolean local) {
+        if (local) {
+            return new LocalCuckooTable(key, bucketCount, fingerprintBits);
+        }
+        return new RedisCuckooTable(this.redisTemplate, key, cuckooInsertScript, cuckooContainsScript, cuckooDeleteScript, bucketCount, fingerprintBits);
+    }
+
+    public void setCuckooScripts(DefaultRedisScript cuckooInsertScript, DefaultRedisScript cuckooContainsScript, DefaultRedisScript cuckooDeleteScript) {
+        this.cuckooInsertScript = cuckooInsertScript;
+        this.cuckooContainsScript = cuckooContainsScript;
+        this.cuckooDeleteScript = cuckooDeleteScript;
+    }
+
+    public void setMetaScript(DefaultRedisScript metaScript) {
+        this.metaScript = metaScript;
+    }
+
+    /**
+     * 超过该位数的过滤器拆成多个子键存放
+     */
+    public void setRedisShardBitSize(long redisShardBitSize) {
+        this.redisShardBitSize = redisShardBitSize;
+    }
+
+    public void setMappedFileDir(File mappedFileDir) {
+        this.mappedFileDir = mappedFileDir;
+    }
+
+    /**
+     * 之后创建的RedisBitArray都带本地缓存
+     *
+     * @param maximumSize 存在和不存在的结果各自的最大条数
+     * @param negativeTtl 不存在的结果缓存的毫秒数
+     * @param positiveTtl 存在的结果缓存的毫秒数
+     */
+    public void enableNearCache(long maximumSize, long negativeTtl, long positiveTtl) {
+        this.nearCacheSize = maximumSize;
+        this.nearCacheNegativeTtl = negativeTtl;
+        this.nearCachePositiveTtl = positiveTtl;
+        this.nearCache = true;
+    }
+
+    /**
+     * 之后创建的不分片的RedisBitArray都在本地保存副本，优先于nearCache
+     *
+     * @param segmentBytes 按段同步，每段的字节数
+     * @param syncInterval 同步的间隔毫秒数
+     * @param maxStaleness 距上次同步成功超过该毫秒数时查询改走redis
+     */
+    public void enableMirror(DefaultRedisScript mirrorSetBitScript, long segmentBytes, long syncInterval, long maxStaleness) {
+        this.mirrorSetBitScript = mirrorSetBitScript;
+        this.mirrorSegmentBytes = segmentBytes;
+        this.mirrorSyncInterval = syncInterval;
+        this.mirrorMaxStaleness = maxStaleness;
+        if (this.mirrorScheduler == null) {
+            this.mirrorScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("bloom-mirror-sync", true));
+        }
+    }
+
     //过期之后删除
     public void expire(String key, long timeout, TimeUnit timeUnit,boolean local) {
         checkTask.addExpireKey(new WatiForDeleteKey(key, timeUnit.toMillis(timeout), System.currentTimeMillis(),local));
@@ -53,8 +260,395 @@ public class BitArrayOperator {
         }
     }
 
+    /**
+     * 只加入CheckTask，到期后按key删除
+     */
+    public void addExpireKey(String key, long timeout, TimeUnit timeUnit, boolean local) {
+        checkTask.addExpireKey(new WatiForDeleteKey(key, timeUnit.toMillis(timeout), System.currentTimeMillis(), local));
+    }
+
+    public void cancelExpireKey(String key) {
+        checkTask.cancelExpireKey(key);
+    }
+
+    /**
+     * 分片的RedisBitArray需要对每个子键设置过期时间
+     */
+    public void expire(BitArray bits, long timeout, TimeUnit timeUnit, boolean local) {
+        checkTask.addExpireKey(new WatiForDeleteKey(bits.getKey(), timeUnit.toMillis(timeout), System.currentTimeMillis(), local));
+        if (!local) {
+            expireRedisKeys(bits, timeout, timeUnit);
+        }
+    }
+
+    /**
+     * 只设置redis键的过期时间，不加入CheckTask，本地的位数组忽略
+     */
+    public void expireRedisKeys(BitArray bits, long timeout, TimeUnit timeUnit) {
+        if (bits instanceof RedisBitArray) {
+            for (String key : ((RedisBitArray) bits).getKeyList()) {
+                redisTemplate.expire(key, timeout, timeUnit);
+            }
+        }
+    }
+
+    /**
+     * redis上是否已经有该位数组的键，本地的位数组返回false
+     */
+    public boolean exists(BitArray bits) {
+        if (bits instanceof RedisBitArray) {
+            Long count = redisTemplate.countExistingKeys(((RedisBitArray) bits).getKeyList());
+            return count != null && count > 0;
+        }
+        return false;
+    }
+
+    /**
+     * 删除位数组在redis上的键或映射文件
+     */
+    public void delete(BitArray bits) {
+        if (bits instanceof RedisBitArray) {
+            delete(((RedisBitArray) bits).getKeyList());
+        }
+        if (bits instanceof MappedBitArray) {
+            ((MappedBitArray) bits).delete();
+        }
+    }
+
     public void delete(Collection<String> keys) {
         redisTemplate.delete(keys);
     }
 
+    /**
+     * 过滤器的元数据，记录策略、hash函数个数、位数、计数器位数、键名及元素类型，各节点按它计算位数，其他节点按它发现过滤器
+     * 不存在时写入传入的值，已存在时以redis上的为准；redis上已有位数组但没有元数据的旧过滤器按legacyStrategy记录
+     *
+     * @param bits       按本节点参数新建的位数组，用于判断是否为旧过滤器
+     * @param memberType 元素类型的类名
+     * @return redis上的策略的code、hash函数个数、位数、计数器位数，本地的位数组或没有设置脚本时返回null
+     */
+    public Map<String, String> shareMeta(BitArray bits, String strategy, String legacyStrategy, int numHashFunctions, long bitSize, int counterBits, String memberType) {
+        if (!hasMeta(bits)) {
+            return null;
+        }
+        return executeMeta(bits, exists(bits) ? legacyStrategy : strategy, numHashFunctions, bitSize, counterBits, memberType, false);
+    }
+
+    /**
+     * redis上的位数组都记录元数据，没有设置脚本时不记录
+     */
+    public boolean hasMeta(BitArray bits) {
+        return metaScript != null && bits instanceof RedisBitArray;
+    }
+
+    /**
+     * 覆盖元数据，用于从快照导入
+     */
+    public void writeMeta(BitArray bits, String strategy, int numHashFunctions, long bitSize, int counterBits, String memberType) {
+        if (hasMeta(bits)) {
+            executeMeta(bits, strategy, numHashFunctions, bitSize, counterBits, memberType, true);
+        }
+    }
+
+    public void expireMeta(BitArray bits, long timeout, TimeUnit timeUnit) {
+        if (hasMeta(bits)) {
+            redisTemplate.expire(metaKey(bits.getKey()), timeout, timeUnit);
+        }
+    }
+
+    private Map<String, String> executeMeta(BitArray bits, String strategy, int numHashFunctions, long bitSize, int counterBits, String memberType, boolean overwrite) {
+        RedisSerializer serializer = RedisSerializer.string();
+        List<String> res = (List<String>) redisTemplate.execute(metaScript, serializer, serializer, Collections.singletonList(metaKey(bits.getKey())),
+                strategy, String.valueOf(numHashFunctions), String.valueOf(bitSize), overwrite ? "1" : "0",
+                String.valueOf(counterBits), bits.getKey(), memberType == null ? "" : memberType);
+        metaMisses.invalidate(bits.getKey());
+        Map<String, String> meta = new HashMap(4);
+        meta.put(BloomFilterConstants.META_STRATEGY_FIELD, res.get(0));
+        meta.put(BloomFilterConstants.META_HASH_FUNCTIONS_FIELD, res.get(1));
+        meta.put(BloomFilterConstants.META_BIT_SIZE_FIELD, res.get(2));
+        meta.put(BloomFilterConstants.META_COUNTER_BITS_FIELD, res.get(3));
+        return meta;
+    }
+
+    /**
+     * 读取其他节点创建的过滤器的元数据，一次往返同时取出剩余的过期时间，记为META_EXPIRE_AT_FIELD
+     * 不存在时在META_MISS_TTL内不再查询，期间其他节点新建的过滤器要等到过期后才能发现
+     *
+     * @return 不存在或没有设置脚本时返回null
+     */
+    public Map<String, String> readMeta(String key) {
+        if (metaScript == null || metaMisses.getIfPresent(key) != null) {
+            return null;
+        }
+        Map<String, String> meta = readMeta(Collections.singletonList(RedisSerializer.string().serialize(metaKey(key)))).get(0);
+        if (meta == null) {
+            metaMisses.put(key, Boolean.TRUE);
+        }
+        return meta;
+    }
+
+    /**
+     * 扫描redis上所有过滤器的元数据，每批META_PREFETCH_BATCH个合并为一次往返，用于启动时预先加载
+     * 元数据的键都带有hash tag，按"*}*:meta"匹配；匹配到的其他类型的键跳过
+     * 集群下不支持跨节点扫描，返回空列表，之后第一次访问时再按键读取
+     *
+     * @return 有效的元数据，META_KEY_FIELD为过滤器的键
+     */
+    public List<Map<String, String>> prefetchMeta() {
+        if (metaScript == null) {
+            return Collections.emptyList();
+        }
+        List<byte[]> metaKeys = new ArrayList();
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                ScanOptions options = ScanOptions.scanOptions().match("*}*" + BloomFilterConstants.META_KEY_SUFFIX).count(1000).build();
+                try (Cursor<byte[]> cursor = connection.scan(options)) {
+                    while (cursor.hasNext()) {
+                        metaKeys.add(cursor.next());
+                    }
+                } catch (IOException e) {
+                    throw new RedisAuxException("scan bloom filter meta fail: " + e.getMessage(), e);
+                }
+                return null;
+            });
+        } catch (InvalidDataAccessApiUsageException e) {
+            return Collections.emptyList();
+        }
+        List<Map<String, String>> list = new ArrayList(metaKeys.size());
+        for (List<byte[]> batch : Lists.partition(metaKeys, BloomFilterConstants.META_PREFETCH_BATCH)) {
+            for (Map<String, String> meta : readMeta(batch)) {
+                if (meta != null && meta.get(BloomFilterConstants.META_KEY_FIELD) != null) {
+                    list.add(meta);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 每个元数据的键取出hash及剩余的过期时间，合并为一次往返
+     * 不经过模板的序列化，hash的键值按字符串解析
+     * 同名的键不是hash时(WRONGTYPE)整批失败，且拿不到其他键的结果，此时逐个重新读取，出错的键视为不存在
+     *
+     * @return 与metaKeys顺序一致，不存在的为null
+     */
+    private List<Map<String, String>> readMeta(List<byte[]> metaKeys) {
+        List<Object> res;
+        try {
+            res = (List<Object>) redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                for (byte[] metaKey : metaKeys) {
+                    connection.hGetAll(metaKey);
+                    connection.pTtl(metaKey);
+                }
+                return connection.closePipeline();
+            });
+        } catch (RedisPipelineException e) {
+            if (metaKeys.size() == 1) {
+                return Collections.singletonList(null);
+            }
+            List<Map<String, String>> list = new ArrayList(metaKeys.size());
+            for (byte[] metaKey : metaKeys) {
+                list.addAll(readMeta(Collections.singletonList(metaKey)));
+            }
+            return list;
+        }
+        List<Map<String, String>> list = new ArrayList(metaKeys.size());
+        for (int i = 0; i < res.size(); i += 2) {
+            list.add(toMeta((Map<byte[], byte[]>) res.get(i), (Long) res.get(i + 1)));
+        }
+        return list;
+    }
+
+    /**
+     * 缺少策略、hash函数个数、位数的元数据视为不存在，ttl为-2时键已过期
+     */
+    private Map<String, String> toMeta(Map<byte[], byte[]> hash, Long ttl) {
+        if (hash == null || hash.isEmpty() || (ttl != null && ttl == -2)) {
+            return null;
+        }
+        RedisSerializer<String> serializer = RedisSerializer.string();
+        Map<String, String> meta = new HashMap(hash.size() + 1);
+        for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+            meta.put(serializer.deserialize(entry.getKey()), serializer.deserialize(entry.getValue()));
+        }
+        if (meta.get(BloomFilterConstants.META_STRATEGY_FIELD) == null || meta.get(BloomFilterConstants.META_HASH_FUNCTIONS_FIELD) == null
+                || meta.get(BloomFilterConstants.META_BIT_SIZE_FIELD) == null) {
+            return null;
+        }
+        if (ttl != null && ttl > 0) {
+            meta.put(BloomFilterConstants.META_EXPIRE_AT_FIELD, String.valueOf(System.currentTimeMillis() + ttl));
+        }
+        return meta;
+    }
+
+    /**
+     * 元数据的键，与位数组的键落在同一个槽
+     */
+    public static String metaKey(String key) {
+        int start = key.indexOf('{');
+        int end = start == -1 ? -1 : key.indexOf('}', start + 1);
+        if (end > start + 1) {
+            return key + BloomFilterConstants.META_KEY_SUFFIX;
+        }
+        return "{" + key + "}" + BloomFilterConstants.META_KEY_SUFFIX;
+    }
+
+    /**
+     * 多个RedisBitArray的查询合并为一次往返，返回值按map的遍历顺序展开
+     * 单机、哨兵下所有键一次脚本调用；集群下一次脚本调用的键必须在同一个槽，按槽分组后各组的evalsha放在一个流水线里发出
+     *
+     * @param indexMap 每个bitArray对应的多个元素hash后的位数
+     * @return
+     */
+    public List<Boolean> multiGet(Map<RedisBitArray, List<long[]>> indexMap) {
+        if (!isCluster()) {
+            return toBooleanList(multiGet(new ArrayList(indexMap.entrySet())));
+        }
+        Map<Integer, List<Map.Entry<RedisBitArray, List<long[]>>>> slotMap = new LinkedHashMap();
+        for (Map.Entry<RedisBitArray, List<long[]>> entry : indexMap.entrySet()) {
+            slotMap.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(entry.getKey().getKey()), k -> new ArrayList()).add(entry);
+        }
+        if (slotMap.size() == 1) {
+            return toBooleanList(multiGet(slotMap.values().iterator().next()));
+        }
+        List<List<Map.Entry<RedisBitArray, List<long[]>>>> groups = new ArrayList(slotMap.values());
+        List<List<Long>> results = multiGetPipelined(groups);
+        Map<RedisBitArray, List<Boolean>> resMap = new HashMap(indexMap.size());
+        for (int g = 0; g < groups.size(); g++) {
+            Iterator<Long> iterator = results.get(g).iterator();
+            for (Map.Entry<RedisBitArray, List<long[]>> entry : groups.get(g)) {
+                List<Boolean> list = new ArrayList(entry.getValue().size());
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    list.add(Boolean.valueOf(iterator.next().equals(BloomFilterConstants.TRUE)));
+                }
+                resMap.put(entry.getKey(), list);
+            }
+        }
+        List<Boolean> res = new ArrayList();
+        for (RedisBitArray bits : indexMap.keySet()) {
+            res.addAll(resMap.get(bits));
+        }
+        return res;
+    }
+
+    /**
+     * 所有位数组一次脚本调用，集群下需要在同一个槽
+     */
+    private List<Long> multiGet(List<Map.Entry<RedisBitArray, List<long[]>>> entries) {
+        List<String> keys = new ArrayList(entries.size());
+        List<Object> args = new ArrayList();
+        multiGetArgs(entries, keys, args);
+        return (List<Long>) redisTemplate.execute(multiGetBitScript, keys, args.toArray());
+    }
+
+    /**
+     * 每个槽一次evalsha，放在同一个流水线里，总共一次往返
+     * 遇到NOSCRIPT时整批改用eval重发，同时把脚本缓存到各个节点；jedis的集群连接不支持流水线，逐组调用
+     */
+    private List<List<Long>> multiGetPipelined(List<List<Map.Entry<RedisBitArray, List<long[]>>>> groups) {
+        List<byte[][]> keysAndArgsList = new ArrayList(groups.size());
+        List<Integer> keySizes = new ArrayList(groups.size());
+        for (List<Map.Entry<RedisBitArray, List<long[]>>> entries : groups) {
+            List<String> keys = new ArrayList(entries.size());
+            List<Object> args = new ArrayList();
+            multiGetArgs(entries, keys, args);
+            keysAndArgsList.add(keysAndArgs(keys, args));
+            keySizes.add(keys.size());
+        }
+        try {
+            return pipelineMultiGet(keysAndArgsList, keySizes, false);
+        } catch (RedisPipelineException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            return pipelineMultiGet(keysAndArgsList, keySizes, true);
+        } catch (UnsupportedOperationException e) {
+            List<List<Long>> res = new ArrayList(groups.size());
+            for (List<Map.Entry<RedisBitArray, List<long[]>>> entries : groups) {
+                res.add(multiGet(entries));
+            }
+            return res;
+        }
+    }
+
+    private List<List<Long>> pipelineMultiGet(List<byte[][]> keysAndArgsList, List<Integer> keySizes, boolean eval) {
+        byte[] script = eval ? multiGetBitScript.getScriptAsString().getBytes(StandardCharsets.UTF_8) : null;
+        return (List<List<Long>>) redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            for (int i = 0; i < keysAndArgsList.size(); i++) {
+                if (eval) {
+                    connection.eval(script, ReturnType.MULTI, keySizes.get(i), keysAndArgsList.get(i));
+                } else {
+                    connection.evalSha(multiGetBitScript.getSha1(), ReturnType.MULTI, keySizes.get(i), keysAndArgsList.get(i));
+                }
+            }
+            return connection.closePipeline();
+        });
+    }
+
+    private void multiGetArgs(List<Map.Entry<RedisBitArray, List<long[]>>> entries, List<String> keys, List<Object> args) {
+        for (Map.Entry<RedisBitArray, List<long[]>> entry : entries) {
+            List<long[]> indexs = entry.getValue();
+            keys.add(entry.getKey().getKey());
+            args.add(Long.valueOf(indexs.size()));
+            args.add(Long.valueOf(indexs.get(0).length));
+            for (long[] index : indexs) {
+                for (long i : index) {
+                    args.add(Long.valueOf(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * 与模板上EvalShaScriptExecutor的序列化一致，键为字符串，参数都是整数
+     */
+    private byte[][] keysAndArgs(List<String> keys, List<Object> args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.size()][];
+        RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = keySerializer.serialize(keys.get(i));
+        }
+        for (int i = 0; i < args.size(); i++) {
+            keysAndArgs[keys.size() + i] = argsSerializer.serialize(args.get(i));
+        }
+        return keysAndArgs;
+    }
+
+    private List<Boolean> toBooleanList(List<Long> list) {
+        List<Boolean> res = new ArrayList(list.size());
+        for (Long temp : list) {
+            res.add(Boolean.valueOf(temp.equals(BloomFilterConstants.TRUE)));
+        }
+        return res;
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第一次调用时取一个连接判断是否为集群，之后不变
+     */
+    private boolean isCluster() {
+        Boolean res = cluster;
+        if (res == null) {
+            RedisConnectionFactory factory = redisTemplate.getConnectionFactory();
+            RedisConnection connection = RedisConnectionUtils.getConnection(factory);
+            try {
+                res = Boolean.valueOf(connection instanceof RedisClusterConnection);
+            } finally {
+                RedisConnectionUtils.releaseConnection(connection, factory);
+            }
+            cluster = res;
+        }
+        return res.booleanValue();
+    }
+
 }
\ No newline at end of file
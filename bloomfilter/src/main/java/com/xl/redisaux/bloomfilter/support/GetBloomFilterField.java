@@ -73,7 +73,12 @@ public class GetBloomFilterField {
                             field.timeout(),
                             field.timeUnit(),
 
-                    field.local()
+                    field.local() || field.mapped(),
+                            field.mapped(),
+                            field.scalable(),
+                            field.counterBits(),
+                            field.blocked(),
+                            field.slices()
                     );
                 }
             }
@@ -94,8 +99,13 @@ public class GetBloomFilterField {
         private final long timeout;
         private final TimeUnit timeUnit;
         private final boolean local;
+        private final boolean mapped;
+        private final boolean scalable;
+        private final int counterBits;
+        private final boolean blocked;
+        private final int slices;
 
-        public BloomFilterInfo(String keyPrefix, String keyName, Long exceptionInsert, double fpp, Long timeout, TimeUnit timeUnit, boolean local) {
+        public BloomFilterInfo(String keyPrefix, String keyName, Long exceptionInsert, double fpp, Long timeout, TimeUnit timeUnit, boolean local, boolean mapped, boolean scalable, int counterBits, boolean blocked, int slices) {
             this.keyPrefix = keyPrefix;
             this.keyName = keyName;
             this.exceptionInsert = exceptionInsert;
@@ -103,7 +113,11 @@ public class GetBloomFilterField {
             this.timeout = timeout;
             this.timeUnit = timeUnit;
             this.local=local;
-
+            this.mapped = mapped;
+            this.scalable = scalable;
+            this.counterBits = counterBits;
+            this.blocked = blocked;
+            this.slices = slices;
         }
 
         public String getKeyPrefix() {
@@ -131,6 +145,26 @@ public class GetBloomFilterField {
         }
 
         public boolean isLocal(){return local;}
+
+        public boolean isMapped() {
+            return mapped;
+        }
+
+        public boolean isScalable() {
+            return scalable;
+        }
+
+        public int getCounterBits() {
+            return counterBits;
+        }
+
+        public boolean isBlocked() {
+            return blocked;
+        }
+
+        public int getSlices() {
+            return slices;
+        }
     }
 
 
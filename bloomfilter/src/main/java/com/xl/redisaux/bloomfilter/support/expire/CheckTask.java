@@ -6,16 +6,27 @@ import org.springframework.beans.factory.InitializingBean;
 
 import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @SuppressWarnings("unchecked")
 /**
  * 检查过期时间任务
+ * 待过期的键放在分层时间轮中，插入、取消都是O(1)；DelayQueue中只放时间轮的槽，有更早到期的槽加入时唤醒等待的线程
+ * 同一时刻到期的键按批交给监听器，每个监听器每批提交一次任务
  */
 public class CheckTask extends Thread implements KeyExpirePublisher, InitializingBean {
-    private List<KeyExpireListener> listeners = new ArrayList();
-    private PriorityBlockingQueue<WatiForDeleteKey> priorityQueue;
+    //元素类型的item可能在运行中加入
+    private List<KeyExpireListener> listeners = new CopyOnWriteArrayList();
+    private final DelayQueue<TimerBucket> delayQueue = new DelayQueue();
+    private final TimingWheel timingWheel;
+    //插入用读锁，推进时钟用写锁
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    //每个键只保留最后一次设置的过期时间，与redis的expire一致
+    private final Map<String, WatiForDeleteKey> scheduled = new ConcurrentHashMap();
     private volatile Boolean run = true;
     //用于提交过期任务
     private ThreadPoolExecutor executors;
@@ -23,46 +34,82 @@ public class CheckTask extends Thread implements KeyExpirePublisher, Initializin
     public CheckTask() {
         super("checkTask");
         this.setDaemon(true);
-        this.priorityQueue = new PriorityBlockingQueue();
+        this.timingWheel = new TimingWheel(BloomFilterConstants.TIMING_WHEEL_TICK_MS, BloomFilterConstants.TIMING_WHEEL_SIZE, System.currentTimeMillis(), delayQueue);
         executors = new ThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS, new ArrayBlockingQueue(1024), new NamedThreadFactory("checkTask",true), new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     @Override
     public void run() {
         while (run) {
-            //当队列为空时，每5秒检测一次
-            if (priorityQueue.isEmpty()) {
-                try {
-                    TimeUnit.SECONDS.sleep(BloomFilterConstants.CHECK_TASK_PER_SECOND);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                //查看存活时间最小的那个节点
-                WatiForDeleteKey peek = priorityQueue.peek();
-                long dispearTime = 0;
-                long now = 0;
-                //针对键的存活时间较为密切的情况，一直弹出直到存活时间大于当前时间
-                while (peek != null && (dispearTime = (peek.getStartTime() + peek.getExistTime())) <= (now = System.currentTimeMillis())) {
-                    WatiForDeleteKey poll = priorityQueue.poll();
-                    notifyListener(poll.getKey());
-                    peek = priorityQueue.peek();
-                }
-                //等待下一次过期的时间
-                try {
-                    if (dispearTime > now) {
-                        TimeUnit.MILLISECONDS.sleep(dispearTime - now);
-                    }
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+            try {
+                //队列为空时定期醒来检查是否停止
+                TimerBucket bucket = delayQueue.poll(BloomFilterConstants.CHECK_TASK_PER_SECOND, TimeUnit.SECONDS);
+                if (bucket != null) {
+                    notifyListener(advance(bucket));
                 }
+            } catch (InterruptedException e) {
+                //停止时中断
+            }
+        }
+    }
 
+    /**
+     * 推进时钟并取出所有已到期的槽，上层槽中的键重新放入时间轮，到期的键一起返回
+     */
+    private List<String> advance(TimerBucket bucket) {
+        List<String> expired = new ArrayList();
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                timingWheel.advanceClock(bucket.getExpiration());
+                bucket.flush(entry -> {
+                    if (!timingWheel.add(entry) && !entry.isCancelled() && scheduled.remove(entry.getKey(), entry)) {
+                        expired.add(entry.getKey());
+                    }
+                });
+                bucket = delayQueue.poll();
             }
+        } finally {
+            lock.writeLock().unlock();
         }
+        return expired;
     }
 
+    /**
+     * 同一个键再次加入时取消之前的，已经到期的直接通知
+     */
     public void addExpireKey(WatiForDeleteKey watiForDeleteKey) {
-        priorityQueue.offer(watiForDeleteKey);
+        WatiForDeleteKey old = scheduled.put(watiForDeleteKey.getKey(), watiForDeleteKey);
+        if (old != null) {
+            old.cancel();
+        }
+        boolean added;
+        lock.readLock().lock();
+        try {
+            added = timingWheel.add(watiForDeleteKey);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!added && scheduled.remove(watiForDeleteKey.getKey(), watiForDeleteKey)) {
+            notifyListener(watiForDeleteKey.getKey());
+        }
+    }
+
+    /**
+     * 取消键的过期，过滤器被删除后不再通知
+     */
+    public void cancelExpireKey(String key) {
+        WatiForDeleteKey old = scheduled.remove(key);
+        if (old != null) {
+            old.cancel();
+        }
+    }
+
+    /**
+     * 等待过期的键的个数
+     */
+    public int getScheduledCount() {
+        return scheduled.size();
     }
 
     @Override
@@ -77,16 +124,19 @@ public class CheckTask extends Thread implements KeyExpirePublisher, Initializin
 
     @Override
     public void notifyListener(final String key) {
-//通过线程池提交删除任务
-        for (final KeyExpireListener listener : listeners) {
-            executors.submit(new Runnable() {
-                @Override
-                public void run() {
-                    listener.removeKey(key);
-                }
-            });
-        }
+        notifyListener(Collections.singletonList(key));
+    }
 
+    /**
+     * 通过线程池提交删除任务，每个监听器每EXPIRE_NOTIFY_BATCH个键提交一次
+     */
+    private void notifyListener(List<String> keys) {
+        for (int from = 0; from < keys.size(); from += BloomFilterConstants.EXPIRE_NOTIFY_BATCH) {
+            final List<String> batch = keys.subList(from, Math.min(keys.size(), from + BloomFilterConstants.EXPIRE_NOTIFY_BATCH));
+            for (final KeyExpireListener listener : listeners) {
+                executors.submit(() -> listener.removeKeys(batch));
+            }
+        }
     }
 
     @Override
@@ -97,6 +147,7 @@ public class CheckTask extends Thread implements KeyExpirePublisher, Initializin
     @PreDestroy
     public void stopRun() {
         this.run = false;
+        this.interrupt();
         executors.shutdown();
     }
-}
\ No newline at end of file
+}
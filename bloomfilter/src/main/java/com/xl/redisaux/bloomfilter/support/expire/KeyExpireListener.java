@@ -1,5 +1,7 @@
 package com.xl.redisaux.bloomfilter.support.expire;
 
+import java.util.List;
+
 /**
  * @author lulu
  * @Date 2020/1/11 20:18
@@ -7,4 +9,13 @@ package com.xl.redisaux.bloomfilter.support.expire;
  */
 public interface KeyExpireListener {
     void removeKey(String ke);
+
+    /**
+     * 同一时刻到期的一批键
+     */
+    default void removeKeys(List<String> keys) {
+        for (String key : keys) {
+            removeKey(key);
+        }
+    }
 }
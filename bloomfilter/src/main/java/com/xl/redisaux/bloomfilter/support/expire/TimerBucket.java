@@ -0,0 +1,84 @@
+package com.xl.redisaux.bloomfilter.support.expire;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 02:20
+ * 时间轮的一个槽，同一个刻度内到期的键放在一个双向链表里，插入和摘除都是O(1)
+ * 槽按到期时间放入DelayQueue，只有槽的到期时间变化时才重新入队，入队的个数与键的个数无关
+ */
+class TimerBucket implements Delayed {
+
+    /**
+     * 哨兵节点，链表为空时前后都指向自己
+     */
+    private final WatiForDeleteKey root = new WatiForDeleteKey(null, -1L, -1L, true);
+
+    private final AtomicLong expiration = new AtomicLong(-1L);
+
+    TimerBucket() {
+        root.next = root;
+        root.prev = root;
+    }
+
+    /**
+     * @return 到期时间是否变化，变化时需要重新放入DelayQueue
+     */
+    boolean setExpiration(long expireAt) {
+        return expiration.getAndSet(expireAt) != expireAt;
+    }
+
+    long getExpiration() {
+        return expiration.get();
+    }
+
+    /**
+     * 新建或刚从其他槽取出的键，不在任何槽中
+     */
+    synchronized void add(WatiForDeleteKey entry) {
+        WatiForDeleteKey tail = root.prev;
+        entry.next = root;
+        entry.prev = tail;
+        entry.bucket = this;
+        tail.next = entry;
+        root.prev = entry;
+    }
+
+    synchronized void remove(WatiForDeleteKey entry) {
+        if (entry.bucket == this) {
+            entry.next.prev = entry.prev;
+            entry.prev.next = entry.next;
+            entry.next = null;
+            entry.prev = null;
+            entry.bucket = null;
+        }
+    }
+
+    /**
+     * 取出槽中所有的键，交给consumer重新放入时间轮或通知过期
+     */
+    synchronized void flush(Consumer<WatiForDeleteKey> consumer) {
+        WatiForDeleteKey head = root.next;
+        while (head != root) {
+            WatiForDeleteKey next = head.next;
+            remove(head);
+            consumer.accept(head);
+            head = next;
+        }
+        expiration.set(-1L);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        return Long.compare(getExpiration(), ((TimerBucket) o).getExpiration());
+    }
+}
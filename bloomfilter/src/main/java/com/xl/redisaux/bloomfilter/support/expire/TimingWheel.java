@@ -0,0 +1,97 @@
+package com.xl.redisaux.bloomfilter.support.expire;
+
+import java.util.concurrent.DelayQueue;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 02:20
+ * 分层时间轮，每层wheelSize个槽，每个槽跨tickMs毫秒，超出本层范围的键放到上一层，上一层的刻度为本层的总跨度
+ * 上层的槽到期后其中的键重新放入时间轮，逐层落到最底层；到期时间先按最底层的刻度向上取整，不会提前通知，最多晚一个刻度
+ * 插入和推进时钟由CheckTask的读写锁保护，currentTime只在写锁下修改
+ */
+class TimingWheel {
+
+    private final long tickMs;
+
+    /**
+     * 最底层的刻度
+     */
+    private final long baseTickMs;
+
+    private final int wheelSize;
+
+    private final long interval;
+
+    private final TimerBucket[] buckets;
+
+    private final DelayQueue<TimerBucket> queue;
+
+    /**
+     * 按tickMs取整的当前时间
+     */
+    private long currentTime;
+
+    private volatile TimingWheel overflowWheel;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs, DelayQueue<TimerBucket> queue) {
+        this(tickMs, tickMs, wheelSize, startMs, queue);
+    }
+
+    private TimingWheel(long tickMs, long baseTickMs, int wheelSize, long startMs, DelayQueue<TimerBucket> queue) {
+        this.tickMs = tickMs;
+        this.baseTickMs = baseTickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.queue = queue;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new TimerBucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new TimerBucket();
+        }
+    }
+
+    /**
+     * @return 已取消或在当前刻度内到期时返回false，由调用方直接通知
+     */
+    boolean add(WatiForDeleteKey entry) {
+        long expireAt = (entry.getExpireAt() + baseTickMs - 1) / baseTickMs * baseTickMs;
+        if (entry.isCancelled() || expireAt < currentTime + tickMs) {
+            return false;
+        }
+        if (expireAt < currentTime + interval) {
+            long virtualId = expireAt / tickMs;
+            TimerBucket bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+            //槽被复用到新的一圈时重新入队
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.offer(bucket);
+            }
+            return true;
+        }
+        return overflowWheel().add(entry);
+    }
+
+    void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+            TimingWheel overflow = overflowWheel;
+            if (overflow != null) {
+                overflow.advanceClock(currentTime);
+            }
+        }
+    }
+
+    private TimingWheel overflowWheel() {
+        TimingWheel overflow = overflowWheel;
+        if (overflow == null) {
+            synchronized (this) {
+                overflow = overflowWheel;
+                if (overflow == null) {
+                    overflow = new TimingWheel(interval, baseTickMs, wheelSize, currentTime, queue);
+                    overflowWheel = overflow;
+                }
+            }
+        }
+        return overflow;
+    }
+}
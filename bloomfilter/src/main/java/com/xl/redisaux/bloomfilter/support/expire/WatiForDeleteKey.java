@@ -1,16 +1,28 @@
 package com.xl.redisaux.bloomfilter.support.expire;
 
 
-import com.xl.redisaux.common.exceptions.RedisAuxException;
-
 /**
  * @author lulu
  * @Date 2020/1/11 19:49
+ * 时间轮中的一个待过期键，同时是所在槽的双向链表节点，取消时直接从槽中摘除
  */
-public class WatiForDeleteKey implements Comparable {
+public class WatiForDeleteKey {
     private final String key;
     private final long existTime;
     private final long startTime;
+    /**
+     * 到期的时间戳，创建时算好，不再随当前时间变化
+     */
+    private final long expireAt;
+
+    private volatile boolean cancelled;
+
+    /**
+     * 所在的槽及前后节点，由槽加锁维护
+     */
+    volatile TimerBucket bucket;
+    WatiForDeleteKey prev;
+    WatiForDeleteKey next;
 
     public String getKey() {
         return key;
@@ -24,29 +36,36 @@ public class WatiForDeleteKey implements Comparable {
         return startTime;
     }
 
+    public long getExpireAt() {
+        return expireAt;
+    }
+
     public WatiForDeleteKey(String key, long existTime, long startTime,boolean mode) {
         this.key = key;
         this.existTime = existTime;
         this.startTime = startTime;
+        this.expireAt = startTime + existTime;
     }
 
-    @Override
-    public int compareTo(Object o) {
-        if (o instanceof WatiForDeleteKey) {
-            long now = System.currentTimeMillis();
-            //剩下的存活时间
-            WatiForDeleteKey ot = (WatiForDeleteKey) o;
-            long other = ot.existTime - (now - ot.startTime);
-
-            long self = existTime - (now - startTime);
-            //小顶堆，在上面是最小的，存活时间最少在上面
-            return self < other ? -1 : (self == other) ? 0 : 1;
+    /**
+     * 取消后不再通知，已经在槽中的节点立即摘除
+     */
+    public void cancel() {
+        cancelled = true;
+        TimerBucket current = bucket;
+        while (current != null) {
+            current.remove(this);
+            //移除的同时可能正被转移到其他槽
+            current = bucket;
         }
-        throw new RedisAuxException("WaitForDeleteKey无法比对");
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
     }
 
     @Override
     public String toString() {
-        return key + ":" + ((startTime + existTime) - System.currentTimeMillis());
+        return key + ":" + (expireAt - System.currentTimeMillis());
     }
 }
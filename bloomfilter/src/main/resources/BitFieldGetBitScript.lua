@@ -0,0 +1,46 @@
+--与GetBitScript一致，ARGV[1]代表单个待判断元素对应的字节长度
+--先用bitfield按chunk个一组取出所有下标的值，多个键取与，再按元素判断
+local chunk = 256
+local bitL = tonumber(ARGV[1])
+local aL = table.getn(ARGV) - 1
+local kL = table.getn(KEYS)
+local bits = {}
+for k = 1, kL
+do
+    local start = 2
+    while start <= aL + 1
+    do
+        local last = math.min(start + chunk - 1, aL + 1)
+        local ops = {}
+        local n = 0
+        for i = start, last
+        do
+            ops[n + 1] = 'GET'
+            ops[n + 2] = 'u1'
+            ops[n + 3] = ARGV[i]
+            n = n + 3
+        end
+        local res = redis.call('bitfield', KEYS[k], unpack(ops))
+        for i = start, last
+        do
+            if k == 1 or res[i - start + 1] == 0 then
+                bits[i - 1] = res[i - start + 1]
+            end
+        end
+        start = last + 1
+    end
+end
+local array = {}
+for index = 1, aL / bitL
+do
+    local exists = 1
+    for i = (index - 1) * bitL + 1, index * bitL
+    do
+        if bits[i] == 0 then
+            exists = 0
+            break
+        end
+    end
+    array[index] = exists
+end
+return array
@@ -0,0 +1,50 @@
+--与MultiGetBitScript一致，每个键对应的下标按chunk个一组用bitfield取出
+--ARGV: count1, bitL1, idx..., count2, bitL2, idx...
+local chunk = 256
+local array = {}
+local p = 1
+local n = 1
+for k = 1, table.getn(KEYS)
+do
+    local count = tonumber(ARGV[p])
+    local bitL = tonumber(ARGV[p + 1])
+    p = p + 2
+    local first = p
+    local total = count * bitL
+    local bits = {}
+    local start = first
+    while start < first + total
+    do
+        local last = math.min(start + chunk - 1, first + total - 1)
+        local ops = {}
+        local m = 0
+        for i = start, last
+        do
+            ops[m + 1] = 'GET'
+            ops[m + 2] = 'u1'
+            ops[m + 3] = ARGV[i]
+            m = m + 3
+        end
+        local res = redis.call('bitfield', KEYS[k], unpack(ops))
+        for i = start, last
+        do
+            bits[i - first + 1] = res[i - start + 1]
+        end
+        start = last + 1
+    end
+    for index = 1, count
+    do
+        local exists = 1
+        for i = (index - 1) * bitL + 1, index * bitL
+        do
+            if bits[i] == 0 then
+                exists = 0
+                break
+            end
+        end
+        array[n] = exists
+        n = n + 1
+    end
+    p = first + total
+end
+return array
@@ -0,0 +1,27 @@
+--与MultiSetBitScript一致，每个键的下标按chunk个一组合并成一条bitfield命令
+--ARGV: count1, idx..., count2, idx...
+local chunk = 256
+local p = 1
+for k = 1, table.getn(KEYS)
+do
+    local count = tonumber(ARGV[p])
+    local last = p + count
+    local start = p + 1
+    while start <= last
+    do
+        local stop = math.min(start + chunk - 1, last)
+        local ops = {}
+        local n = 0
+        for i = start, stop
+        do
+            ops[n + 1] = 'SET'
+            ops[n + 2] = 'u1'
+            ops[n + 3] = ARGV[i]
+            ops[n + 4] = 1
+            n = n + 4
+        end
+        redis.call('bitfield', KEYS[k], unpack(ops))
+        start = stop + 1
+    end
+    p = last + 1
+end
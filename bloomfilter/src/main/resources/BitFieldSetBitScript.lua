@@ -0,0 +1,24 @@
+--与SetBitScript一致，但把下标按chunk个一组打包成一条bitfield命令
+local chunk = 256
+local kL = table.getn(KEYS)
+local aL = table.getn(ARGV)
+for i = 1, kL
+do
+    local start = 1
+    while start <= aL
+    do
+        local last = math.min(start + chunk - 1, aL)
+        local ops = {}
+        local n = 0
+        for k = start, last
+        do
+            ops[n + 1] = 'SET'
+            ops[n + 2] = 'u1'
+            ops[n + 3] = ARGV[k]
+            ops[n + 4] = 1
+            n = n + 4
+        end
+        redis.call('bitfield', KEYS[i], unpack(ops))
+        start = last + 1
+    end
+end
@@ -0,0 +1,41 @@
+--计数布隆过滤器的查询，ARGV[1]为计数器的位数，ARGV[2]为单个元素对应的下标个数
+--元素的所有计数器都大于0才认为存在
+local chunk = 256
+local type = 'u' .. ARGV[1]
+local bitL = tonumber(ARGV[2])
+local aL = table.getn(ARGV)
+local counters = {}
+local start = 3
+while start <= aL
+do
+    local last = math.min(start + chunk - 1, aL)
+    local ops = {}
+    local n = 0
+    for i = start, last
+    do
+        ops[n + 1] = 'GET'
+        ops[n + 2] = type
+        ops[n + 3] = '#' .. ARGV[i]
+        n = n + 3
+    end
+    local res = redis.call('bitfield', KEYS[1], unpack(ops))
+    for i = start, last
+    do
+        counters[i - 2] = res[i - start + 1]
+    end
+    start = last + 1
+end
+local array = {}
+for index = 1, (aL - 2) / bitL
+do
+    local exists = 1
+    for i = (index - 1) * bitL + 1, index * bitL
+    do
+        if counters[i] == 0 then
+            exists = 0
+            break
+        end
+    end
+    array[index] = exists
+end
+return array
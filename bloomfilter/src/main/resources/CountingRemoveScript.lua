@@ -0,0 +1,78 @@
+--计数布隆过滤器的删除，参数与CountingGetScript一致
+--只删除所有计数器都大于0的元素，已经饱和的计数器不再减少，避免误删其他元素
+--同一批中后面的元素按前面删除后的值判断，最后每个计数器合并为一次INCRBY
+local chunk = 256
+local type = 'u' .. ARGV[1]
+local max = 2 ^ tonumber(ARGV[1]) - 1
+local bitL = tonumber(ARGV[2])
+local aL = table.getn(ARGV)
+local counters = {}
+local start = 3
+while start <= aL
+do
+    local last = math.min(start + chunk - 1, aL)
+    local ops = {}
+    local n = 0
+    for i = start, last
+    do
+        ops[n + 1] = 'GET'
+        ops[n + 2] = type
+        ops[n + 3] = '#' .. ARGV[i]
+        n = n + 3
+    end
+    local res = redis.call('bitfield', KEYS[1], unpack(ops))
+    for i = start, last
+    do
+        counters[ARGV[i]] = res[i - start + 1]
+    end
+    start = last + 1
+end
+local array = {}
+local delta = {}
+local offsets = {}
+for index = 1, (aL - 2) / bitL
+do
+    local exists = 1
+    for i = (index - 1) * bitL + 3, index * bitL + 2
+    do
+        if counters[ARGV[i]] == 0 then
+            exists = 0
+            break
+        end
+    end
+    if exists == 1 then
+        for i = (index - 1) * bitL + 3, index * bitL + 2
+        do
+            local offset = ARGV[i]
+            local value = counters[offset]
+            if value > 0 and value < max then
+                counters[offset] = value - 1
+                if delta[offset] == nil then
+                    delta[offset] = 0
+                    offsets[table.getn(offsets) + 1] = offset
+                end
+                delta[offset] = delta[offset] - 1
+            end
+        end
+    end
+    array[index] = exists
+end
+start = 1
+local oL = table.getn(offsets)
+while start <= oL
+do
+    local last = math.min(start + chunk - 1, oL)
+    local ops = { 'OVERFLOW', 'SAT' }
+    local n = 2
+    for k = start, last
+    do
+        ops[n + 1] = 'INCRBY'
+        ops[n + 2] = type
+        ops[n + 3] = '#' .. offsets[k]
+        ops[n + 4] = delta[offsets[k]]
+        n = n + 4
+    end
+    redis.call('bitfield', KEYS[1], unpack(ops))
+    start = last + 1
+end
+return array
@@ -0,0 +1,22 @@
+--计数布隆过滤器的写入，ARGV[1]为计数器的位数(4或8)，其余为计数器下标
+--每个下标对应的计数器加1，按chunk个一组合并成一条bitfield命令，溢出时饱和不回绕
+local chunk = 256
+local type = 'u' .. ARGV[1]
+local aL = table.getn(ARGV)
+local start = 2
+while start <= aL
+do
+    local last = math.min(start + chunk - 1, aL)
+    local ops = { 'OVERFLOW', 'SAT' }
+    local n = 2
+    for k = start, last
+    do
+        ops[n + 1] = 'INCRBY'
+        ops[n + 2] = type
+        ops[n + 3] = '#' .. ARGV[k]
+        ops[n + 4] = 1
+        n = n + 4
+    end
+    redis.call('bitfield', KEYS[1], unpack(ops))
+    start = last + 1
+end
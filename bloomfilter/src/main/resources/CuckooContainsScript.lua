@@ -0,0 +1,35 @@
+--布谷鸟过滤器的查询，参数与CuckooInsertScript一致(没有最大踢出次数)
+--每个元素一次bitfield读出两个桶共8个槽
+local fpType = 'u' .. ARGV[1]
+local bucketCount = tonumber(ARGV[2])
+local array = {}
+local aL = table.getn(ARGV)
+for p = 3, aL, 2
+do
+    local i1 = tonumber(ARGV[p])
+    local fp = tonumber(ARGV[p + 1])
+    local i2 = bit.bxor(i1, math.fmod(math.fmod(fp, bucketCount) * math.fmod(1540483477, bucketCount), bucketCount))
+    local ops = {}
+    local n = 0
+    for j = 0, 3
+    do
+        ops[n + 1] = 'GET'
+        ops[n + 2] = fpType
+        ops[n + 3] = '#' .. (i1 * 4 + j)
+        ops[n + 4] = 'GET'
+        ops[n + 5] = fpType
+        ops[n + 6] = '#' .. (i2 * 4 + j)
+        n = n + 6
+    end
+    local res = redis.call('bitfield', KEYS[1], unpack(ops))
+    local exists = 0
+    for j = 1, 8
+    do
+        if res[j] == fp then
+            exists = 1
+            break
+        end
+    end
+    array[(p - 1) / 2] = exists
+end
+return array
@@ -0,0 +1,40 @@
+--布谷鸟过滤器的删除，参数与CuckooContainsScript一致
+--在两个桶中找到相同的指纹后清空一个槽，返回每个元素是否删除
+local fpType = 'u' .. ARGV[1]
+local bucketCount = tonumber(ARGV[2])
+local array = {}
+local aL = table.getn(ARGV)
+for p = 3, aL, 2
+do
+    local i1 = tonumber(ARGV[p])
+    local fp = tonumber(ARGV[p + 1])
+    local i2 = bit.bxor(i1, math.fmod(math.fmod(fp, bucketCount) * math.fmod(1540483477, bucketCount), bucketCount))
+    local ops = {}
+    local n = 0
+    for j = 0, 3
+    do
+        ops[n + 1] = 'GET'
+        ops[n + 2] = fpType
+        ops[n + 3] = '#' .. (i1 * 4 + j)
+        ops[n + 4] = 'GET'
+        ops[n + 5] = fpType
+        ops[n + 6] = '#' .. (i2 * 4 + j)
+        n = n + 6
+    end
+    local res = redis.call('bitfield', KEYS[1], unpack(ops))
+    local deleted = 0
+    for j = 1, 8
+    do
+        if res[j] == fp then
+            local i = i1
+            if j % 2 == 0 then
+                i = i2
+            end
+            redis.call('bitfield', KEYS[1], 'SET', fpType, '#' .. (i * 4 + math.floor((j - 1) / 2)), 0)
+            deleted = 1
+            break
+        end
+    end
+    array[(p - 1) / 2] = deleted
+end
+return array
@@ -0,0 +1,95 @@
+--布谷鸟过滤器的写入，ARGV[1]为指纹的位数，ARGV[2]为桶的个数(2的幂)，ARGV[3]为最大踢出次数
+--其余参数每两个为一个元素：第一个桶的下标、指纹，每个桶4个槽，按#下标寻址
+--两个桶都满时随机踢出一个指纹放到它的另一个桶，修改先记在cache里，失败时回滚，最后一次写回
+local fpType = 'u' .. ARGV[1]
+local bucketCount = tonumber(ARGV[2])
+local maxKicks = tonumber(ARGV[3])
+local key = KEYS[1]
+local cache = {}
+local dirty = {}
+local dirtyList = {}
+local function alt(i, fp)
+    return bit.bxor(i, math.fmod(math.fmod(fp, bucketCount) * math.fmod(1540483477, bucketCount), bucketCount))
+end
+local function load(i)
+    if cache[i * 4] == nil then
+        local res = redis.call('bitfield', key, 'GET', fpType, '#' .. (i * 4), 'GET', fpType, '#' .. (i * 4 + 1),
+                'GET', fpType, '#' .. (i * 4 + 2), 'GET', fpType, '#' .. (i * 4 + 3))
+        for j = 0, 3
+        do
+            cache[i * 4 + j] = res[j + 1]
+        end
+    end
+end
+local function set(slot, fp)
+    if cache[slot] ~= fp and dirty[slot] == nil then
+        dirty[slot] = true
+        dirtyList[table.getn(dirtyList) + 1] = slot
+    end
+    cache[slot] = fp
+end
+local function tryPut(i, fp)
+    load(i)
+    for j = 0, 3
+    do
+        if cache[i * 4 + j] == 0 then
+            set(i * 4 + j, fp)
+            return true
+        end
+    end
+    return false
+end
+local array = {}
+local aL = table.getn(ARGV)
+for p = 4, aL, 2
+do
+    local i = tonumber(ARGV[p])
+    local fp = tonumber(ARGV[p + 1])
+    local ok = tryPut(i, fp) or tryPut(alt(i, fp), fp)
+    if not ok then
+        local changes = {}
+        if math.random(2) == 2 then
+            i = alt(i, fp)
+        end
+        for n = 1, maxKicks
+        do
+            local slot = i * 4 + math.random(4) - 1
+            local victim = cache[slot]
+            changes[table.getn(changes) + 1] = slot
+            changes[table.getn(changes) + 1] = victim
+            set(slot, fp)
+            fp = victim
+            i = alt(i, fp)
+            if tryPut(i, fp) then
+                ok = true
+                break
+            end
+        end
+        if not ok then
+            for c = table.getn(changes) - 1, 1, -2
+            do
+                cache[changes[c]] = changes[c + 1]
+            end
+        end
+    end
+    array[(p - 2) / 2] = ok and 1 or 0
+end
+local dL = table.getn(dirtyList)
+local start = 1
+while start <= dL
+do
+    local last = math.min(start + 255, dL)
+    local ops = {}
+    local n = 0
+    for k = start, last
+    do
+        ops[n + 1] = 'SET'
+        ops[n + 2] = fpType
+        ops[n + 3] = '#' .. dirtyList[k]
+        ops[n + 4] = cache[dirtyList[k]]
+        n = n + 4
+    end
+    redis.call('bitfield', key, unpack(ops))
+    start = last + 1
+end
+return array
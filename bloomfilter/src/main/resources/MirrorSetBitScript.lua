@@ -0,0 +1,28 @@
+--本地副本模式的写入，KEYS[1]为位数组，KEYS[2]为版本号的hash
+--ARGV[1]为每段的位数，ARGV[2]为键不存在时使用的epoch，ARGV[3]为直接标记的段数n，ARGV[4]...ARGV[n+3]为段号，之后为要置1的位
+--有位从0变为1的段和直接标记的段记为递增后的全局版本号v，其他节点据此只拉取变化的段
+local segBits = tonumber(ARGV[1])
+local n = tonumber(ARGV[3])
+local changed = {}
+local any = false
+for i = 4, n + 3
+do
+    changed[ARGV[i]] = true
+    any = true
+end
+for i = n + 4, table.getn(ARGV)
+do
+    local index = tonumber(ARGV[i])
+    if redis.call('setbit', KEYS[1], index, 1) == 0 then
+        changed[tostring(math.floor(index / segBits))] = true
+        any = true
+    end
+end
+if any then
+    redis.call('hsetnx', KEYS[2], 'e', ARGV[2])
+    local v = redis.call('hincrby', KEYS[2], 'v', 1)
+    for segment in pairs(changed)
+    do
+        redis.call('hset', KEYS[2], segment, v)
+    end
+end
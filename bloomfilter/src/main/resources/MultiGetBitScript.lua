@@ -0,0 +1,27 @@
+--一次查询多个键，KEYS[k]对应一段参数：元素个数、单个元素对应的位数、下标
+--ARGV: count1, bitL1, idx..., count2, bitL2, idx...
+--返回值按键和元素顺序排列，0为不存在，1为存在
+local array = {}
+local p = 1
+local n = 1
+for k = 1, table.getn(KEYS)
+do
+    local count = tonumber(ARGV[p])
+    local bitL = tonumber(ARGV[p + 1])
+    p = p + 2
+    for index = 1, count
+    do
+        local exists = 1
+        for i = p, p + bitL - 1
+        do
+            if redis.call('getbit', KEYS[k], ARGV[i]) == 0 then
+                exists = 0
+                break
+            end
+        end
+        array[n] = exists
+        n = n + 1
+        p = p + bitL
+    end
+end
+return array
@@ -0,0 +1,11 @@
+--多个键各自设置不同的下标
+--ARGV: count1, idx..., count2, idx...
+local p = 1
+for k = 1, table.getn(KEYS)
+do
+    local count = tonumber(ARGV[p])
+    for i = p + 1, p + count
+    do redis.call('setbit', KEYS[k], tonumber(ARGV[i]), 1)
+    end
+    p = p + count + 1
+end
@@ -0,0 +1,147 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.FunnelEnum;
+import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 18:20
+ * 快照导出后导入到本地、内存映射文件、计数的位数组，位的内容和文件头都保持不变
+ */
+public class BitArraySnapshotTest {
+
+    private static final String STRATEGY_CODE = RedisBloomFilterStrategies.XXH64.getCode();
+
+    private static final Strategy STRATEGY = RedisBloomFilterStrategies.XXH64.getStrategy();
+
+    private static final Funnel<String> FUNNEL = FunnelEnum.STRINGFUNNEL.getFunnel();
+
+    /**
+     * 不是64的整数倍，内存映射文件需要按原位数计算hash
+     */
+    private static final long BIT_SIZE = 9585;
+
+    private static final int K = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void localRoundTrip() throws IOException {
+        LocalBitArray source = new LocalBitArray("source", BIT_SIZE);
+        List<String> members = members(1000);
+        STRATEGY.putAll(FUNNEL, K, source, members);
+        byte[] snapshot = write(source, 0);
+
+        InputStream in = new ByteArrayInputStream(snapshot);
+        BitArraySnapshot header = BitArraySnapshot.readHeader(in);
+        assertEquals(STRATEGY_CODE, header.getStrategy());
+        assertEquals(String.class.getName(), header.getMemberType());
+        assertEquals(BIT_SIZE, header.getBitSize());
+        assertEquals(K, header.getNumHashFunctions());
+        assertEquals(0, header.getCounterBits());
+        LocalBitArray target = new LocalBitArray("target", header.getBitSize());
+        header.readBody(in, target);
+
+        int byteSize = (int) header.byteSize();
+        assertArrayEquals(source.getBytes(0, byteSize), target.getBytes(0, byteSize));
+        assertEquals(source.bitCount(), target.bitCount());
+        assertFalse(STRATEGY.mightContains(FUNNEL, K, target, members).contains(false));
+    }
+
+    @Test
+    public void localToMappedKeepsExactBitSize() throws IOException {
+        LocalBitArray source = new LocalBitArray("source", BIT_SIZE);
+        List<String> members = members(500);
+        STRATEGY.putAll(FUNNEL, K, source, members);
+        byte[] snapshot = write(source, 0);
+
+        File dir = folder.newFolder("mapped");
+        InputStream in = new ByteArrayInputStream(snapshot);
+        BitArraySnapshot header = BitArraySnapshot.readHeader(in);
+        MappedBitArray mapped = new MappedBitArray("mapped", header.getBitSize(), dir);
+        assertEquals(BIT_SIZE, mapped.bitSize());
+        header.readBody(in, mapped);
+        assertFalse(STRATEGY.mightContains(FUNNEL, K, mapped, members).contains(false));
+        mapped.clear();
+
+        //重新打开文件，位数和数据都不变
+        MappedBitArray reopened = new MappedBitArray("mapped", BIT_SIZE, dir);
+        assertEquals(BIT_SIZE, reopened.bitSize());
+        assertFalse(STRATEGY.mightContains(FUNNEL, K, reopened, members).contains(false));
+        reopened.clear();
+    }
+
+    @Test
+    public void countingRoundTripKeepsCounters() throws IOException {
+        LocalCountingBitArray source = new LocalCountingBitArray("source", BIT_SIZE, 4);
+        List<String> members = members(300);
+        STRATEGY.putAll(FUNNEL, K, source, members);
+        //重复写入，计数大于1
+        STRATEGY.putAll(FUNNEL, K, source, members.subList(0, 100));
+        byte[] snapshot = write(source, 4);
+
+        InputStream in = new ByteArrayInputStream(snapshot);
+        BitArraySnapshot header = BitArraySnapshot.readHeader(in);
+        assertEquals(4, header.getCounterBits());
+        LocalCountingBitArray target = new LocalCountingBitArray("target", header.getBitSize(), header.getCounterBits());
+        header.readBody(in, target);
+        int byteSize = (int) header.byteSize();
+        assertArrayEquals(source.getBytes(0, byteSize), target.getBytes(0, byteSize));
+        assertEquals(source.bitCount(), target.bitCount());
+        //写入两次的元素删除一次后仍然存在
+        for (String member : members.subList(0, 100)) {
+            assertTrue(target.remove(STRATEGY.getIndexs(member, FUNNEL, K, BIT_SIZE)));
+            assertTrue(STRATEGY.mightContain(member, FUNNEL, K, target));
+        }
+    }
+
+    /**
+     * 全为0的页不写入，空的位数组只有文件头和结束标记
+     */
+    @Test
+    public void emptyPagesAreSkipped() throws IOException {
+        LocalBitArray empty = new LocalBitArray("empty", 1L << 24);
+        byte[] snapshot = write(empty, 0);
+        assertTrue("size=" + snapshot.length, snapshot.length < 1024);
+        InputStream in = new ByteArrayInputStream(snapshot);
+        BitArraySnapshot header = BitArraySnapshot.readHeader(in);
+        LocalBitArray target = new LocalBitArray("target", header.getBitSize());
+        header.readBody(in, target);
+        assertEquals(0, target.bitCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignStream() throws IOException {
+        BitArraySnapshot.readHeader(new ByteArrayInputStream(new byte[64]));
+    }
+
+    private static byte[] write(BitArray bits, int counterBits) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BitArraySnapshot(STRATEGY_CODE, String.class.getName(), bits.bitSize(), K, counterBits).write(bits, out);
+        return out.toByteArray();
+    }
+
+    private static List<String> members(int count) {
+        List<String> members = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            members.add("member" + i);
+        }
+        return members;
+    }
+}
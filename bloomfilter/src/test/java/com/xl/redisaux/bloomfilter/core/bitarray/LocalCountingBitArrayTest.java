@@ -0,0 +1,134 @@
+package com.xl.redisaux.bloomfilter.core.bitarray;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.FunnelEnum;
+import com.xl.redisaux.bloomfilter.core.strategy.RedisBloomFilterStrategies;
+import com.xl.redisaux.bloomfilter.core.strategy.Strategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 17:20
+ * 计数布隆过滤器的增删，4位、8位计数器都要覆盖
+ */
+public class LocalCountingBitArrayTest {
+
+    private static final Strategy STRATEGY = RedisBloomFilterStrategies.MURMUR128_MITZ_64.getStrategy();
+
+    private static final Funnel<String> FUNNEL = FunnelEnum.STRINGFUNNEL.getFunnel();
+
+    @Test
+    public void removeRestoresEmptyCounters() {
+        for (int counterBits : new int[]{4, 8}) {
+            LocalCountingBitArray bits = new LocalCountingBitArray("counting", 1000, counterBits);
+            long[] indexs = {1, 2, 3, 999};
+            bits.set(indexs);
+            assertTrue(bits.get(indexs));
+            assertEquals(4, bits.bitCount());
+            assertTrue(bits.remove(indexs));
+            assertFalse(bits.get(indexs));
+            assertEquals(0, bits.bitCount());
+            //已经不存在时不再减少
+            assertFalse(bits.remove(indexs));
+        }
+    }
+
+    @Test
+    public void removeKeepsSharedCounters() {
+        LocalCountingBitArray bits = new LocalCountingBitArray("counting", 64, 4);
+        long[] a = {5, 6, 7};
+        long[] b = {7, 8, 9};
+        bits.set(a);
+        bits.set(b);
+        assertTrue(bits.remove(a));
+        assertFalse(bits.get(a));
+        assertTrue(bits.get(b));
+        assertEquals(3, bits.bitCount());
+    }
+
+    @Test
+    public void absentMemberDoesNotDecrement() {
+        LocalCountingBitArray bits = new LocalCountingBitArray("counting", 64, 4);
+        bits.set(new long[]{1, 2});
+        //2存在、3不存在，整个元素不存在，1和2都不减少
+        assertFalse(bits.remove(new long[]{2, 3}));
+        assertTrue(bits.get(new long[]{1, 2}));
+    }
+
+    @Test
+    public void saturatedCounterNeverDecrements() {
+        for (int counterBits : new int[]{4, 8}) {
+            LocalCountingBitArray bits = new LocalCountingBitArray("counting", 64, counterBits);
+            long[] indexs = {10};
+            int max = (1 << counterBits) - 1;
+            for (int i = 0; i < max + 5; i++) {
+                bits.set(indexs);
+            }
+            for (int i = 0; i < max + 5; i++) {
+                assertTrue(bits.remove(indexs));
+            }
+            assertTrue(bits.get(indexs));
+            //相邻的计数器不受溢出影响
+            assertFalse(bits.get(new long[]{9}));
+            assertFalse(bits.get(new long[]{11}));
+        }
+    }
+
+    @Test
+    public void removeBatchSeesEarlierRemovals() {
+        LocalCountingBitArray bits = new LocalCountingBitArray("counting", 64, 8);
+        long[] indexs = {3, 4};
+        bits.set(indexs);
+        assertEquals(Arrays.asList(true, false), bits.removeBatch(Arrays.asList(indexs, indexs)));
+    }
+
+    /**
+     * 与redis上bitfield的排列一致，4位时一个字节的高4位为偶数号计数器
+     */
+    @Test
+    public void bytesMatchBitfieldLayout() {
+        LocalCountingBitArray bits = new LocalCountingBitArray("counting", 4, 4);
+        bits.set(new long[]{0});
+        bits.set(new long[]{1, 1, 1});
+        bits.set(new long[]{3, 3});
+        assertArrayEquals(new byte[]{0x13, 0x02}, bits.getBytes(0, 2));
+        LocalCountingBitArray copy = new LocalCountingBitArray("copy", 4, 4);
+        copy.setBytes(0, bits.getBytes(0, 2));
+        assertArrayEquals(bits.getBytes(0, 2), copy.getBytes(0, 2));
+        assertEquals(3, copy.bitCount());
+    }
+
+    @Test
+    public void deletedMembersGoneOthersKept() {
+        int size = 10000;
+        long counters = 96_000;
+        int k = 7;
+        LocalCountingBitArray bits = new LocalCountingBitArray("counting", counters, 4);
+        List<String> members = new ArrayList(size);
+        for (int i = 0; i < size; i++) {
+            members.add("member" + i);
+        }
+        STRATEGY.putAll(FUNNEL, k, bits, members);
+        int stillIn = 0;
+        for (int i = 0; i < size; i += 2) {
+            assertTrue(bits.remove(STRATEGY.getIndexs(members.get(i), FUNNEL, k, counters)));
+        }
+        for (int i = 0; i < size; i++) {
+            boolean exists = STRATEGY.mightContain(members.get(i), FUNNEL, k, bits);
+            if (i % 2 == 1) {
+                //没有删除的不能误删
+                assertTrue("member" + i, exists);
+            } else if (exists) {
+                stillIn++;
+            }
+        }
+        //删除后仍能查到的只有误判，约为1%
+        assertTrue("stillIn=" + stillIn, stillIn < size / 2 / 20);
+    }
+}
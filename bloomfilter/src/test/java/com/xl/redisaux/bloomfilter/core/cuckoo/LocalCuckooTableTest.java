@@ -0,0 +1,128 @@
+package com.xl.redisaux.bloomfilter.core.cuckoo;
+
+import com.xl.redisaux.common.consts.BloomFilterConstants;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 17:40
+ * 布谷鸟过滤器的插入、删除、另一个桶的计算，8位、16位、32位指纹都要覆盖
+ */
+public class LocalCuckooTableTest {
+
+    @Test
+    public void altIndexIsSymmetric() {
+        Random random = new Random(1L);
+        for (long bucketCount : new long[]{1, 2, 1024, 1L << 20}) {
+            for (int i = 0; i < 10000; i++) {
+                long index = random.nextLong() & (bucketCount - 1);
+                long fingerprint = 1 + (random.nextLong() >>> 1) % 0xffffffffL;
+                long alt = CuckooTable.altIndex(index, fingerprint, bucketCount);
+                assertTrue(alt >= 0 && alt < bucketCount);
+                assertEquals(index, CuckooTable.altIndex(alt, fingerprint, bucketCount));
+            }
+        }
+    }
+
+    @Test
+    public void insertContainsDelete() {
+        for (int fingerprintBits : new int[]{8, 16, 32}) {
+            LocalCuckooTable table = new LocalCuckooTable("cuckoo", 64, fingerprintBits);
+            long[] indexs = {3, 17, 63};
+            long[] fingerprints = {1, (1L << fingerprintBits) - 1, 42};
+            assertEquals(Arrays.asList(true, true, true), table.insert(indexs, fingerprints));
+            assertEquals(Arrays.asList(true, true, true), table.contains(indexs, fingerprints));
+            assertEquals(Arrays.asList(false), table.contains(new long[]{3}, new long[]{2}));
+            assertEquals(Arrays.asList(true, false, true), table.delete(new long[]{3, 3, 63}, new long[]{1, 1, 42}));
+            assertEquals(Arrays.asList(false, true, false), table.contains(indexs, fingerprints));
+        }
+    }
+
+    @Test
+    public void duplicateFingerprintDeletedOneAtATime() {
+        LocalCuckooTable table = new LocalCuckooTable("cuckoo", 16, 8);
+        long[] index = {5};
+        long[] fingerprint = {9};
+        table.insert(index, fingerprint);
+        table.insert(index, fingerprint);
+        assertEquals(Arrays.asList(true), table.delete(index, fingerprint));
+        assertEquals(Arrays.asList(true), table.contains(index, fingerprint));
+        assertEquals(Arrays.asList(true), table.delete(index, fingerprint));
+        assertEquals(Arrays.asList(false), table.contains(index, fingerprint));
+        assertEquals(Arrays.asList(false), table.delete(index, fingerprint));
+    }
+
+    /**
+     * 第一个桶满后放到另一个桶，从任一个桶都能查到并删除
+     */
+    @Test
+    public void overflowGoesToAltBucket() {
+        LocalCuckooTable table = new LocalCuckooTable("cuckoo", 1024, 16);
+        int count = BloomFilterConstants.CUCKOO_BUCKET_SIZE + 1;
+        long[] indexs = new long[count];
+        long[] fingerprints = new long[count];
+        for (int i = 0; i < count; i++) {
+            indexs[i] = 7;
+            fingerprints[i] = 100 + i;
+        }
+        assertFalse(table.insert(indexs, fingerprints).contains(false));
+        long last = fingerprints[count - 1];
+        long alt = CuckooTable.altIndex(7, last, 1024);
+        assertNotEquals(7, alt);
+        assertEquals(Arrays.asList(true), table.contains(new long[]{alt}, new long[]{last}));
+        assertEquals(Arrays.asList(true), table.delete(new long[]{alt}, new long[]{last}));
+        assertEquals(Arrays.asList(false), table.contains(new long[]{7}, new long[]{last}));
+    }
+
+    /**
+     * 装满后插入失败，踢出的指纹都要恢复，之前写入的仍能查到
+     */
+    @Test
+    public void failedInsertRollsBack() {
+        for (int fingerprintBits : new int[]{8, 16, 32}) {
+            long bucketCount = 256;
+            LocalCuckooTable table = new LocalCuckooTable("cuckoo", bucketCount, fingerprintBits);
+            Random random = new Random(fingerprintBits);
+            List<long[]> inserted = new ArrayList();
+            int failed = 0;
+            long slots = bucketCount * BloomFilterConstants.CUCKOO_BUCKET_SIZE;
+            for (int i = 0; i < slots; i++) {
+                long[] index = {random.nextInt((int) bucketCount)};
+                long[] fingerprint = {1 + (random.nextLong() >>> 1) % ((1L << fingerprintBits) - 1)};
+                if (table.insert(index, fingerprint).get(0)) {
+                    inserted.add(new long[]{index[0], fingerprint[0]});
+                } else {
+                    failed++;
+                }
+            }
+            //装载率超过90%后才会失败
+            assertTrue("inserted=" + inserted.size(), inserted.size() > slots * 0.9);
+            assertTrue(failed > 0);
+            for (long[] entry : inserted) {
+                assertEquals(Arrays.asList(true), table.contains(new long[]{entry[0]}, new long[]{entry[1]}));
+            }
+            for (long[] entry : inserted) {
+                assertEquals(Arrays.asList(true), table.delete(new long[]{entry[0]}, new long[]{entry[1]}));
+            }
+            for (long[] entry : inserted) {
+                //相同指纹的元素都已删除
+                assertEquals(Arrays.asList(false), table.contains(new long[]{entry[0]}, new long[]{entry[1]}));
+            }
+        }
+    }
+
+    @Test
+    public void resetEmptiesTable() {
+        LocalCuckooTable table = new LocalCuckooTable("cuckoo", 16, 8);
+        table.insert(new long[]{1, 2}, new long[]{3, 4});
+        table.reset();
+        assertEquals(Arrays.asList(false, false), table.contains(new long[]{1, 2}, new long[]{3, 4}));
+    }
+}
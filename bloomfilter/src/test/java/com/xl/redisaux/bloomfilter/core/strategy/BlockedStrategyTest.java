@@ -0,0 +1,113 @@
+package com.xl.redisaux.bloomfilter.core.strategy;
+
+import com.google.common.hash.Funnel;
+import com.xl.redisaux.bloomfilter.core.FunnelEnum;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBitArray;
+import com.xl.redisaux.bloomfilter.core.bitarray.LocalBlockedBitArray;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 18:00
+ * MURMUR128_BLOCKED的下标计算：k个位落在同一个512位的块内且互不相同，块的选择均匀
+ */
+public class BlockedStrategyTest {
+
+    private static final Strategy STRATEGY = RedisBloomFilterStrategies.MURMUR128_BLOCKED.getStrategy();
+
+    private static final Funnel<String> FUNNEL = FunnelEnum.STRINGFUNNEL.getFunnel();
+
+    private static final int BLOCK = 1 << RedisBloomFilterStrategies.BLOCK_BITS;
+
+    @Test
+    public void indexsStayInOneBlock() {
+        long bitSize = BLOCK * 1000L;
+        for (int k : new int[]{1, 7, 16, 64}) {
+            for (int i = 0; i < 20000; i++) {
+                long[] indexs = STRATEGY.getIndexs("member" + i, FUNNEL, k, bitSize);
+                assertEquals(k, indexs.length);
+                long block = indexs[0] / BLOCK;
+                Set<Long> distinct = new HashSet();
+                for (long index : indexs) {
+                    assertTrue(index >= 0 && index < bitSize);
+                    assertEquals(block, index / BLOCK);
+                    distinct.add(index);
+                }
+                assertEquals(k, distinct.size());
+            }
+        }
+    }
+
+    @Test
+    public void smallerThanOneBlockUsesWholeArray() {
+        for (long bitSize : new long[]{1, 100, BLOCK - 1}) {
+            for (int i = 0; i < 1000; i++) {
+                for (long index : STRATEGY.getIndexs("member" + i, FUNNEL, 7, bitSize)) {
+                    assertTrue(index >= 0 && index < bitSize);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void blocksChosenEvenly() {
+        int blocks = 100;
+        int members = 100000;
+        int[] counts = new int[blocks];
+        for (int i = 0; i < members; i++) {
+            counts[(int) (STRATEGY.getIndexs("member" + i, FUNNEL, 7, (long) BLOCK * blocks)[0] / BLOCK)]++;
+        }
+        int expected = members / blocks;
+        for (int count : counts) {
+            assertTrue("count=" + count, Math.abs(count - expected) < expected / 5);
+        }
+    }
+
+    /**
+     * 平铺的批量计算与逐个计算一致，写入后都能查到
+     */
+    @Test
+    public void batchMatchesSingleAndHasNoFalseNegative() {
+        long bitSize = BLOCK * 200L;
+        int k = 7;
+        List<String> members = new ArrayList();
+        for (int i = 0; i < 10000; i++) {
+            members.add("member" + i);
+        }
+        long[] flat = STRATEGY.getIndexs(FUNNEL, k, bitSize, members);
+        for (int i = 0; i < members.size(); i++) {
+            long[] single = STRATEGY.getIndexs(members.get(i), FUNNEL, k, bitSize);
+            for (int j = 0; j < k; j++) {
+                assertEquals(single[j], flat[i * k + j]);
+            }
+        }
+        LocalBlockedBitArray bits = new LocalBlockedBitArray("blocked", bitSize);
+        STRATEGY.putAll(FUNNEL, k, bits, members);
+        assertFalse(STRATEGY.mightContains(FUNNEL, k, bits, members).contains(false));
+    }
+
+    /**
+     * 位数向上取512的整数倍，位的排列与LocalBitArray一致，可以互相导入快照
+     */
+    @Test
+    public void blockedArrayMatchesPlainLayout() {
+        LocalBlockedBitArray blocked = new LocalBlockedBitArray("blocked", 1000);
+        assertEquals(1024, blocked.bitSize());
+        LocalBitArray plain = new LocalBitArray("plain", blocked.bitSize());
+        long[] indexs = STRATEGY.getIndexs("member", FUNNEL, 7, blocked.bitSize());
+        blocked.set(indexs);
+        plain.set(indexs);
+        assertArrayEquals(plain.getBytes(0, 128), blocked.getBytes(0, 128));
+        assertEquals(7, blocked.bitCount());
+        blocked.reset();
+        assertFalse(blocked.get(indexs));
+        assertEquals(0, blocked.bitCount());
+    }
+}
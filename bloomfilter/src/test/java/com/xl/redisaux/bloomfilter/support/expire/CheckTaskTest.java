@@ -0,0 +1,118 @@
+package com.xl.redisaux.bloomfilter.support.expire;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 16:55
+ * 按真实时间运行CheckTask，先放入100万个远期的键，再验证少量短期的键按时通知
+ */
+public class CheckTaskTest {
+
+    private static final int LONG_KEYS = 1_000_000;
+
+    private static final long LONG_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private CheckTask checkTask;
+
+    /**
+     * 键第一次通知的时间
+     */
+    private Map<String, Long> firedAt;
+
+    private AtomicInteger fired;
+
+    private volatile CountDownLatch latch;
+
+    @Before
+    public void setUp() {
+        firedAt = new ConcurrentHashMap();
+        fired = new AtomicInteger();
+        latch = new CountDownLatch(0);
+        checkTask = new CheckTask();
+        checkTask.addListener(new KeyExpireListener() {
+            @Override
+            public void removeKey(String key) {
+                fired.incrementAndGet();
+                firedAt.putIfAbsent(key, System.currentTimeMillis());
+                latch.countDown();
+            }
+        });
+        checkTask.start();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < LONG_KEYS; i++) {
+            checkTask.addExpireKey(new WatiForDeleteKey("long:" + i, LONG_MS, now, false));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        checkTask.stopRun();
+    }
+
+    @Test
+    public void shortKeyAddedBehindLongOnesFiresOnTime() throws InterruptedException {
+        latch = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        checkTask.addExpireKey(new WatiForDeleteKey("short", 100L, start, false));
+        assertTrue("short key not fired", latch.await(5, TimeUnit.SECONDS));
+        assertTrue(firedAt.get("short") >= start + 100L);
+        assertEquals(1, fired.get());
+        assertEquals(LONG_KEYS, checkTask.getScheduledCount());
+    }
+
+    @Test
+    public void rescheduleReplacesOldDeadline() throws InterruptedException {
+        int count = 1000;
+        latch = new CountDownLatch(count);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            //远期的键提前
+            checkTask.addExpireKey(new WatiForDeleteKey("long:" + i, 200L, start, false));
+            //短期的键推后，原本的到期时间留出余量，避免GC停顿时在推后之前到期
+            checkTask.addExpireKey(new WatiForDeleteKey("late:" + i, 1000L, start, false));
+            checkTask.addExpireKey(new WatiForDeleteKey("late:" + i, LONG_MS, start, false));
+        }
+        assertTrue("rescheduled keys not fired", latch.await(5, TimeUnit.SECONDS));
+        //等到推后的键原本的到期时间之后
+        Thread.sleep(Math.max(0, start + 1300L - System.currentTimeMillis()));
+        for (int i = 0; i < count; i++) {
+            assertTrue(firedAt.get("long:" + i) >= start + 200L);
+            assertNull(firedAt.get("late:" + i));
+        }
+        assertEquals(count, fired.get());
+        assertEquals(LONG_KEYS, checkTask.getScheduledCount());
+    }
+
+    @Test
+    public void cancelledKeysNeverFire() throws InterruptedException {
+        int count = 1000;
+        latch = new CountDownLatch(count);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 2 * count; i++) {
+            checkTask.addExpireKey(new WatiForDeleteKey("short:" + i, 500L, start, false));
+        }
+        for (int i = 0; i < count; i++) {
+            checkTask.cancelExpireKey("short:" + (2 * i));
+            checkTask.cancelExpireKey("long:" + i);
+        }
+        assertTrue("uncancelled keys not fired", latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300L);
+        for (int i = 0; i < count; i++) {
+            assertNull(firedAt.get("short:" + (2 * i)));
+            assertNotNull(firedAt.get("short:" + (2 * i + 1)));
+        }
+        assertEquals(count, fired.get());
+        assertEquals(LONG_KEYS - count, checkTask.getScheduledCount());
+    }
+}
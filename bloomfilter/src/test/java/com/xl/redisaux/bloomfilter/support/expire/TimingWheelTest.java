@@ -0,0 +1,169 @@
+package com.xl.redisaux.bloomfilter.support.expire;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 16:40
+ * 用虚拟时钟驱动时间轮，时间从0开始，槽的到期时间都早于当前时间，DelayQueue按到期时间依次取出
+ * 每个键都应在到期时间按刻度向上取整的那一刻通知，不提前也不重复
+ */
+public class TimingWheelTest {
+
+    private static final long TICK_MS = 10L;
+
+    private static final int WHEEL_SIZE = 64;
+
+    private static final int KEYS = 1_000_000;
+
+    private DelayQueue<TimerBucket> queue;
+
+    private TimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        queue = new DelayQueue();
+        wheel = new TimingWheel(TICK_MS, WHEEL_SIZE, 0L, queue);
+    }
+
+    @Test
+    public void millionKeysNeverFireEarly() {
+        WatiForDeleteKey[] entries = schedule(KEYS, 3_600_000L, 1L);
+        long[] firedAt = drain(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals("key " + i, roundUp(entries[i].getExpireAt()), firedAt[i]);
+        }
+    }
+
+    @Test
+    public void cancelledKeysNeverFire() {
+        WatiForDeleteKey[] entries = schedule(KEYS, 3_600_000L, 2L);
+        for (int i = 0; i < KEYS; i += 2) {
+            entries[i].cancel();
+        }
+        long[] firedAt = drain(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            if (i % 2 == 0) {
+                assertEquals("cancelled key " + i, -1L, firedAt[i]);
+            } else {
+                assertEquals("key " + i, roundUp(entries[i].getExpireAt()), firedAt[i]);
+            }
+        }
+    }
+
+    /**
+     * 与CheckTask一致，重新设置过期时间时取消旧的再放入新的，只按新的到期时间通知一次
+     */
+    @Test
+    public void rescheduleReplacesOldDeadline() {
+        WatiForDeleteKey[] entries = schedule(KEYS, 3_600_000L, 3L);
+        Random random = new Random(4L);
+        for (int i = 0; i < KEYS; i += 3) {
+            entries[i].cancel();
+            //一部分提前，一部分推后，推后的可能落到上层
+            entries[i] = new WatiForDeleteKey(String.valueOf(i), 1 + (long) (random.nextDouble() * 7_200_000L), 0L, false);
+            assertTrue(wheel.add(entries[i]));
+        }
+        long[] firedAt = drain(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals("key " + i, roundUp(entries[i].getExpireAt()), firedAt[i]);
+        }
+    }
+
+    @Test
+    public void shortKeyAddedBehindLongOnesFiresFirst() {
+        //先放入的键都在上层的槽中
+        schedule(KEYS - 1, 3_600_000L, 5L, 600_000L);
+        WatiForDeleteKey shortKey = new WatiForDeleteKey(String.valueOf(KEYS - 1), 25L, 0L, false);
+        assertTrue(wheel.add(shortKey));
+        TimerBucket head = queue.peek();
+        assertEquals(roundUp(shortKey.getExpireAt()), head.getExpiration());
+        long[] firedAt = drain(KEYS);
+        assertEquals(30L, firedAt[KEYS - 1]);
+        for (int i = 0; i < KEYS - 1; i++) {
+            assertTrue("key " + i, firedAt[i] >= 600_000L);
+        }
+    }
+
+    /**
+     * 到期时间跨越多层，上层的槽先到期，其中的键逐层落到最底层后再通知
+     */
+    @Test
+    public void overflowWheelsCascadeDown() {
+        long level0 = TICK_MS * WHEEL_SIZE;
+        long level1 = level0 * WHEEL_SIZE;
+        long level2 = level1 * WHEEL_SIZE;
+        WatiForDeleteKey far = new WatiForDeleteKey("0", level2 + 12_345L, 0L, false);
+        assertTrue(wheel.add(far));
+        //第三层的槽，起点早于键的到期时间
+        assertTrue(queue.peek().getExpiration() < far.getExpireAt());
+        long[] firedAt = drain(1);
+        assertEquals(roundUp(far.getExpireAt()), firedAt[0]);
+
+        //按数量级均匀分布到各层，最远约十天
+        Random random = new Random(6L);
+        WatiForDeleteKey[] entries = new WatiForDeleteKey[KEYS];
+        long now = firedAt[0];
+        for (int i = 0; i < KEYS; i++) {
+            long delay = 1 + (long) Math.pow(10, random.nextDouble() * 9);
+            entries[i] = new WatiForDeleteKey(String.valueOf(i), delay, now, false);
+            assertTrue(wheel.add(entries[i]));
+        }
+        firedAt = drain(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals("key " + i, roundUp(entries[i].getExpireAt()), firedAt[i]);
+        }
+    }
+
+    private WatiForDeleteKey[] schedule(int count, long maxDelay, long seed) {
+        return schedule(count, maxDelay, seed, 1L);
+    }
+
+    private WatiForDeleteKey[] schedule(int count, long maxDelay, long seed, long minDelay) {
+        Random random = new Random(seed);
+        WatiForDeleteKey[] entries = new WatiForDeleteKey[count];
+        for (int i = 0; i < count; i++) {
+            long delay = minDelay + (long) (random.nextDouble() * (maxDelay - minDelay));
+            entries[i] = new WatiForDeleteKey(String.valueOf(i), delay, 0L, false);
+            assertTrue(wheel.add(entries[i]));
+        }
+        return entries;
+    }
+
+    /**
+     * 与CheckTask.advance一致：推进时钟，取出槽中的键重新放入，放不进去的即到期
+     *
+     * @return 每个键的通知时间，未通知的为-1
+     */
+    private long[] drain(int count) {
+        long[] firedAt = new long[count];
+        Arrays.fill(firedAt, -1L);
+        long last = 0;
+        TimerBucket bucket;
+        while ((bucket = queue.poll()) != null) {
+            long now = bucket.getExpiration();
+            assertTrue("buckets out of order", now >= last);
+            last = now;
+            wheel.advanceClock(now);
+            bucket.flush(entry -> {
+                if (!wheel.add(entry) && !entry.isCancelled()) {
+                    int i = Integer.parseInt(entry.getKey());
+                    assertEquals("key " + i + " fired twice", -1L, firedAt[i]);
+                    firedAt[i] = now;
+                }
+            });
+        }
+        return firedAt;
+    }
+
+    private static long roundUp(long expireAt) {
+        return (expireAt + TICK_MS - 1) / TICK_MS * TICK_MS;
+    }
+}
@@ -19,6 +19,54 @@ public final class BloomFilterConstants {
     public static final String PATH = "com.xl.redisaux.bloomfilter.autoconfigure";
     public static final String INNERTEMPLATE = "bloom";
     public static final long CHECK_TASK_PER_SECOND = 5L;
+    public static final long TIMING_WHEEL_TICK_MS = 10L;
+    public static final int TIMING_WHEEL_SIZE = 64;
+    public static final int EXPIRE_NOTIFY_BATCH = 1024;
+    public static final String BITFIELD = "bitField";
+    public static final String BITFIELD_CHUNK_SIZE = "bitFieldChunkSize";
+    public static final int MAX_BITFIELD_CHUNK_SIZE = 1024;
+    public static final String NEAR_CACHE = "nearCache";
+    public static final String NEAR_CACHE_SIZE = "nearCacheSize";
+    public static final String NEAR_CACHE_NEGATIVE_TTL = "nearCacheNegativeTtl";
+    public static final String NEAR_CACHE_POSITIVE_TTL = "nearCachePositiveTtl";
+    public static final String MIRROR = "mirror";
+    public static final String MIRROR_SYNC_INTERVAL = "mirrorSyncInterval";
+    public static final String MIRROR_MAX_STALENESS = "mirrorMaxStaleness";
+    public static final String MIRROR_SEGMENT_BYTES = "mirrorSegmentBytes";
+    public static final String MAPPED_FILE_DIR = "mappedFileDir";
+    public static final String DEFAULT_MAPPED_FILE_DIR = "redis-aux-bloomfilter";
+    public static final String REDIS_SHARD_BIT_SIZE = "redisShardBitSize";
+    public static final String STRATEGY = "strategy";
+    public static final double SCALABLE_FPP_RATIO = 0.5;
+    public static final long SCALABLE_REFRESH_INTERVAL = 1000L;
+    public static final long SCALABLE_REFRESH_STEPS = 64L;
+    public static final String ROTATING_SLICE_SEPARATOR = ":slice:";
+    public static final int CUCKOO_BUCKET_SIZE = 4;
+    public static final int CUCKOO_MAX_KICKS = 500;
+    public static final double CUCKOO_LOAD_FACTOR = 0.95;
+    public static final int CUCKOO_MAX_FINGERPRINT_BITS = 32;
+    public static final String CUCKOO_KEY_SUFFIX = ":cuckoo";
+    public static final int BULK_LOAD_CHUNK_SIZE = 1000;
+    public static final int BULK_LOAD_MAX_IN_FLIGHT = 4;
+    public static final long BULK_LOAD_REPORT_INTERVAL = 1000L;
+    public static final int SNAPSHOT_CHUNK_BYTES = 1 << 20;
+    public static final int SNAPSHOT_PAGE_BYTES = 4096;
+    public static final String MIRROR_VERSIONS_KEY_SUFFIX = ":versions";
+    public static final String MIRROR_VERSION_FIELD = "v";
+    public static final String MIRROR_EPOCH_FIELD = "e";
+    public static final String NEW_FILTER_STRATEGY = "newFilterStrategy";
+    public static final String META_KEY_SUFFIX = ":meta";
+    public static final String META_STRATEGY_FIELD = "strategy";
+    public static final String META_HASH_FUNCTIONS_FIELD = "k";
+    public static final String META_BIT_SIZE_FIELD = "m";
+    public static final String META_COUNTER_BITS_FIELD = "c";
+    public static final String META_KEY_FIELD = "key";
+    public static final String META_TYPE_FIELD = "type";
+    public static final String META_EXPIRE_AT_FIELD = "e";
+    public static final long META_MISS_TTL = 1000L;
+    public static final long META_MISS_CACHE_SIZE = 10000L;
+    public static final int META_PREFETCH_BATCH = 100;
+    public static final String PREFETCH_META = "prefetchMeta";
 
 
 
@@ -8,6 +8,11 @@ public final class LimiterConstants {
     public final static String LIMITER = "limiter";
     public final static String ENABLE_GROUP="enableGroup";
     public final static String CONNECT_CONSOLE="connectConsole";
+    public final static String FAILOVER="failover";
+    public final static String LOCAL_ONLY="localOnly";
+    public final static String SLOW_THRESHOLD="slowThreshold";
+    public final static String SLOW_COUNT="slowCount";
+    public final static String RECOVER_INTERVAL="recoverInterval";
     public final static String ACTUATORCONTROLLER="actuatorController";
     public final static String LIMITGROUPSERVICE="limiteGroupService";
     public final static String SCAPATH = "com.xl.redisaux.limiter.autoconfigure";
@@ -25,5 +30,10 @@ public final class LimiterConstants {
     public final static int TOOMUCHREQUEST = -1;
     public final static int CONTINUE = 0;
     public final static int PASS = 1;
+    //租用的令牌多久没有请求后归还redis
+    public final static long TOKEN_LEASE_IDLE_MS = 60000L;
+    //本地限流每个键的状态多久没有请求后移除，以及最多保存的键数
+    public final static long LOCAL_LIMITER_IDLE_MS = 600000L;
+    public final static long LOCAL_LIMITER_MAX_KEYS = 100000L;
 
 }
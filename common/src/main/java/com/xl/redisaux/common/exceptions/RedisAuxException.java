@@ -8,4 +8,8 @@ public class RedisAuxException extends RuntimeException {
     public RedisAuxException(String msg) {
         super(msg);
     }
+
+    public RedisAuxException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.xl.redisaux.common.script;
+
+import com.xl.redisaux.common.exceptions.RedisAuxException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConverters;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 22:10
+ * 通过lettuce的异步命令执行脚本，不阻塞调用线程，返回的future在netty的io线程上完成
+ * 使用LettuceConnectionFactory共享的连接，多个线程同时发出的命令在同一个连接上自动流水线
+ * 与EvalShaScriptExecutor一样只用EVALSHA，遇到NOSCRIPT时加载后再执行一次
+ */
+@SuppressWarnings("unchecked")
+public class AsyncScriptExecutor<K> {
+
+    private final RedisTemplate<K, ?> template;
+
+    private final ScriptArgsSerializer argsSerializer;
+
+    public AsyncScriptExecutor(RedisTemplate<K, ?> template) {
+        this.template = template;
+        this.argsSerializer = new ScriptArgsSerializer(template.getValueSerializer());
+    }
+
+    public <T> CompletableFuture<T> execute(RedisScript<T> script, List<K> keys, Object... args) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = commands();
+        ScriptOutputType outputType = LettuceConverters.toScriptOutputType(ReturnType.fromJavaType(script.getResultType()));
+        byte[][] keyBytes = serializeKeys(keys);
+        byte[][] argBytes = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            argBytes[i] = argsSerializer.serialize(args[i]);
+        }
+        return toFuture(commands.evalsha(script.getSha1(), outputType, keyBytes, argBytes))
+                .handle((res, e) -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(res);
+                    }
+                    if (!EvalShaScriptExecutor.isNoScript(e)) {
+                        return AsyncScriptExecutor.failed(e);
+                    }
+                    return toFuture(commands.scriptLoad(EvalShaScriptExecutor.scriptBytes(script)))
+                            .thenCompose(sha -> toFuture(commands.evalsha(script.getSha1(), outputType, keyBytes, argBytes)));
+                })
+                .thenCompose(future -> future)
+                .thenApply(res -> script.getResultType() == null ? null
+                        : (T) EvalShaScriptExecutor.deserializeResult(template.getValueSerializer(), res));
+    }
+
+    public CompletableFuture<Long> delete(List<K> keys) {
+        return toFuture(commands().del(serializeKeys(keys)));
+    }
+
+    /**
+     * 键不存在时不生效，需要在写入完成后调用
+     */
+    public CompletableFuture<Void> pexpire(List<K> keys, long millis) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = commands();
+        byte[][] keyBytes = serializeKeys(keys);
+        CompletableFuture[] futures = new CompletableFuture[keyBytes.length];
+        for (int i = 0; i < keyBytes.length; i++) {
+            futures[i] = toFuture(commands.pexpire(keyBytes[i], millis));
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 只有共享连接的生命周期与连接工厂一致，取出后可以脱离RedisConnection单独使用
+     */
+    private RedisClusterAsyncCommands<byte[], byte[]> commands() {
+        RedisConnectionFactory factory = template.getConnectionFactory();
+        if (!(factory instanceof LettuceConnectionFactory) || !((LettuceConnectionFactory) factory).getShareNativeConnection()) {
+            throw new RedisAuxException("async script executor requires LettuceConnectionFactory with shareNativeConnection");
+        }
+        return template.execute((RedisCallback<RedisClusterAsyncCommands<byte[], byte[]>>)
+                connection -> (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection());
+    }
+
+    private byte[][] serializeKeys(List<K> keys) {
+        RedisSerializer keySerializer = template.getKeySerializer();
+        byte[][] keyBytes = new byte[keys.size()][];
+        for (int i = 0; i < keyBytes.length; i++) {
+            K key = keys.get(i);
+            keyBytes[i] = keySerializer == null && key instanceof byte[] ? (byte[]) key : keySerializer.serialize(key);
+        }
+        return keyBytes;
+    }
+
+    private static <T> CompletableFuture<T> toFuture(CompletionStage<T> stage) {
+        return stage.toCompletableFuture();
+    }
+
+    public static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture();
+        future.completeExceptionally(e);
+        return future;
+    }
+}
@@ -0,0 +1,126 @@
+package com.xl.redisaux.common.script;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 19:20
+ * 只用EVALSHA执行脚本，参数用ScriptArgsSerializer序列化
+ * 脚本一般在启动时通过load预先加载，遇到NOSCRIPT(如redis重启)时加载后再执行一次
+ */
+@SuppressWarnings("unchecked")
+public class EvalShaScriptExecutor<K> implements ScriptExecutor<K> {
+
+    private final RedisTemplate<K, ?> template;
+
+    private final ScriptArgsSerializer argsSerializer;
+
+    public EvalShaScriptExecutor(RedisTemplate<K, ?> template) {
+        this.template = template;
+        this.argsSerializer = new ScriptArgsSerializer(template.getValueSerializer());
+    }
+
+    /**
+     * 预先加载脚本，redis不可用时忽略，执行时会再加载
+     */
+    public static void load(RedisTemplate template, Collection<? extends RedisScript> scripts) {
+        try {
+            template.execute((RedisCallback<Object>) connection -> {
+                for (RedisScript script : scripts) {
+                    connection.scriptLoad(scriptBytes(script));
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            //忽略
+        }
+    }
+
+    @Override
+    public <T> T execute(RedisScript<T> script, List<K> keys, Object... args) {
+        return execute(script, argsSerializer, (RedisSerializer<T>) template.getValueSerializer(), keys, args);
+    }
+
+    @Override
+    public <T> T execute(RedisScript<T> script, RedisSerializer<?> argsSerializer, RedisSerializer<T> resultSerializer, List<K> keys, Object... args) {
+        return template.execute((RedisCallback<T>) connection -> {
+            ReturnType returnType = ReturnType.fromJavaType(script.getResultType());
+            byte[][] keysAndArgs = keysAndArgs(argsSerializer, keys, args);
+            int keySize = keys == null ? 0 : keys.size();
+            Object result = evalSha(connection, script, returnType, keySize, keysAndArgs);
+            if (script.getResultType() == null) {
+                return null;
+            }
+            return (T) deserializeResult(resultSerializer, result);
+        });
+    }
+
+    private Object evalSha(RedisConnection connection, RedisScript script, ReturnType returnType, int keySize, byte[][] keysAndArgs) {
+        try {
+            return connection.evalSha(script.getSha1(), returnType, keySize, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            connection.scriptLoad(scriptBytes(script));
+            return connection.evalSha(script.getSha1(), returnType, keySize, keysAndArgs);
+        }
+    }
+
+    private byte[][] keysAndArgs(RedisSerializer argsSerializer, List<K> keys, Object[] args) {
+        int keySize = keys == null ? 0 : keys.size();
+        byte[][] keysAndArgs = new byte[keySize + args.length][];
+        RedisSerializer keySerializer = template.getKeySerializer();
+        for (int i = 0; i < keySize; i++) {
+            K key = keys.get(i);
+            keysAndArgs[i] = keySerializer == null && key instanceof byte[] ? (byte[]) key : keySerializer.serialize(key);
+        }
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            keysAndArgs[keySize + i] = argsSerializer == null && arg instanceof byte[] ? (byte[]) arg : argsSerializer.serialize(arg);
+        }
+        return keysAndArgs;
+    }
+
+    static Object deserializeResult(RedisSerializer resultSerializer, Object result) {
+        if (resultSerializer == null) {
+            return result;
+        }
+        if (result instanceof byte[]) {
+            return resultSerializer.deserialize((byte[]) result);
+        }
+        if (result instanceof List) {
+            List list = (List) result;
+            List res = new ArrayList(list.size());
+            for (Object o : list) {
+                res.add(deserializeResult(resultSerializer, o));
+            }
+            return res;
+        }
+        return result;
+    }
+
+    static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static byte[] scriptBytes(RedisScript script) {
+        return script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package com.xl.redisaux.common.script;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 19:10
+ * lua脚本参数的序列化，整数、浮点数直接写成十进制的ascii字节，结果与GenericJackson2JsonRedisSerializer一致，
+ * 不经过jackson；其他类型交给delegate
+ */
+public class ScriptArgsSerializer implements RedisSerializer<Object> {
+
+    private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE).getBytes();
+
+    private final RedisSerializer delegate;
+
+    public ScriptArgsSerializer(RedisSerializer delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public byte[] serialize(Object o) throws SerializationException {
+        if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            return toBytes(((Number) o).longValue());
+        }
+        if (o instanceof Double || o instanceof Float) {
+            return toBytes(((Number) o).doubleValue());
+        }
+        if (o instanceof byte[]) {
+            return (byte[]) o;
+        }
+        return delegate.serialize(o);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        return delegate.deserialize(bytes);
+    }
+
+    static byte[] toBytes(long value) {
+        if (value == Long.MIN_VALUE) {
+            return MIN_LONG.clone();
+        }
+        boolean negative = value < 0;
+        long abs = negative ? -value : value;
+        int length = negative ? 2 : 1;
+        for (long v = abs; v >= 10; v /= 10) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = length - 1; i >= (negative ? 1 : 0); i--) {
+            bytes[i] = (byte) ('0' + abs % 10);
+            abs /= 10;
+        }
+        if (negative) {
+            bytes[0] = '-';
+        }
+        return bytes;
+    }
+
+    /**
+     * 与jackson一样用Double.toString，整数值也带.0，lua的tonumber都能识别
+     */
+    static byte[] toBytes(double value) {
+        String str = Double.toString(value);
+        byte[] bytes = new byte[str.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) str.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -20,4 +20,14 @@ public @interface EnableLimiter {
     boolean enableGroup() default false;
     //是否与控制台连接
     boolean connectConsole() default false;
+    //redis出错或变慢时是否切到本地限流
+    boolean failover() default true;
+    //只用本地限流，不访问redis
+    boolean localOnly() default false;
+    //redis调用超过该毫秒数算一次慢调用
+    long slowThreshold() default 100;
+    //连续慢调用多少次后切到本地限流
+    int slowCount() default 3;
+    //切到本地后，每隔多少毫秒探测一次redis
+    long recoverInterval() default 5000;
 }
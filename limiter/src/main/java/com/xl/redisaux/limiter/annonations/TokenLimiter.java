@@ -48,6 +48,28 @@ public @interface TokenLimiter {
 
     double initToken() default 0;
 
+    /**
+     * 租用模式：每次从redis取一批令牌在本地扣减，用完或过期后再取，
+     * 每个节点最多多占maxLease次、leaseTtl毫秒
+     *
+     * @return
+     */
+    boolean lease() default false;
+
+    /**
+     * 单次最多租用的次数，实际数量按本地消耗速度调整
+     *
+     * @return
+     */
+    long maxLease() default 100;
+
+    /**
+     * 租到的令牌在本地保留的毫秒数，过期未用完的在下次租用时归还
+     *
+     * @return
+     */
+    long leaseTtl() default 1000;
+
 
     String fallback() default "";
 
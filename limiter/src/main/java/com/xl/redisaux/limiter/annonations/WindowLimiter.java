@@ -29,6 +29,14 @@ public @interface WindowLimiter {
      */
     long passCount();
 
+    /**
+     * 子窗口个数，大于0时按子窗口计数，内存只与子窗口个数有关，精度为一个子窗口的时长
+     * 默认0，即每个请求都记录在zset里
+     *
+     * @return
+     */
+    int buckets() default 0;
+
     String fallback() default "";
 
     boolean passArgs() default false;
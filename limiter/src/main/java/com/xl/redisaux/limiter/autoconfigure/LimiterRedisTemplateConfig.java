@@ -2,6 +2,7 @@ package com.xl.redisaux.limiter.autoconfigure;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xl.redisaux.common.consts.LimiterConstants;
+import com.xl.redisaux.common.script.EvalShaScriptExecutor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -24,6 +25,8 @@ public class LimiterRedisTemplateConfig  {
         redisTemplate.setValueSerializer(jackson2JsonRedisSerializer);
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        //脚本参数不经过jackson，并且只用evalsha执行
+        redisTemplate.setScriptExecutor(new EvalShaScriptExecutor(redisTemplate));
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
     }
@@ -1,11 +1,17 @@
 package com.xl.redisaux.limiter.autoconfigure;
 
 import com.xl.redisaux.common.consts.LimiterConstants;
+import com.xl.redisaux.common.script.EvalShaScriptExecutor;
 import com.xl.redisaux.limiter.aspect.GroupLimiterAspect;
 import com.xl.redisaux.limiter.aspect.NormalLimiterAspect;
 import com.xl.redisaux.limiter.config.ClientConfig;
-import com.xl.redisaux.limiter.core.FunnelRateLimiter;
 import com.xl.redisaux.limiter.core.BaseRateLimiter;
+import com.xl.redisaux.limiter.core.FailoverPolicy;
+import com.xl.redisaux.limiter.core.FailoverRateLimiter;
+import com.xl.redisaux.limiter.core.FunnelRateLimiter;
+import com.xl.redisaux.limiter.core.LocalFunnelRateLimiter;
+import com.xl.redisaux.limiter.core.LocalTokenRateLimiter;
+import com.xl.redisaux.limiter.core.LocalWindowRateLimiter;
 import com.xl.redisaux.limiter.core.TokenRateLimiter;
 import com.xl.redisaux.limiter.core.WindowRateLimiter;
 import org.springframework.beans.BeansException;
@@ -26,6 +32,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -62,6 +69,19 @@ public class RedisLimiterAutoConfiguration {
         return script;
     }
 
+    /**
+     * 分桶计数的滑动窗口，hash里只保存每个子窗口的计数，具体看WindowBucketLimit.lua
+     *
+     * @return
+     */
+    @Bean
+    public DefaultRedisScript windowBucketLimitScript() {
+        DefaultRedisScript script = new DefaultRedisScript();
+        script.setResultType(Boolean.class);
+        script.setScriptText(windowBucketStr());
+        return script;
+    }
+
     /**
      * 具体思想看lua脚本注释
      *
@@ -75,6 +95,19 @@ public class RedisLimiterAutoConfiguration {
         return script;
     }
 
+    /**
+     * 令牌桶租用模式，与tokenLimitScript共用同一个hash，具体看TokenLeaseLimit.lua
+     *
+     * @return
+     */
+    @Bean
+    public DefaultRedisScript tokenLeaseScript() {
+        DefaultRedisScript script = new DefaultRedisScript();
+        script.setResultType(Long.class);
+        script.setScriptText(tokenLeaseStr());
+        return script;
+    }
+
     /**
      * 具体思想看lua脚本注释
      *
@@ -123,12 +156,59 @@ public class RedisLimiterAutoConfiguration {
         return builder.toString();
     }
 
+    private String windowBucketStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local nowTs = tonumber(ARGV[1])\n").append("local window = tonumber(ARGV[2])\n")
+                .append("local passCount = tonumber(ARGV[3])\n").append("local buckets = tonumber(ARGV[4])\n")
+                .append("local bucketSize = math.ceil(window / buckets)\n").append("local current = math.floor(nowTs / bucketSize)\n")
+                .append("local oldest = current - buckets + 1\n").append("local counts = redis.call('hgetall', KEYS[1])\n")
+                .append("local total = 0\n").append("local expired = {}\n")
+                .append("for i = 1, #counts, 2 do\n").append("    if tonumber(counts[i]) < oldest then\n")
+                .append("        table.insert(expired, counts[i])\n").append("    else\n")
+                .append("        total = total + tonumber(counts[i + 1])\n").append("    end\n")
+                .append("end\n").append("if #expired > 0 then\n")
+                .append("    redis.call('hdel', KEYS[1], unpack(expired))\n").append("end\n")
+                .append("if total >= passCount then\n").append("    return false\n")
+                .append("end\n").append("redis.call('hincrby', KEYS[1], current, 1)\n")
+                .append("redis.call('pexpire', KEYS[1], window + bucketSize)\n").append("return true\n");
+        return builder.toString();
+    }
+
+    private String tokenLeaseStr() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("local limitInfo = redis.call('hmget', KEYS[1], 'capacity', 'funnelRate', 'leftToken', 'lastTs')\n").append("local capacity = tonumber(ARGV[1])\n")
+                .append("local tokenRate = tonumber(ARGV[2])\n").append("local requestNeed = tonumber(ARGV[3])\n")
+                .append("local nowTs = tonumber(ARGV[4])\n").append("local leftToken = tonumber(ARGV[5])\n")
+                .append("if limitInfo[1] ~= false then\n").append("    capacity = tonumber(limitInfo[1])\n")
+                .append("    tokenRate = tonumber(limitInfo[2])\n").append("    local lastTs = tonumber(limitInfo[4])\n")
+                .append("    leftToken = math.min(capacity, tonumber(limitInfo[3]) + math.max(0, nowTs - lastTs) * tokenRate)\n").append("    nowTs = math.max(nowTs, lastTs)\n")
+                .append("end\n").append("leftToken = math.min(capacity, leftToken + tonumber(ARGV[7]) * requestNeed)\n")
+                .append("local permits = math.min(tonumber(ARGV[6]), math.floor(leftToken / requestNeed))\n").append("leftToken = leftToken - permits * requestNeed\n")
+                .append("redis.call('hmset', KEYS[1], 'capacity', capacity, 'funnelRate', tokenRate, 'leftToken', leftToken, 'lastTs', nowTs)\n").append("return permits\n");
+        return builder.toString();
+    }
+
 
     @Bean
     public NormalLimiterAspect limiterAspect() {
-        rateLimiterMap.put(LimiterConstants.WINDOW_LIMITER, new WindowRateLimiter(redisTemplate, windowLimitScript()));
-        rateLimiterMap.put(LimiterConstants.TOKEN_LIMITER, new TokenRateLimiter(redisTemplate, tokenLimitScript()));
-        rateLimiterMap.put(LimiterConstants.FUNNEL_LIMITER, new FunnelRateLimiter(redisTemplate, funnelLimitScript()));
+        EvalShaScriptExecutor.load(redisTemplate, Arrays.asList(windowLimitScript(), windowBucketLimitScript(), tokenLimitScript(), tokenLeaseScript(), funnelLimitScript()));
+        Map<Integer, BaseRateLimiter> redisLimiterMap = new HashMap();
+        redisLimiterMap.put(LimiterConstants.WINDOW_LIMITER, new WindowRateLimiter(redisTemplate, windowLimitScript(), windowBucketLimitScript()));
+        redisLimiterMap.put(LimiterConstants.TOKEN_LIMITER, new TokenRateLimiter(redisTemplate, tokenLimitScript(), tokenLeaseScript()));
+        redisLimiterMap.put(LimiterConstants.FUNNEL_LIMITER, new FunnelRateLimiter(redisTemplate, funnelLimitScript()));
+        Map<Integer, BaseRateLimiter> localLimiterMap = new HashMap();
+        localLimiterMap.put(LimiterConstants.WINDOW_LIMITER, new LocalWindowRateLimiter());
+        localLimiterMap.put(LimiterConstants.TOKEN_LIMITER, new LocalTokenRateLimiter());
+        localLimiterMap.put(LimiterConstants.FUNNEL_LIMITER, new LocalFunnelRateLimiter());
+        if (RedisLimiterRegistar.localOnly) {
+            rateLimiterMap.putAll(localLimiterMap);
+        } else if (RedisLimiterRegistar.failover) {
+            //三种限流器共用一个policy，redis不可用时一起切换
+            FailoverPolicy policy = new FailoverPolicy(RedisLimiterRegistar.slowThreshold, RedisLimiterRegistar.slowCount, RedisLimiterRegistar.recoverInterval);
+            redisLimiterMap.forEach((mode, limiter) -> rateLimiterMap.put(mode, new FailoverRateLimiter(redisTemplate, limiter, localLimiterMap.get(mode), policy)));
+        } else {
+            rateLimiterMap.putAll(redisLimiterMap);
+        }
         return new NormalLimiterAspect();
     }
 
@@ -23,6 +23,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class RedisLimiterRegistar implements ImportBeanDefinitionRegistrar {
     protected static AtomicBoolean enableGroup = new AtomicBoolean(false);
     public static AtomicBoolean connectConsole = new AtomicBoolean(false);
+    protected static boolean failover = true;
+    protected static boolean localOnly = false;
+    protected static long slowThreshold = 100;
+    protected static int slowCount = 3;
+    protected static long recoverInterval = 5000;
 
     @Override
     public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
@@ -37,6 +42,11 @@ public class RedisLimiterRegistar implements ImportBeanDefinitionRegistrar {
         if ((Boolean) attributes.get(LimiterConstants.CONNECT_CONSOLE)) {
             connectConsole.set(true);
         }
+        failover = (Boolean) attributes.get(LimiterConstants.FAILOVER);
+        localOnly = (Boolean) attributes.get(LimiterConstants.LOCAL_ONLY);
+        slowThreshold = (Long) attributes.get(LimiterConstants.SLOW_THRESHOLD);
+        slowCount = (Integer) attributes.get(LimiterConstants.SLOW_COUNT);
+        recoverInterval = (Long) attributes.get(LimiterConstants.RECOVER_INTERVAL);
         scanConfigure.scan(LimiterConstants.SCAPATH);
     }
 
@@ -104,9 +104,11 @@ public class ActuatorController {
     public LimiteGroupConfig changeWindowConfig(@RequestParam("groupId") String groupId,
                                                 @RequestParam("passCount") Long passCount,
                                                 @RequestParam(value = "during", required = false) Long during,
-                                                @RequestParam(value = "duringUnit", required = false) Integer mode
+                                                @RequestParam(value = "duringUnit", required = false) Integer mode,
+                                                @RequestParam(value = "buckets", required = false) Integer buckets
     ) {
-        WindowRateConfig config = WindowRateConfig.of().passCount(passCount).during(during).duringUnit(TimeUnitEnum.getTimeUnit(mode)).build();
+        WindowRateConfig config = WindowRateConfig.of().passCount(passCount).during(during).duringUnit(TimeUnitEnum.getTimeUnit(mode))
+                .buckets(buckets).build();
         LimiteGroupConfig limiter = limiterGroupService.getLimiterConfig(groupId);
         if(limiter.setWindowRateConfig(config)){
             limiterGroupService.save(limiter, true, false);
@@ -120,10 +122,14 @@ public class ActuatorController {
                                                 @RequestParam(value = "initToken", required = false) Double initToken,
                                                 @RequestParam("tokenRate") Double tokenRate,
                                                 @RequestParam(value = "requestNeed", required = false) Double requestNeed,
-                                                @RequestParam(value = "duringUnit", required = false) Integer mode
+                                                @RequestParam(value = "duringUnit", required = false) Integer mode,
+                                                @RequestParam(value = "lease", required = false) Boolean lease,
+                                                @RequestParam(value = "maxLease", required = false) Long maxLease,
+                                                @RequestParam(value = "leaseTtl", required = false) Long leaseTtl
     ) {
         TokenRateConfig config = TokenRateConfig.of().capacity(capacity).initToken(initToken).tokenRate(tokenRate)
-                .requestNeed(requestNeed).tokenRateUnit(TimeUnitEnum.getTimeUnit(mode)).build();
+                .requestNeed(requestNeed).tokenRateUnit(TimeUnitEnum.getTimeUnit(mode))
+                .lease(lease).maxLease(maxLease).leaseTtl(leaseTtl).build();
         LimiteGroupConfig limiter = limiterGroupService.getLimiterConfig(groupId);
         if(limiter.setTokenRateConfig(config)){
             limiterGroupService.save(limiter, true, false);
@@ -31,6 +31,19 @@ public class TokenRateConfig {
 
     private Double initToken;
 
+    /**
+     * 是否租用模式,默认否
+     */
+    private Boolean lease;
+    /**
+     * 单次最多租用的次数,默认100
+     */
+    private Long maxLease;
+    /**
+     * 租到的令牌在本地保留的毫秒数,默认1000
+     */
+    private Long leaseTtl;
+
     public TokenRateConfig() {
 
     }
@@ -45,12 +58,15 @@ public class TokenRateConfig {
                 Objects.equals(tokenRate, that.tokenRate) &&
                 Objects.equals(requestNeed, that.requestNeed) &&
                 tokenRateUnit == that.tokenRateUnit &&
-                Objects.equals(initToken, that.initToken);
+                Objects.equals(initToken, that.initToken) &&
+                Objects.equals(lease, that.lease) &&
+                Objects.equals(maxLease, that.maxLease) &&
+                Objects.equals(leaseTtl, that.leaseTtl);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, capacity, tokenRate, requestNeed, tokenRateUnit, initToken);
+        return Objects.hash(type, capacity, tokenRate, requestNeed, tokenRateUnit, initToken, lease, maxLease, leaseTtl);
     }
 
     public TokenRateConfig(Builder builder) {
@@ -59,6 +75,9 @@ public class TokenRateConfig {
         this.requestNeed = builder.requestNeed == null ? 1L : builder.requestNeed;
         this.tokenRateUnit = builder.tokenRateUnit == null ? TimeUnit.SECONDS : builder.tokenRateUnit;
         this.initToken= builder.initToken==null?0:builder.initToken;
+        this.lease = builder.lease == null ? false : builder.lease;
+        this.maxLease = builder.maxLease == null ? 100L : builder.maxLease;
+        this.leaseTtl = builder.leaseTtl == null ? 1000L : builder.leaseTtl;
     }
     public Integer getType() {
         return type;
@@ -103,6 +122,33 @@ public class TokenRateConfig {
         this.initToken = initToken;
     }
 
+    /**
+     * 旧配置反序列化后可能为空
+     */
+    public Boolean getLease() {
+        return lease != null && lease;
+    }
+
+    public void setLease(Boolean lease) {
+        this.lease = lease;
+    }
+
+    public Long getMaxLease() {
+        return maxLease == null ? 100L : maxLease;
+    }
+
+    public void setMaxLease(Long maxLease) {
+        this.maxLease = maxLease;
+    }
+
+    public Long getLeaseTtl() {
+        return leaseTtl == null ? 1000L : leaseTtl;
+    }
+
+    public void setLeaseTtl(Long leaseTtl) {
+        this.leaseTtl = leaseTtl;
+    }
+
     public static Builder of() {
         return new Builder();
     }
@@ -127,6 +173,12 @@ public class TokenRateConfig {
 
         private Double initToken;
 
+        private Boolean lease;
+
+        private Long maxLease;
+
+        private Long leaseTtl;
+
         public Builder capacity(Double capacity) {
             this.capacity = capacity;
             return this;
@@ -150,6 +202,18 @@ public class TokenRateConfig {
             this.initToken = initToken;
             return this;
         }
+        public Builder lease(Boolean lease) {
+            this.lease = lease;
+            return this;
+        }
+        public Builder maxLease(Long maxLease) {
+            this.maxLease = maxLease;
+            return this;
+        }
+        public Builder leaseTtl(Long leaseTtl) {
+            this.leaseTtl = leaseTtl;
+            return this;
+        }
         public TokenRateConfig build() {
             return new TokenRateConfig(this);
         }
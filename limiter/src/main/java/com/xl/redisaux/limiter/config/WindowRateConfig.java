@@ -18,6 +18,8 @@ public class WindowRateConfig {
 
     private Long during;
 
+    private Integer buckets;
+
     public WindowRateConfig() {
 
     }
@@ -30,18 +32,20 @@ public class WindowRateConfig {
         return type == that.type &&
                 Objects.equals(passCount, that.passCount) &&
                 duringUnit == that.duringUnit &&
-                Objects.equals(during, that.during);
+                Objects.equals(during, that.during) &&
+                Objects.equals(buckets, that.buckets);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, passCount, duringUnit, during);
+        return Objects.hash(type, passCount, duringUnit, during, buckets);
     }
 
     public WindowRateConfig(Builder builder) {
         this.during = builder.during == null ? 1L : builder.during;
         this.passCount = builder.passCount;
         this.duringUnit = builder.duringUnit == null ? TimeUnit.SECONDS : builder.duringUnit;
+        this.buckets = builder.buckets == null ? 0 : builder.buckets;
     }
 
     public Long getPassCount() {
@@ -70,6 +74,14 @@ public class WindowRateConfig {
         this.during = during;
     }
 
+    public Integer getBuckets() {
+        return buckets == null ? 0 : buckets;
+    }
+
+    public void setBuckets(Integer buckets) {
+        this.buckets = buckets;
+    }
+
     public static Builder of() {
         return new Builder();
     }
@@ -89,6 +101,12 @@ public class WindowRateConfig {
          * @return
          */
         private Long during;
+        /**
+         * 子窗口个数,默认0即用zset记录每个请求
+         *
+         * @return
+         */
+        private Integer buckets;
 
 
         public Builder passCount(Long passCount) {
@@ -106,6 +124,11 @@ public class WindowRateConfig {
             return this;
         }
 
+        public Builder buckets(Integer buckets) {
+            this.buckets = buckets;
+            return this;
+        }
+
         public WindowRateConfig build() {
             return new WindowRateConfig(this);
         }
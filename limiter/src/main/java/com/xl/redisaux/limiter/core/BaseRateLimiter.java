@@ -1,5 +1,7 @@
 package com.xl.redisaux.limiter.core;
 
+import com.google.common.cache.CacheBuilder;
+import com.xl.redisaux.common.consts.LimiterConstants;
 import com.xl.redisaux.limiter.config.LimiteGroupConfig;
 
 import java.lang.annotation.Annotation;
@@ -7,6 +9,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author: lele
@@ -42,6 +45,18 @@ public interface BaseRateLimiter {
         return keyInfoNode.getKeyNameList();
     }
 
+    /**
+     * 本地限流保存每个键状态的map，限流键可能带参数，长时间没有请求或超过上限的键会被移除
+     *
+     * @return
+     */
+    static <V> Map<String, V> localStateMap() {
+        return CacheBuilder.newBuilder()
+                .expireAfterAccess(LimiterConstants.LOCAL_LIMITER_IDLE_MS, TimeUnit.MILLISECONDS)
+                .maximumSize(LimiterConstants.LOCAL_LIMITER_MAX_KEYS)
+                .<String, V>build().asMap();
+    }
+
      static void createOrUpdateGroups(List<LimiteGroupConfig> limiteGroup) {
         for (LimiteGroupConfig group : limiteGroup) {
             rateLimitGroupConfigMap.put(group.getId(), group);
@@ -0,0 +1,79 @@
+package com.xl.redisaux.limiter.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 18:35
+ * redis是否可用的判断，所有FailoverRateLimiter共用一个
+ * redis报错，或连续slowCount次耗时超过slowThreshold毫秒，切到本地限流；
+ * 之后每隔recoverInterval毫秒放一个请求去redis探测，成功且不慢就切回redis
+ */
+public class FailoverPolicy {
+
+    private final long slowThreshold;
+
+    private final int slowCount;
+
+    private final long recoverInterval;
+
+    private final AtomicInteger slowTimes = new AtomicInteger();
+
+    private final AtomicBoolean probing = new AtomicBoolean(false);
+
+    private volatile boolean local;
+
+    private volatile long retryAt;
+
+    public FailoverPolicy(long slowThreshold, int slowCount, long recoverInterval) {
+        this.slowThreshold = slowThreshold;
+        this.slowCount = Math.max(1, slowCount);
+        this.recoverInterval = recoverInterval;
+    }
+
+    /**
+     * 本地模式下，到了重试时间只放一个请求去探测
+     */
+    public boolean useRedis() {
+        if (!local) {
+            return true;
+        }
+        return System.currentTimeMillis() >= retryAt && probing.compareAndSet(false, true);
+    }
+
+    /**
+     * @param cost redis调用耗时，毫秒
+     */
+    public void onSuccess(long cost) {
+        if (slowThreshold > 0 && cost > slowThreshold) {
+            //探测请求慢了直接继续用本地
+            if (local || slowTimes.incrementAndGet() >= slowCount) {
+                switchToLocal();
+            }
+        } else {
+            slowTimes.set(0);
+            local = false;
+        }
+        probing.set(false);
+    }
+
+    public void onFailure() {
+        switchToLocal();
+        probing.set(false);
+    }
+
+    public void endProbe() {
+        probing.set(false);
+    }
+
+    private void switchToLocal() {
+        slowTimes.set(0);
+        retryAt = System.currentTimeMillis() + recoverInterval;
+        local = true;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+}
@@ -0,0 +1,76 @@
+package com.xl.redisaux.limiter.core;
+
+import com.xl.redisaux.limiter.config.LimiteGroupConfig;
+import io.lettuce.core.RedisException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.lang.annotation.Annotation;
+import java.util.function.Function;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 18:45
+ * redis限流器出错或变慢时改用本地限流器，由FailoverPolicy决定走哪一个
+ * 切换期间各节点各自限流，总体放行量最多为节点数倍
+ */
+public class FailoverRateLimiter implements BaseRateLimiter {
+
+    private final RedisTemplate redisTemplate;
+
+    private final BaseRateLimiter redisLimiter;
+
+    private final BaseRateLimiter localLimiter;
+
+    private final FailoverPolicy policy;
+
+    public FailoverRateLimiter(RedisTemplate redisTemplate, BaseRateLimiter redisLimiter, BaseRateLimiter localLimiter, FailoverPolicy policy) {
+        this.redisTemplate = redisTemplate;
+        this.redisLimiter = redisLimiter;
+        this.localLimiter = localLimiter;
+        this.policy = policy;
+    }
+
+    @Override
+    public Boolean canExecute(Annotation baseLimiter, String methodKey) {
+        return execute(limiter -> limiter.canExecute(baseLimiter, methodKey));
+    }
+
+    @Override
+    public Boolean canExecute(LimiteGroupConfig limiteGroup, String methodKey) {
+        return execute(limiter -> limiter.canExecute(limiteGroup, methodKey));
+    }
+
+    private Boolean execute(Function<BaseRateLimiter, Boolean> function) {
+        if (!policy.useRedis()) {
+            return function.apply(localLimiter);
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Boolean res = function.apply(redisLimiter);
+            policy.onSuccess(System.currentTimeMillis() - start);
+            return res;
+        } catch (DataAccessException | RedisException e) {
+            RedisConnectionUtils.unbindConnection(redisTemplate.getConnectionFactory());
+            policy.onFailure();
+            return function.apply(localLimiter);
+        } catch (RuntimeException e) {
+            //其他异常不切换，只结束探测
+            policy.endProbe();
+            throw e;
+        }
+    }
+
+    public BaseRateLimiter getRedisLimiter() {
+        return redisLimiter;
+    }
+
+    public BaseRateLimiter getLocalLimiter() {
+        return localLimiter;
+    }
+
+    public FailoverPolicy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,62 @@
+package com.xl.redisaux.limiter.core;
+
+import com.xl.redisaux.limiter.annonations.FunnelLimiter;
+import com.xl.redisaux.limiter.config.FunnelRateConfig;
+import com.xl.redisaux.limiter.config.LimiteGroupConfig;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 18:25
+ * 本地漏斗，算法与FunnelRateLimit.lua一致，状态用不可变对象cas替换
+ */
+public class LocalFunnelRateLimiter implements BaseRateLimiter {
+
+    private final Map<String, AtomicReference<Funnel>> funnelMap = BaseRateLimiter.localStateMap();
+
+    @Override
+    public Boolean canExecute(Annotation baseLimiter, String methodKey) {
+        FunnelLimiter funnelLimiter = (FunnelLimiter) baseLimiter;
+        List<String> keyList = BaseRateLimiter.getKey(methodKey, funnelLimiter.fallback(), funnelLimiter.passArgs());
+        return handleParam(keyList, funnelLimiter.capacity(), funnelLimiter.requestNeed(), funnelLimiter.funnelRate(), funnelLimiter.funnelRateUnit());
+    }
+
+    @Override
+    public Boolean canExecute(LimiteGroupConfig limiteGroup, String methodKey) {
+        FunnelRateConfig funnelRateConfig = limiteGroup.getFunnelRateConfig();
+        return handleParam(limiteGroup.getFunnelKeyName(methodKey), funnelRateConfig.getCapacity(), funnelRateConfig.getRequestNeed(),
+                funnelRateConfig.getFunnelRate(), funnelRateConfig.getFunnelRateUnit());
+    }
+
+    private Boolean handleParam(List<String> keyList, double capacity, double need, double rate, TimeUnit timeUnit) {
+        double millRate = rate / timeUnit.toMillis(1);
+        long now = System.currentTimeMillis();
+        AtomicReference<Funnel> reference = funnelMap.computeIfAbsent(keyList.get(0), k -> new AtomicReference(new Funnel(0, now)));
+        for (; ; ) {
+            Funnel current = reference.get();
+            //先漏水再判断能否加水
+            double water = Math.max(0, current.water - Math.max(0, now - current.lastTs) * millRate);
+            if (capacity - water < need) {
+                return false;
+            }
+            if (reference.compareAndSet(current, new Funnel(water + need, Math.max(now, current.lastTs)))) {
+                return true;
+            }
+        }
+    }
+
+    private static class Funnel {
+        private final double water;
+        private final long lastTs;
+
+        Funnel(double water, long lastTs) {
+            this.water = water;
+            this.lastTs = lastTs;
+        }
+    }
+}
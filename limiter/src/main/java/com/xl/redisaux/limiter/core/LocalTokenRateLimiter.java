@@ -0,0 +1,67 @@
+package com.xl.redisaux.limiter.core;
+
+import com.xl.redisaux.limiter.annonations.TokenLimiter;
+import com.xl.redisaux.limiter.config.LimiteGroupConfig;
+import com.xl.redisaux.limiter.config.TokenRateConfig;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 18:20
+ * 本地令牌桶，算法与TokenRateLimit.lua一致，状态用不可变对象cas替换
+ */
+public class LocalTokenRateLimiter implements BaseRateLimiter {
+
+    private final Map<String, AtomicReference<Bucket>> bucketMap = BaseRateLimiter.localStateMap();
+
+    @Override
+    public Boolean canExecute(Annotation baseLimiter, String methodKey) {
+        TokenLimiter tokenLimiter = (TokenLimiter) baseLimiter;
+        List<String> keyList = BaseRateLimiter.getKey(methodKey, tokenLimiter.fallback(), tokenLimiter.passArgs());
+        return handleParam(keyList, tokenLimiter.capacity(), tokenLimiter.requestNeed(), tokenLimiter.tokenRate(),
+                tokenLimiter.tokenRateUnit(), tokenLimiter.initToken());
+    }
+
+    @Override
+    public Boolean canExecute(LimiteGroupConfig limiteGroup, String methodKey) {
+        TokenRateConfig tokenRateConfig = limiteGroup.getTokenRateConfig();
+        return handleParam(limiteGroup.getTokenKeyName(methodKey), tokenRateConfig.getCapacity(), tokenRateConfig.getRequestNeed(),
+                tokenRateConfig.getTokenRate(), tokenRateConfig.getTokenRateUnit(), tokenRateConfig.getInitToken());
+    }
+
+    private Boolean handleParam(List<String> keyList, double capacity, double need, double rate, TimeUnit timeUnit, double initToken) {
+        double millRate = rate / timeUnit.toMillis(1);
+        long now = System.currentTimeMillis();
+        AtomicReference<Bucket> reference = bucketMap.get(keyList.get(0));
+        //与脚本一样，初始化时直接放行
+        if (reference == null && bucketMap.putIfAbsent(keyList.get(0), new AtomicReference(new Bucket(initToken, now))) == null) {
+            return true;
+        }
+        reference = bucketMap.get(keyList.get(0));
+        for (; ; ) {
+            Bucket current = reference.get();
+            double leftToken = Math.min(capacity, current.leftToken + Math.max(0, now - current.lastTs) * millRate);
+            if (leftToken < need) {
+                return false;
+            }
+            if (reference.compareAndSet(current, new Bucket(leftToken - need, Math.max(now, current.lastTs)))) {
+                return true;
+            }
+        }
+    }
+
+    private static class Bucket {
+        private final double leftToken;
+        private final long lastTs;
+
+        Bucket(double leftToken, long lastTs) {
+            this.leftToken = leftToken;
+            this.lastTs = lastTs;
+        }
+    }
+}
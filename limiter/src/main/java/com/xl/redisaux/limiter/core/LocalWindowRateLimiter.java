@@ -0,0 +1,81 @@
+package com.xl.redisaux.limiter.core;
+
+import com.xl.redisaux.limiter.annonations.WindowLimiter;
+import com.xl.redisaux.limiter.config.LimiteGroupConfig;
+import com.xl.redisaux.limiter.config.WindowRateConfig;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 18:10
+ * 本地滑动窗口，不访问redis
+ * 每个键用一个长度为passCount的环记录最近通过的请求时间，最早那个仍在窗口内说明已满
+ * 占位靠cas推进head，不加锁
+ */
+public class LocalWindowRateLimiter implements BaseRateLimiter {
+
+    private final Map<String, SlidingLog> logMap = BaseRateLimiter.localStateMap();
+
+    @Override
+    public Boolean canExecute(Annotation baseLimiter, String methodKey) {
+        WindowLimiter windowLimiter = (WindowLimiter) baseLimiter;
+        List<String> keyList = BaseRateLimiter.getKey(methodKey, windowLimiter.fallback(), windowLimiter.passArgs());
+        return handleParam(keyList, windowLimiter.passCount(), windowLimiter.duringUnit(), windowLimiter.during());
+    }
+
+    @Override
+    public Boolean canExecute(LimiteGroupConfig limiteGroup, String methodKey) {
+        WindowRateConfig windowRateConfig = limiteGroup.getWindowRateConfig();
+        return handleParam(limiteGroup.getWindowKeyName(methodKey), windowRateConfig.getPassCount(), windowRateConfig.getDuringUnit(), windowRateConfig.getDuring());
+    }
+
+    private Boolean handleParam(List<String> keyList, long passCount, TimeUnit timeUnit, long during) {
+        if (passCount <= 0) {
+            return false;
+        }
+        String key = keyList.get(0);
+        SlidingLog log = logMap.get(key);
+        //passCount被修改后重新建一个
+        if (log == null || log.length() != passCount) {
+            log = logMap.compute(key, (k, old) -> old != null && old.length() == passCount ? old : new SlidingLog((int) passCount));
+        }
+        return log.tryAcquire(System.currentTimeMillis(), timeUnit.toMillis(during));
+    }
+
+    private static class SlidingLog {
+
+        private final AtomicLong head = new AtomicLong();
+
+        private final AtomicLongArray timestamps;
+
+        SlidingLog(int passCount) {
+            this.timestamps = new AtomicLongArray(passCount);
+        }
+
+        int length() {
+            return timestamps.length();
+        }
+
+        boolean tryAcquire(long now, long windowMillis) {
+            int length = timestamps.length();
+            for (; ; ) {
+                long current = head.get();
+                int slot = (int) (current % length);
+                long oldest = timestamps.get(slot);
+                if (oldest != 0 && now - oldest < windowMillis) {
+                    return false;
+                }
+                if (head.compareAndSet(current, current + 1)) {
+                    timestamps.set(slot, now);
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.xl.redisaux.limiter.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * @author lulu
+ * @Date 2026/10/17 17:05
+ * 本地持有的一批令牌，单位为次(一次请求消耗requestNeed个令牌)
+ * 请求先在本地cas扣减，用完或过期后才去redis续租；过期时剩余的令牌在续租时一并归还
+ * 续租的数量按上一批的消耗速度估算，使一批令牌大约在leaseTtl内用完
+ */
+public class TokenLease {
+
+    private final AtomicLong permits = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile long expireAt;
+
+    /**
+     * 以下字段只在持有lock时读写
+     */
+    private long leaseStart;
+
+    private long granted;
+
+    /**
+     * 每毫秒消耗的次数，指数加权平均
+     */
+    private double rate;
+
+    /**
+     * 最近一次续租用的函数，归还剩余令牌时复用
+     */
+    private LongBinaryOperator lastLease;
+
+    /**
+     * @param leaseTtl 令牌在本地保留的毫秒数
+     * @param maxLease 单次最多租用的次数
+     * @param lease    (租用次数, 归还次数) -> 实际租到的次数
+     * @return
+     */
+    public boolean tryAcquire(long leaseTtl, long maxLease, LongBinaryOperator lease) {
+        if (tryAcquireLocal()) {
+            return true;
+        }
+        lock.lock();
+        try {
+            //其他线程可能已经续租
+            if (tryAcquireLocal()) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            long left = permits.getAndSet(0);
+            if (granted > 0) {
+                double currentRate = (double) (granted - left) / Math.max(1, now - leaseStart);
+                rate = rate == 0 ? currentRate : (rate + currentRate) / 2;
+            }
+            long size = Math.max(1, Math.min(maxLease, (long) Math.ceil(rate * leaseTtl)));
+            long got = lease.applyAsLong(size, left);
+            lastLease = lease;
+            leaseStart = now;
+            granted = got;
+            if (got <= 0) {
+                expireAt = 0;
+                return false;
+            }
+            //当前请求占用一个
+            permits.set(got - 1);
+            expireAt = now + leaseTtl;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把本地剩余的令牌归还redis，之后的请求会重新续租
+     */
+    public void release() {
+        lock.lock();
+        try {
+            expireAt = 0;
+            long left = permits.getAndSet(0);
+            granted = 0;
+            if (left > 0 && lastLease != null) {
+                lastLease.applyAsLong(0, left);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryAcquireLocal() {
+        if (System.currentTimeMillis() >= expireAt) {
+            return false;
+        }
+        long current;
+        while ((current = permits.get()) > 0) {
+            if (permits.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getPermits() {
+        return permits.get();
+    }
+}
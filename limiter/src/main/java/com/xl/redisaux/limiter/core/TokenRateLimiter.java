@@ -1,5 +1,11 @@
 package com.xl.redisaux.limiter.core;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListeners;
+import com.google.common.cache.RemovalNotification;
+import com.xl.redisaux.common.consts.LimiterConstants;
+import com.xl.redisaux.common.utils.NamedThreadFactory;
 import com.xl.redisaux.limiter.annonations.TokenLimiter;
 import com.xl.redisaux.limiter.config.LimiteGroupConfig;
 import com.xl.redisaux.limiter.config.TokenRateConfig;
@@ -8,6 +14,8 @@ import org.springframework.data.redis.core.script.DefaultRedisScript;
 
 import java.lang.annotation.Annotation;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,10 +29,36 @@ public class TokenRateLimiter implements BaseRateLimiter {
 
     private DefaultRedisScript redisScript;
 
+    private DefaultRedisScript leaseScript;
+
+    /**
+     * 归还令牌需要访问redis，guava在触发清理的请求线程上调用监听器，放到单独的线程执行，不阻塞限流判断
+     */
+    private final ExecutorService releaseExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("token-lease-release", true));
+
+    /**
+     * 租用模式下每个限流键在本地的令牌，长时间没有请求的移除并把剩余令牌归还redis
+     */
+    private final Cache<String, TokenLease> leaseMap = CacheBuilder.newBuilder()
+            .expireAfterAccess(LimiterConstants.TOKEN_LEASE_IDLE_MS, TimeUnit.MILLISECONDS)
+            .removalListener(RemovalListeners.asynchronous((RemovalNotification<String, TokenLease> notification) -> {
+                if (notification.wasEvicted()) {
+                    try {
+                        notification.getValue().release();
+                    } catch (RuntimeException e) {
+                        //redis不可用时放弃归还
+                    }
+                }
+            }, releaseExecutor)).build();
+
     public TokenRateLimiter(RedisTemplate redisTemplate, DefaultRedisScript redisScript) {
+        this(redisTemplate, redisScript, null);
+    }
+
+    public TokenRateLimiter(RedisTemplate redisTemplate, DefaultRedisScript redisScript, DefaultRedisScript leaseScript) {
         this.redisScript = redisScript;
         this.redisTemplate = redisTemplate;
-
+        this.leaseScript = leaseScript;
     }
 
     @Override
@@ -37,6 +71,9 @@ public class TokenRateLimiter implements BaseRateLimiter {
         String methodName = tokenLimiter.fallback();
         boolean passArgs = tokenLimiter.passArgs();
         List<String> keyList = BaseRateLimiter.getKey(methodKey, methodName, passArgs);
+        if (tokenLimiter.lease()) {
+            return handleLease(keyList, capacity, need, rate, rateUnit, tokenLimiter.initToken(), tokenLimiter.leaseTtl(), tokenLimiter.maxLease());
+        }
         return handleParam(keyList, capacity, need, rate, rateUnit, tokenLimiter.initToken());
 
     }
@@ -44,6 +81,11 @@ public class TokenRateLimiter implements BaseRateLimiter {
     @Override
     public Boolean canExecute(LimiteGroupConfig limiteGroup, String methodKey) {
         TokenRateConfig tokenRateConfig = limiteGroup.getTokenRateConfig();
+        if (tokenRateConfig.getLease()) {
+            return handleLease(limiteGroup.getTokenKeyName(methodKey), tokenRateConfig.getCapacity(), tokenRateConfig.getRequestNeed(),
+                    tokenRateConfig.getTokenRate(), tokenRateConfig.getTokenRateUnit(), tokenRateConfig.getInitToken(),
+                    tokenRateConfig.getLeaseTtl(), tokenRateConfig.getMaxLease());
+        }
         return handleParam(limiteGroup.getTokenKeyName(methodKey), tokenRateConfig.getCapacity(), tokenRateConfig.getRequestNeed(),
                 tokenRateConfig.getTokenRate(), tokenRateConfig.getTokenRateUnit(), tokenRateConfig.getInitToken());
     }
@@ -57,4 +99,25 @@ public class TokenRateLimiter implements BaseRateLimiter {
         return Long.valueOf(-1L).equals(waitMill);
     }
 
-}
\ No newline at end of file
+    /**
+     * 租用模式，本地令牌用完或过期时才访问redis
+     */
+    private Boolean handleLease(List<String> keyList, double capacity, double need, double rate, TimeUnit timeUnit, double initToken,
+                                long leaseTtl, long maxLease) {
+        //没有租用脚本时按原来的方式每次访问redis
+        if (leaseScript == null) {
+            return handleParam(keyList, capacity, need, rate, timeUnit, initToken);
+        }
+        double millRate = rate / timeUnit.toMillis(1);
+        TokenLease lease = leaseMap.getIfPresent(keyList.get(0));
+        if (lease == null) {
+            lease = leaseMap.asMap().computeIfAbsent(keyList.get(0), k -> new TokenLease());
+        }
+        return lease.tryAcquire(leaseTtl, maxLease, (size, back) -> {
+            Object[] args = new Double[]{capacity, millRate, need, Double.valueOf(System.currentTimeMillis()), initToken, Double.valueOf(size), Double.valueOf(back)};
+            Long permits = (Long) redisTemplate.execute(leaseScript, keyList, args);
+            return permits == null ? 0L : permits;
+        });
+    }
+
+}
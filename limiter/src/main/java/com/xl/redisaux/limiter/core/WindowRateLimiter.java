@@ -7,6 +7,7 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -18,15 +19,23 @@ import java.util.concurrent.TimeUnit;
 @SuppressWarnings("unchecked")
 public class WindowRateLimiter implements BaseRateLimiter {
 
+    private static final String BUCKET_SUFFIX = ":bucket";
+
     private RedisTemplate redisTemplate;
 
     private DefaultRedisScript<Boolean> redisScript;
 
+    private DefaultRedisScript<Boolean> bucketScript;
+
 
     public WindowRateLimiter(RedisTemplate redisTemplate, DefaultRedisScript redisScript) {
+        this(redisTemplate, redisScript, null);
+    }
+
+    public WindowRateLimiter(RedisTemplate redisTemplate, DefaultRedisScript redisScript, DefaultRedisScript bucketScript) {
         this.redisScript = redisScript;
         this.redisTemplate = redisTemplate;
-
+        this.bucketScript = bucketScript;
     }
 
     @Override
@@ -35,18 +44,21 @@ public class WindowRateLimiter implements BaseRateLimiter {
         String methodName = windowLimiter.fallback();
         boolean passArgs = windowLimiter.passArgs();
         List<String> keyList = BaseRateLimiter.getKey(methodKey, methodName, passArgs);
-        return handleParam(keyList, windowLimiter.passCount(), windowLimiter.duringUnit(), windowLimiter.during());
+        return handleParam(keyList, windowLimiter.passCount(), windowLimiter.duringUnit(), windowLimiter.during(), windowLimiter.buckets());
     }
 
     @Override
     public Boolean canExecute(LimiteGroupConfig limiteGroup, String methodKey) {
         List<String> keyList = limiteGroup.getWindowKeyName(methodKey);
         WindowRateConfig windowRateConfig = limiteGroup.getWindowRateConfig();
-        return handleParam(keyList, windowRateConfig.getPassCount(), windowRateConfig.getDuringUnit(), windowRateConfig.getDuring());
+        return handleParam(keyList, windowRateConfig.getPassCount(), windowRateConfig.getDuringUnit(), windowRateConfig.getDuring(), windowRateConfig.getBuckets());
     }
 
-    private Boolean handleParam(List<String> keyList, long value, TimeUnit timeUnit, long during) {
+    private Boolean handleParam(List<String> keyList, long value, TimeUnit timeUnit, long during, int buckets) {
         long l = timeUnit.toMillis(during);
+        if (buckets > 0 && bucketScript != null) {
+            return handleBucket(keyList, value, l, buckets);
+        }
         long current = System.currentTimeMillis();
         long last = current - l;
         Object[] args = {current, last, value};
@@ -54,4 +66,13 @@ public class WindowRateLimiter implements BaseRateLimiter {
         return (Boolean) res;
     }
 
+    /**
+     * 分桶模式用单独的hash键，避免和zset模式切换时类型冲突
+     */
+    private Boolean handleBucket(List<String> keyList, long value, long windowMillis, int buckets) {
+        List<String> bucketKeys = Collections.singletonList(keyList.get(0) + BUCKET_SUFFIX);
+        Object[] args = {System.currentTimeMillis(), windowMillis, value, Math.min(buckets, windowMillis)};
+        return (Boolean) redisTemplate.execute(bucketScript, bucketKeys, args);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+--租用模式：先按时间补充令牌并收回归还的次数，再按ARGV[6]租出，返回实际租出的次数
+--ARGV: capacity, 每毫秒速率, requestNeed, 当前时间, initToken, 租用次数, 归还次数
+local limitInfo = redis.call('hmget', KEYS[1], 'capacity', 'funnelRate', 'leftToken', 'lastTs')
+local capacity = tonumber(ARGV[1])
+local tokenRate = tonumber(ARGV[2])
+local requestNeed = tonumber(ARGV[3])
+local nowTs = tonumber(ARGV[4])
+local leftToken = tonumber(ARGV[5])
+if limitInfo[1] ~= false then
+    capacity = tonumber(limitInfo[1])
+    tokenRate = tonumber(limitInfo[2])
+    local lastTs = tonumber(limitInfo[4])
+    leftToken = math.min(capacity, tonumber(limitInfo[3]) + math.max(0, nowTs - lastTs) * tokenRate)
+    nowTs = math.max(nowTs, lastTs)
+end
+leftToken = math.min(capacity, leftToken + tonumber(ARGV[7]) * requestNeed)
+local permits = math.min(tonumber(ARGV[6]), math.floor(leftToken / requestNeed))
+leftToken = leftToken - permits * requestNeed
+redis.call('hmset', KEYS[1], 'capacity', capacity, 'funnelRate', tokenRate, 'leftToken', leftToken, 'lastTs', nowTs)
+return permits
@@ -0,0 +1,29 @@
+--参数说明,key[1]为对应服务接口的信息，argv1为当前时间戳,argv2为窗口毫秒数,argv3为通过的请求数,argv4为子窗口个数
+--把窗口分成若干个子窗口，hash中field为子窗口序号，value为该子窗口通过的请求数，内存只与子窗口个数有关
+local nowTs = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local passCount = tonumber(ARGV[3])
+local buckets = tonumber(ARGV[4])
+local bucketSize = math.ceil(window / buckets)
+local current = math.floor(nowTs / bucketSize)
+local oldest = current - buckets + 1
+local counts = redis.call('hgetall', KEYS[1])
+local total = 0
+local expired = {}
+for i = 1, #counts, 2 do
+    if tonumber(counts[i]) < oldest then
+        table.insert(expired, counts[i])
+    else
+        total = total + tonumber(counts[i + 1])
+    end
+end
+--删除已经滑出窗口的子窗口
+if #expired > 0 then
+    redis.call('hdel', KEYS[1], unpack(expired))
+end
+if total >= passCount then
+    return false
+end
+redis.call('hincrby', KEYS[1], current, 1)
+redis.call('pexpire', KEYS[1], window + bucketSize)
+return true
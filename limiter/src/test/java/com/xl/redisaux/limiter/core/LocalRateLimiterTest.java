@@ -0,0 +1,131 @@
+package com.xl.redisaux.limiter.core;
+
+import com.xl.redisaux.common.consts.LimiterConstants;
+import com.xl.redisaux.limiter.config.FunnelRateConfig;
+import com.xl.redisaux.limiter.config.LimiteGroupConfig;
+import com.xl.redisaux.limiter.config.TokenRateConfig;
+import com.xl.redisaux.limiter.config.WindowRateConfig;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author lulu
+ * @Date 2026/10/18 18:40
+ * 本地限流器按组的配置调用，不经过注解，每个用例用自己的组id，键互不影响
+ */
+public class LocalRateLimiterTest {
+
+    @Test
+    public void windowRejectsOverPassCount() throws InterruptedException {
+        LocalWindowRateLimiter limiter = new LocalWindowRateLimiter();
+        LimiteGroupConfig group = group("window", window(5, 200));
+        assertEquals(5, passes(limiter, group, "a", 10));
+        //其他键单独计数
+        assertEquals(5, passes(limiter, group, "b", 10));
+        Thread.sleep(250L);
+        assertEquals(5, passes(limiter, group, "a", 10));
+    }
+
+    @Test
+    public void windowPassCountChangeTakesEffect() {
+        LocalWindowRateLimiter limiter = new LocalWindowRateLimiter();
+        assertEquals(3, passes(limiter, group("resize", window(3, 60000)), "a", 10));
+        assertEquals(6, passes(limiter, group("resize", window(6, 60000)), "a", 10));
+    }
+
+    @Test
+    public void windowAllowsExactlyPassCountUnderContention() throws Exception {
+        LocalWindowRateLimiter limiter = new LocalWindowRateLimiter();
+        LimiteGroupConfig group = group("contended", window(100, 60000));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit((Callable<Integer>) () -> passes(limiter, group, "a", 1000)));
+            }
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get();
+            }
+            assertEquals(100, total);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 与脚本一致，第一次请求初始化桶并直接放行，之后消耗initToken
+     */
+    @Test
+    public void tokenConsumesInitTokenThenRefills() throws InterruptedException {
+        LocalTokenRateLimiter limiter = new LocalTokenRateLimiter();
+        LimiteGroupConfig group = LimiteGroupConfig.of().id("token").currentMode(LimiterConstants.TOKEN_LIMITER)
+                .tokenConfig(TokenRateConfig.of().capacity(5.0).requestNeed(1.0).tokenRate(10.0).tokenRateUnit(TimeUnit.SECONDS).initToken(3.0).build())
+                .build();
+        assertTrue(limiter.canExecute(group, "a"));
+        int passed = passes(limiter, group, "a", 10);
+        //执行期间可能补充一个令牌
+        assertTrue("passed=" + passed, passed == 3 || passed == 4);
+        assertFalse(limiter.canExecute(group, "a"));
+        Thread.sleep(150L);
+        assertTrue(limiter.canExecute(group, "a"));
+        //补充的令牌不超过容量
+        Thread.sleep(1000L);
+        assertTrue(passes(limiter, group, "a", 10) <= 6);
+    }
+
+    @Test
+    public void funnelFillsToCapacityThenLeaks() throws InterruptedException {
+        LocalFunnelRateLimiter limiter = new LocalFunnelRateLimiter();
+        LimiteGroupConfig group = LimiteGroupConfig.of().id("funnel").currentMode(LimiterConstants.FUNNEL_LIMITER)
+                .funnelConfig(FunnelRateConfig.of().capacity(5.0).requestNeed(1.0).funnelRate(10.0).funnelRateUnit(TimeUnit.SECONDS).build())
+                .build();
+        int passed = passes(limiter, group, "a", 10);
+        assertTrue("passed=" + passed, passed == 5 || passed == 6);
+        assertFalse(limiter.canExecute(group, "a"));
+        Thread.sleep(150L);
+        assertTrue(limiter.canExecute(group, "a"));
+    }
+
+    /**
+     * 键的个数超过上限时淘汰，不会无限增长
+     */
+    @Test
+    public void localStateMapIsBounded() {
+        Map<String, Object> map = BaseRateLimiter.localStateMap();
+        long max = LimiterConstants.LOCAL_LIMITER_MAX_KEYS;
+        for (long i = 0; i < max + max / 2; i++) {
+            map.put("key" + i, Boolean.TRUE);
+        }
+        assertTrue("size=" + map.size(), map.size() <= max);
+        assertNotNull(map.get("key" + (max + max / 2 - 1)));
+    }
+
+    private static int passes(BaseRateLimiter limiter, LimiteGroupConfig group, String methodKey, int attempts) {
+        int passed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.canExecute(group, methodKey)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private static WindowRateConfig window(long passCount, long duringMillis) {
+        return WindowRateConfig.of().passCount(passCount).during(duringMillis).duringUnit(TimeUnit.MILLISECONDS).build();
+    }
+
+    private static LimiteGroupConfig group(String id, WindowRateConfig windowRateConfig) {
+        return LimiteGroupConfig.of().id(id).currentMode(LimiterConstants.WINDOW_LIMITER).windowConfig(windowRateConfig).build();
+    }
+}